@@ -32,6 +32,8 @@ public final class KafkaConstants {
 
     // Bean 名称
     public static final String LISTENER_CONTAINER_FACTORY = "kafkaListenerContainerFactory";
+    /** 行情主题专用监听工厂，值按 {@link QuotationDeserializer} 解码（二进制/JSON 自动识别） */
+    public static final String QUOTATION_LISTENER_CONTAINER_FACTORY = "quotationListenerContainerFactory";
 
     // ======================== 运行期元数据（展示/治理） ========================
     /** 主题元数据对象：封装 code/name/desc/category 等信息 */
@@ -0,0 +1,268 @@
+package integration.kafka;
+
+import dto.HistoryTrendDTO;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 行情 tick 二进制编解码（quotation topic 线上格式）
+ * <p>
+ * 设计目的：
+ * 1. 替代逐条 JSON 文本，分钟线消息由约 110 字节降为 35 字节定长记录；
+ * 2. 解码只做定长读取与整数除法，无词法分析、无日期格式化；
+ * 3. 首字节为版本号，JSON 消息首字节恒为 '{'，消费端据此兼容新旧两种格式，支持滚动升级。
+ * <p>
+ * 版本 1 布局（大端序）：
+ * <pre>
+ * offset size  field
+ * 0      1     version = 1
+ * 1      1     flags: bit0=代码已压缩, bit1=有成交量, bit2=有均价
+ * 2      5     代码已压缩: int 数字代码 + byte(数字位数 << 4 | 交易所下标)
+ *        1+n   否则: byte 长度 + ASCII 代码
+ * ..     4     epoch 秒（按北京时间解释 tradeDate，无符号 int）
+ * ..     8     最新价 × 10^6
+ * ..     8     成交量 × 10^2
+ * ..     8     均价 × 10^6
+ * </pre>
+ * 价格保留 6 位小数、成交量保留 2 位小数，超出部分四舍五入。
+ */
+public final class QuotationCodec {
+
+    /** 当前版本号 */
+    public static final byte VERSION_1 = 1;
+
+    /** 行情时间所在时区，与策略引擎 BarStore 一致 */
+    public static final ZoneOffset MARKET_ZONE = ZoneOffset.ofHours(8);
+
+    /** 单条记录的最大字节数（未压缩的最长代码） */
+    public static final int MAX_RECORD_SIZE = 2 + 1 + 255 + 4 + 8 * 3;
+
+    /** 标准 A 股代码的记录字节数 */
+    public static final int PACKED_RECORD_SIZE = 2 + 5 + 4 + 8 * 3;
+
+    private static final int FLAG_PACKED_SYMBOL = 1;
+    private static final int FLAG_VOLUME = 1 << 1;
+    private static final int FLAG_AVERAGE_PRICE = 1 << 2;
+
+    private static final double PRICE_SCALE = 1_000_000D;
+    private static final double VOLUME_SCALE = 100D;
+
+    /** 可压缩的交易所后缀，下标写入线上格式，只能追加不能调整顺序 */
+    private static final String[] EXCHANGES = {"SH", "SZ", "BJ", "HK", "WI", "CSI", "SI", "HI"};
+    private static final int MAX_PACKED_DIGITS = 9;
+
+    /** 解码侧的代码字符串缓存，全市场标的数量有限，避免每条消息新建字符串 */
+    private static final Map<Long, String> SYMBOL_CACHE = new ConcurrentHashMap<>();
+    private static final int SYMBOL_CACHE_LIMIT = 1 << 16;
+
+    private QuotationCodec() {
+    }
+
+    /**
+     * 解码回调，缺失的成交量 / 均价以 {@link Double#NaN} 表示
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void accept(String windCode, long epochSecond, double price, double volume, double averagePrice);
+    }
+
+    /**
+     * 编码 DTO
+     *
+     * @param dto 行情，windCode / tradeDate / latestPrice 不能为空
+     * @return 编码结果
+     */
+    public static byte[] encode(HistoryTrendDTO dto) {
+        if (dto.getTradeDate() == null || dto.getLatestPrice() == null) {
+            throw new IllegalArgumentException("quotation tradeDate and latestPrice are required: " + dto.getWindCode());
+        }
+        return encode(dto.getWindCode(),
+                dto.getTradeDate().toEpochSecond(MARKET_ZONE),
+                dto.getLatestPrice(),
+                dto.getTotalVolume() == null ? Double.NaN : dto.getTotalVolume(),
+                dto.getAveragePrice() == null ? Double.NaN : dto.getAveragePrice());
+    }
+
+    /**
+     * 编码一条行情
+     *
+     * @param windCode     股票代码
+     * @param epochSecond  bar 时间（epoch 秒）
+     * @param price        最新价
+     * @param volume       成交量，缺失传 NaN
+     * @param averagePrice 均价，缺失传 NaN
+     * @return 编码结果
+     */
+    public static byte[] encode(String windCode, long epochSecond, double price, double volume, double averagePrice) {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_RECORD_SIZE);
+        encode(windCode, epochSecond, price, volume, averagePrice, buffer);
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 编码一条行情到调用方复用的缓冲区
+     *
+     * @param out 目标缓冲区，从当前 position 写入
+     * @return 写入的字节数
+     * @throws BufferOverflowException 剩余空间不足
+     */
+    public static int encode(String windCode, long epochSecond, double price, double volume, double averagePrice,
+                             ByteBuffer out) {
+        if (windCode == null || Double.isNaN(price)) {
+            throw new IllegalArgumentException("quotation windCode and latestPrice are required: " + windCode);
+        }
+        if (epochSecond < 0 || epochSecond > 0xFFFF_FFFFL) {
+            throw new IllegalArgumentException("quotation epochSecond out of range: " + epochSecond);
+        }
+        int start = out.position();
+        int flags = 0;
+        if (!Double.isNaN(volume)) {
+            flags |= FLAG_VOLUME;
+        }
+        if (!Double.isNaN(averagePrice)) {
+            flags |= FLAG_AVERAGE_PRICE;
+        }
+        long packed = pack(windCode);
+        if (packed >= 0) {
+            flags |= FLAG_PACKED_SYMBOL;
+        }
+        out.put(VERSION_1).put((byte) flags);
+        if (packed >= 0) {
+            out.putInt((int) (packed >>> 8)).put((byte) packed);
+        } else {
+            byte[] code = windCode.getBytes(StandardCharsets.US_ASCII);
+            if (code.length > 255) {
+                throw new IllegalArgumentException("quotation windCode too long: " + windCode);
+            }
+            out.put((byte) code.length).put(code);
+        }
+        out.putInt((int) epochSecond)
+                .putLong(Math.round(price * PRICE_SCALE))
+                .putLong(Double.isNaN(volume) ? 0L : Math.round(volume * VOLUME_SCALE))
+                .putLong(Double.isNaN(averagePrice) ? 0L : Math.round(averagePrice * PRICE_SCALE));
+        return out.position() - start;
+    }
+
+    /**
+     * 是否为本编解码器的二进制格式（JSON 消息首字节为 '{'）
+     */
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == VERSION_1;
+    }
+
+    /**
+     * 解码一条行情并回调，不创建 DTO
+     *
+     * @throws IllegalArgumentException 版本未知或数据截断
+     */
+    public static void decode(byte[] data, Sink sink) {
+        if (!isBinary(data)) {
+            throw new IllegalArgumentException("unsupported quotation wire version: "
+                    + (data == null || data.length == 0 ? "empty" : data[0]));
+        }
+        ByteBuffer in = ByteBuffer.wrap(data);
+        int flags;
+        String windCode;
+        long epochSecond;
+        long price;
+        long volume;
+        long averagePrice;
+        try {
+            in.get();
+            flags = in.get();
+            if ((flags & FLAG_PACKED_SYMBOL) != 0) {
+                windCode = unpack(((long) in.getInt() << 8) | (in.get() & 0xFF));
+            } else {
+                int length = in.get() & 0xFF;
+                windCode = new String(data, in.position(), length, StandardCharsets.US_ASCII);
+                in.position(in.position() + length);
+            }
+            epochSecond = in.getInt() & 0xFFFF_FFFFL;
+            price = in.getLong();
+            volume = in.getLong();
+            averagePrice = in.getLong();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("truncated quotation record, length=" + data.length, e);
+        }
+        sink.accept(windCode, epochSecond, price / PRICE_SCALE,
+                (flags & FLAG_VOLUME) != 0 ? volume / VOLUME_SCALE : Double.NaN,
+                (flags & FLAG_AVERAGE_PRICE) != 0 ? averagePrice / PRICE_SCALE : Double.NaN);
+    }
+
+    /**
+     * 解码为 DTO
+     */
+    public static HistoryTrendDTO decode(byte[] data) {
+        HistoryTrendDTO dto = new HistoryTrendDTO();
+        decode(data, (windCode, epochSecond, price, volume, averagePrice) -> {
+            dto.setWindCode(windCode);
+            dto.setTradeDate(LocalDateTime.ofEpochSecond(epochSecond, 0, MARKET_ZONE));
+            dto.setLatestPrice(price);
+            dto.setTotalVolume(Double.isNaN(volume) ? null : volume);
+            dto.setAveragePrice(Double.isNaN(averagePrice) ? null : averagePrice);
+        });
+        return dto;
+    }
+
+    /**
+     * 压缩 "数字代码.交易所" 形式的代码：高位为数字代码，低 8 位为 (位数 << 4 | 交易所下标)；不可压缩返回 -1
+     */
+    private static long pack(String windCode) {
+        int dot = windCode.indexOf('.');
+        if (dot <= 0 || dot > MAX_PACKED_DIGITS) {
+            return -1;
+        }
+        int exchange = -1;
+        for (int i = 0; i < EXCHANGES.length; i++) {
+            String suffix = EXCHANGES[i];
+            if (windCode.length() - dot - 1 == suffix.length() && windCode.startsWith(suffix, dot + 1)) {
+                exchange = i;
+                break;
+            }
+        }
+        if (exchange < 0) {
+            return -1;
+        }
+        long code = 0;
+        for (int i = 0; i < dot; i++) {
+            int d = windCode.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            code = code * 10 + d;
+        }
+        return (code << 8) | ((long) dot << 4) | exchange;
+    }
+
+    private static String unpack(long packed) {
+        String cached = SYMBOL_CACHE.get(packed);
+        if (cached != null) {
+            return cached;
+        }
+        int meta = (int) (packed & 0xFF);
+        int digits = meta >>> 4;
+        int exchange = meta & 0x0F;
+        if (digits == 0 || digits > MAX_PACKED_DIGITS || exchange >= EXCHANGES.length) {
+            throw new IllegalArgumentException("invalid packed symbol: " + packed);
+        }
+        StringBuilder sb = new StringBuilder(digits + 4);
+        String code = Long.toString(packed >>> 8);
+        for (int i = code.length(); i < digits; i++) {
+            sb.append('0');
+        }
+        String windCode = sb.append(code).append('.').append(EXCHANGES[exchange]).toString();
+        if (SYMBOL_CACHE.size() < SYMBOL_CACHE_LIMIT) {
+            SYMBOL_CACHE.put(packed, windCode);
+        }
+        return windCode;
+    }
+}
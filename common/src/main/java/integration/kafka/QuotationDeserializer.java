@@ -0,0 +1,35 @@
+package integration.kafka;
+
+import dto.HistoryTrendDTO;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import util.JsonUtil;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * quotation topic 的 Kafka 值反序列化器
+ * <p>
+ * 按首字节识别格式：{@link QuotationCodec} 二进制直接解码，'{' 开头的旧版 JSON 回退到 Jackson，
+ * 生产端切换格式期间新旧消息可混合消费。
+ */
+public class QuotationDeserializer implements Deserializer<HistoryTrendDTO> {
+
+    @Override
+    public HistoryTrendDTO deserialize(String topic, byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        try {
+            if (QuotationCodec.isBinary(data)) {
+                return QuotationCodec.decode(data);
+            }
+            if (data[0] == '{') {
+                return JsonUtil.toBean(new String(data, StandardCharsets.UTF_8), HistoryTrendDTO.class);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("quotation decode failed, topic=" + topic, e);
+        }
+        throw new SerializationException("unsupported quotation wire version " + data[0] + ", topic=" + topic);
+    }
+}
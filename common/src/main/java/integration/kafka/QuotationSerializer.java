@@ -0,0 +1,23 @@
+package integration.kafka;
+
+import dto.HistoryTrendDTO;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * quotation topic 的 Kafka 值序列化器，输出 {@link QuotationCodec} 二进制格式
+ */
+public class QuotationSerializer implements Serializer<HistoryTrendDTO> {
+
+    @Override
+    public byte[] serialize(String topic, HistoryTrendDTO data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return QuotationCodec.encode(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("quotation encode failed, topic=" + topic, e);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package integration.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.utils.Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 行情按标的分区器（quotation topic 生产端）
+ * <p>
+ * 设计目的：
+ * 1. 同一标的永远落在同一分区，消费端可依赖单标的内的消息顺序；
+ * 2. 热门标的按配置的权重用最长处理时间优先（LPT）摊到负载最轻的分区，不再因哈希碰撞挤在同一分区；
+ * 3. 其余标的走一致性哈希环（每分区若干虚拟节点），分区扩容时只有约 1/N 的标的迁移，
+ *    而默认的 murmur2 取模会让绝大多数标的换分区。
+ * <p>
+ * 映射只由（分区数，热门标的配置）决定，多个生产者实例计算结果一致。运行期不会根据观测到的流量改映射，
+ * 否则切换瞬间同一标的的新旧消息分处两个分区，顺序无法保证；观测到的热度按周期输出到日志，
+ * 供下一次在盘前（生产者重启、管道排空时）调整 {@link #HOT_SYMBOLS_CONFIG}。
+ * <p>
+ * 配置项（随生产者配置传入）：
+ * <pre>
+ * quotation.partitioner.hot-symbols     600519.SH=5,300750.SZ=3   热门标的及相对权重
+ * quotation.partitioner.virtual-nodes   128                       每个分区在哈希环上的虚拟节点数
+ * quotation.partitioner.stats-interval-ms 60000                   热度统计日志间隔，0=关闭
+ * </pre>
+ */
+@Slf4j
+public class SymbolPartitioner implements Partitioner {
+
+    public static final String HOT_SYMBOLS_CONFIG = "quotation.partitioner.hot-symbols";
+    public static final String VIRTUAL_NODES_CONFIG = "quotation.partitioner.virtual-nodes";
+    public static final String STATS_INTERVAL_CONFIG = "quotation.partitioner.stats-interval-ms";
+
+    private static final int DEFAULT_VIRTUAL_NODES = 128;
+    private static final long DEFAULT_STATS_INTERVAL_MS = 60_000L;
+    private static final int STATS_TOP_N = 10;
+
+    private Map<String, Double> hotSymbols = Map.of();
+    private int virtualNodes = DEFAULT_VIRTUAL_NODES;
+    private long statsIntervalMs = DEFAULT_STATS_INTERVAL_MS;
+
+    /** 按 topic 缓存的分区布局，分区数变化时重建 */
+    private final Map<String, Layout> layouts = new ConcurrentHashMap<>();
+    private final AtomicLong nullKeyCounter = new AtomicLong(ThreadLocalRandom.current().nextInt());
+
+    /** 热度统计：按标的计数，按周期输出后清零 */
+    private final Map<String, LongAdder> symbolCounts = new ConcurrentHashMap<>();
+    private final AtomicLong statsWindowStart = new AtomicLong(System.currentTimeMillis());
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        Object hot = configs.get(HOT_SYMBOLS_CONFIG);
+        if (hot != null) {
+            hotSymbols = parseHotSymbols(hot.toString());
+        }
+        Object nodes = configs.get(VIRTUAL_NODES_CONFIG);
+        if (nodes != null) {
+            virtualNodes = Integer.parseInt(nodes.toString().trim());
+            if (virtualNodes <= 0) {
+                throw new ConfigException(VIRTUAL_NODES_CONFIG, nodes, "must be positive");
+            }
+        }
+        Object interval = configs.get(STATS_INTERVAL_CONFIG);
+        if (interval != null) {
+            statsIntervalMs = Long.parseLong(interval.toString().trim());
+        }
+        log.info("行情分区器初始化|Symbol_partitioner_configured,hotSymbols={},virtualNodes={},statsIntervalMs={}",
+                hotSymbols, virtualNodes, statsIntervalMs);
+    }
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster) {
+        int partitions = cluster.partitionsForTopic(topic).size();
+        if (keyBytes == null) {
+            // 无 key 的消息没有顺序要求，轮询即可
+            return Utils.toPositive((int) nullKeyCounter.getAndIncrement()) % partitions;
+        }
+        Layout layout = layout(topic, partitions);
+        String symbol = key instanceof String s ? s : new String(keyBytes, StandardCharsets.UTF_8);
+        int partition = layout.partition(symbol, keyBytes);
+        if (statsIntervalMs > 0) {
+            record(topic, symbol, partition, layout);
+        }
+        return partition;
+    }
+
+    /**
+     * 计算标的所在分区（不计入热度统计），供消费端或运维核对映射
+     */
+    public int partition(String topic, String symbol, int partitions) {
+        return layout(topic, partitions).partition(symbol, symbol.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void close() {
+        layouts.clear();
+        symbolCounts.clear();
+    }
+
+    private Layout layout(String topic, int partitions) {
+        Layout layout = layouts.get(topic);
+        if (layout == null || layout.partitions != partitions) {
+            layout = new Layout(partitions, virtualNodes, hotSymbols);
+            layouts.put(topic, layout);
+            log.info("行情分区布局重建|Symbol_partition_layout_built,topic={},partitions={},pinned={}",
+                    topic, partitions, layout.pinned);
+        }
+        return layout;
+    }
+
+    private void record(String topic, String symbol, int partition, Layout layout) {
+        symbolCounts.computeIfAbsent(symbol, k -> new LongAdder()).increment();
+        layout.partitionCounts.incrementAndGet(partition);
+        long now = System.currentTimeMillis();
+        long start = statsWindowStart.get();
+        if (now - start < statsIntervalMs || !statsWindowStart.compareAndSet(start, now)) {
+            return;
+        }
+        long[] perPartition = new long[layout.partitions];
+        long total = 0;
+        for (int p = 0; p < perPartition.length; p++) {
+            perPartition[p] = layout.partitionCounts.getAndSet(p, 0);
+            total += perPartition[p];
+        }
+        List<Map.Entry<String, Long>> top = new ArrayList<>();
+        symbolCounts.forEach((s, c) -> top.add(Map.entry(s, c.sum())));
+        // 统计仅用于观测，清空时与并发计数的少量竞争可以接受
+        symbolCounts.clear();
+        top.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        Map<String, String> hottest = new LinkedHashMap<>();
+        for (int i = 0; i < Math.min(STATS_TOP_N, top.size()); i++) {
+            hottest.put(top.get(i).getKey(), String.format("%.2f%%", total == 0 ? 0D : top.get(i).getValue() * 100D / total));
+        }
+        long max = Arrays.stream(perPartition).max().orElse(0);
+        log.info("行情分区热度|Symbol_partition_stats,topic={},messages={},maxPartitionShare={},partitionCounts={},hotSymbols={}",
+                topic, total, String.format("%.2f%%", total == 0 ? 0D : max * 100D / total),
+                Arrays.toString(perPartition), hottest);
+    }
+
+    /**
+     * 解析 "600519.SH=5,300750.SZ=3"，未写权重按 1
+     */
+    static Map<String, Double> parseHotSymbols(String spec) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (String item : spec.split(",")) {
+            String trimmed = item.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int eq = trimmed.indexOf('=');
+            String symbol = eq < 0 ? trimmed : trimmed.substring(0, eq).trim();
+            double weight;
+            try {
+                weight = eq < 0 ? 1D : Double.parseDouble(trimmed.substring(eq + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new ConfigException(HOT_SYMBOLS_CONFIG, spec, "invalid weight for " + symbol);
+            }
+            if (weight <= 0) {
+                throw new ConfigException(HOT_SYMBOLS_CONFIG, spec, "weight must be positive for " + symbol);
+            }
+            result.put(symbol, weight);
+        }
+        return Map.copyOf(result);
+    }
+
+    /**
+     * 某一分区数下的不可变映射：热门标的固定分区 + 一致性哈希环
+     */
+    static final class Layout {
+        final int partitions;
+        final Map<String, Integer> pinned;
+        private final int[] ringHashes;
+        private final int[] ringPartitions;
+        final AtomicLongArray partitionCounts;
+
+        Layout(int partitions, int virtualNodes, Map<String, Double> hotSymbols) {
+            this.partitions = partitions;
+            this.partitionCounts = new AtomicLongArray(partitions);
+
+            long[] ring = new long[partitions * virtualNodes];
+            int n = 0;
+            for (int p = 0; p < partitions; p++) {
+                for (int v = 0; v < virtualNodes; v++) {
+                    int hash = Utils.murmur2(("partition-" + p + "#" + v).getBytes(StandardCharsets.UTF_8));
+                    // 高 32 位为哈希值（按有符号排序），低 32 位为分区号
+                    ring[n++] = ((long) hash << 32) | p;
+                }
+            }
+            Arrays.sort(ring);
+            this.ringHashes = new int[ring.length];
+            this.ringPartitions = new int[ring.length];
+            for (int i = 0; i < ring.length; i++) {
+                ringHashes[i] = (int) (ring[i] >> 32);
+                ringPartitions[i] = (int) ring[i];
+            }
+            this.pinned = pin(partitions, hotSymbols);
+        }
+
+        int partition(String symbol, byte[] keyBytes) {
+            Integer pinnedPartition = pinned.get(symbol);
+            if (pinnedPartition != null) {
+                return pinnedPartition;
+            }
+            int hash = Utils.murmur2(keyBytes);
+            int index = Arrays.binarySearch(ringHashes, hash);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return ringPartitions[index == ringHashes.length ? 0 : index];
+        }
+
+        /**
+         * LPT：按权重从大到小依次放到当前热门负载最轻的分区，权重相同按代码排序保证各实例结果一致
+         */
+        private static Map<String, Integer> pin(int partitions, Map<String, Double> hotSymbols) {
+            List<Map.Entry<String, Double>> ordered = new ArrayList<>(hotSymbols.entrySet());
+            ordered.sort(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder())
+                    .thenComparing(Map.Entry.comparingByKey()));
+            double[] load = new double[partitions];
+            Map<String, Integer> result = new HashMap<>();
+            for (Map.Entry<String, Double> entry : ordered) {
+                int target = 0;
+                for (int p = 1; p < partitions; p++) {
+                    if (load[p] < load[target]) {
+                        target = p;
+                    }
+                }
+                load[target] += entry.getValue();
+                result.put(entry.getKey(), target);
+            }
+            return Map.copyOf(result);
+        }
+    }
+}
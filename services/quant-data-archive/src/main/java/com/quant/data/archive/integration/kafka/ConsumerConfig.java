@@ -1,6 +1,8 @@
 package com.quant.data.archive.integration.kafka;
 
+import dto.HistoryTrendDTO;
 import integration.kafka.KafkaConstants;
+import integration.kafka.QuotationDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -29,6 +31,31 @@ public class ConsumerConfig {
         return new DefaultKafkaConsumerFactory<>(props);
     }
 
+    /**
+     * 行情主题消费工厂：值反序列化器按首字节识别二进制 / 旧版 JSON，生产端切换格式期间可混合消费
+     */
+    @Bean
+    public ConsumerFactory<String, HistoryTrendDTO> quotationConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(org.apache.kafka.clients.consumer.ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, serversConfig);
+        props.put(org.apache.kafka.clients.consumer.ConsumerConfig.GROUP_ID_CONFIG, KafkaConstants.GROUP_DATA_ARCHIVE);
+        props.put(org.apache.kafka.clients.consumer.ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(org.apache.kafka.clients.consumer.ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, QuotationDeserializer.class);
+        props.put(org.apache.kafka.clients.consumer.ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false); //  关闭自动提交
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    @Bean(KafkaConstants.QUOTATION_LISTENER_CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<String, HistoryTrendDTO> quotationListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, HistoryTrendDTO> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(quotationConsumerFactory());
+        factory.getContainerProperties().setAckMode(
+                org.springframework.kafka.listener.ContainerProperties.AckMode.MANUAL_IMMEDIATE
+        ); //  设置手动提交模式
+        return factory;
+    }
+
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
         ConcurrentKafkaListenerContainerFactory<String, String> factory =
@@ -1,5 +1,6 @@
 package com.quant.data.archive.integration.kafka;
 
+import dto.HistoryTrendDTO;
 import integration.kafka.KafkaConstants;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -30,8 +31,8 @@ public class ConsumerService {
 
     private final AtomicInteger counter = new AtomicInteger(0);
     private volatile long windowStart = System.currentTimeMillis();
-    private volatile String firstMessage = null;
-    private volatile String lastMessage = null;
+    private volatile HistoryTrendDTO firstMessage = null;
+    private volatile HistoryTrendDTO lastMessage = null;
 
     private final ThreadPoolTaskExecutor ioTaskExecutor;
 
@@ -50,7 +51,7 @@ public class ConsumerService {
     @KafkaListener(
             topics = KafkaConstants.TOPIC_QUOTATION,
             groupId = KafkaConstants.GROUP_DATA_ARCHIVE,
-            containerFactory = KafkaConstants.LISTENER_CONTAINER_FACTORY
+            containerFactory = KafkaConstants.QUOTATION_LISTENER_CONTAINER_FACTORY
     )
     /**
      * 消费行情消息并输出统计
@@ -60,10 +61,10 @@ public class ConsumerService {
      * 2. 每秒输出一次统计并重置窗口。
      * 3. 处理成功后手动确认offset。
      *
-     * @param message 消息内容
+     * @param message 行情消息（二进制或 JSON，由反序列化器统一解码）
      * @param ack 手动确认器
      */
-    public void consume(String message, Acknowledgment ack) {  // 注意这里使用手动确认模式
+    public void consume(HistoryTrendDTO message, Acknowledgment ack) {  // 注意这里使用手动确认模式
         // 实现思路：
         // 1. 统计窗口内首尾消息与吞吐。
         // 2. 处理完成后确认offset。
@@ -96,6 +97,6 @@ public class ConsumerService {
             log.error("消息处理异常|Message_handle_error", e);
             // 不提交 offset，消息会重试
         }
-//         待办：这里可以根据windCode解析消息JSON，然后处理策略
+//         待办：这里可以根据windCode处理策略
     }
 }
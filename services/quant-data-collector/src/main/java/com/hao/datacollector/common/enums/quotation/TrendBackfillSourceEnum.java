@@ -0,0 +1,45 @@
+package com.hao.datacollector.common.enums.quotation;
+
+import enums.market.RiskMarketIndexEnum;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 历史分时回补数据源，每个数据源对应一个 Wind 分时接口，限流按数据源独立计算
+ *
+ * @author hli
+ */
+@Getter
+public enum TrendBackfillSourceEnum {
+
+    STOCK("stock"),
+    INDEX("index");
+
+    /** 写入进度表的数据源标识 */
+    private final String code;
+
+    TrendBackfillSourceEnum(String code) {
+        this.code = code;
+    }
+
+    /**
+     * 根据标识获取数据源，忽略大小写
+     */
+    public static TrendBackfillSourceEnum of(String code) {
+        for (TrendBackfillSourceEnum source : values()) {
+            if (source.code.equalsIgnoreCase(code)) {
+                return source;
+            }
+        }
+        throw new IllegalArgumentException("unknown backfill source: " + code);
+    }
+
+    /**
+     * 指数数据源未指定代码时的默认回补范围：风控监控的全部指数
+     */
+    public static List<String> defaultIndexCodes() {
+        return Arrays.stream(RiskMarketIndexEnum.values()).map(RiskMarketIndexEnum::getCode).toList();
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.http.*;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.util.MultiValueMap;
 import org.springframework.util.StringUtils;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -234,6 +235,34 @@ public final class HttpUtil {
         }
     }
 
+    /**
+     * 发送GET请求并以流的方式处理响应体，不把整个响应读成字符串
+     * 响应体只在 extractor 执行期间可读，连接随后关闭
+     *
+     * @param url            请求URL，不能为空
+     * @param headers        自定义请求头，可以为null
+     * @param connectTimeout 连接超时时间（毫秒），必须大于0
+     * @param readTimeout    读取超时时间（毫秒），必须大于0
+     * @param extractor      响应处理器，extractor 自身抛出的运行时异常原样透传
+     * @return extractor 的返回值
+     * @throws HttpRequestException 请求失败或读取响应 IO 异常时抛出
+     */
+    public static <T> T sendGetRequest(String url, HttpHeaders headers, int connectTimeout, int readTimeout,
+                                       ResponseExtractor<T> extractor) {
+        validateUrl(url);
+        validateTimeouts(connectTimeout, readTimeout);
+        try {
+            RestTemplate restTemplate = createRestTemplate(connectTimeout, readTimeout);
+            HttpHeaders requestHeaders = prepareHeaders(headers);
+            log.debug("发送流式GET请求|Send_streaming_get_request,url={}", url);
+            return restTemplate.execute(url, HttpMethod.GET,
+                    request -> request.getHeaders().putAll(requestHeaders), extractor);
+        } catch (RestClientException e) {
+            log.error("GET请求失败|Get_request_failed,url={}", url, e);
+            throw new HttpRequestException("GET request failed: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * 发送Get请求，带查询参数和超时时间
      *
@@ -0,0 +1,53 @@
+package com.hao.datacollector.common.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 匀速限流器：按固定间隔发放许可，调用方在拿到的时间槽之前等待
+ * <p>
+ * 锁内只预占时间槽，等待在锁外进行；使用 {@link ReentrantLock} 而不是 synchronized，
+ * 虚拟线程等待期间不会钉住载体线程。空闲期间不积攒许可，避免恢复时瞬间突发。
+ *
+ * @author hli
+ */
+public final class IntervalRateLimiter {
+
+    private final long intervalNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long nextSlotNanos = System.nanoTime();
+
+    /**
+     * @param permitsPerSecond 每秒许可数，小于等于 0 表示不限流
+     */
+    public IntervalRateLimiter(double permitsPerSecond) {
+        this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0L;
+    }
+
+    /**
+     * 获取一个许可，必要时阻塞等待
+     *
+     * @throws InterruptedException 等待期间被中断
+     */
+    public void acquire() throws InterruptedException {
+        if (intervalNanos == 0) {
+            return;
+        }
+        long slot;
+        lock.lock();
+        try {
+            slot = Math.max(nextSlotNanos, System.nanoTime());
+            nextSlotNanos = slot + intervalNanos;
+        } finally {
+            lock.unlock();
+        }
+        long remaining;
+        while ((remaining = slot - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException("rate limiter wait interrupted");
+            }
+        }
+    }
+}
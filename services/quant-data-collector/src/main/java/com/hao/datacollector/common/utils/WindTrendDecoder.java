@@ -0,0 +1,407 @@
+package com.hao.datacollector.common.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import enums.SpeedIndicatorEnum;
+import util.MathUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Wind 历史分时响应流式解码器
+ * <p>
+ * 响应结构：{@code {股票代码: {yyyyMMdd: [[行]..., [配置行]] | 整数}}}，可能外包一层 {@code {"body": ...}}。
+ * 每个 (股票, 日期) 的最后一行为配置行：前 5 个元素为各列的指标 id，后 5 个元素为各列精度（倒序）；
+ * 其余行中交易时间 / 最新价 / 均价为相对上一行的增量，成交量 / 成交额为当前值。
+ * <p>
+ * 实现思路：
+ * 1. 用 Jackson 流式 token 逐个读取数值，原始行写入可复用的 {@link Group} 缓冲，不构建 Map / List 树，也不把响应读成字符串；
+ * 2. 配置行在每组末尾，读完一组后一次性完成增量还原与精度换算，结果为原始类型数组；
+ * 3. 精度换算用预计算的 10 的幂做一次 IEEE 除法：整数尾数与 10^n 均可精确表示，结果与 BigDecimal 缩放后取 double 一致。
+ * 每解出一组回调一次 {@link Sink}，回调返回后缓冲即被下一组覆盖，内存占用只与单组行数有关。
+ */
+public final class WindTrendDecoder {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /** 外层包装字段 */
+    private static final String WRAPPER_FIELD = "body";
+
+    /** 配置行：5 个指标 id + 5 个精度 */
+    private static final int COLUMNS = 5;
+    private static final int CONFIG_WIDTH = COLUMNS * 2;
+
+    /** 成交量固定按手换算（/100） */
+    private static final int VOLUME_DECIMALS = 2;
+    /** 配置缺失时的默认精度 */
+    private static final int DEFAULT_DECIMALS = 2;
+
+    /** 10^0 ~ 10^22 均可被 double 精确表示 */
+    private static final double[] POW10 = new double[23];
+
+    static {
+        POW10[0] = 1D;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10D;
+        }
+    }
+
+    private WindTrendDecoder() {
+    }
+
+    /**
+     * 单组解码结果回调
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void accept(Group group);
+    }
+
+    /**
+     * 解码响应流
+     *
+     * @param in    响应体
+     * @param group 复用的组缓冲
+     * @param sink  每解出一组（股票 × 日期）回调一次
+     * @return 回调的组数
+     * @throws IOException 读取或 JSON 语法错误
+     */
+    public static int decode(InputStream in, Group group, Sink sink) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            return parser.nextToken() == JsonToken.START_OBJECT ? readRoot(parser, group, sink) : 0;
+        }
+    }
+
+    /**
+     * 整数按 10^decimalPlaces 缩放，与 {@code MathUtil.formatDecimal(value, decimalPlaces, false)} 结果一致
+     */
+    public static double shift(double value, int decimalPlaces) {
+        if (decimalPlaces >= 0 && decimalPlaces < POW10.length && value == Math.rint(value)
+                && Math.abs(value) < 0x1p53) {
+            return value / POW10[decimalPlaces];
+        }
+        // 非整数或超出精确范围时仍走 BigDecimal 截断，保证结果不变
+        return MathUtil.formatDecimal(value, decimalPlaces, false);
+    }
+
+    private static int readRoot(JsonParser parser, Group group, Sink sink) throws IOException {
+        int groups = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (WRAPPER_FIELD.equals(name)) {
+                if (token == JsonToken.START_OBJECT) {
+                    groups += readRoot(parser, group, sink);
+                } else if (token == JsonToken.VALUE_STRING) {
+                    // 包装内容是 JSON 字符串时只能整体取出再解析
+                    try (JsonParser nested = JSON_FACTORY.createParser(parser.getText())) {
+                        if (nested.nextToken() == JsonToken.START_OBJECT) {
+                            groups += readRoot(nested, group, sink);
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            } else if (token == JsonToken.START_OBJECT) {
+                groups += readSymbol(parser, name, group, sink);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return groups;
+    }
+
+    private static int readSymbol(JsonParser parser, String windCode, Group group, Sink sink) throws IOException {
+        int groups = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String date = parser.currentName();
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                // 整数 / null 表示该日无数据
+                parser.skipChildren();
+                continue;
+            }
+            group.reset(windCode, date);
+            readRows(parser, group);
+            if (group.rowCount > 0) {
+                sink.accept(group);
+                groups++;
+            }
+        }
+        return groups;
+    }
+
+    private static void readRows(JsonParser parser, Group group) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            group.beginRow();
+            if (token != JsonToken.START_ARRAY) {
+                // null 或非数组行按空行记录，保持行号
+                parser.skipChildren();
+                continue;
+            }
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == JsonToken.VALUE_NUMBER_INT) {
+                    group.addValue(parser.getLongValue());
+                } else if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+                    group.addValue(parser.getDoubleValue());
+                } else {
+                    parser.skipChildren();
+                    group.addValue(Double.NaN);
+                }
+            }
+        }
+    }
+
+    /**
+     * 单个 (股票, 日期) 的可复用缓冲：原始行 + 解码后的分时序列
+     * <p>
+     * 非线程安全，每个解码调用方独占一个实例。
+     */
+    public static final class Group {
+
+        private String windCode;
+        private String date;
+
+        // 原始行，按行优先存放；缺失值为 NaN
+        private double[] raw = new double[256 * CONFIG_WIDTH];
+        private int[] rowStart = new int[256];
+        private int[] rowWidth = new int[256];
+        private int rowCount;
+        private int valueCount;
+
+        // 解码结果
+        private int size;
+        private int[] times = new int[256];
+        private double[] prices = new double[256];
+        private double[] averagePrices = new double[256];
+        private double[] volumes = new double[256];
+        private double[] amounts = new double[256];
+
+        void reset(String windCode, String date) {
+            this.windCode = windCode;
+            this.date = date;
+            this.rowCount = 0;
+            this.valueCount = 0;
+            this.size = 0;
+        }
+
+        void beginRow() {
+            if (rowCount == rowStart.length) {
+                rowStart = Arrays.copyOf(rowStart, rowCount << 1);
+                rowWidth = Arrays.copyOf(rowWidth, rowCount << 1);
+            }
+            rowStart[rowCount] = valueCount;
+            rowWidth[rowCount] = 0;
+            rowCount++;
+        }
+
+        void addValue(double value) {
+            if (valueCount == raw.length) {
+                raw = Arrays.copyOf(raw, valueCount << 1);
+            }
+            raw[valueCount++] = value;
+            rowWidth[rowCount - 1]++;
+        }
+
+        public String windCode() {
+            return windCode;
+        }
+
+        /**
+         * 交易日，日期键不是合法的 yyyyMMdd 时返回 null
+         */
+        public LocalDate tradeDate() {
+            if (date == null || date.length() != 8) {
+                return null;
+            }
+            int value = 0;
+            for (int i = 0; i < 8; i++) {
+                int d = date.charAt(i) - '0';
+                if (d < 0 || d > 9) {
+                    return null;
+                }
+                value = value * 10 + d;
+            }
+            try {
+                return LocalDate.of(value / 10000, value / 100 % 100, value % 100);
+            } catch (DateTimeException e) {
+                return null;
+            }
+        }
+
+        public String rawDate() {
+            return date;
+        }
+
+        /**
+         * 原始行数（含配置行）
+         */
+        public int rowCount() {
+            return rowCount;
+        }
+
+        /**
+         * 所有行第 2 列之和（含配置行），用于数据异常检测
+         */
+        public double columnOneSum() {
+            double sum = 0D;
+            for (int r = 0; r < rowCount; r++) {
+                if (rowWidth[r] > 1 && !Double.isNaN(raw[rowStart[r] + 1])) {
+                    sum += raw[rowStart[r] + 1];
+                }
+            }
+            return sum;
+        }
+
+        /**
+         * 配置行是否完整
+         */
+        public boolean hasConfig() {
+            return rowCount > 0 && rowWidth[rowCount - 1] >= CONFIG_WIDTH;
+        }
+
+        /**
+         * 指标在行内的列号，不存在返回 -1
+         */
+        public int column(SpeedIndicatorEnum indicator) {
+            return column(indicator.getIndicator());
+        }
+
+        /**
+         * 指标在行内的列号，不存在返回 -1
+         */
+        public int column(int indicatorId) {
+            int config = rowStart[rowCount - 1];
+            for (int c = 0; c < COLUMNS; c++) {
+                if (raw[config + c] == indicatorId) {
+                    return c;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * 列的小数位数：配置行后 5 个元素为倒序的精度
+         */
+        private int decimals(int column) {
+            if (column < 0) {
+                return DEFAULT_DECIMALS;
+            }
+            return (int) raw[rowStart[rowCount - 1] + CONFIG_WIDTH - 1 - column];
+        }
+
+        /**
+         * 还原增量并换算精度，结果通过 {@link #time(int)} 等访问器读取
+         * <p>
+         * 列宽不足的行与时间非法的行跳过（不参与增量累加）；缺失的成交量 / 成交额记为 0。
+         *
+         * @param averagePriceIndicator 均价指标 id，不需要均价时传 -1
+         * @return false=配置行缺失或缺少交易时间 / 最新价列
+         */
+        public boolean decode(int averagePriceIndicator) {
+            size = 0;
+            if (!hasConfig()) {
+                return false;
+            }
+            int timeColumn = column(SpeedIndicatorEnum.TRADE_TIME);
+            int priceColumn = column(SpeedIndicatorEnum.NEW_PRICE);
+            if (timeColumn < 0 || priceColumn < 0) {
+                return false;
+            }
+            int averageColumn = averagePriceIndicator < 0 ? -1 : column(averagePriceIndicator);
+            int volumeColumn = column(SpeedIndicatorEnum.TOTAL_VOLUME);
+            int amountColumn = column(SpeedIndicatorEnum.TOTAL_AMOUNT);
+            int maxColumn = Math.max(Math.max(timeColumn, priceColumn),
+                    Math.max(Math.max(averageColumn, volumeColumn), amountColumn));
+            int priceDecimals = decimals(priceColumn);
+            int averageDecimals = decimals(averageColumn);
+            int amountDecimals = decimals(amountColumn);
+            ensureCapacity(rowCount);
+
+            long time = 0;
+            double price = 0D;
+            double averagePrice = 0D;
+            for (int r = 0; r < rowCount - 1; r++) {
+                if (rowWidth[r] <= maxColumn) {
+                    continue;
+                }
+                int base = rowStart[r];
+                long next = time + (long) valueOrZero(raw[base + timeColumn]);
+                int hours = (int) (next / 10000);
+                int minutes = (int) (next % 10000 / 100);
+                int seconds = (int) (next % 100);
+                if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59 || seconds < 0 || seconds > 59) {
+                    continue;
+                }
+                time = next;
+                price += valueOrZero(raw[base + priceColumn]);
+                if (averageColumn >= 0) {
+                    averagePrice += valueOrZero(raw[base + averageColumn]);
+                }
+                times[size] = (int) time;
+                prices[size] = shift(price, priceDecimals);
+                averagePrices[size] = averageColumn >= 0 ? shift(averagePrice, averageDecimals) : Double.NaN;
+                volumes[size] = volumeColumn >= 0 ? shift(valueOrZero(raw[base + volumeColumn]), VOLUME_DECIMALS) : 0D;
+                amounts[size] = amountColumn >= 0 ? shift(valueOrZero(raw[base + amountColumn]), amountDecimals) : 0D;
+                size++;
+            }
+            return true;
+        }
+
+        /**
+         * 解码后的分时条数
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * 交易时间 HHmmss
+         */
+        public int time(int i) {
+            return times[i];
+        }
+
+        public double price(int i) {
+            return prices[i];
+        }
+
+        /**
+         * 均价，未请求均价时为 NaN
+         */
+        public double averagePrice(int i) {
+            return averagePrices[i];
+        }
+
+        /**
+         * 成交量（手）
+         */
+        public double volume(int i) {
+            return volumes[i];
+        }
+
+        public double amount(int i) {
+            return amounts[i];
+        }
+
+        private void ensureCapacity(int rows) {
+            if (times.length < rows) {
+                int capacity = Math.max(rows, times.length << 1);
+                times = new int[capacity];
+                prices = new double[capacity];
+                averagePrices = new double[capacity];
+                volumes = new double[capacity];
+                amounts = new double[capacity];
+            }
+        }
+
+        private static double valueOrZero(double value) {
+            return Double.isNaN(value) ? 0D : value;
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.hao.datacollector.dal.dao;
 
+import com.hao.datacollector.dto.quotation.BackfillCheckpointDTO;
 import com.hao.datacollector.dto.quotation.HistoryTrendDTO;
 import com.hao.datacollector.dto.quotation.HistoryTrendIndexDTO;
 import com.hao.datacollector.dto.table.quotation.QuotationStockBaseDTO;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.util.List;
 
@@ -96,4 +98,56 @@ public interface QuotationMapper {
             @Param("endDate") String endDate,
             @Param("windCodeList") List<String> stockList
     );
+
+    /**
+     * 流式读取指定日期区间内的股票历史分时数据（按时间升序），逐行返回，不在内存中聚合结果集
+     * 注意：游标只在所属 SqlSession 打开期间可用
+     *
+     * @param startDate 开始日期 yyyyMMdd（含）
+     * @param endDate   结束日期 yyyyMMdd（含）
+     * @return 历史分时数据游标
+     */
+    Cursor<HistoryTrendDTO> scanHistoryTrendByDate(@Param("startDate") String startDate, @Param("endDate") String endDate);
+
+    /**
+     * 获取指定日期区间内已完成的回补分片
+     *
+     * @param source    数据源
+     * @param startDate 开始日期 yyyyMMdd（含）
+     * @param endDate   结束日期 yyyyMMdd（含）
+     * @return 已完成分片（tradeDate 为 yyyyMMdd，含 unitKey 与完成时的 windCodes）
+     */
+    List<BackfillCheckpointDTO> getDoneBackfillUnits(@Param("source") String source, @Param("startDate") String startDate, @Param("endDate") String endDate);
+
+    /**
+     * 统计数据源的回补进度记录数，为 0 表示尚未用回补引擎执行过
+     *
+     * @param source 数据源
+     * @return 进度记录数
+     */
+    int countBackfillCheckpoints(@Param("source") String source);
+
+    /**
+     * 记录分片开始执行：不存在则新增，存在则置为执行中并累加执行次数
+     *
+     * @param checkpoint 分片进度
+     * @return 影响行数
+     */
+    int markBackfillUnitStarted(@Param("checkpoint") BackfillCheckpointDTO checkpoint);
+
+    /**
+     * 更新分片执行结果
+     *
+     * @param checkpoint 分片进度（source / tradeDate / unitKey / status / errorMsg）
+     * @return 影响行数
+     */
+    int updateBackfillUnitStatus(@Param("checkpoint") BackfillCheckpointDTO checkpoint);
+
+    /**
+     * 批量导入已完成分片（已存在的忽略）
+     *
+     * @param checkpointList 分片进度列表
+     * @return 插入数量
+     */
+    int insertBackfillCheckpointList(@Param("checkpointList") List<BackfillCheckpointDTO> checkpointList);
 }
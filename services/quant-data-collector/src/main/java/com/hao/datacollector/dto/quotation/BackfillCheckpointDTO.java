@@ -0,0 +1,36 @@
+package com.hao.datacollector.dto.quotation;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * @author hli
+ * @program: datacollector
+ * @Date 2026-10-17 15:20:11
+ * @description: 历史分时回补进度（tb_quotation_backfill_checkpoint）
+ */
+@Data
+@Schema(description = "历史分时回补分片进度")
+public class BackfillCheckpointDTO {
+
+    @Schema(description = "数据源", example = "stock")
+    private String source;
+
+    @Schema(description = "交易日期 yyyyMMdd", example = "20250711")
+    private String tradeDate;
+
+    @Schema(description = "代码分片标识：哈希桶数-桶号", example = "64-17")
+    private String unitKey;
+
+    @Schema(description = "分片内代码，逗号分隔", example = "600000.SH,600004.SH")
+    private String windCodes;
+
+    @Schema(description = "分片内代码数量", example = "100")
+    private Integer symbolCount;
+
+    @Schema(description = "状态:0=执行中,1=已完成,2=失败", example = "1")
+    private Integer status;
+
+    @Schema(description = "最近一次失败原因")
+    private String errorMsg;
+}
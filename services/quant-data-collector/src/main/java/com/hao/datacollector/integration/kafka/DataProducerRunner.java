@@ -1,13 +1,17 @@
 package com.hao.datacollector.integration.kafka;
 
 import com.hao.datacollector.dto.quotation.HistoryTrendDTO;
+import com.hao.datacollector.properties.QuotationReplayProperties;
 import com.hao.datacollector.service.KafkaProducerService;
 import com.hao.datacollector.service.QuotationService;
+import constants.DateTimeFormatConstants;
 import integration.kafka.KafkaTopics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import util.DateUtil;
 
 import java.util.List;
 
@@ -21,6 +25,12 @@ public class DataProducerRunner implements CommandLineRunner {
     @Autowired
     private QuotationService quotationService;
 
+    @Autowired
+    private QuotationReplayPublisher replayPublisher;
+
+    @Autowired
+    private QuotationReplayProperties replayProperties;
+
     private static final int BATCH_SIZE = 1000; // 每批发送条数，可根据实际情况调整
 
     /**
@@ -63,20 +73,40 @@ public class DataProducerRunner implements CommandLineRunner {
      * - KafkaTemplate 内部会自动根据 batch.size + linger.ms 进行真正的批量发送到 broker
      * - 这样可以减少循环次数，提高发送效率，尤其是面对三千万条历史数据时
      *
+     * 流式回放
+     *
+     * - 不再一次性把结果集加载进内存，改由 QuotationReplayPublisher 游标逐行读取、编码、发送
+     * - kafka.replay.enabled=true 时在独立线程中回放，不阻塞应用启动；speed 控制实时 / N 倍速 / 不限速
+     *
      * @param args
      * @throws Exception
      */
     @Override
     public void run(String... args) throws Exception {
         String topic = KafkaTopics.QUOTATION.code(); // Kafka 统一 topic
-
-        List<HistoryTrendDTO> historyTrendDataByDate = quotationService.getHistoryTrendDataByDate("20250801", null);
-        if (historyTrendDataByDate == null || historyTrendDataByDate.isEmpty()) {
-            log.warn("没有获取到历史行情数据，topic={}", topic);
+        if (!replayProperties.isEnabled()) {
+            log.info("行情回放未开启|Quotation_replay_disabled,topic={}", topic);
             return;
         }
-
-        log.info("开始发送历史行情数据到_Kafka_topic={}，总条数={}", topic, historyTrendDataByDate.size());
+        String startDate = replayProperties.getStartDate();
+        String endDate = StringUtils.hasLength(replayProperties.getEndDate())
+                ? replayProperties.getEndDate()
+                : DateUtil.getCurrentDateTimeByStr(DateTimeFormatConstants.COMPACT_DATE_FORMAT);
+        if (!StringUtils.hasLength(startDate)) {
+            log.warn("行情回放缺少开始日期|Quotation_replay_missing_start_date,topic={}", topic);
+            return;
+        }
+        // 回放可能持续数小时（实时倍速），放在独立线程中执行
+        Thread.ofPlatform().name("quotation-replay").start(() -> {
+            try {
+                replayPublisher.replay(topic, startDate, endDate);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("行情回放被中断|Quotation_replay_interrupted,topic={}", topic);
+            } catch (Exception e) {
+                log.error("行情回放异常|Quotation_replay_error,topic={}", topic, e);
+            }
+        });
 
         // ---------------- 批量发送逻辑 ----------------
 //        while (true){
@@ -0,0 +1,189 @@
+package com.hao.datacollector.integration.kafka;
+
+import com.hao.datacollector.dal.dao.QuotationMapper;
+import com.hao.datacollector.dto.quotation.HistoryTrendDTO;
+import com.hao.datacollector.properties.QuotationReplayProperties;
+import integration.kafka.QuotationCodec;
+import integration.kafka.SymbolPartitioner;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteBufferSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 历史行情流式回放
+ * <p>
+ * 设计目的：
+ * 1. 回放 tb_quotation_history_hot 时不再把整个结果集加载进 List，读库、编码、发送全程流式进行，内存占用与数据量无关；
+ * 2. 支持实时 / N 倍速 / 不限速三种回放节奏，供策略引擎做回测式重放；
+ * 3. 以在途消息上限做背压，broker 跟不上时阻塞读取线程，而不是无限堆积在生产者缓冲区。
+ * <p>
+ * 核心实现思路：
+ * - MyBatis Cursor + MySQL 流式结果集逐行读取；
+ * - 每行编码进同一个复用的 {@link ByteBuffer}，ByteBufferSerializer 在 send 调用内同步取出字节，缓冲区随即可复用；
+ * - 独立的 KafkaTemplate 覆盖 linger.ms / batch.size / compression.type，其余配置与默认生产者一致；
+ * - Semaphore 限制在途消息数，发送回调中释放；
+ * - 分区由 {@link SymbolPartitioner} 决定，与实时发送一致。
+ */
+@Slf4j
+@Component
+public class QuotationReplayPublisher {
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final QuotationReplayProperties properties;
+    private final KafkaTemplate<String, ByteBuffer> replayTemplate;
+
+    @SuppressWarnings("unchecked")
+    public QuotationReplayPublisher(SqlSessionFactory sqlSessionFactory,
+                                    KafkaTemplate<String, String> kafkaTemplate,
+                                    QuotationReplayProperties properties,
+                                    @Value("${kafka.quotation.hot-symbols:}") String hotSymbols) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.properties = properties;
+        // 同一个生产者工厂按回放场景覆盖序列化器与攒批参数，泛型需经通配符转换
+        ProducerFactory<String, ByteBuffer> producerFactory =
+                (ProducerFactory<String, ByteBuffer>) (ProducerFactory<?, ?>) kafkaTemplate.getProducerFactory();
+        this.replayTemplate = new KafkaTemplate<>(producerFactory, Map.of(
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteBufferSerializer.class,
+                ProducerConfig.LINGER_MS_CONFIG, properties.getLingerMs(),
+                ProducerConfig.BATCH_SIZE_CONFIG, properties.getBatchSize(),
+                ProducerConfig.COMPRESSION_TYPE_CONFIG, properties.getCompressionType(),
+                // 与实时发送使用同一分区映射，回放与实时行情的同一标的落在同一分区
+                ProducerConfig.PARTITIONER_CLASS_CONFIG, SymbolPartitioner.class,
+                SymbolPartitioner.HOT_SYMBOLS_CONFIG, hotSymbols));
+    }
+
+    /**
+     * 回放指定日期区间的历史分时行情
+     *
+     * @param topic     目标 topic
+     * @param startDate 开始日期 yyyyMMdd（含）
+     * @param endDate   结束日期 yyyyMMdd（含）
+     * @return 成功发送的条数
+     * @throws InterruptedException 回放线程被中断
+     */
+    public long replay(String topic, String startDate, String endDate) throws InterruptedException {
+        double speed = properties.getSpeed();
+        long maxGapMillis = TimeUnit.SECONDS.toMillis(properties.getMaxGapSeconds());
+        int maxInFlight = properties.getMaxInFlight();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicLong acked = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        ByteBuffer buffer = ByteBuffer.allocate(QuotationCodec.MAX_RECORD_SIZE);
+
+        log.info("行情回放开始|Quotation_replay_start,topic={},startDate={},endDate={},speed={},maxInFlight={}",
+                topic, startDate, endDate, speed, maxInFlight);
+        long startNanos = System.nanoTime();
+        long sent = 0;
+        long skipped = 0;
+        // 回放时钟：行情时间锚点与对应的墙钟锚点
+        long eventAnchor = Long.MIN_VALUE;
+        long wallAnchor = 0;
+        long lastEvent = Long.MIN_VALUE;
+
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Cursor<HistoryTrendDTO> cursor = session.getMapper(QuotationMapper.class)
+                     .scanHistoryTrendByDate(startDate, endDate)) {
+            for (HistoryTrendDTO dto : cursor) {
+                if (dto.getWindCode() == null || dto.getTradeDate() == null || dto.getLatestPrice() == null) {
+                    skipped++;
+                    continue;
+                }
+                long epochSecond = dto.getTradeDate().toEpochSecond(QuotationCodec.MARKET_ZONE);
+                if (speed > 0) {
+                    long eventMillis = epochSecond * 1000L;
+                    if (eventAnchor == Long.MIN_VALUE || eventMillis - lastEvent > maxGapMillis || eventMillis < lastEvent) {
+                        // 首条或跨午休/隔夜：重新对齐时钟，不等待空档
+                        eventAnchor = eventMillis;
+                        wallAnchor = System.nanoTime();
+                    } else {
+                        pace(wallAnchor + (long) ((eventMillis - eventAnchor) * 1_000_000D / speed));
+                    }
+                    lastEvent = eventMillis;
+                }
+
+                buffer.clear();
+                try {
+                    QuotationCodec.encode(dto.getWindCode(), epochSecond, dto.getLatestPrice(),
+                            dto.getTotalVolume() == null ? Double.NaN : dto.getTotalVolume(),
+                            dto.getAveragePrice() == null ? Double.NaN : dto.getAveragePrice(),
+                            buffer);
+                } catch (IllegalArgumentException e) {
+                    skipped++;
+                    log.warn("行情回放编码失败_跳过|Quotation_replay_encode_skipped,windCode={},error={}",
+                            dto.getWindCode(), e.getMessage());
+                    continue;
+                }
+                buffer.flip();
+
+                inFlight.acquire();
+                String key = dto.getWindCode();
+                try {
+                    replayTemplate.send(topic, key, buffer).whenComplete((result, ex) -> {
+                        inFlight.release();
+                        if (ex == null) {
+                            acked.incrementAndGet();
+                        } else if (failed.getAndIncrement() == 0) {
+                            // 只打印首个失败，避免 broker 不可用时刷屏
+                            log.error("行情回放发送失败|Quotation_replay_send_error,key={},error={}", key, ex.getMessage(), ex);
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    throw e;
+                }
+                sent++;
+                if (sent % properties.getProgressInterval() == 0) {
+                    long elapsedMs = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                    log.info("行情回放进度|Quotation_replay_progress,sent={},acked={},failed={},tradeDate={},tps={}",
+                            sent, acked.get(), failed.get(), dto.getTradeDate(), sent * 1000L / elapsedMs);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("行情回放游标关闭异常|Quotation_replay_cursor_close_error,error={}", e.getMessage());
+        } finally {
+            // 等待所有在途消息确认后再统计
+            replayTemplate.flush();
+            inFlight.acquireUninterruptibly(maxInFlight);
+            inFlight.release(maxInFlight);
+        }
+
+        long elapsedMs = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        log.info("行情回放完成|Quotation_replay_done,topic={},sent={},acked={},failed={},skipped={},elapsedMs={},tps={}",
+                topic, sent, acked.get(), failed.get(), skipped, elapsedMs, sent * 1000L / elapsedMs);
+        return acked.get();
+    }
+
+    /**
+     * 等待到指定墙钟时刻（System.nanoTime 基准）
+     */
+    private static void pace(long deadlineNanos) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException("quotation replay interrupted");
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        replayTemplate.destroy();
+    }
+}
@@ -0,0 +1,45 @@
+package com.hao.datacollector.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author hli
+ * @program: data-collector
+ * @Date 2026-10-17 15:12:40
+ * @description: 历史分时回补配置（交易日 × 代码分片 并发拉取）
+ */
+@Data
+@ConfigurationProperties(prefix = "quotation.backfill")
+@Component
+public class QuotationBackfillProperties {
+    /**
+     * 单个分片的目标代码数量，即单次 Wind 请求携带的代码数；代码按哈希分桶，实际数量在该值附近波动
+     */
+    private int chunkSize = 100;
+    /**
+     * 全局并发上限：同时在途的分片数
+     */
+    private int maxConcurrency = 16;
+    /**
+     * 股票分时接口每秒最多发起的请求数，0=不限
+     */
+    private double stockPermitsPerSecond = 8D;
+    /**
+     * 指数分时接口每秒最多发起的请求数，0=不限
+     */
+    private double indexPermitsPerSecond = 2D;
+    /**
+     * 单个分片最多执行次数（含首次），超过后记为失败，下次回补重新执行
+     */
+    private int maxAttempts = 3;
+    /**
+     * 分片重试前的基础等待毫秒数，按执行次数递增
+     */
+    private long retryBackoffMs = 2000L;
+    /**
+     * 每完成多少个分片输出一次进度
+     */
+    private int progressInterval = 200;
+}
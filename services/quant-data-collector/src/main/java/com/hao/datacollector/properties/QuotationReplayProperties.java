@@ -0,0 +1,57 @@
+package com.hao.datacollector.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author hli
+ * @program: data-collector
+ * @Date 2026-10-17 10:12:31
+ * @description: 历史行情回放配置（tb_quotation_history_hot → Kafka quotation topic）
+ */
+@Data
+@ConfigurationProperties(prefix = "kafka.replay")
+@Component
+public class QuotationReplayProperties {
+    /**
+     * 是否在启动时回放
+     */
+    private boolean enabled = false;
+    /**
+     * 回放起始日期 yyyyMMdd（含）
+     */
+    private String startDate;
+    /**
+     * 回放结束日期 yyyyMMdd（含），为空取当天
+     */
+    private String endDate;
+    /**
+     * 回放倍速：0=不限速，1=按行情时间实时回放，N=N 倍速
+     */
+    private double speed = 0D;
+    /**
+     * 行情时间跳变超过该秒数（午休、隔夜）时不等待，直接接续
+     */
+    private long maxGapSeconds = 300L;
+    /**
+     * 已发送未确认的最大消息数，达到上限时读取线程阻塞等待 broker 确认
+     */
+    private int maxInFlight = 20_000;
+    /**
+     * 生产者 linger.ms：攒批等待时间
+     */
+    private int lingerMs = 20;
+    /**
+     * 生产者 batch.size：单分区批次字节数
+     */
+    private int batchSize = 256 * 1024;
+    /**
+     * 生产者 compression.type
+     */
+    private String compressionType = "lz4";
+    /**
+     * 每发送多少条输出一次进度
+     */
+    private int progressInterval = 100_000;
+}
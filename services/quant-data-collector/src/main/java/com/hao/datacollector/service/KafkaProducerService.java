@@ -2,14 +2,22 @@ package com.hao.datacollector.service;
 
 import com.alibaba.fastjson.JSON;
 import com.hao.datacollector.dto.quotation.HistoryTrendDTO;
+import integration.kafka.QuotationCodec;
+import integration.kafka.SymbolPartitioner;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
@@ -17,23 +25,61 @@ public class KafkaProducerService {
 
     private final KafkaTemplate<String, String> kafkaTemplate;
 
+    /**
+     * 行情二进制发送模板：与 kafkaTemplate 共用同一份生产者配置，仅把值序列化器替换为字节数组。
+     * 不单独声明 KafkaTemplate Bean，避免顶掉 Spring Boot 自动配置的默认模板
+     */
+    private final KafkaTemplate<String, byte[]> quotationTemplate;
+
+    /** true=行情按 QuotationCodec 二进制发送；false=回退到 JSON 文本（消费端两种格式都能识别） */
+    private final boolean binaryQuotation;
+
     private static final int BATCH_SIZE = 500; // 每批发送条数
 
     private final ThreadPoolTaskExecutor executor; // 注入 IO线程池
 
     //量化/IO线程池
+    @SuppressWarnings("unchecked")
     public KafkaProducerService(KafkaTemplate<String, String> kafkaTemplate,
-                                @Qualifier("ioTaskExecutor") ThreadPoolTaskExecutor executor) {
+                                @Qualifier("ioTaskExecutor") ThreadPoolTaskExecutor executor,
+                                @Value("${kafka.quotation.binary:true}") boolean binaryQuotation,
+                                @Value("${kafka.quotation.hot-symbols:}") String hotSymbols) {
         this.kafkaTemplate = kafkaTemplate;
         this.executor = executor;
+        this.binaryQuotation = binaryQuotation;
+        // 同一个生产者工厂的值序列化器按配置覆盖为字节数组，泛型需经通配符转换
+        ProducerFactory<String, byte[]> producerFactory =
+                (ProducerFactory<String, byte[]>) (ProducerFactory<?, ?>) kafkaTemplate.getProducerFactory();
+        // 行情按标的分区：同一标的固定分区，热门标的按权重分散到不同分区
+        this.quotationTemplate = new KafkaTemplate<>(producerFactory, Map.of(
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class,
+                ProducerConfig.PARTITIONER_CLASS_CONFIG, SymbolPartitioner.class,
+                SymbolPartitioner.HOT_SYMBOLS_CONFIG, hotSymbols));
+        log.info("行情发送格式|Quotation_wire_format,binary={}", binaryQuotation);
     }
 
     /**
-     * 单条发送（原有方法不变）
+     * 单条发送：默认按 QuotationCodec 二进制编码（约 35 字节/条），关闭开关后回退到 JSON 文本
      */
     public void send(String topic, String key, HistoryTrendDTO value) {
-        String json = JSON.toJSONString(value);
-        kafkaTemplate.send(topic, key, json)
+        if (!binaryQuotation) {
+            String json = JSON.toJSONString(value);
+            kafkaTemplate.send(topic, key, json)
+                    .whenComplete((result, ex) -> {
+                        if (ex != null) {
+                            log.error("日志记录|Log_message,kafka—sendError!_key={},_error={}", key, ex.getMessage(), ex);
+                        }
+                    });
+            return;
+        }
+        byte[] payload;
+        try {
+            payload = encode(value);
+        } catch (IllegalArgumentException e) {
+            log.warn("行情编码失败_跳过|Quotation_encode_skipped,key={},error={}", key, e.getMessage());
+            return;
+        }
+        quotationTemplate.send(topic, key, payload)
                 .whenComplete((result, ex) -> {
                     if (ex != null) {
                         log.error("日志记录|Log_message,kafka—sendError!_key={},_error={}", key, ex.getMessage(), ex);
@@ -41,6 +87,17 @@ public class KafkaProducerService {
                 });
     }
 
+    private static byte[] encode(HistoryTrendDTO value) {
+        if (value.getTradeDate() == null || value.getLatestPrice() == null) {
+            throw new IllegalArgumentException("tradeDate and latestPrice are required");
+        }
+        return QuotationCodec.encode(value.getWindCode(),
+                value.getTradeDate().toEpochSecond(QuotationCodec.MARKET_ZONE),
+                value.getLatestPrice(),
+                value.getTotalVolume() == null ? Double.NaN : value.getTotalVolume(),
+                value.getAveragePrice() == null ? Double.NaN : value.getAveragePrice());
+    }
+
     /**
      * 高性能批量发送
      * - 按 BATCH_SIZE 拆分
@@ -77,4 +134,12 @@ public class KafkaProducerService {
             }
         });
     }
+
+    /**
+     * 关闭按配置覆盖创建的二进制生产者，发送缓冲中的行情先刷出
+     */
+    @PreDestroy
+    public void close() {
+        quotationTemplate.destroy();
+    }
 }
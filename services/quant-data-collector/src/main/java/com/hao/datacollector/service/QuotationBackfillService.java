@@ -0,0 +1,33 @@
+package com.hao.datacollector.service;
+
+import java.util.List;
+
+/**
+ * @author hli
+ * @program: datacollector
+ * @Date 2026-10-17 15:08:52
+ * @description: 历史分时回补service
+ */
+public interface QuotationBackfillService {
+    /**
+     * 后台启动历史分时回补，立即返回
+     *
+     * @param source    数据源:stock/index
+     * @param startDate 开始日期 yyyyMMdd（含）
+     * @param endDate   结束日期 yyyyMMdd（含），为空取当天
+     * @param windCodes 回补代码，为空取数据源默认全量
+     * @return false=已有回补任务在执行
+     */
+    Boolean startHistoryTrendBackfill(String source, String startDate, String endDate, List<String> windCodes);
+
+    /**
+     * 在当前线程执行历史分时回补，全部分片完成后返回
+     *
+     * @param source    数据源:stock/index
+     * @param startDate 开始日期 yyyyMMdd（含）
+     * @param endDate   结束日期 yyyyMMdd（含），为空取当天
+     * @param windCodes 回补代码，为空取数据源默认全量
+     * @return true=全部分片完成，false=存在失败分片或已有回补任务在执行
+     */
+    Boolean runHistoryTrendBackfill(String source, String startDate, String endDate, List<String> windCodes);
+}
@@ -24,6 +24,8 @@ public interface QuotationService {
 
     /**
      * 转档股票历史分时数据
+     * <p>
+     * 边解码边分批落库，中途因数据异常失败时已落库部分保留；写入幂等，失败后可整体重跑。
      *
      * @param tradeDate 交易日期,如:20220608
      * @param windCodes 股票代码List
@@ -32,6 +34,19 @@ public interface QuotationService {
      */
     Boolean transferQuotationHistoryTrend(int tradeDate, String windCodes, Integer dateType);
 
+    /**
+     * 转档股票历史分时数据，指定网络失败的重试次数
+     * <p>
+     * 调用方自行限速与重试时传 0，每次 HTTP 请求都经过调用方的限流器。
+     *
+     * @param tradeDate  交易日期,如:20220608
+     * @param windCodes  股票代码List
+     * @param dateType   时间类型,0表示固定时间
+     * @param maxRetries 网络 / IO 失败的最大重试次数，0=不重试
+     * @return 操作结果
+     */
+    Boolean transferQuotationHistoryTrend(int tradeDate, String windCodes, Integer dateType, int maxRetries);
+
 
     /**
      * 转档指标历史分时数据
@@ -43,6 +58,17 @@ public interface QuotationService {
      */
     Boolean transferQuotationIndexHistoryTrend(int tradeDate, String windCodes, Integer dateType);
 
+    /**
+     * 转档指标历史分时数据，指定网络失败的重试次数
+     *
+     * @param tradeDate  交易日期,如:20220608
+     * @param windCodes  指标代码List
+     * @param dateType   时间类型,0表示固定时间
+     * @param maxRetries 网络 / IO 失败的最大重试次数，0=不重试
+     * @return 操作结果
+     */
+    Boolean transferQuotationIndexHistoryTrend(int tradeDate, String windCodes, Integer dateType, int maxRetries);
+
     /**
      * 根据时间区间获取A股历史分时数据
      *
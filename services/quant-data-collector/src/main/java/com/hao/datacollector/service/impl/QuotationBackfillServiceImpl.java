@@ -0,0 +1,385 @@
+package com.hao.datacollector.service.impl;
+
+import com.hao.datacollector.cache.StockCache;
+import com.hao.datacollector.common.enums.quotation.TrendBackfillSourceEnum;
+import com.hao.datacollector.common.utils.IntervalRateLimiter;
+import com.hao.datacollector.dal.dao.QuotationMapper;
+import com.hao.datacollector.dto.quotation.BackfillCheckpointDTO;
+import com.hao.datacollector.properties.QuotationBackfillProperties;
+import com.hao.datacollector.service.BaseDataService;
+import com.hao.datacollector.service.QuotationBackfillService;
+import com.hao.datacollector.service.QuotationService;
+import constants.DateTimeFormatConstants;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+import util.DateUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 历史分时回补实现
+ * <p>
+ * 设计目的：
+ * 1. 取代逐日、逐批在请求线程里串行调用转档接口的回补方式，多年回补由按天计降为按小时计；
+ * 2. 进度按分片落表，进程崩溃或重启后只执行未完成的分片；
+ * 3. 并发与请求速率可配置，避免把 Wind 接口打满。
+ * <p>
+ * 核心实现思路：
+ * - 代码按 MD5 哈希分桶，桶数为 代码数 / chunkSize 向上取到 2 的幂，交易日 × 分片 为一个执行单元，分片标识为 桶数-桶号；
+ *   每个代码固定落在同一个桶，上市、退市只影响所在的一个分片，不会让其后所有分片整体移位；
+ * - 每个单元在独立虚拟线程中执行，Semaphore 控制全局在途单元数，每个数据源一个匀速限流器；
+ *   转档接口以不重试方式调用，重试只在单元层进行，每次请求 Wind 都经过限流器；
+ * - 单元开始时记为执行中、成功记为已完成、重试耗尽记为失败；只有已完成且记录的代码覆盖本次分片代码的单元在下次回补时跳过，
+ *   执行中（崩溃遗留）与失败的单元会重新执行，分时写入为 INSERT IGNORE，重复执行不会产生重复数据；
+ * - 数据源首次使用回补引擎时，按原串行转档留下的最大日期与当日已完成代码导入进度，不重复拉取已转档的数据。
+ */
+@Slf4j
+@Service
+public class QuotationBackfillServiceImpl implements QuotationBackfillService {
+
+    private static final int STATUS_DONE = 1;
+    private static final int STATUS_FAILED = 2;
+    private static final int ERROR_MSG_MAX_LENGTH = 500;
+    private static final int IMPORT_BATCH_SIZE = 1000;
+
+    @Autowired
+    private QuotationService quotationService;
+
+    @Autowired
+    private BaseDataService baseDataService;
+
+    @Autowired
+    private QuotationMapper quotationMapper;
+
+    @Autowired
+    private QuotationBackfillProperties properties;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final Map<TrendBackfillSourceEnum, IntervalRateLimiter> rateLimiters = new EnumMap<>(TrendBackfillSourceEnum.class);
+
+    @PostConstruct
+    private void initRateLimiters() {
+        rateLimiters.put(TrendBackfillSourceEnum.STOCK, new IntervalRateLimiter(properties.getStockPermitsPerSecond()));
+        rateLimiters.put(TrendBackfillSourceEnum.INDEX, new IntervalRateLimiter(properties.getIndexPermitsPerSecond()));
+    }
+
+    /**
+     * 后台启动历史分时回补
+     *
+     * @param source    数据源:stock/index
+     * @param startDate 开始日期 yyyyMMdd（含）
+     * @param endDate   结束日期 yyyyMMdd（含），为空取当天
+     * @param windCodes 回补代码，为空取数据源默认全量
+     * @return false=已有回补任务在执行
+     */
+    @Override
+    public Boolean startHistoryTrendBackfill(String source, String startDate, String endDate, List<String> windCodes) {
+        TrendBackfillSourceEnum backfillSource = TrendBackfillSourceEnum.of(source);
+        if (!running.compareAndSet(false, true)) {
+            log.warn("历史分时回补已在执行|Trend_backfill_already_running,source={},startDate={},endDate={}", source, startDate, endDate);
+            return false;
+        }
+        Thread.ofPlatform().name("trend-backfill").start(() -> {
+            try {
+                backfill(backfillSource, startDate, endDate, windCodes);
+            } catch (RuntimeException e) {
+                log.error("历史分时回补异常|Trend_backfill_error,source={},error={}", source, e.getMessage(), e);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 在当前线程执行历史分时回补
+     *
+     * @param source    数据源:stock/index
+     * @param startDate 开始日期 yyyyMMdd（含）
+     * @param endDate   结束日期 yyyyMMdd（含），为空取当天
+     * @param windCodes 回补代码，为空取数据源默认全量
+     * @return true=全部分片完成
+     */
+    @Override
+    public Boolean runHistoryTrendBackfill(String source, String startDate, String endDate, List<String> windCodes) {
+        TrendBackfillSourceEnum backfillSource = TrendBackfillSourceEnum.of(source);
+        if (!running.compareAndSet(false, true)) {
+            log.warn("历史分时回补已在执行|Trend_backfill_already_running,source={},startDate={},endDate={}", source, startDate, endDate);
+            return false;
+        }
+        try {
+            return backfill(backfillSource, startDate, endDate, windCodes);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private boolean backfill(TrendBackfillSourceEnum source, String startDate, String endDate, List<String> windCodes) {
+        if (!StringUtils.hasLength(endDate)) {
+            endDate = DateUtil.getCurrentDateTime(DateTimeFormatConstants.EIGHT_DIGIT_DATE_FORMAT);
+        }
+        List<String> tradeDates = new ArrayList<>(new TreeSet<>(DateUtil.formatLocalDateList(
+                baseDataService.getTradeDateListByTime(startDate, endDate), DateTimeFormatConstants.EIGHT_DIGIT_DATE_FORMAT)));
+        List<Chunk> chunks = split(windCodes == null || windCodes.isEmpty() ? defaultCodes(source) : windCodes);
+        if (tradeDates.isEmpty() || chunks.isEmpty()) {
+            log.warn("历史分时回补无可执行分片|Trend_backfill_empty_plan,source={},startDate={},endDate={},tradeDates={},chunks={}",
+                    source.getCode(), startDate, endDate, tradeDates.size(), chunks.size());
+            return true;
+        }
+
+        // 交易日#分片标识 -> 完成时分片内的代码
+        Map<String, Set<String>> done = new HashMap<>();
+        for (BackfillCheckpointDTO checkpoint : quotationMapper.getDoneBackfillUnits(
+                source.getCode(), tradeDates.get(0), tradeDates.get(tradeDates.size() - 1))) {
+            done.put(checkpoint.getTradeDate() + "#" + checkpoint.getUnitKey(),
+                    new HashSet<>(Arrays.asList(StringUtils.commaDelimitedListToStringArray(checkpoint.getWindCodes()))));
+        }
+        if (quotationMapper.countBackfillCheckpoints(source.getCode()) == 0) {
+            importLegacyProgress(source, tradeDates, chunks, done);
+        }
+        List<Unit> units = new ArrayList<>();
+        for (String tradeDate : tradeDates) {
+            for (Chunk chunk : chunks) {
+                // 分片内新增了代码（如新上市）时重新执行该分片，减少的代码（如退市）不影响
+                Set<String> doneCodes = done.get(tradeDate + "#" + chunk.key());
+                if (doneCodes == null || !doneCodes.containsAll(chunk.codes())) {
+                    units.add(new Unit(tradeDate, chunk));
+                }
+            }
+        }
+        int total = tradeDates.size() * chunks.size();
+        log.info("历史分时回补开始|Trend_backfill_start,source={},startDate={},endDate={},tradeDates={},chunks={},pending={},skipped={},maxConcurrency={}",
+                source.getCode(), tradeDates.get(0), tradeDates.get(tradeDates.size() - 1), tradeDates.size(), chunks.size(),
+                units.size(), total - units.size(), properties.getMaxConcurrency());
+
+        long startNanos = System.nanoTime();
+        Semaphore permits = new Semaphore(properties.getMaxConcurrency());
+        AtomicInteger finished = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        boolean interrupted = false;
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("trend-backfill-", 0).factory())) {
+            for (Unit unit : units) {
+                // 先拿并发许可再提交，在途单元数不超过上限，未提交的单元不占用线程
+                permits.acquire();
+                executor.submit(() -> {
+                    try {
+                        if (!execute(source, unit)) {
+                            failed.incrementAndGet();
+                        }
+                    } finally {
+                        permits.release();
+                        logProgress(source, finished.incrementAndGet(), failed.get(), units.size(), startNanos);
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+            Thread.currentThread().interrupt();
+        }
+
+        long elapsedMs = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        log.info("历史分时回补结束|Trend_backfill_done,source={},finished={},failed={},pending={},interrupted={},elapsedMs={}",
+                source.getCode(), finished.get(), failed.get(), units.size() - finished.get(), interrupted, elapsedMs);
+        return !interrupted && failed.get() == 0 && finished.get() == units.size();
+    }
+
+    /**
+     * 执行单个分片，失败按次数递增退避重试
+     *
+     * @return true=已完成
+     */
+    private boolean execute(TrendBackfillSourceEnum source, Unit unit) {
+        BackfillCheckpointDTO checkpoint = unit.toCheckpoint(source);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                rateLimiters.get(source).acquire();
+                quotationMapper.markBackfillUnitStarted(checkpoint);
+                // 返回 false 表示接口无数据（停牌、未上市）或数据均已存在，同样视为完成；
+                // 转档内部不重试，由本循环重试，每次 HTTP 请求都先经过限流器
+                if (source == TrendBackfillSourceEnum.STOCK) {
+                    quotationService.transferQuotationHistoryTrend(Integer.parseInt(unit.tradeDate()), unit.chunk().windCodes(), 0, 0);
+                } else {
+                    quotationService.transferQuotationIndexHistoryTrend(Integer.parseInt(unit.tradeDate()), unit.chunk().windCodes(), 0, 0);
+                }
+                checkpoint.setStatus(STATUS_DONE);
+                checkpoint.setErrorMsg(null);
+                quotationMapper.updateBackfillUnitStatus(checkpoint);
+                return true;
+            } catch (InterruptedException e) {
+                // 保持执行中状态，下次回补重新执行
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (RuntimeException e) {
+                if (attempt >= properties.getMaxAttempts()) {
+                    markFailed(checkpoint, e);
+                    return false;
+                }
+                log.warn("历史分时回补分片重试|Trend_backfill_unit_retry,source={},tradeDate={},unitKey={},attempt={},error={}",
+                        source.getCode(), unit.tradeDate(), unit.chunk().key(), attempt, e.getMessage());
+                try {
+                    Thread.sleep(properties.getRetryBackoffMs() * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+    }
+
+    private void markFailed(BackfillCheckpointDTO checkpoint, RuntimeException cause) {
+        log.error("历史分时回补分片失败|Trend_backfill_unit_failed,source={},tradeDate={},unitKey={},windCodes={},error={}",
+                checkpoint.getSource(), checkpoint.getTradeDate(), checkpoint.getUnitKey(), checkpoint.getWindCodes(),
+                cause.getMessage(), cause);
+        String message = String.valueOf(cause.getMessage());
+        checkpoint.setStatus(STATUS_FAILED);
+        checkpoint.setErrorMsg(message.length() > ERROR_MSG_MAX_LENGTH ? message.substring(0, ERROR_MSG_MAX_LENGTH) : message);
+        try {
+            quotationMapper.updateBackfillUnitStatus(checkpoint);
+        } catch (RuntimeException e) {
+            // 状态停留在执行中，下次回补同样会重新执行
+            log.warn("历史分时回补失败状态写入异常|Trend_backfill_mark_failed_error,unitKey={},error={}", checkpoint.getUnitKey(), e.getMessage());
+        }
+    }
+
+    /**
+     * 导入原串行转档的进度：最大日期之前的交易日视为全部完成，最大日期当天只有全部代码均已有数据的分片视为完成
+     * <p>
+     * 原转档逐日顺序执行，最大日期之前的交易日必然已转档完毕；仅在数据源没有任何进度记录时导入一次，
+     * 之后以进度表为准（并发回补下最大日期不再代表其之前的日期均已完成）。
+     */
+    private void importLegacyProgress(TrendBackfillSourceEnum source, List<String> tradeDates, List<Chunk> chunks, Map<String, Set<String>> done) {
+        String maxEndDate;
+        Set<String> completedCodes;
+        if (source == TrendBackfillSourceEnum.STOCK) {
+            maxEndDate = quotationMapper.getMaxHistoryTrendEndDate();
+            completedCodes = maxEndDate == null ? Set.of() : new HashSet<>(quotationMapper.getCompletedWindCodes(maxEndDate));
+        } else {
+            maxEndDate = null;
+            int firstYear = Integer.parseInt(tradeDates.get(0).substring(0, 4));
+            for (int year = Integer.parseInt(tradeDates.get(tradeDates.size() - 1).substring(0, 4)); year >= firstYear && maxEndDate == null; year--) {
+                maxEndDate = quotationMapper.getMaxHistoryIndexTrendEndDate(String.valueOf(year));
+            }
+            completedCodes = maxEndDate == null ? Set.of() : new HashSet<>(quotationMapper.getCompletedIndexCodes(maxEndDate));
+        }
+        if (maxEndDate == null) {
+            return;
+        }
+        List<BackfillCheckpointDTO> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        int imported = 0;
+        for (String tradeDate : tradeDates) {
+            int compare = tradeDate.compareTo(maxEndDate);
+            if (compare > 0) {
+                break;
+            }
+            for (Chunk chunk : chunks) {
+                if (compare < 0 || completedCodes.containsAll(chunk.codes())) {
+                    BackfillCheckpointDTO checkpoint = new Unit(tradeDate, chunk).toCheckpoint(source);
+                    checkpoint.setStatus(STATUS_DONE);
+                    batch.add(checkpoint);
+                    done.put(tradeDate + "#" + chunk.key(), new HashSet<>(chunk.codes()));
+                    if (batch.size() >= IMPORT_BATCH_SIZE) {
+                        imported += quotationMapper.insertBackfillCheckpointList(batch);
+                        batch.clear();
+                    }
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            imported += quotationMapper.insertBackfillCheckpointList(batch);
+        }
+        log.info("历史分时回补导入已有进度|Trend_backfill_legacy_imported,source={},maxEndDate={},completedCodes={},imported={}",
+                source.getCode(), maxEndDate, completedCodes.size(), imported);
+    }
+
+    private void logProgress(TrendBackfillSourceEnum source, int finished, int failed, int total, long startNanos) {
+        if (finished % properties.getProgressInterval() != 0 && finished != total) {
+            return;
+        }
+        long elapsedMs = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        long etaSeconds = (total - finished) * elapsedMs / finished / 1000L;
+        log.info("历史分时回补进度|Trend_backfill_progress,source={},finished={},total={},failed={},unitsPerMinute={},etaSeconds={}",
+                source.getCode(), finished, total, failed, finished * 60_000L / elapsedMs, etaSeconds);
+    }
+
+    private List<String> defaultCodes(TrendBackfillSourceEnum source) {
+        return source == TrendBackfillSourceEnum.STOCK ? StockCache.allWindCode : TrendBackfillSourceEnum.defaultIndexCodes();
+    }
+
+    /**
+     * 代码去重后按哈希分桶：同一代码始终落在同一个桶，桶数只随代码规模跨越 2 的幂时变化
+     */
+    private List<Chunk> split(List<String> windCodes) {
+        Set<String> distinct = new TreeSet<>(windCodes);
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        int buckets = Integer.highestOneBit(Math.max(1, (distinct.size() + chunkSize - 1) / chunkSize) * 2 - 1);
+        List<List<String>> bucketCodes = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            bucketCodes.add(new ArrayList<>());
+        }
+        for (String code : distinct) {
+            bucketCodes.get(bucket(code, buckets)).add(code);
+        }
+        List<Chunk> chunks = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            List<String> codes = bucketCodes.get(i);
+            if (!codes.isEmpty()) {
+                chunks.add(new Chunk(List.copyOf(codes), String.join(",", codes), buckets + "-" + i));
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * 代码所在桶号：取代码 MD5 的前 4 字节，与 JVM 及代码排列顺序无关
+     */
+    static int bucket(String windCode, int buckets) {
+        byte[] digest = DigestUtils.md5Digest(windCode.getBytes(StandardCharsets.UTF_8));
+        return Math.floorMod(ByteBuffer.wrap(digest).getInt(), buckets);
+    }
+
+    /**
+     * 代码分片
+     *
+     * @param codes     分片内代码
+     * @param windCodes 逗号拼接的代码串，即转档接口参数
+     * @param key       分片标识：桶数-桶号
+     */
+    private record Chunk(List<String> codes, String windCodes, String key) {
+    }
+
+    /**
+     * 执行单元：交易日 × 代码分片
+     */
+    private record Unit(String tradeDate, Chunk chunk) {
+        BackfillCheckpointDTO toCheckpoint(TrendBackfillSourceEnum source) {
+            BackfillCheckpointDTO checkpoint = new BackfillCheckpointDTO();
+            checkpoint.setSource(source.getCode());
+            checkpoint.setTradeDate(tradeDate);
+            checkpoint.setUnitKey(chunk.key());
+            checkpoint.setWindCodes(chunk.windCodes());
+            checkpoint.setSymbolCount(chunk.codes().size());
+            return checkpoint;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.hao.datacollector.service.impl;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.hao.datacollector.common.enums.quotation.TableRangeEnum;
 import com.hao.datacollector.common.utils.HttpUtil;
+import com.hao.datacollector.common.utils.WindTrendDecoder;
 import com.hao.datacollector.dal.dao.QuotationMapper;
 import com.hao.datacollector.dto.quotation.HistoryTrendDTO;
 import com.hao.datacollector.dto.quotation.HistoryTrendIndexDTO;
@@ -11,7 +12,6 @@ import com.hao.datacollector.properties.DataCollectorProperties;
 import com.hao.datacollector.service.QuotationService;
 import constants.DataSourceConstants;
 import constants.DateTimeFormatConstants;
-import enums.SpeedIndicatorEnum;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -24,13 +24,10 @@ import util.JsonUtil;
 import util.MathUtil;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Function;
 
 /**
  * 行情数据同步实现，涵盖基础行情与分时走势的抓取、解析与落库。
@@ -79,6 +76,21 @@ public class QuotationServiceImpl implements QuotationService {
     private static final String oldVersion = "1.0";
     private static final String newVersion = "2.0";
 
+    /**
+     * Wind 分时均价指标 id
+     */
+    private static final int AVERAGE_PRICE_INDICATOR = 79;
+
+    /**
+     * 分时数据分批落库条数
+     */
+    private static final int TREND_INSERT_BATCH_SIZE = 2000;
+
+    /**
+     * 分时接口网络 / IO 失败的默认重试次数
+     */
+    private static final int TREND_MAX_RETRIES = 2;
+
     /**
      * 获取基础行情数据
      *
@@ -137,6 +149,9 @@ public class QuotationServiceImpl implements QuotationService {
 
     /**
      * 转档股票历史分时数据
+     * <p>
+     * 非原子：解码过程中每满 {@value #TREND_INSERT_BATCH_SIZE} 条即落库，某组数据异常时抛出异常，
+     * 此前已落库的批次保留不回滚。落库为 INSERT IGNORE，同一请求可直接整体重跑补齐。
      *
      * @param tradeDate 交易日期,如:20220608
      * @param windCodes 股票代码List
@@ -145,14 +160,44 @@ public class QuotationServiceImpl implements QuotationService {
      */
     @Override
     public Boolean transferQuotationHistoryTrend(int tradeDate, String windCodes, Integer dateType) {
-        List<HistoryTrendDTO> quotationHistoryTrendList = getQuotationHistoryTrendList(tradeDate, windCodes, dateType);
-        if (quotationHistoryTrendList.isEmpty()) {
+        return transferQuotationHistoryTrend(tradeDate, windCodes, dateType, TREND_MAX_RETRIES);
+    }
+
+    @Override
+    public Boolean transferQuotationHistoryTrend(int tradeDate, String windCodes, Integer dateType, int maxRetries) {
+        TrendBatchWriter<HistoryTrendDTO> writer = new TrendBatchWriter<>(quotationMapper::insertQuotationHistoryTrendList);
+        streamHistoryTrend(tradeDate, windCodes, dateType, maxRetries, writer, group -> {
+            if (group.columnOneSum() > 160000) {
+                // 已落库的批次不回滚，异常信息带上已落库条数，便于判断是否需要重跑
+                throw new RuntimeException("数据异常,windCode=" + group.windCode() + ",date=" + group.rawDate()
+                        + ",inserted=" + writer.inserted);
+            }
+            LocalDate date = group.tradeDate();
+            if (date == null) {
+                throw new RuntimeException("日期解析失败: " + group.rawDate());
+            }
+            if (!group.decode(AVERAGE_PRICE_INDICATOR)) {
+                throw new RuntimeException("缺少必要的指标索引,windCode=" + group.windCode());
+            }
+            for (int i = 0; i < group.size(); i++) {
+                int time = group.time(i);
+                HistoryTrendDTO historyTrendDTO = new HistoryTrendDTO();
+                historyTrendDTO.setWindCode(group.windCode());
+                historyTrendDTO.setTradeDate(date.atTime(time / 10000, time % 10000 / 100, time % 100));
+                historyTrendDTO.setLatestPrice(group.price(i));
+                historyTrendDTO.setAveragePrice(group.averagePrice(i));
+                //成交额(买卖都算),由于A股市场都是以100股为单位/1手,故此在此固定/100
+                historyTrendDTO.setTotalVolume(group.volume(i));
+                writer.add(historyTrendDTO);
+            }
+        });
+        writer.flush();
+        log.info("日志记录|Log_message,transferQuotationHistoryTrend_decoded={},inserted={}", writer.decoded, writer.inserted);
+        if (writer.decoded == 0) {
             log.warn("日志记录|Log_message,quotationHistoryTrendList.isEmpty()!tradeDate={},windCodes={},dateType={}", tradeDate, windCodes, dateType);
             return false;
         }
-        // Mapper 批量写入分时数据，避免重复网络请求
-        int insertResult = quotationMapper.insertQuotationHistoryTrendList(quotationHistoryTrendList);
-        return insertResult > 0;
+        return writer.inserted > 0;
     }
 
     /**
@@ -165,379 +210,131 @@ public class QuotationServiceImpl implements QuotationService {
      */
     @Override
     public Boolean transferQuotationIndexHistoryTrend(int tradeDate, String windCodes, Integer dateType) {
-        List<HistoryTrendIndexDTO> quotationHistoryIndexTrendList = getQuotationHistoryIndexTrendList(tradeDate, windCodes, dateType);
-        if (quotationHistoryIndexTrendList.isEmpty()) {
-            log.warn("日志记录|Log_message,quotationHistoryIndexTrendList.isEmpty()!tradeDate={},windCodes={},dateType={}", tradeDate, windCodes, dateType);
-            return false;
-        }
-        // 指标分时数据同样集中落库
-        int insertResult = quotationMapper.insertQuotationIndexHistoryTrendList(quotationHistoryIndexTrendList);
-        return insertResult > 0;
+        return transferQuotationIndexHistoryTrend(tradeDate, windCodes, dateType, TREND_MAX_RETRIES);
     }
 
-    /**
-     * 获取股票历史分时对象List
-     *
-     * @param tradeDate 交易日期,如:20220608
-     * @param windCodes 股票代码List
-     * @param dateType  时间类型,0表示固定时间
-     * @return 操作结果
-     */
-    private List<HistoryTrendDTO> getQuotationHistoryTrendList(int tradeDate, String windCodes, Integer dateType) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.add(DataSourceConstants.WIND_POINT_SESSION_NAME, properties.getWindSessionId());
-        String url = DataSourceConstants.WIND_PROD_WGQ + String.format(QuotationHistoryTrendUrl, tradeDate, windCodes, dateType);
-        int retryCount = 0;
-        int maxRetries = 2; // 最多重试2次
-        ResponseEntity<String> response = null;
-        while (retryCount <= maxRetries) {
+    @Override
+    public Boolean transferQuotationIndexHistoryTrend(int tradeDate, String windCodes, Integer dateType, int maxRetries) {
+        TrendBatchWriter<HistoryTrendIndexDTO> writer = new TrendBatchWriter<>(quotationMapper::insertQuotationIndexHistoryTrendList);
+        streamHistoryTrend(tradeDate, windCodes, dateType, maxRetries, writer, group -> {
+            // 单组异常只跳过该组，不中断整个流程
             try {
-                response = HttpUtil.sendGet(url, headers, 100000, 100000);
-                break; // 成功则跳出循环
-            } catch (Exception ex) {
-                retryCount++;
-                if (retryCount > maxRetries) {
-                    // 超过最大重试次数，尝试从下一个ip获取
-                    continue;
-                }
-                // 重试前等待一段时间
-                try {
-                    Thread.sleep(1000 * retryCount); // 递增等待时间
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                }
-            }
-        }
-        // Wind 接口返回按股票->日期分组的嵌套结构，这里展开为 Map
-        Map<String, Map<String, Object>> rawData = JsonUtil.toType(response.getBody(), new TypeReference<Map<String, Map<String, Object>>>() {
-        });
-        List<HistoryTrendDTO> allHistoryTrendList = new ArrayList<>();
-        for (Map.Entry<String, Map<String, Object>> stockEntry : rawData.entrySet()) {
-            String stockCode = stockEntry.getKey();
-            Map<String, Object> stockData = stockEntry.getValue();
-            for (Map.Entry<String, Object> dateEntry : stockData.entrySet()) {
-                List<HistoryTrendDTO> historyTrendList = new ArrayList<>();
-                String date = dateEntry.getKey();
-                Object dateData = dateEntry.getValue();
-                if (dateData == null || dateData.getClass().equals(Integer.class)) {
-                    continue;
+                double sum = group.columnOneSum();
+                if (sum > 160000) {
+                    throw new RuntimeException("数据异常，sum: " + sum);
                 }
-                List<List<Integer>> dataArrays = (List<List<Integer>>) dateData;
-                if (dataArrays.isEmpty()) continue;
-                // 获取配置数组,只获取一次,indicatorIds.对应指标id元素下标数组,decimalShifts.对应关于每个位置元素精度小数位数(倒序)
-                List<Integer> indicatorIds = new ArrayList<>();
-                List<Integer> decimalShifts = new ArrayList<>();
-                List<Integer> configArray = dataArrays.get(dataArrays.size() - 1);
-                for (int i = 0; i < 5; i++) {
-                    indicatorIds.add(configArray.get(i));
-                    decimalShifts.add(configArray.get(i + 5));
+                if (!group.hasConfig()) {
+                    throw new RuntimeException("配置数组格式不正确");
                 }
-                Collections.reverse(decimalShifts);
-                int time_s = 0;
-                Double latestPrice = 0.00, averagePrice = 0.00;
-                int sum = dataArrays.stream()
-                        .filter(subList -> subList.size() > 1)
-                        .mapToInt(subList -> subList.get(1))
-                        .sum();
-                if (sum > 160000) {
-                    throw new RuntimeException("数据异常");
+                LocalDate date = group.tradeDate();
+                if (date == null) {
+                    throw new RuntimeException("日期解析失败: " + group.rawDate());
                 }
-                int timeIndex = indicatorIds.indexOf(2);
-                int latestPriceIndex = indicatorIds.indexOf(3);
-                int averagePriceIndex = indicatorIds.indexOf(79);
-                int totalVolumeIndex = indicatorIds.indexOf(8);
-                //剔除最后一行指标数据
-                for (int i = 0; i < dataArrays.size() - 1; i++) {
-                    HistoryTrendDTO historyTrendDTO = new HistoryTrendDTO();
-                    time_s += dataArrays.get(i).get(timeIndex).intValue();
-                    // 转换为LocalDateTime
-                    LocalDate localDateTime = LocalDate.parse(date, DateTimeFormatter.ofPattern("yyyyMMdd"));
-                    LocalTime time = LocalTime.of(
-                            time_s / 10000,        // 小时: 13
-                            (time_s % 10000) / 100, // 分钟: 38
-                            time_s % 100           // 秒: 58
-                    );
-                    LocalDateTime dateTime = LocalDateTime.of(localDateTime, time);
-                    historyTrendDTO.setTradeDate(dateTime);
-                    historyTrendDTO.setWindCode(stockCode);
-                    historyTrendDTO.setLatestPrice(latestPrice += dataArrays.get(i).get(latestPriceIndex));
-                    historyTrendDTO.setAveragePrice(averagePrice += dataArrays.get(i).get(averagePriceIndex));
-                    //总成交量不需要累加
-                    historyTrendDTO.setTotalVolume(Double.valueOf(dataArrays.get(i).get(totalVolumeIndex)));
-                    historyTrendList.add(historyTrendDTO);
+                if (!group.decode(-1)) {
+                    throw new RuntimeException("缺少必要的指标索引");
                 }
-                //精度处理
-                for (HistoryTrendDTO historyTrendDTO : historyTrendList) {
-                    historyTrendDTO.setLatestPrice(MathUtil.formatDecimal(historyTrendDTO.getLatestPrice(), decimalShifts.get(latestPriceIndex), false));
-                    historyTrendDTO.setAveragePrice(MathUtil.formatDecimal(historyTrendDTO.getAveragePrice(), decimalShifts.get(averagePriceIndex), false));
-                    //成交额(买卖都算),由于A股市场都是以100股为单位/1手,故此在此固定/100
-                    historyTrendDTO.setTotalVolume(MathUtil.formatDecimal(historyTrendDTO.getTotalVolume(), 2, false));
+                for (int i = 0; i < group.size(); i++) {
+                    int time = group.time(i);
+                    HistoryTrendIndexDTO historyTrendIndexDTO = new HistoryTrendIndexDTO();
+                    historyTrendIndexDTO.setWindCode(group.windCode());
+                    historyTrendIndexDTO.setTradeDate(date.atTime(time / 10000, time % 10000 / 100, time % 100));
+                    historyTrendIndexDTO.setLatestPrice(group.price(i));
+                    historyTrendIndexDTO.setTotalAmount(group.amount(i));
+                    historyTrendIndexDTO.setTotalVolume(group.volume(i));
+                    writer.add(historyTrendIndexDTO);
                 }
-                allHistoryTrendList.addAll(historyTrendList);
+            } catch (RuntimeException e) {
+                log.error("处理股票数据失败,_stockCode:_{},_date:_{},_error:_{}", group.windCode(), group.rawDate(), e.getMessage(), e);
             }
+        });
+        writer.flush();
+        log.info("日志记录|Log_message,transferQuotationIndexHistoryTrend_decoded={},inserted={}", writer.decoded, writer.inserted);
+        if (writer.decoded == 0) {
+            log.warn("日志记录|Log_message,quotationHistoryIndexTrendList.isEmpty()!tradeDate={},windCodes={},dateType={}", tradeDate, windCodes, dateType);
+            return false;
         }
-        log.info("日志记录|Log_message,getQuotationHistoryTrendList_allHistoryTrendList.size={}", allHistoryTrendList.size());
-        return allHistoryTrendList;
+        return writer.inserted > 0;
     }
 
     /**
-     * 获取指标历史分时对象List
+     * 流式拉取并解码历史分时数据
+     * <p>
+     * 响应体不读成字符串，边读边由 {@link WindTrendDecoder} 解码，每组 (股票, 日期) 回调一次；
+     * 仅网络 / IO 失败重试，重试前丢弃上一次未落库的缓冲（已落库部分由 INSERT IGNORE 去重），
+     * 解码回调抛出的数据异常直接向上抛出。
      *
      * @param tradeDate 交易日期,如:20220608
      * @param windCodes 股票代码List
-     * @param dateType  时间类型,0表示固定时间
-     * @return 操作结果
+     * @param dateType   时间类型,0表示固定时间
+     * @param maxRetries 网络 / IO 失败的最大重试次数，0=不重试
+     * @param writer     分批落库缓冲
+     * @param sink       单组解码回调
      */
-    private List<HistoryTrendIndexDTO> getQuotationHistoryIndexTrendList(int tradeDate, String windCodes, Integer dateType) {
+    private void streamHistoryTrend(int tradeDate, String windCodes, Integer dateType, int maxRetries,
+                                    TrendBatchWriter<?> writer, WindTrendDecoder.Sink sink) {
         HttpHeaders headers = new HttpHeaders();
         headers.add(DataSourceConstants.WIND_POINT_SESSION_NAME, properties.getWindSessionId());
         String url = DataSourceConstants.WIND_PROD_WGQ + String.format(QuotationHistoryTrendUrl, tradeDate, windCodes, dateType);
+        WindTrendDecoder.Group group = new WindTrendDecoder.Group();
         int retryCount = 0;
-        int maxRetries = 2; // 最多重试2次
-        ResponseEntity<String> response = null;
-        while (retryCount <= maxRetries) {
+        while (true) {
+            writer.reset();
             try {
-                response = HttpUtil.sendGet(url, headers, 100000, 100000);
-                break; // 成功则跳出循环
-            } catch (Exception ex) {
+                HttpUtil.sendGetRequest(url, headers, 100000, 100000,
+                        response -> WindTrendDecoder.decode(response.getBody(), group, sink));
+                return;
+            } catch (HttpUtil.HttpRequestException ex) {
                 retryCount++;
                 if (retryCount > maxRetries) {
-                    break; // 超过最大重试次数，退出循环
+                    throw new RuntimeException("请求失败，无法获取数据", ex);
                 }
                 // 重试前等待一段时间
                 try {
-                    Thread.sleep(1000 * retryCount); // 递增等待时间
+                    Thread.sleep(1000L * retryCount); // 递增等待时间
                 } catch (InterruptedException ie) {
                     Thread.currentThread().interrupt();
                     throw new RuntimeException("请求被中断", ie);
                 }
             }
         }
-        if (response == null || response.getBody() == null) {
-            throw new RuntimeException("请求失败，无法获取数据");
-        }
-        // 处理响应数据结构 - 先解析外层包装
-        String responseBody = response.getBody();
-        String actualDataJson = responseBody;
-        try {
-            // 检查是否有外层包装
-            Map<String, Object> wrapper = JsonUtil.toMap(responseBody, String.class, Object.class);
-            if (wrapper != null && wrapper.containsKey("body")) {
-                Object bodyObj = wrapper.get("body");
-                if (bodyObj instanceof String) {
-                    actualDataJson = (String) bodyObj;
-                } else {
-                    actualDataJson = JsonUtil.toJson(bodyObj);
-                }
-            }
-        } catch (Exception e) {
-            // 如果解析失败，使用原始响应体
-            log.warn("解析外层包装失败，使用原始响应体:_{}|Log_message", e.getMessage());
-        }
-        // 解析实际数据
-        Map<String, Map<String, Object>> rawData;
-        try {
-            rawData = JsonUtil.toType(actualDataJson, new TypeReference<Map<String, Map<String, Object>>>() {
-            });
-        } catch (Exception e) {
-            log.error("解析JSON数据失败:_{}", e.getMessage(), e);
-            throw new RuntimeException("数据解析失败", e);
-        }
-        if (rawData == null || rawData.isEmpty()) {
-            log.warn("解析后的数据为空|Log_message");
-            return new ArrayList<>();
-        }
-        List<HistoryTrendIndexDTO> allHistoryIndexTrendList = new ArrayList<>();
-        for (Map.Entry<String, Map<String, Object>> stockEntry : rawData.entrySet()) {
-            String stockCode = stockEntry.getKey();
-            Map<String, Object> stockData = stockEntry.getValue();
-            if (stockData == null) {
-                continue;
-            }
-            for (Map.Entry<String, Object> dateEntry : stockData.entrySet()) {
-                String date = dateEntry.getKey();
-                Object dateData = dateEntry.getValue();
-                // 跳过空数据或非数组数据
-                if (dateData == null || dateData instanceof Integer) {
-                    continue;
-                }
-                // 安全转换为List<List<Number>>
-                List<List<Number>> dataArrays;
-                try {
-                    dataArrays = JsonUtil.toType(JsonUtil.toJson(dateData), new TypeReference<List<List<Number>>>() {
-                    });
-                } catch (Exception e) {
-                    log.warn("转换数据数组失败,_stockCode:_{},_date:_{},_error:_{}", stockCode, date, e.getMessage());
-                    continue;
-                }
-                if (dataArrays == null || dataArrays.isEmpty()) {
-                    continue;
-                }
-
-                try {
-                    List<HistoryTrendIndexDTO> historyIndexTrendList = processStockDateData(stockCode, date, dataArrays);
-                    allHistoryIndexTrendList.addAll(historyIndexTrendList);
-                } catch (Exception e) {
-                    log.error("处理股票数据失败,_stockCode:_{},_date:_{},_error:_{}", stockCode, date, e.getMessage(), e);
-                    // 继续处理其他数据，不中断整个流程
-                }
-            }
-        }
-        log.info("日志记录|Log_message,getQuotationHistoryTrendList_allHistoryTrendList.size={}", allHistoryIndexTrendList.size());
-        return allHistoryIndexTrendList;
     }
 
-    private List<HistoryTrendIndexDTO> processStockDateData(String stockCode, String date, List<List<Number>> dataArrays) {
-        List<HistoryTrendIndexDTO> historyIndexTrendList = new ArrayList<>();
-        // 获取配置数组 - 最后一行
-        List<Number> configArray = dataArrays.get(dataArrays.size() - 1);
-        if (configArray == null || configArray.size() < 10) {
-            throw new RuntimeException("配置数组格式不正确");
-        }
-        // 解析配置
-        List<Integer> indicatorIds = new ArrayList<>();
-        List<Integer> decimalShifts = new ArrayList<>();
-        for (int i = 0; i < 5; i++) {
-            indicatorIds.add(configArray.get(i).intValue());
-            decimalShifts.add(configArray.get(i + 5).intValue());
-        }
-        Collections.reverse(decimalShifts);
-        // 数据异常检测
-        long sum = dataArrays.stream()
-                .filter(subList -> subList != null && subList.size() > 1 && subList.get(1) != null)
-                .mapToLong(subList -> subList.get(1).longValue())
-                .sum();
+    /**
+     * 分时数据分批落库缓冲：攒够 {@link #TREND_INSERT_BATCH_SIZE} 条写入一次，内存占用与请求的股票数无关
+     */
+    private static final class TrendBatchWriter<T> {
+        private final Function<List<T>, Integer> inserter;
+        private final List<T> pending = new ArrayList<>(TREND_INSERT_BATCH_SIZE);
+        private int decoded;
+        private int inserted;
 
-        if (sum > 160000) {
-            throw new RuntimeException("数据异常，sum: " + sum);
+        TrendBatchWriter(Function<List<T>, Integer> inserter) {
+            this.inserter = inserter;
         }
-        // 获取各指标的索引位置
-        int timeIndex = indicatorIds.indexOf(SpeedIndicatorEnum.TRADE_TIME.getIndicator());
-        //最新价
-        int latestPriceIndex = indicatorIds.indexOf(SpeedIndicatorEnum.NEW_PRICE.getIndicator());
-        //总成交额
-        int totalAmount = indicatorIds.indexOf(SpeedIndicatorEnum.TOTAL_AMOUNT.getIndicator());
-        //总成交量
-        int totalVolume = indicatorIds.indexOf(SpeedIndicatorEnum.TOTAL_VOLUME.getIndicator());
-        // 检查必要的索引是否存在
-        if (timeIndex < 0 || latestPriceIndex < 0) {
-            throw new RuntimeException("缺少必要的指标索引");
-        }
-        // 解析日期
-        LocalDate localDate;
-        try {
-            localDate = LocalDate.parse(date, DateTimeFormatter.ofPattern("yyyyMMdd"));
-        } catch (Exception e) {
-            throw new RuntimeException("日期解析失败: " + date, e);
-        }
-        // 处理每一行数据（排除最后一行配置数据）
-        int time_s = 0;
-        double latestPrice = 0.0;
-        for (int i = 0; i < dataArrays.size() - 1; i++) {
-            List<Number> row = dataArrays.get(i);
-            if (row == null || row.isEmpty()) {
-                continue;
-            }
-            // 检查行数据完整性
-            int maxIndex = Math.max(Math.max(timeIndex, latestPriceIndex),
-                    Math.max(totalAmount >= 0 ? totalAmount : 0,
-                            totalVolume >= 0 ? totalVolume : 0));
-            if (row.size() <= maxIndex) {
-                log.warn("行数据不完整，跳过该行:_stockCode={},_date={},_rowIndex={}", stockCode, date, i);
-                continue;
-            }
-            try {
-                // 累加时间
-                Number timeNum = row.get(timeIndex);
-                if (timeNum != null) {
-                    time_s += timeNum.intValue();
-                }
-                // 解析时间
-                int hours = time_s / 10000;
-                int minutes = (time_s % 10000) / 100;
-                int seconds = time_s % 100;
-                // 验证时间有效性
-                if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59 || seconds < 0 || seconds > 59) {
-                    log.warn("时间数据异常，跳过该行:_time_s={}", time_s);
-                    continue;
-                }
-                LocalTime time = LocalTime.of(hours, minutes, seconds);
-                LocalDateTime dateTime = LocalDateTime.of(localDate, time);
-
-                // 创建DTO
-                HistoryTrendIndexDTO historyTrendIndexDTO = new HistoryTrendIndexDTO();
-                historyTrendIndexDTO.setTradeDate(dateTime);
-                historyTrendIndexDTO.setWindCode(stockCode);
-
-                // 设置价格数据（累加）
-                Number latestPriceNum = row.get(latestPriceIndex);
-                if (latestPriceNum != null) {
-                    latestPrice += latestPriceNum.doubleValue();
-                }
-                historyTrendIndexDTO.setLatestPrice(latestPrice);
 
-                // 设置成交额数据（不累加）
-                if (totalAmount >= 0) {
-                    Number averagePriceNum = row.get(totalAmount);
-                    if (averagePriceNum != null) {
-                        historyTrendIndexDTO.setTotalAmount(averagePriceNum.doubleValue());
-                    } else {
-                        historyTrendIndexDTO.setTotalAmount(0.0);
-                    }
-                } else {
-                    historyTrendIndexDTO.setTotalAmount(0.0);
-                }
-
-                // 设置成交量数据（不累加）
-                if (totalVolume >= 0) {
-                    Number volumeNum = row.get(totalVolume);
-                    if (volumeNum != null) {
-                        historyTrendIndexDTO.setTotalVolume(volumeNum.doubleValue());
-                    } else {
-                        historyTrendIndexDTO.setTotalVolume(0.0);
-                    }
-                } else {
-                    historyTrendIndexDTO.setTotalVolume(0.0);
-                }
-                historyIndexTrendList.add(historyTrendIndexDTO);
-
-            } catch (Exception e) {
-                log.error("处理行数据失败:_stockCode={},_date={},_rowIndex={},_error={}",
-                        stockCode, date, i, e.getMessage(), e);
-                // 继续处理下一行
+        void add(T row) {
+            pending.add(row);
+            decoded++;
+            if (pending.size() >= TREND_INSERT_BATCH_SIZE) {
+                flush();
             }
         }
 
-        // 精度处理
-        for (HistoryTrendIndexDTO historyTrendDTO : historyIndexTrendList) {
-            try {
-                // 处理最新价精度
-                if (latestPriceIndex >= 0 && latestPriceIndex < decimalShifts.size()) {
-                    historyTrendDTO.setLatestPrice(MathUtil.formatDecimal(
-                            historyTrendDTO.getLatestPrice(), decimalShifts.get(latestPriceIndex), false));
-                } else {
-                    historyTrendDTO.setLatestPrice(MathUtil.formatDecimal(
-                            historyTrendDTO.getLatestPrice(), 2, false));
-                }
-                // 处理成交额精度
-                if (totalAmount >= 0 && totalAmount < decimalShifts.size()) {
-                    historyTrendDTO.setTotalAmount(MathUtil.formatDecimal(
-                            historyTrendDTO.getTotalAmount(), decimalShifts.get(totalAmount), false));
-                } else {
-                    historyTrendDTO.setTotalAmount(MathUtil.formatDecimal(
-                            historyTrendDTO.getTotalAmount(), 2, false));
-                }
-                // 处理成交量精度
-                historyTrendDTO.setTotalVolume(MathUtil.formatDecimal(
-                        historyTrendDTO.getTotalVolume(), 2, false));
-
-            } catch (Exception e) {
-                log.error("精度处理失败:_stockCode={},_date={},_error={}", stockCode, date, e.getMessage(), e);
+        void flush() {
+            if (!pending.isEmpty()) {
+                inserted += inserter.apply(pending);
+                pending.clear();
             }
         }
-        return historyIndexTrendList;
-    }
 
+        /**
+         * 重试前丢弃未落库的数据，解码计数从头开始
+         */
+        void reset() {
+            pending.clear();
+            decoded = 0;
+        }
+    }
 
     /**
      * 根据时间区间获取A股历史分时数据
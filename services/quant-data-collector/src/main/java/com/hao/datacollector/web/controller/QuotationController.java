@@ -1,6 +1,7 @@
 package com.hao.datacollector.web.controller;
 
 import com.hao.datacollector.dto.quotation.HistoryTrendDTO;
+import com.hao.datacollector.service.QuotationBackfillService;
 import com.hao.datacollector.service.QuotationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -28,6 +29,9 @@ public class QuotationController {
     @Autowired
     private QuotationService quotationService;
 
+    @Autowired
+    private QuotationBackfillService quotationBackfillService;
+
     @Operation(summary = "转档股票行情数据", description = "转档股票基础行情数据")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "服务正常运行"),
@@ -61,6 +65,28 @@ public class QuotationController {
         return ResponseEntity.ok("数据转档成功");
     }
 
+    @Operation(summary = "回补历史分时数据", description = "按交易日×代码分片并发回补历史分时，进度落表，重复调用只执行未完成的分片")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "回补任务已启动"),
+            @ApiResponse(responseCode = "400", description = "已有回补任务在执行")
+    })
+    @PostMapping("/backfill_history_trend")
+    public ResponseEntity<String> backfillHistoryTrend(
+            @Parameter(description = "数据源:stock(默认)/index")
+            @RequestParam(required = false, defaultValue = "stock") String source,
+            @Parameter(description = "起始日期，格式yyyyMMdd", required = true)
+            @RequestParam String startDate,
+            @Parameter(description = "结束日期，格式yyyyMMdd，默认当天")
+            @RequestParam(required = false) String endDate,
+            @Parameter(description = "回补代码列表，默认数据源全量代码")
+            @RequestParam(required = false) List<String> windCodes) {
+        Boolean started = quotationBackfillService.startHistoryTrendBackfill(source, startDate, endDate, windCodes);
+        if (!started) {
+            return ResponseEntity.badRequest().body("已有回补任务在执行");
+        }
+        return ResponseEntity.ok("回补任务已启动");
+    }
+
     @Operation(summary = "股票历史分时", description = "根据时间区间获取股票历史分时数据")
     @GetMapping("/get_history_trend")
     public List<HistoryTrendDTO> getHistoryTrendDataByDate(
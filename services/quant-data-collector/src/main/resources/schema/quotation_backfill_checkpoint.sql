@@ -0,0 +1,17 @@
+-- 历史分时回补进度表：每个 (数据源, 交易日, 代码分片) 一行，回补重启时跳过已完成的分片
+CREATE TABLE IF NOT EXISTS `tb_quotation_backfill_checkpoint` (
+  `id` BIGINT UNSIGNED AUTO_INCREMENT COMMENT '主键ID',
+  `source` VARCHAR(16) NOT NULL COMMENT '数据源(stock/index)',
+  `trade_date` DATE NOT NULL COMMENT '交易日期',
+  `unit_key` CHAR(32) NOT NULL COMMENT '代码分片标识(哈希桶数-桶号)',
+  `wind_codes` TEXT NOT NULL COMMENT '分片内代码,逗号分隔,可直接用于手工重跑',
+  `symbol_count` INT NOT NULL COMMENT '分片内代码数量',
+  `status` TINYINT NOT NULL COMMENT '状态:0=执行中,1=已完成,2=失败',
+  `attempts` INT NOT NULL DEFAULT 0 COMMENT '累计执行次数,0表示由历史数据导入',
+  `error_msg` VARCHAR(512) COMMENT '最近一次失败原因',
+  `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_source_date_unit` (`source`, `trade_date`, `unit_key`),
+  KEY `idx_source_status` (`source`, `status`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='历史分时回补进度表';
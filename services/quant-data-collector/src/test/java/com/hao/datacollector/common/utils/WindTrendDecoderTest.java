@@ -0,0 +1,227 @@
+package com.hao.datacollector.common.utils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.hao.datacollector.dto.quotation.HistoryTrendDTO;
+import org.junit.jupiter.api.Test;
+import util.JsonUtil;
+import util.MathUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * WindTrendDecoder 单元测试
+ *
+ * <p>覆盖外层 body 包装、增量还原、短行与非法时间跳过、精度换算与 MathUtil.formatDecimal 一致，
+ * 并以替换前基于 Map 树的解析逻辑为基准，对同一份 Wind 分时响应逐行比对解码结果。</p>
+ */
+class WindTrendDecoderTest {
+
+    /** 均价指标 id */
+    private static final int AVERAGE_PRICE_INDICATOR = 79;
+
+    /**
+     * Wind 历史分时响应样本：列依次为 时间(2) / 最新价(3) / 均价(79) / 成交量(8) / 成交额(59)，
+     * 最后一行为配置行，精度倒序为 成交额 0、成交量 0、均价 3、最新价 2、时间 0；整数值表示该日无数据
+     */
+    private static final String RESPONSE = """
+            {"600519.SH":{"20250711":[[93000,142316,1423160,1200,170787000],[100,14,25,2500,355800000],\
+            [100,-30,-3,4100,583000000],[100,7,11,5300,753900000],[2,3,79,8,59,0,0,3,2,0]],"20250712":0},\
+            "000001.SZ":{"20250711":[[93000,1150,11500,50000,57500000],[100,1,2,80000,92000000],\
+            [100,-2,0,95000,109250000],[2,3,79,8,59,0,0,3,2,0]]}}""";
+
+    @Test
+    void bodyWrapperIsUnwrapped() throws IOException {
+        List<HistoryTrendDTO> bare = decode(RESPONSE);
+
+        assertEquals(bare, decode("{\"body\":" + RESPONSE + "}"));
+        assertEquals(bare, decode("{\"code\":0,\"body\":" + JsonUtil.toJson(RESPONSE) + "}"));
+    }
+
+    @Test
+    void timePriceAndAveragePriceAreDeltaDecoded() throws IOException {
+        List<HistoryTrendDTO> rows = decode(RESPONSE);
+
+        assertEquals(7, rows.size());
+        HistoryTrendDTO last = rows.get(3);
+        assertEquals("600519.SH", last.getWindCode());
+        assertEquals(LocalDateTime.of(2025, 7, 11, 9, 33), last.getTradeDate());
+        // 142316 + 14 - 30 + 7 = 142307，两位小数
+        assertEquals(1423.07, last.getLatestPrice());
+        // 1423160 + 25 - 3 + 11 = 1423193，三位小数
+        assertEquals(1423.193, last.getAveragePrice());
+        // 成交量为当前值，固定按手换算
+        assertEquals(53.0, last.getTotalVolume());
+        // 下一组从零开始累加
+        assertEquals(LocalDateTime.of(2025, 7, 11, 9, 30), rows.get(4).getTradeDate());
+        assertEquals(11.5, rows.get(4).getLatestPrice());
+    }
+
+    @Test
+    void shortRowsAndInvalidTimesAreSkipped() throws IOException {
+        String response = """
+                {"600519.SH":{"20250711":[[93000,142316,1423160,1200,170787000],[100,14],null,\
+                [5000,5,5,1300,180000000],[100,10,20,2500,355800000],[2,3,79,8,59,0,0,3,2,0]]}}""";
+        WindTrendDecoder.Group group = new WindTrendDecoder.Group();
+        List<int[]> times = new ArrayList<>();
+        List<double[]> prices = new ArrayList<>();
+
+        WindTrendDecoder.decode(stream(response), group, g -> {
+            assertTrue(g.decode(AVERAGE_PRICE_INDICATOR));
+            int[] t = new int[g.size()];
+            double[] p = new double[g.size()];
+            for (int i = 0; i < g.size(); i++) {
+                t[i] = g.time(i);
+                p[i] = g.price(i);
+            }
+            times.add(t);
+            prices.add(p);
+        });
+
+        // 短行、null 行与时间非法（93000 + 5000 = 98000，即 9:80:00）的行都不参与增量累加
+        assertArrayEquals(new int[]{93000, 93100}, times.get(0));
+        assertArrayEquals(new double[]{1423.16, 1423.26}, prices.get(0));
+    }
+
+    @Test
+    void groupWithoutRequiredColumnsIsRejected() throws IOException {
+        String response = "{\"600519.SH\":{\"20250711\":[[93000,1200],[2,8,0,0,0,0,0,0,0,0]],\"2025071x\":[[1],[2,3,0,0,0,0,0,0,2,0]]}}";
+        List<Boolean> decoded = new ArrayList<>();
+        List<LocalDate> dates = new ArrayList<>();
+
+        int groups = WindTrendDecoder.decode(stream(response), new WindTrendDecoder.Group(), g -> {
+            decoded.add(g.decode(AVERAGE_PRICE_INDICATOR));
+            dates.add(g.tradeDate());
+        });
+
+        assertEquals(2, groups);
+        assertFalse(decoded.get(0));
+        assertEquals(LocalDate.of(2025, 7, 11), dates.get(0));
+        assertNull(dates.get(1));
+    }
+
+    @Test
+    void shiftMatchesFormatDecimalForIntegers() {
+        Random random = new Random(20250711L);
+        for (int i = 0; i < 200_000; i++) {
+            double value = random.nextInt(i % 2 == 0 ? 2_000_000 : Integer.MAX_VALUE) - (i % 3 == 0 ? 1_000_000 : 0);
+            int decimals = i % 7;
+            assertEquals(MathUtil.formatDecimal(value, decimals, false), WindTrendDecoder.shift(value, decimals),
+                    () -> "value=" + value + ",decimals=" + decimals);
+        }
+    }
+
+    @Test
+    void shiftFallsBackToFormatDecimalOutsideTheExactRange() {
+        double[] values = {1234.5, -0.125, 0.001, 142316.75, 0x1p53, 0x1p53 + 2, -0x1p60, 1e22};
+        for (double value : values) {
+            for (int decimals : new int[]{0, 2, 3, 22, 23, 30}) {
+                assertEquals(MathUtil.formatDecimal(value, decimals, false), WindTrendDecoder.shift(value, decimals),
+                        () -> "value=" + value + ",decimals=" + decimals);
+            }
+        }
+    }
+
+    @Test
+    void decodedRowsMatchLegacyParser() throws IOException {
+        assertEquals(legacyParse(RESPONSE), decode(RESPONSE));
+    }
+
+    /**
+     * 与 QuotationServiceImpl#transferQuotationHistoryTrend 相同的组装方式
+     */
+    private static List<HistoryTrendDTO> decode(String response) throws IOException {
+        List<HistoryTrendDTO> rows = new ArrayList<>();
+        WindTrendDecoder.decode(stream(response), new WindTrendDecoder.Group(), group -> {
+            assertTrue(group.decode(AVERAGE_PRICE_INDICATOR));
+            LocalDate date = group.tradeDate();
+            for (int i = 0; i < group.size(); i++) {
+                int time = group.time(i);
+                HistoryTrendDTO dto = new HistoryTrendDTO();
+                dto.setWindCode(group.windCode());
+                dto.setTradeDate(date.atTime(time / 10000, time % 10000 / 100, time % 100));
+                dto.setLatestPrice(group.price(i));
+                dto.setAveragePrice(group.averagePrice(i));
+                dto.setTotalVolume(group.volume(i));
+                rows.add(dto);
+            }
+        });
+        return rows;
+    }
+
+    /**
+     * 流式解码替换前的解析逻辑（原 QuotationServiceImpl#getQuotationHistoryTrendList 去掉 HTTP 部分），作为比对基准
+     */
+    @SuppressWarnings("unchecked")
+    private static List<HistoryTrendDTO> legacyParse(String body) {
+        Map<String, Map<String, Object>> rawData = JsonUtil.toType(body, new TypeReference<Map<String, Map<String, Object>>>() {
+        });
+        List<HistoryTrendDTO> allHistoryTrendList = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> stockEntry : rawData.entrySet()) {
+            String stockCode = stockEntry.getKey();
+            for (Map.Entry<String, Object> dateEntry : stockEntry.getValue().entrySet()) {
+                List<HistoryTrendDTO> historyTrendList = new ArrayList<>();
+                String date = dateEntry.getKey();
+                Object dateData = dateEntry.getValue();
+                if (dateData == null || dateData.getClass().equals(Integer.class)) {
+                    continue;
+                }
+                List<List<Integer>> dataArrays = (List<List<Integer>>) dateData;
+                if (dataArrays.isEmpty()) continue;
+                List<Integer> indicatorIds = new ArrayList<>();
+                List<Integer> decimalShifts = new ArrayList<>();
+                List<Integer> configArray = dataArrays.get(dataArrays.size() - 1);
+                for (int i = 0; i < 5; i++) {
+                    indicatorIds.add(configArray.get(i));
+                    decimalShifts.add(configArray.get(i + 5));
+                }
+                Collections.reverse(decimalShifts);
+                int time_s = 0;
+                Double latestPrice = 0.00, averagePrice = 0.00;
+                int timeIndex = indicatorIds.indexOf(2);
+                int latestPriceIndex = indicatorIds.indexOf(3);
+                int averagePriceIndex = indicatorIds.indexOf(79);
+                int totalVolumeIndex = indicatorIds.indexOf(8);
+                for (int i = 0; i < dataArrays.size() - 1; i++) {
+                    HistoryTrendDTO historyTrendDTO = new HistoryTrendDTO();
+                    time_s += dataArrays.get(i).get(timeIndex).intValue();
+                    LocalDate localDateTime = LocalDate.parse(date, DateTimeFormatter.ofPattern("yyyyMMdd"));
+                    LocalTime time = LocalTime.of(time_s / 10000, (time_s % 10000) / 100, time_s % 100);
+                    historyTrendDTO.setTradeDate(LocalDateTime.of(localDateTime, time));
+                    historyTrendDTO.setWindCode(stockCode);
+                    historyTrendDTO.setLatestPrice(latestPrice += dataArrays.get(i).get(latestPriceIndex));
+                    historyTrendDTO.setAveragePrice(averagePrice += dataArrays.get(i).get(averagePriceIndex));
+                    historyTrendDTO.setTotalVolume(Double.valueOf(dataArrays.get(i).get(totalVolumeIndex)));
+                    historyTrendList.add(historyTrendDTO);
+                }
+                for (HistoryTrendDTO historyTrendDTO : historyTrendList) {
+                    historyTrendDTO.setLatestPrice(MathUtil.formatDecimal(historyTrendDTO.getLatestPrice(), decimalShifts.get(latestPriceIndex), false));
+                    historyTrendDTO.setAveragePrice(MathUtil.formatDecimal(historyTrendDTO.getAveragePrice(), decimalShifts.get(averagePriceIndex), false));
+                    historyTrendDTO.setTotalVolume(MathUtil.formatDecimal(historyTrendDTO.getTotalVolume(), 2, false));
+                }
+                allHistoryTrendList.addAll(historyTrendList);
+            }
+        }
+        return allHistoryTrendList;
+    }
+
+    private static ByteArrayInputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
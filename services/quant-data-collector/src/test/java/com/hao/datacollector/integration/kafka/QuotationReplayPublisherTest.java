@@ -0,0 +1,218 @@
+package com.hao.datacollector.integration.kafka;
+
+import com.hao.datacollector.dal.dao.QuotationMapper;
+import com.hao.datacollector.dto.quotation.HistoryTrendDTO;
+import com.hao.datacollector.properties.QuotationReplayProperties;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.serialization.ByteBufferSerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * QuotationReplayPublisher 单元测试
+ *
+ * <p>不连接 MySQL 与 Kafka：游标由 mock 的 Mapper 返回，生产者为手动确认的 {@link MockProducer}，
+ * 覆盖在途上限背压、游标与生产者异常的传播及游标关闭。</p>
+ */
+class QuotationReplayPublisherTest {
+
+    private final QuotationReplayProperties properties = new QuotationReplayProperties();
+    private final SqlSession session = mock(SqlSession.class);
+    private final QuotationMapper mapper = mock(QuotationMapper.class);
+    @SuppressWarnings("unchecked")
+    private final Cursor<HistoryTrendDTO> cursor = mock(Cursor.class);
+    /** 不自动确认，由测试逐条 completeNext 模拟 broker 应答 */
+    private final ReplayProducer producer = new ReplayProducer();
+    private QuotationReplayPublisher publisher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        SqlSessionFactory sqlSessionFactory = mock(SqlSessionFactory.class);
+        when(sqlSessionFactory.openSession()).thenReturn(session);
+        when(session.getMapper(QuotationMapper.class)).thenReturn(mapper);
+        when(mapper.scanHistoryTrendByDate("20250711", "20250711")).thenReturn(cursor);
+
+        KafkaTemplate<String, String> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.getProducerFactory()).thenReturn((ProducerFactory<String, String>) (ProducerFactory<?, ?>) new ProducerFactory<String, ByteBuffer>() {
+            @Override
+            public Producer<String, ByteBuffer> createProducer() {
+                return producer;
+            }
+
+            @Override
+            public ProducerFactory<String, ByteBuffer> copyWithConfigurationOverride(Map<String, Object> overrideProperties) {
+                return this;
+            }
+        });
+        properties.setMaxInFlight(2);
+        publisher = new QuotationReplayPublisher(sqlSessionFactory, kafkaTemplate, properties, "");
+    }
+
+    @Test
+    void inFlightLimitBlocksReadingUntilBrokerAcks() throws Exception {
+        when(cursor.iterator()).thenReturn(rows(5).iterator());
+
+        CompletableFuture<Long> replay = CompletableFuture.supplyAsync(() -> replay());
+        awaitSent(2);
+        // 两条在途未确认，读取线程阻塞在背压上
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals(2, producer.history().size());
+        assertFalse(replay.isDone());
+
+        assertTrue(producer.completeNext());
+        awaitSent(3);
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(3, producer.history().size());
+
+        while (!replay.isDone()) {
+            producer.completeNext();
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        assertEquals(5L, replay.get(1, TimeUnit.SECONDS));
+        verify(cursor).close();
+        verify(session).close();
+    }
+
+    @Test
+    void brokerErrorsAreNotCountedAsAcked() throws Exception {
+        when(cursor.iterator()).thenReturn(rows(3).iterator());
+
+        CompletableFuture<Long> replay = CompletableFuture.supplyAsync(() -> replay());
+        // 在途已满时让第一条失败，释放的许可放行第三条，结束时 flush 确认剩余两条
+        awaitSent(2);
+        assertTrue(producer.errorNext(new KafkaException("broker unavailable")));
+
+        assertEquals(2L, replay.get(1, TimeUnit.SECONDS));
+        assertEquals(3, producer.history().size());
+    }
+
+    @Test
+    void cursorFailurePropagatesAndClosesCursor() throws Exception {
+        Iterator<HistoryTrendDTO> failing = new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public HistoryTrendDTO next() {
+                if (next == 1) {
+                    throw new PersistenceException("connection reset");
+                }
+                return rows(1).get(next++);
+            }
+        };
+        when(cursor.iterator()).thenReturn(failing);
+        producer.autoComplete = true;
+
+        assertThrows(PersistenceException.class, () -> publisher.replay("quotation", "20250711", "20250711"));
+        assertEquals(1, producer.history().size());
+        verify(cursor).close();
+        verify(session).close();
+    }
+
+    @Test
+    void producerFailurePropagatesAndClosesCursor() throws Exception {
+        when(cursor.iterator()).thenReturn(rows(3).iterator());
+        producer.sendException = new KafkaException("producer fenced");
+
+        assertThrows(RuntimeException.class, () -> publisher.replay("quotation", "20250711", "20250711"));
+        verify(cursor).close();
+        verify(session).close();
+    }
+
+    private long replay() {
+        try {
+            return publisher.replay("quotation", "20250711", "20250711");
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void awaitSent(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (producer.history().size() < count) {
+            assertTrue(System.nanoTime() < deadline, "replay did not send " + count + " records");
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+    }
+
+    private static List<HistoryTrendDTO> rows(int count) {
+        List<HistoryTrendDTO> rows = new ArrayList<>(count);
+        LocalDateTime start = LocalDateTime.of(2025, 7, 11, 9, 30);
+        for (int i = 0; i < count; i++) {
+            HistoryTrendDTO dto = new HistoryTrendDTO();
+            dto.setWindCode("600519.SH");
+            dto.setTradeDate(start.plusMinutes(i));
+            dto.setLatestPrice(1420.5 + i);
+            dto.setTotalVolume(1000D + i);
+            dto.setAveragePrice(1421.0);
+            rows.add(dto);
+        }
+        return rows;
+    }
+
+    /**
+     * KafkaTemplate 每次发送后都会 close 生产者，真实工厂返回的是可安全关闭的代理，这里同样忽略 close；
+     * autoComplete 可在用例中切换
+     */
+    private static final class ReplayProducer extends MockProducer<String, ByteBuffer> {
+
+        private volatile boolean autoComplete;
+
+        private ReplayProducer() {
+            super(false, new StringSerializer(), new ByteBufferSerializer());
+        }
+
+        @Override
+        public synchronized Future<RecordMetadata> send(ProducerRecord<String, ByteBuffer> record, Callback callback) {
+            Future<RecordMetadata> future = super.send(record, callback);
+            if (autoComplete) {
+                completeNext();
+            }
+            return future;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(Duration timeout) {
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.hao.datacollector.service.impl;
+
+import com.hao.datacollector.dal.dao.QuotationMapper;
+import com.hao.datacollector.dto.quotation.BackfillCheckpointDTO;
+import com.hao.datacollector.properties.QuotationBackfillProperties;
+import com.hao.datacollector.service.BaseDataService;
+import com.hao.datacollector.service.QuotationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * QuotationBackfillServiceImpl 单元测试
+ *
+ * <p>进度表以内存 Map 模拟（键为 交易日#分片标识，值为状态），转档接口为 mock，
+ * 覆盖失败后按进度续跑、并发执行下单元不重复执行、单元重试与失败落状态、上市退市不使其他分片移位。</p>
+ */
+class QuotationBackfillServiceImplTest {
+
+    private static final int STATUS_RUNNING = 0;
+    private static final int STATUS_DONE = 1;
+    private static final int STATUS_FAILED = 2;
+
+    private final QuotationService quotationService = mock(QuotationService.class);
+    private final BaseDataService baseDataService = mock(BaseDataService.class);
+    private final QuotationMapper quotationMapper = mock(QuotationMapper.class);
+    private final QuotationBackfillProperties properties = new QuotationBackfillProperties();
+    private final QuotationBackfillServiceImpl service = new QuotationBackfillServiceImpl();
+
+    /** 进度表：交易日#分片标识 -> 状态 */
+    private final Map<String, Integer> checkpoints = new ConcurrentHashMap<>();
+    /** 进度表：交易日#分片标识 -> 分片内代码 */
+    private final Map<String, String> unitCodes = new ConcurrentHashMap<>();
+    /** 进度表：交易日#分片标识 -> 失败原因 */
+    private final Map<String, String> errors = new ConcurrentHashMap<>();
+    /** 每个 交易日@代码串 被转档的次数 */
+    private final Map<String, AtomicInteger> transfers = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        properties.setChunkSize(2);
+        properties.setMaxAttempts(1);
+        properties.setRetryBackoffMs(0L);
+        // 不限速
+        properties.setStockPermitsPerSecond(0D);
+        ReflectionTestUtils.setField(service, "quotationService", quotationService);
+        ReflectionTestUtils.setField(service, "baseDataService", baseDataService);
+        ReflectionTestUtils.setField(service, "quotationMapper", quotationMapper);
+        ReflectionTestUtils.setField(service, "properties", properties);
+        ReflectionTestUtils.invokeMethod(service, "initRateLimiters");
+
+        when(quotationMapper.getDoneBackfillUnits(anyString(), anyString(), anyString())).thenAnswer(invocation ->
+                checkpoints.entrySet().stream().filter(e -> e.getValue() == STATUS_DONE).map(e -> {
+                    BackfillCheckpointDTO checkpoint = new BackfillCheckpointDTO();
+                    checkpoint.setTradeDate(e.getKey().substring(0, e.getKey().indexOf('#')));
+                    checkpoint.setUnitKey(e.getKey().substring(e.getKey().indexOf('#') + 1));
+                    checkpoint.setWindCodes(unitCodes.get(e.getKey()));
+                    return checkpoint;
+                }).toList());
+        when(quotationMapper.countBackfillCheckpoints(anyString())).thenAnswer(invocation -> checkpoints.size());
+        when(quotationMapper.markBackfillUnitStarted(any())).thenAnswer(invocation -> {
+            BackfillCheckpointDTO checkpoint = invocation.getArgument(0);
+            checkpoints.put(key(checkpoint), STATUS_RUNNING);
+            unitCodes.put(key(checkpoint), checkpoint.getWindCodes());
+            return 1;
+        });
+        when(quotationMapper.updateBackfillUnitStatus(any())).thenAnswer(invocation -> {
+            BackfillCheckpointDTO checkpoint = invocation.getArgument(0);
+            checkpoints.put(key(checkpoint), checkpoint.getStatus());
+            if (checkpoint.getErrorMsg() != null) {
+                errors.put(key(checkpoint), checkpoint.getErrorMsg());
+            }
+            return 1;
+        });
+    }
+
+    @Test
+    void failedUnitIsTheOnlyOneRerunOnResume() {
+        tradeDates(LocalDate.of(2025, 7, 10), LocalDate.of(2025, 7, 11));
+        List<String> codes = List.of("000001.SZ", "000002.SZ", "000003.SZ", "000004.SZ", "000005.SZ", "000006.SZ");
+        when(quotationService.transferQuotationHistoryTrend(anyInt(), anyString(), anyInt(), eq(0))).thenAnswer(invocation -> {
+            int tradeDate = invocation.getArgument(0);
+            String windCodes = invocation.getArgument(1);
+            record(tradeDate, windCodes);
+            if (tradeDate == 20250711 && windCodes.contains("000003.SZ")) {
+                throw new IllegalStateException("wind timeout");
+            }
+            return true;
+        });
+
+        assertFalse(service.runHistoryTrendBackfill("stock", "20250710", "20250711", codes));
+        int units = transfers.size();
+        assertEquals(units - 1, count(STATUS_DONE));
+        assertEquals(1, count(STATUS_FAILED));
+
+        // 接口恢复后续跑：只执行失败的单元
+        transfers.clear();
+        doAnswer(invocation -> {
+            record(invocation.getArgument(0), invocation.getArgument(1));
+            return true;
+        }).when(quotationService).transferQuotationHistoryTrend(anyInt(), anyString(), anyInt(), eq(0));
+
+        assertTrue(service.runHistoryTrendBackfill("stock", "20250710", "20250711", codes));
+        assertEquals(Map.of("20250711@" + chunkOf("000003.SZ", codes), 1), counts());
+        assertEquals(units, count(STATUS_DONE));
+    }
+
+    @Test
+    void unitLeftRunningByACrashIsRerun() {
+        tradeDates(LocalDate.of(2025, 7, 11));
+        List<String> codes = List.of("000001.SZ", "000002.SZ", "000003.SZ", "000004.SZ");
+        when(quotationService.transferQuotationHistoryTrend(anyInt(), anyString(), anyInt(), eq(0))).thenAnswer(invocation -> {
+            record(invocation.getArgument(0), invocation.getArgument(1));
+            return true;
+        });
+        assertTrue(service.runHistoryTrendBackfill("stock", "20250711", "20250711", codes));
+
+        // 模拟进程在第二个单元执行中崩溃：状态停留在执行中
+        String crashed = checkpoints.keySet().stream().sorted().toList().get(1);
+        checkpoints.put(crashed, STATUS_RUNNING);
+        transfers.clear();
+
+        assertTrue(service.runHistoryTrendBackfill("stock", "20250711", "20250711", codes));
+        assertEquals(1, transfers.size());
+        assertEquals(STATUS_DONE, checkpoints.get(crashed));
+    }
+
+    @Test
+    void noUnitRunsTwiceUnderParallelExecution() {
+        properties.setMaxConcurrency(8);
+        LocalDate[] dates = new LocalDate[20];
+        for (int i = 0; i < dates.length; i++) {
+            dates[i] = LocalDate.of(2025, 6, 1).plusDays(i);
+        }
+        tradeDates(dates);
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            codes.add(String.format("%06d.SZ", i));
+        }
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(quotationService.transferQuotationHistoryTrend(anyInt(), anyString(), anyInt(), eq(0))).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                TimeUnit.MILLISECONDS.sleep(2);
+                record(invocation.getArgument(0), invocation.getArgument(1));
+                return true;
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+
+        assertTrue(service.runHistoryTrendBackfill("stock", "20250601", "20250620", codes));
+
+        // 20 个交易日 × 每日全部分片，每个单元恰好执行一次
+        long chunks = codes.stream().map(code -> chunkOf(code, codes)).distinct().count();
+        assertEquals(20 * chunks, transfers.size());
+        assertTrue(transfers.values().stream().allMatch(c -> c.get() == 1), transfers::toString);
+        assertTrue(maxInFlight.get() <= 8, "maxInFlight=" + maxInFlight.get());
+        assertEquals(20 * chunks, count(STATUS_DONE));
+    }
+
+    @Test
+    void unitIsRetriedBeforeItIsMarkedFailed() {
+        properties.setMaxAttempts(3);
+        tradeDates(LocalDate.of(2025, 7, 11));
+        List<String> codes = List.of("000001.SZ", "000002.SZ", "000003.SZ", "000004.SZ");
+        String flaky = chunkOf("000001.SZ", codes);
+        String broken = codes.stream().map(code -> chunkOf(code, codes)).filter(chunk -> !chunk.equals(flaky)).findFirst().orElseThrow();
+        when(quotationService.transferQuotationHistoryTrend(anyInt(), anyString(), anyInt(), eq(0))).thenAnswer(invocation -> {
+            String windCodes = invocation.getArgument(1);
+            int attempt = record(invocation.getArgument(0), windCodes);
+            if (windCodes.equals(flaky) && attempt < 3) {
+                throw new IllegalStateException("wind 502");
+            }
+            if (windCodes.equals(broken)) {
+                throw new IllegalStateException("数据异常".repeat(200));
+            }
+            return true;
+        });
+
+        assertFalse(service.runHistoryTrendBackfill("stock", "20250711", "20250711", codes));
+
+        // 第三次成功的单元记为完成；重试耗尽的单元记为失败，不影响其他单元
+        assertEquals(3, transfers.get("20250711@" + flaky).get());
+        assertEquals(3, transfers.get("20250711@" + broken).get());
+        assertEquals(transfers.size() - 1, count(STATUS_DONE));
+        assertEquals(1, count(STATUS_FAILED));
+        // 失败原因截断后落表
+        assertEquals(1, errors.size());
+        assertEquals(500, errors.values().iterator().next().length());
+    }
+
+    @Test
+    void listingAndDelistingOnlyTouchTheirOwnChunk() {
+        tradeDates(LocalDate.of(2025, 7, 10), LocalDate.of(2025, 7, 11));
+        List<String> codes = new ArrayList<>();
+        for (int i = 1; i <= 12; i++) {
+            codes.add(String.format("%06d.SZ", i));
+        }
+        doAnswer(invocation -> {
+            record(invocation.getArgument(0), invocation.getArgument(1));
+            return true;
+        }).when(quotationService).transferQuotationHistoryTrend(anyInt(), anyString(), anyInt(), eq(0));
+        assertTrue(service.runHistoryTrendBackfill("stock", "20250710", "20250711", codes));
+
+        // 退市：剩余代码的分片不变，全部跳过
+        transfers.clear();
+        List<String> delisted = codes.subList(1, codes.size());
+        assertTrue(service.runHistoryTrendBackfill("stock", "20250710", "20250711", delisted));
+        assertTrue(transfers.isEmpty(), transfers::toString);
+
+        // 新上市：只有新代码所在的分片重新执行，其他分片不移位
+        List<String> listed = new ArrayList<>(codes);
+        listed.add("000013.SZ");
+        assertTrue(service.runHistoryTrendBackfill("stock", "20250710", "20250711", listed));
+        String chunk = chunkOf("000013.SZ", listed);
+        assertEquals(Map.of("20250710@" + chunk, 1, "20250711@" + chunk, 1), counts());
+    }
+
+    /**
+     * 代码所在分片的代码串：与被测实现相同的分桶规则，分片内代码有序
+     */
+    private String chunkOf(String windCode, List<String> codes) {
+        int size = (int) codes.stream().distinct().count();
+        int buckets = Integer.highestOneBit(Math.max(1, (size + properties.getChunkSize() - 1) / properties.getChunkSize()) * 2 - 1);
+        int bucket = QuotationBackfillServiceImpl.bucket(windCode, buckets);
+        return String.join(",", codes.stream().distinct().sorted()
+                .filter(code -> QuotationBackfillServiceImpl.bucket(code, buckets) == bucket).toList());
+    }
+
+    private void tradeDates(LocalDate... dates) {
+        when(baseDataService.getTradeDateListByTime(anyString(), anyString())).thenReturn(List.of(dates));
+    }
+
+    private int record(int tradeDate, String windCodes) {
+        return transfers.computeIfAbsent(tradeDate + "@" + windCodes, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private Map<String, Integer> counts() {
+        Map<String, Integer> counts = new ConcurrentHashMap<>();
+        transfers.forEach((k, v) -> counts.put(k, v.get()));
+        return counts;
+    }
+
+    private long count(int status) {
+        return checkpoints.values().stream().filter(s -> s == status).count();
+    }
+
+    private static String key(BackfillCheckpointDTO checkpoint) {
+        return checkpoint.getTradeDate() + "#" + checkpoint.getUnitKey();
+    }
+}
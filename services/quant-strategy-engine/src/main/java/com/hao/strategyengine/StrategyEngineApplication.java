@@ -3,6 +3,7 @@ package com.hao.strategyengine;
 import com.alibaba.cloud.nacos.NacosConfigManager;
 import com.alibaba.nacos.api.config.ConfigService;
 import com.alibaba.nacos.api.config.listener.Listener;
+import com.hao.strategyengine.strategy.kernel.CrossSectionKernels;
 import lombok.extern.slf4j.Slf4j;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.ApplicationRunner;
@@ -88,6 +89,8 @@ public class StrategyEngineApplication {
                 }
             });
             log.info("启动配置监听|Start_config_listener");
+            // 启动时确定截面内核，未加载向量模块时在此输出降级告警
+            log.info("截面计算内核|Cross_section_kernels_active,kernels={}", CrossSectionKernels.best().name());
         };
     }
 }
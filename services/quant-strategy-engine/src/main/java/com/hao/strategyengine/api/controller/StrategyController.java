@@ -2,8 +2,8 @@ package com.hao.strategyengine.api.controller;
 
 /**
  * 类说明 / Class Description:
- * 中文：策略执行入口控制器，负责接收请求、构建上下文并以SSE流式返回执行结果，同时将结果异步发布到消息系统。
- * English: Entry controller for strategy execution; receives requests, builds context, streams results via SSE, and asynchronously publishes outcomes to the message bus.
+ * 中文：策略执行入口控制器，负责接收请求、构建上下文并以SSE逐策略流式返回执行结果（结果包由外观层发布到消息系统）。
+ * English: Entry controller for strategy execution; receives requests, builds context and streams each strategy's result via SSE (the facade publishes the bundle to the message bus).
  *
  * 使用场景 / Use Cases:
  * 中文：用于实时策略计算、回测任务、长耗时信号监控的HTTP接口入口，适配前端事件流消费。
@@ -18,9 +18,11 @@ import com.hao.strategyengine.common.model.core.StrategyContext;
 import com.hao.strategyengine.common.model.request.StrategyRequest;
 import com.hao.strategyengine.common.model.response.StrategyResultBundle;
 import com.hao.strategyengine.core.facade.StrategyEngineFacade;
-import com.hao.strategyengine.integration.kafka.KafkaConsumerConfig;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -30,6 +32,8 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.Instant;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * ===============================================================
@@ -40,8 +44,8 @@ import java.util.concurrent.CompletableFuture;
  * ⦿ 提供对外 HTTP 接口，作为策略引擎的统一入口；
  * ⦿ 接收用户请求（策略组合、标的、附加参数）；
  * ⦿ 封装上下文（StrategyContext）并调用 Facade 统一调度；
- * ⦿ 通过 Server-Sent Events (SSE) 实时推送计算结果；
- * ⦿ 异步推送计算结果到 Kafka 消息队列。
+ * ⦿ 通过 Server-Sent Events (SSE) 逐策略实时推送计算结果、进度与心跳；
+ * ⦿ 结果包由 Facade 统一发布到 Kafka，控制器不再重复发布。
  * <p>
  * 【核心思路】：
  * - Controller 不直接参与业务计算，只负责协调调用；
@@ -59,12 +63,13 @@ import java.util.concurrent.CompletableFuture;
  * │ Step 1：接收外部 POST 请求 (/api/strategy/execute) │
  * │ Step 2：封装请求参数为 StrategyContext              │
  * │ Step 3：调用 Facade 执行策略组合（分布式锁保护）     │
- * │ Step 4：获取计算结果 StrategyResultBundle           │
- * │ Step 5：推送结果到 Kafka 和 SSE 客户端               │
+ * │ Step 4：每个策略完成即推送 result + progress 事件    │
+ * │ Step 5：结果包完成后推送 summary 事件并关闭连接       │
  * └───────────────────────────────────────────┘
  * <p>
  * 【响应机制】：
- * - 返回类型为 SseEmitter：服务端实时推送结果；
+ * - 返回类型为 SseEmitter：服务端实时推送结果，事件协议见 StrategyEventStream；
+ * - 首个结果的到达时间取决于最快的策略，而非整个组合中最慢的策略；
  * - 客户端可使用 EventSource 监听返回；
  * - 适用于“策略执行、回测、信号监控”等流式任务。
  */
@@ -80,9 +85,17 @@ public class StrategyController {
     private final StrategyEngineFacade engine;
 
     /**
-     * Kafka 发布配置类，用于异步广播计算结果
+     * 虚拟线程执行器：承载 SSE 心跳推送
      */
-    private final KafkaConsumerConfig kafkaPublisher;
+    @Autowired
+    @Qualifier("virtualThreadExecutor")
+    private Executor virtualThreadExecutor;
+
+    /**
+     * SSE 心跳间隔（毫秒），小于等于 0 关闭心跳
+     */
+    @Value("${strategy.sse.heartbeat-ms:5000}")
+    private long heartbeatMs;
 
     /**
      * ===============================================================
@@ -102,17 +115,17 @@ public class StrategyController {
      *            <p>
      *            【执行流程】：
      *            ① 创建 SseEmitter（30 秒超时）；
-     *            ② 异步线程构建 StrategyContext；
-     *            ③ 调用 Facade 执行所有策略；
-     *            ④ 推送结果到 Kafka；
-     *            ⑤ 发送 SSE 响应流；
-     *            ⑥ 处理异常情况。
+     *            ② 构建 StrategyContext；
+     *            ③ 调用 Facade.executeAllAsync 非阻塞执行所有策略，每个策略完成即推送 result/progress 事件；
+     *            ④ 期间按固定间隔推送 heartbeat 事件；
+     *            ⑤ 结果包完成后补推剩余结果并推送 summary 事件；
+     *            ⑥ 处理异常情况，客户端断开时取消在途策略。
      */
     @PostMapping(value = "/execute", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     /**
      * 方法说明 / Method Description:
-     * 中文：接收策略执行请求，创建SSE通道，异步执行业务计算并将结果以事件流返回客户端，同时广播到Kafka。
-     * English: Accepts strategy execution request, creates SSE channel, executes business asynchronously, streams result to client, and broadcasts to Kafka.
+     * 中文：接收策略执行请求，创建SSE通道，异步执行业务计算并在每个策略完成时以事件流推送结果，最后推送汇总事件。
+     * English: Accepts strategy execution request, creates SSE channel, executes asynchronously and streams each strategy's result as it completes, followed by a summary event.
      *
      * 参数 / Parameters:
      * @param req 中文说明：策略执行请求体（包含用户ID、策略ID集合、交易标的、额外参数） / English: Strategy execution payload (user ID, strategy IDs, symbol, extras)
@@ -129,52 +142,56 @@ public class StrategyController {
         // Step 1⃣ 创建 SSE 流，允许 30 秒超时
         SseEmitter emitter = new SseEmitter(30_000L);
 
-        // 中文：以异步方式执行，避免阻塞控制器线程，提高并发能力
-        // English: Run asynchronously to avoid blocking controller thread and improve concurrency
-        // Step 2⃣ 异步执行任务，防止 Controller 阻塞
-        CompletableFuture.runAsync(() -> {
-            try {
-                // 中文：构建领域上下文，封装用户、标的、扩展参数与请求时间
-                // English: Build domain context encapsulating user, symbol, extra params, and request timestamp
-                // Step 3⃣ 构建策略上下文对象（封装调用环境）
-                StrategyContext ctx = StrategyContext.builder()
-                        .userId(req.getUserId())
-                        .symbol(req.getSymbol())
-                        .extra(req.getExtra())
-                        .requestTime(Instant.now())
-                        .build();
-
-                // 中文：通过外观统一调度策略执行，内部含并发与锁控制以保障幂等
-                // English: Delegate strategy execution to facade with concurrency and lock control to ensure idempotency
-                // Step 4⃣ 调用 Facade 执行策略组合（内部含锁/并发控制）
-                StrategyResultBundle bundle = engine.executeAll(req.getUserId(), req.getStrategyIds(), ctx);
-
-                // 中文：结果异步广播到消息系统，解耦后续消费方
-                // English: Broadcast results asynchronously to message system to decouple downstream consumers
-                // Step 5⃣ 异步发布 Kafka 消息（非阻塞）
-                kafkaPublisher.publish("quant-strategy-result", bundle);
-
-                // 中文：通过SSE向前端推送聚合结果，实现流式响应
-                // English: Push aggregated result to frontend via SSE to provide a streaming response
-                // Step 6⃣ SSE 推送执行结果给前端
-                emitter.send(bundle);
-
-                // 中文：显式完成事件流，释放连接资源
-                // English: Explicitly complete the event stream to release connection resources
-                // Step 7⃣ 完成推送并关闭连接
-                emitter.complete();
-
-            } catch (Exception e) {
-                // 中文：捕获所有异常并以错误事件通知客户端，保证协议一致性
-                // English: Catch all exceptions and notify client via error event to preserve protocol consistency
-                // Step 8⃣ 异常处理，推送错误并结束 SSE
-                try {
-                    emitter.send(SseEmitter.event()
-                            .name("error")
-                            .data("执行异常：" + e.getMessage()));
-                } catch (Exception ignored) {
-                }
-                emitter.completeWithError(e);
+        // 中文：构建领域上下文，封装用户、标的、扩展参数与请求时间
+        // English: Build domain context encapsulating user, symbol, extra params, and request timestamp
+        // Step 2⃣ 构建策略上下文对象（封装调用环境）
+        StrategyContext ctx = StrategyContext.builder()
+                .userId(req.getUserId())
+                .symbol(req.getSymbol())
+                .extra(req.getExtra())
+                .requestTime(Instant.now())
+                .build();
+
+        // 中文：每个连接一个事件流，负责串行推送、去重与心跳；发送在虚拟线程上进行，不占用策略执行线程
+        // English: One event stream per connection for serialized sends, de-duplication and heartbeats; sends run on virtual threads, off the strategy threads
+        StrategyEventStream stream = new StrategyEventStream(emitter, req.getStrategyIds().size(), virtualThreadExecutor);
+
+        // 中文：通过外观非阻塞执行策略组合，每个策略完成即推送，控制器线程立即返回
+        // English: Execute through the non-blocking facade; each strategy is pushed as it completes, the controller thread returns immediately
+        // Step 3⃣ 调用 Facade 异步执行策略组合（内部含锁/并发控制、请求截止时间与 Kafka 发布）
+        CompletableFuture<StrategyResultBundle> future =
+                engine.executeAllAsync(req.getUserId(), req.getStrategyIds(), ctx, stream::onResult);
+
+        // 中文：客户端断开或SSE超时时取消在途策略，释放计算资源
+        // English: Cancel in-flight strategies when the client disconnects or the SSE channel times out
+        stream.onDisconnect(() -> future.cancel(true));
+        emitter.onTimeout(() -> {
+            stream.close();
+            future.cancel(true);
+        });
+        emitter.onError(e -> {
+            stream.close();
+            future.cancel(true);
+        });
+        emitter.onCompletion(stream::close);
+
+        // Step 4⃣ 心跳保活，连接关闭后自动停止
+        stream.startHeartbeat(heartbeatMs, virtualThreadExecutor);
+
+        future.whenComplete((bundle, error) -> {
+            if (future.isCancelled()) {
+                return;
+            }
+            if (error == null) {
+                // 中文：补推未经回调的结果（截止时间取消、其他节点计算），随后推送汇总并关闭连接
+                // English: Push results not seen by the listener (deadline-cancelled, computed elsewhere), then the summary
+                // Step 5⃣ SSE 推送汇总事件并关闭连接
+                stream.onBundle(bundle);
+            } else {
+                // 中文：以错误事件通知客户端，保证协议一致性
+                // English: Notify client via error event to preserve protocol consistency
+                // Step 6⃣ 异常处理，推送错误并结束 SSE
+                stream.onError(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
             }
         });
         return emitter;
@@ -183,7 +200,7 @@ public class StrategyController {
     @PostMapping(value = "/execute1")
     /**
      * 方法说明 / Method Description:
-     * 中文：示例性入口，异步触发策略执行与Kafka发布，但直接返回空结果用于占位或联调。
+     * 中文：示例性入口，异步触发策略执行（由外观层发布Kafka），直接返回空结果用于占位或联调。
      * English: Sample entry that asynchronously triggers strategy execution and Kafka publish, returning null for placeholder or integration testing.
      *
      * 参数 / Parameters:
@@ -196,37 +213,26 @@ public class StrategyController {
      * 中文：内部异常通过日志记录，不向调用方抛出；用于演示异步触发场景 / English: Internal exceptions logged without throwing to caller; used to demonstrate async triggering scenario.
      */
     public StrategyResultBundle execute1(@RequestBody StrategyRequest req) {
-        // 中文：异步执行以避免阻塞，提高接口吞吐
-        // English: Execute asynchronously to avoid blocking and increase endpoint throughput
-        // Step 2⃣ 异步执行任务，防止 Controller 阻塞
-        CompletableFuture.runAsync(() -> {
-            try {
-                // 中文：构建策略上下文以传递必要的领域信息
-                // English: Build strategy context to carry necessary domain information
-                // Step 3⃣ 构建策略上下文对象（封装调用环境）
-                StrategyContext ctx = StrategyContext.builder()
-                        .userId(req.getUserId())
-                        .symbol(req.getSymbol())
-                        .extra(req.getExtra())
-                        .requestTime(Instant.now())
-                        .build();
-
-                // 中文：调用外观执行策略集合，内部含并行与锁控
-                // English: Invoke facade to execute strategy set with internal parallelism and locking
-                // Step 4⃣ 调用 Facade 执行策略组合（内部含锁/并发控制）
-                StrategyResultBundle bundle = engine.executeAll(req.getUserId(), req.getStrategyIds(), ctx);
-
-                // 中文：异步发布结果到Kafka，便于下游消费
-                // English: Asynchronously publish results to Kafka for downstream consumption
-                // Step 5⃣ 异步发布 Kafka 消息（非阻塞）
-                kafkaPublisher.publish("quant-strategy-result", bundle);
-
-            } catch (Exception e) {
-                // 中文：统一记录异常便于问题定位与审计
-                // English: Log exceptions uniformly for troubleshooting and auditing
-                log.error("执行异常：{}|Log_message", e.getMessage(), e);
-            }
-        });
+        // 中文：构建策略上下文以传递必要的领域信息
+        // English: Build strategy context to carry necessary domain information
+        // Step 2⃣ 构建策略上下文对象（封装调用环境）
+        StrategyContext ctx = StrategyContext.builder()
+                .userId(req.getUserId())
+                .symbol(req.getSymbol())
+                .extra(req.getExtra())
+                .requestTime(Instant.now())
+                .build();
+
+        // 中文：调用外观非阻塞执行策略集合，结果包由外观层发布到Kafka，便于下游消费
+        // English: Invoke the non-blocking facade path; the facade publishes the bundle to Kafka
+        // Step 3⃣ 调用 Facade 异步执行策略组合
+        engine.executeAllAsync(req.getUserId(), req.getStrategyIds(), ctx)
+                .exceptionally(e -> {
+                    // 中文：统一记录异常便于问题定位与审计
+                    // English: Log exceptions uniformly for troubleshooting and auditing
+                    log.error("执行异常：{}|Log_message", e.getMessage(), e);
+                    return null;
+                });
         return null;
     }
 }
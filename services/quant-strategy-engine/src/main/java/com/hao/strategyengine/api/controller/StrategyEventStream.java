@@ -0,0 +1,229 @@
+package com.hao.strategyengine.api.controller;
+
+import com.hao.strategyengine.common.model.response.StrategyResult;
+import com.hao.strategyengine.common.model.response.StrategyResultBundle;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 单个 SSE 连接上的策略事件流
+ *
+ * <p>事件协议（event name → data）：</p>
+ * <ul>
+ *     <li>{@code result}：单个策略的 StrategyResult，策略完成即推送，event id 为策略ID；</li>
+ *     <li>{@code progress}：{completed, total}，紧随每个 result 推送；</li>
+ *     <li>{@code heartbeat}：{elapsedMs}，按固定间隔推送，防止代理或浏览器因空闲断开长连接；</li>
+ *     <li>{@code summary}：{comboKey, total, succeeded, failed, elapsedMs}，最后一个事件，之后连接关闭；</li>
+ *     <li>{@code error}：执行异常（如前置责任链拒绝），之后连接以错误关闭。</li>
+ * </ul>
+ *
+ * <p>每个策略的 result 只推送一次：本节点计算时逐个推送，等待其他节点或截止时间取消的结果在收到结果包时补推。
+ * SseEmitter 不支持并发写，且回调来自策略执行线程、不可阻塞：各入口只把事件放入本连接的队列，
+ * 由 sender 执行器上同一时刻至多一个的发送任务按入队顺序串行写出。</p>
+ *
+ * @author hli
+ * @date 2026-10-17
+ */
+@Slf4j
+final class StrategyEventStream {
+
+    static final String EVENT_RESULT = "result";
+    static final String EVENT_PROGRESS = "progress";
+    static final String EVENT_HEARTBEAT = "heartbeat";
+    static final String EVENT_SUMMARY = "summary";
+    static final String EVENT_ERROR = "error";
+
+    private final SseEmitter emitter;
+    private final int total;
+    private final Executor sender;
+    private final long startNanos = System.nanoTime();
+
+    /** 待发送的事件，按入队顺序写出 */
+    private final ConcurrentLinkedQueue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    /** 是否已有发送任务在运行，保证同一时刻只有一个线程写 emitter */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    // 以下字段仅在发送任务内访问
+    private final Set<String> emitted = new HashSet<>();
+    private int succeeded;
+    private int failed;
+
+    private volatile boolean closed;
+    private volatile Runnable onDisconnect = () -> {
+    };
+
+    /**
+     * @param emitter SSE 连接
+     * @param total   本次请求的策略数
+     * @param sender  执行发送任务的执行器（通常为虚拟线程执行器）
+     */
+    StrategyEventStream(SseEmitter emitter, int total, Executor sender) {
+        this.emitter = emitter;
+        this.total = total;
+        this.sender = sender;
+    }
+
+    /**
+     * 客户端断开（发送失败）时的回调，通常用于取消在途策略
+     */
+    void onDisconnect(Runnable onDisconnect) {
+        this.onDisconnect = onDisconnect;
+    }
+
+    /**
+     * 按固定间隔推送心跳，直到事件流关闭
+     */
+    void startHeartbeat(long periodMs, Executor executor) {
+        if (periodMs <= 0) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            if (!closed) {
+                enqueue(this::sendHeartbeat);
+                startHeartbeat(periodMs, executor);
+            }
+        }, CompletableFuture.delayedExecutor(periodMs, TimeUnit.MILLISECONDS, executor));
+    }
+
+    /**
+     * 推送单个策略结果与进度，重复的策略ID忽略；只入队，不阻塞调用线程
+     */
+    void onResult(StrategyResult result) {
+        enqueue(() -> sendResult(result));
+    }
+
+    /**
+     * 补推尚未推送的结果，推送汇总并关闭连接
+     */
+    void onBundle(StrategyResultBundle bundle) {
+        enqueue(() -> sendBundle(bundle));
+    }
+
+    /**
+     * 推送错误事件并以错误关闭连接
+     */
+    void onError(Throwable error) {
+        enqueue(() -> sendError(error));
+    }
+
+    /**
+     * 连接已由容器关闭（超时、完成或出错），停止推送
+     */
+    void close() {
+        closed = true;
+    }
+
+    private void enqueue(Runnable event) {
+        pending.add(event);
+        schedule();
+    }
+
+    private void schedule() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sender.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // 执行器已关闭（应用停止中）：放弃剩余事件
+            log.warn("SSE发送任务提交失败|Sse_sender_rejected,error={}", e.getMessage());
+            pending.clear();
+            closed = true;
+            draining.set(false);
+        }
+    }
+
+    private void drain() {
+        try {
+            Runnable event;
+            while ((event = pending.poll()) != null) {
+                event.run();
+            }
+        } finally {
+            draining.set(false);
+        }
+        // 释放标记与入队之间的竞争：有新事件则重新调度
+        if (!pending.isEmpty()) {
+            schedule();
+        }
+    }
+
+    private void sendResult(StrategyResult result) {
+        if (closed || result == null || !emitted.add(result.getStrategyId())) {
+            return;
+        }
+        if (result.isSuccess()) {
+            succeeded++;
+        } else {
+            failed++;
+        }
+        if (send(SseEmitter.event().name(EVENT_RESULT).id(result.getStrategyId()).data(result))) {
+            Map<String, Object> progress = new LinkedHashMap<>();
+            progress.put("completed", emitted.size());
+            progress.put("total", total);
+            send(SseEmitter.event().name(EVENT_PROGRESS).data(progress));
+        }
+    }
+
+    private void sendBundle(StrategyResultBundle bundle) {
+        if (closed) {
+            return;
+        }
+        if (bundle.getResults() != null) {
+            bundle.getResults().forEach(this::sendResult);
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("comboKey", bundle.getComboKey());
+        summary.put("total", total);
+        summary.put("succeeded", succeeded);
+        summary.put("failed", failed);
+        summary.put("elapsedMs", elapsedMs());
+        if (send(SseEmitter.event().name(EVENT_SUMMARY).data(summary))) {
+            closed = true;
+            emitter.complete();
+        }
+    }
+
+    private void sendError(Throwable error) {
+        if (closed) {
+            return;
+        }
+        send(SseEmitter.event().name(EVENT_ERROR).data("执行异常：" + error.getMessage()));
+        closed = true;
+        emitter.completeWithError(error);
+    }
+
+    private void sendHeartbeat() {
+        if (!closed) {
+            send(SseEmitter.event().name(EVENT_HEARTBEAT).data(Map.of("elapsedMs", elapsedMs())));
+        }
+    }
+
+    private boolean send(SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (Exception e) {
+            // 客户端已断开：停止推送并取消在途计算
+            log.debug("SSE推送失败_客户端已断开|Sse_send_failed,error={}", e.getMessage());
+            closed = true;
+            onDisconnect.run();
+            return false;
+        }
+    }
+
+    private long elapsedMs() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
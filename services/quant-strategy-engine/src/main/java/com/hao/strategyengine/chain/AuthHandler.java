@@ -3,6 +3,7 @@ package com.hao.strategyengine.chain;
 import com.hao.strategyengine.common.model.core.StrategyContext;
 import com.hao.strategyengine.core.StrategyHandler;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ResponseStatusException;
@@ -19,9 +20,11 @@ import org.springframework.web.server.ResponseStatusException;
  *
  * 核心实现思路：
  * - 校验用户是否存在并按需扩展权限校验。
+ * - 纯内存判定，顺序执行且排在最前，未登录请求不会触发后续的 Redis 限流计数。
  */
 @Slf4j
 @Component
+@Order(100)
 public class AuthHandler implements StrategyHandler {
     /**
      * 执行鉴权检查
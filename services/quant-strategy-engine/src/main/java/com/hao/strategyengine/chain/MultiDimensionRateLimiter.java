@@ -0,0 +1,99 @@
+package com.hao.strategyengine.chain;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.util.List;
+
+/**
+ * 多维度合并限流器
+ *
+ * <p>在一次 Lua 脚本调用中原子地完成多个维度（全局 / 用户 / 策略类型）的 GCRA 判定：</p>
+ * <ul>
+ *     <li>每个维度只保存一个理论到达时间 TAT，内存与 CPU 为 O(1)，不随 QPS 增长；</li>
+ *     <li>第一轮逐个维度计算新 TAT，任一维度超限立即返回该维度序号，不写入任何维度；</li>
+ *     <li>全部通过后第二轮统一写入，保证"要么全部计数，要么都不计数"；</li>
+ *     <li>每次请求只产生一次 Redis 往返，替代原先逐维度三次 execute；</li>
+ *     <li>突发容量等于窗口阈值，与原滑动窗口的瞬时上限一致。</li>
+ * </ul>
+ *
+ * <p>注意：脚本涉及多个 key，Redis Cluster 部署时各维度 key 需使用相同的 hash tag 落在同一 slot。</p>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+public class MultiDimensionRateLimiter {
+
+    /** 全部维度通过 */
+    public static final int PASSED = -1;
+
+    /**
+     * 多维度 GCRA Lua 脚本
+     * <p>
+     * KEYS[1..n]: 各维度限流 key
+     * ARGV[1]: 窗口大小(秒)
+     * ARGV[1+i]: KEYS[i] 的限流阈值(同时作为突发容量)
+     * <p>
+     * 返回: 0=全部通过, i=第 i 个维度拒绝
+     */
+    static final String MULTI_DIMENSION_LUA_SCRIPT =
+            "redis.replicate_commands()\n" +
+                    "local window = tonumber(ARGV[1]) * 1000\n" +
+                    "local t = redis.call('TIME')\n" +
+                    "local now = tonumber(t[1]) * 1000 + tonumber(t[2]) / 1000\n" +
+                    "local newTats = {}\n" +
+                    "\n" +
+                    "-- 第一轮: 逐维度计算新的理论到达时间, 任一维度超限立即返回\n" +
+                    "for i = 1, #KEYS do\n" +
+                    "    local limit = tonumber(ARGV[1 + i])\n" +
+                    "    local emission = window / limit\n" +
+                    "    local tat = tonumber(redis.call('GET', KEYS[i]))\n" +
+                    "    if not tat or tat < now then\n" +
+                    "        tat = now\n" +
+                    "    end\n" +
+                    "    local newTat = tat + emission\n" +
+                    "    if newTat - limit * emission > now then\n" +
+                    "        return i\n" +
+                    "    end\n" +
+                    "    newTats[i] = newTat\n" +
+                    "end\n" +
+                    "\n" +
+                    "-- 第二轮: 全部通过后统一计数\n" +
+                    "for i = 1, #KEYS do\n" +
+                    "    redis.call('SET', KEYS[i], string.format('%.3f', newTats[i]), 'PX', math.ceil(newTats[i] - now) + 1)\n" +
+                    "end\n" +
+                    "return 0";
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final DefaultRedisScript<Long> script;
+
+    public MultiDimensionRateLimiter(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        this.script = new DefaultRedisScript<>(MULTI_DIMENSION_LUA_SCRIPT, Long.class);
+    }
+
+    /**
+     * 一次往返判定全部维度
+     *
+     * @param keys          各维度限流 key
+     * @param limits        与 keys 一一对应的阈值
+     * @param windowSeconds 窗口大小(秒)
+     * @return {@link #PASSED} 表示通过；否则为拒绝维度在 keys 中的下标
+     */
+    public int tryAcquire(List<String> keys, int[] limits, int windowSeconds) {
+        if (keys.size() != limits.length) {
+            throw new IllegalArgumentException("keys and limits must have the same length");
+        }
+        Object[] args = new Object[1 + limits.length];
+        args[0] = String.valueOf(windowSeconds);
+        for (int i = 0; i < limits.length; i++) {
+            args[1 + i] = String.valueOf(limits[i]);
+        }
+        Long result = redisTemplate.execute(script, keys, args);
+        if (result == null) {
+            throw new IllegalStateException("rate limit script returned null");
+        }
+        return result == 0 ? PASSED : result.intValue() - 1;
+    }
+}
@@ -9,11 +9,14 @@ import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Component;
 
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -23,12 +26,16 @@ import java.util.concurrent.TimeUnit;
  * @description: 分布式限流处理器
  * <p>
  * 核心特性:
- * 1. Redis滑动窗口实现分布式限流
+ * 1. Redis GCRA(等价令牌桶)实现分布式限流, 每个key O(1)状态
  * 2. 单机令牌桶作为降级方案
- * 3. 多维度限流: 全局 + 用户 + 策略类型
+ * 3. 多维度限流: 全局 + 用户 + 策略(由请求的策略ID集合得出, 阈值取 {@link StrategyMetaEnum} 的单机/分布式QPS)
+ * 4. 分布式模式下各维度经 {@link MultiDimensionRateLimiter} 一次往返原子判定, 返回拒绝维度
+ * 5. 放行即在 Redis 中扣减配额(有副作用), 在责任链中顺序执行且位于风控之后,
+ *    避免风控拒绝或并发阶段超时取消后配额已被白白扣减
  */
 @Slf4j
 @Component
+@Order(300)
 public class RateLimitHandler implements StrategyHandler {
 
     @Resource
@@ -67,20 +74,6 @@ public class RateLimitHandler implements StrategyHandler {
      */
     @Value("${rate-limit.user.qps:10}")
     private int userQps;
-    /**
-     * todo 改进成最大-策略类型QPS限制
-     */
-    /**
-     * 策略类型QPS限制
-     */
-    @Value("${rate-limit.strategy.simple:100}")
-    private int simpleStrategyQps;
-
-    @Value("${rate-limit.strategy.complex:20}")
-    private int complexStrategyQps;
-
-    @Value("${rate-limit.strategy.ml-model:5}")
-    private int mlModelStrategyQps;
 
     // ==================== 单机降级限流器 ====================
 
@@ -94,58 +87,28 @@ public class RateLimitHandler implements StrategyHandler {
      */
     private RateLimiter localUserLimiter;
 
-    // ==================== Lua脚本 ====================
+    /**
+     * 单机策略维度限流器(降级用), 按 {@link StrategyMetaEnum#getLocalQps()} 懒创建
+     */
+    private final Map<StrategyMetaEnum, RateLimiter> localStrategyLimiters = new ConcurrentHashMap<>();
+
+    // ==================== 分布式限流器 ====================
+
+    /**
+     * 多维度合并限流器(一次Redis往返)
+     */
+    private MultiDimensionRateLimiter multiDimensionLimiter;
 
     /**
-     * Redis滑动窗口限流Lua脚本
-     * <p>
-     * 算法原理:
-     * 1. 使用ZSET存储请求时间戳
-     * 2. 移除窗口外的旧数据
-     * 3. 统计窗口内请求数
-     * 4. 判断是否超过限制
-     * <p>
-     * KEYS[1]: 限流key
-     * ARGV[1]: 窗口大小(秒)
-     * ARGV[2]: 限流阈值
-     * ARGV[3]: 当前时间戳(毫秒)
-     * <p>
-     * 返回: 1=通过, 0=拒绝
+     * 责任链中的时间预算(毫秒), 顺序执行无法抢占, 超出只记录告警
      */
-    private static final String RATE_LIMIT_LUA_SCRIPT =
-            "local key = KEYS[1]\n" +
-                    "local window = tonumber(ARGV[1])\n" +
-                    "local limit = tonumber(ARGV[2])\n" +
-                    "local now = tonumber(ARGV[3])\n" +
-                    "\n" +
-                    "-- 计算窗口起始时间\n" +
-                    "local windowStart = now - window * 1000\n" +
-                    "\n" +
-                    "-- 移除窗口外的旧数据\n" +
-                    "redis.call('ZREMRANGEBYSCORE', key, 0, windowStart)\n" +
-                    "\n" +
-                    "-- 统计窗口内的请求数\n" +
-                    "local current = redis.call('ZCARD', key)\n" +
-                    "\n" +
-                    "-- 判断是否超过限制\n" +
-                    "if current < limit then\n" +
-                    "    -- 添加当前请求\n" +
-                    "    redis.call('ZADD', key, now, now)\n" +
-                    "    -- 设置key过期时间(窗口大小+1秒)\n" +
-                    "    redis.call('EXPIRE', key, window + 1)\n" +
-                    "    return 1\n" +
-                    "else\n" +
-                    "    return 0\n" +
-                    "end";
-
-    private DefaultRedisScript<Long> rateLimitScript;
+    @Value("${rate-limit.handler.time-budget-ms:300}")
+    private long timeBudgetMs;
 
     @PostConstruct
     public void init() {
-        // 初始化Lua脚本
-        rateLimitScript = new DefaultRedisScript<>();
-        rateLimitScript.setScriptText(RATE_LIMIT_LUA_SCRIPT);
-        rateLimitScript.setResultType(Long.class);
+        // 初始化多维度合并限流器
+        multiDimensionLimiter = new MultiDimensionRateLimiter(stringRedisTemplate);
 
         // 初始化单机降级限流器
         localGlobalLimiter = RateLimiter.create(globalQps);
@@ -154,6 +117,11 @@ public class RateLimitHandler implements StrategyHandler {
         log.info("分布式限流初始化完成|Rate_limit_init_done,distributedEnabled={},globalQps={},userQps={}", distributedEnabled, globalQps, userQps);
     }
 
+    @Override
+    public long timeBudgetMs() {
+        return timeBudgetMs;
+    }
+
     @Override
     public void handle(StrategyContext ctx) throws Exception {
         long start = System.currentTimeMillis();
@@ -162,140 +130,107 @@ public class RateLimitHandler implements StrategyHandler {
             return;
         }
         Integer userId = ctx.getUserId();
-//        String strategyType = ctx.getExtra().get("strategyType").toString();
-        String strategyType = "test";
-        log.info("限流检查开始|Rate_limit_check_start,userId={},strategyType={},mode={}", userId, strategyType, distributedEnabled ? "分布式" : "单机");
+        List<StrategyMetaEnum> strategies = strategiesOf(ctx);
+        log.info("限流检查开始|Rate_limit_check_start,userId={},strategyIds={},mode={}", userId, ctx.getStrategyIds(), distributedEnabled ? "分布式" : "单机");
 
         try {
-            // 第一层: 全局限流
-            checkGlobalRateLimit();
-
-            // 第二层: 用户维度限流
-            checkUserRateLimit(userId);
-
-            // 第三层: 策略类型限流
-            checkStrategyTypeRateLimit(strategyType);
+            if (distributedEnabled) {
+                // 分布式: 全局 + 用户 + 各策略一次往返判定
+                checkDistributedRateLimit(userId, strategies);
+            } else {
+                checkLocalRateLimit(userId, strategies);
+            }
 
-            log.info("限流检查通过|Rate_limit_check_passed,userId={},strategyType={}", userId, strategyType);
-//            boolean acquired = localUserLimiter.tryAcquire(100, TimeUnit.MILLISECONDS);
+            log.info("限流检查通过|Rate_limit_check_passed,userId={},strategyIds={}", userId, ctx.getStrategyIds());
             rateLimitMetrics.recordWaitTime("checkHandleRateLimit_USER", System.currentTimeMillis() - start);
         } catch (RateLimitException e) {
-            log.warn("限流拒绝|Rate_limit_rejected,userId={},strategyType={},reason={}", userId, strategyType, e.getMessage());
+            log.warn("限流拒绝|Rate_limit_rejected,userId={},strategyIds={},reason={}", userId, ctx.getStrategyIds(), e.getMessage());
             //监控
-            rateLimitMetrics.recordRateLimitReject(e.getLimitType(), ctx.getUserId().toString(), strategyType);
+            rateLimitMetrics.recordRateLimitReject(e.getLimitType(), String.valueOf(userId), e.getStrategyId());
             throw e;
         }
     }
 
     /**
-     * 第一层: 全局限流
+     * 请求中已在 {@link StrategyMetaEnum} 登记的策略(去重); 未登记的策略不参与策略维度限流
      */
-    private void checkGlobalRateLimit() throws RateLimitException {
-        String key = redisKeyPrefix + "global";
-
-        if (distributedEnabled) {
-            // 分布式限流
-            if (!tryAcquireDistributed(key, 1, globalQps)) {
-                throw new RateLimitException("GLOBAL", String.format("系统繁忙,请稍后重试 (全局QPS限制: %d)", globalQps));
-            }
-        } else {
-            // 单机降级
-            if (!localGlobalLimiter.tryAcquire(100, TimeUnit.MILLISECONDS)) {
-                throw new RateLimitException("GLOBAL", String.format("系统繁忙,请稍后重试 (单机全局QPS限制: %d)", globalQps));
-            }
+    private static List<StrategyMetaEnum> strategiesOf(StrategyContext ctx) {
+        if (ctx.getStrategyIds() == null) {
+            return List.of();
         }
-    }
-
-    /**
-     * 第二层: 用户维度限流
-     */
-    private void checkUserRateLimit(Integer userId) throws RateLimitException {
-        long start = System.currentTimeMillis();
-        String key = redisKeyPrefix + "user:" + userId;
-        if (distributedEnabled) {
-            // 分布式限流
-            if (!tryAcquireDistributed(key, 1, userQps)) {
-                throw new RateLimitException("USER", String.format("操作过于频繁,请稍后重试 (用户QPS限制: %d)", userQps));
-            }
-        } else {
-            // 单机降级
-            if (!localUserLimiter.tryAcquire(100, TimeUnit.MILLISECONDS)) {
-                throw new RateLimitException("USER", String.format("操作过于频繁,请稍后重试 (单机用户QPS限制: %d)", userQps));
+        List<StrategyMetaEnum> strategies = new ArrayList<>(ctx.getStrategyIds().size());
+        for (String id : ctx.getStrategyIds()) {
+            StrategyMetaEnum meta = id == null ? null : StrategyMetaEnum.fromId(id);
+            if (meta != null && !strategies.contains(meta)) {
+                strategies.add(meta);
             }
         }
-        rateLimitMetrics.recordWaitTime("checkUserRateLimit_USER", System.currentTimeMillis() - start);
+        return strategies;
     }
 
     /**
-     * 第三层: 策略类型限流
+     * 分布式限流: 各维度在一个Lua脚本中原子判定(GCRA), 任一维度拒绝则都不计数
      */
-    private void checkStrategyTypeRateLimit(String strategyType) throws RateLimitException {
-        // 策略类型为空则跳过
-        if (strategyType == null) return;
-
-        // 获取策略类型对应的QPS限制
-        StrategyMetaEnum meta = StrategyMetaEnum.fromId(strategyType);
-        if (meta == null) return; // 未配置限流则跳过
-
-        String key = redisKeyPrefix + "strategy:" + strategyType;
+    private void checkDistributedRateLimit(Integer userId, List<StrategyMetaEnum> strategies) throws RateLimitException {
+        // 维度顺序: 全局、用户、各策略; 请求中没有已登记的策略时只判定前两个维度
+        List<String> keys = new ArrayList<>(2 + strategies.size());
+        int[] limits = new int[2 + strategies.size()];
+        keys.add(redisKeyPrefix + "global");
+        limits[0] = globalQps;
+        keys.add(redisKeyPrefix + "user:" + userId);
+        limits[1] = userQps;
+        for (int i = 0; i < strategies.size(); i++) {
+            keys.add(redisKeyPrefix + "strategy:" + strategies.get(i).getId());
+            limits[2 + i] = strategies.get(i).getDistributedQps();
+        }
 
-        if (distributedEnabled) {
-            // 分布式限流
-            if (!tryAcquireDistributed(key, 1, meta.getDistributedQps())) {
-                throw new RateLimitException("STRATEGY_TYPE", String.format("该策略类型执行频率过高,请稍后重试 (策略: %s, QPS限制: %d)", strategyType, meta.getDistributedQps()));
-            }
-        } else {
-            // 单机限流(简化处理,使用用户限流器)
-            if (!localUserLimiter.tryAcquire(100, TimeUnit.MILLISECONDS)) {
-                throw new RateLimitException("STRATEGY_TYPE", String.format("该策略类型执行频率过高,请稍后重试 (策略: %s)", strategyType));
-            }
+        int rejected;
+        try {
+            rejected = multiDimensionLimiter.tryAcquire(keys, limits, 1);
+        } catch (Exception e) {
+            log.error("Redis限流异常降级|Redis_rate_limit_error_fallback,keys={}", keys, e);
+            // Redis异常时降级到单机限流
+            checkLocalRateLimit(userId, strategies);
+            return;
         }
-    }
 
-    /**
-     * todo 看是否要改进 - 获取策略类型对应的QPS限制
-     */
-    private Integer getStrategyTypeLimit(String strategyType) {
-        switch (strategyType.toUpperCase()) {
-            case "SIMPLE":
-                return simpleStrategyQps;
-            case "COMPLEX":
-                return complexStrategyQps;
-            case "ML_MODEL":
-            case "ML-MODEL":
-                return mlModelStrategyQps;
+        switch (rejected) {
+            case MultiDimensionRateLimiter.PASSED:
+                return;
+            case 0:
+                throw new RateLimitException("GLOBAL", String.format("系统繁忙,请稍后重试 (全局QPS限制: %d)", globalQps));
+            case 1:
+                throw new RateLimitException("USER", String.format("操作过于频繁,请稍后重试 (用户QPS限制: %d)", userQps));
             default:
-                return null;  // 未配置的策略类型不限流
+                StrategyMetaEnum meta = strategies.get(rejected - 2);
+                throw new RateLimitException("STRATEGY_TYPE", meta.getId(),
+                        String.format("该策略执行频率过高,请稍后重试 (策略: %s, QPS限制: %d)", meta.getId(), limits[rejected]));
         }
     }
 
     /**
-     * 分布式限流核心方法 - 使用Redis Lua脚本
-     *
-     * @param key           限流key
-     * @param windowSeconds 窗口大小(秒)
-     * @param limit         限流阈值
-     * @return true=通过, false=拒绝
+     * 单机降级限流: 全局 -> 用户 -> 各策略逐层判定
      */
-    private boolean tryAcquireDistributed(String key, int windowSeconds, int limit) {
-        try {
-            long now = System.currentTimeMillis();
-
-            // 执行Lua脚本
-            Long result = stringRedisTemplate.execute(
-                    rateLimitScript,
-                    Collections.singletonList(key),
-                    String.valueOf(windowSeconds),
-                    String.valueOf(limit),
-                    String.valueOf(now)
-            );
+    private void checkLocalRateLimit(Integer userId, List<StrategyMetaEnum> strategies) throws RateLimitException {
+        // 第一层: 全局限流
+        if (!localGlobalLimiter.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+            throw new RateLimitException("GLOBAL", String.format("系统繁忙,请稍后重试 (单机全局QPS限制: %d)", globalQps));
+        }
 
-            return result != null && result == 1;
+        // 第二层: 用户维度限流
+        long start = System.currentTimeMillis();
+        if (!localUserLimiter.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+            throw new RateLimitException("USER", String.format("操作过于频繁,请稍后重试 (单机用户QPS限制: %d)", userQps));
+        }
+        rateLimitMetrics.recordWaitTime("checkUserRateLimit_USER", System.currentTimeMillis() - start);
 
-        } catch (Exception e) {
-            log.error("Redis限流异常降级|Redis_rate_limit_error_fallback,key={}", key, e);
-            // Redis异常时降级到单机限流
-            return localGlobalLimiter.tryAcquire(100, TimeUnit.MILLISECONDS);
+        // 第三层: 各策略按单机QPS限流
+        for (StrategyMetaEnum meta : strategies) {
+            RateLimiter limiter = localStrategyLimiters.computeIfAbsent(meta, m -> RateLimiter.create(m.getLocalQps()));
+            if (!limiter.tryAcquire()) {
+                throw new RateLimitException("STRATEGY_TYPE", meta.getId(),
+                        String.format("该策略执行频率过高,请稍后重试 (策略: %s, 单机QPS限制: %d)", meta.getId(), meta.getLocalQps()));
+            }
         }
     }
 
@@ -304,14 +239,25 @@ public class RateLimitHandler implements StrategyHandler {
      */
     public static class RateLimitException extends Exception {
         private final String limitType;
+        /** 触发拒绝的策略ID, 全局/用户维度拒绝时为 ALL */
+        private final String strategyId;
 
         public RateLimitException(String limitType, String message) {
+            this(limitType, "ALL", message);
+        }
+
+        public RateLimitException(String limitType, String strategyId, String message) {
             super(message);
             this.limitType = limitType;
+            this.strategyId = strategyId;
         }
 
         public String getLimitType() {
             return limitType;
         }
+
+        public String getStrategyId() {
+            return strategyId;
+        }
     }
 }
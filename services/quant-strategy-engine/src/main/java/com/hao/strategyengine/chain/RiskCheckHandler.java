@@ -3,6 +3,7 @@ package com.hao.strategyengine.chain;
 import com.hao.strategyengine.common.model.core.StrategyContext;
 import com.hao.strategyengine.core.StrategyHandler;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 /**
@@ -17,11 +18,19 @@ import org.springframework.stereotype.Component;
  *
  * 核心实现思路：
  * - 从上下文extra读取riskBlocked标志，命中则抛异常。
+ * - 只读上下文、无副作用，可与其他无副作用的处理器并发执行（后续接入远程风控时同样以 I/O 为主）；
+ * - 限流处理器会扣减配额，排在风控之后顺序执行，风控拒绝的请求不消耗限流配额。
  */
 @Slf4j
 @Component
+@Order(200)
 public class RiskCheckHandler implements StrategyHandler {
 
+    @Override
+    public boolean concurrent() {
+        return true;
+    }
+
     /**
      * 执行风控检查
      *
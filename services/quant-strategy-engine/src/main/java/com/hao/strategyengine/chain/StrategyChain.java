@@ -13,11 +13,28 @@ package com.hao.strategyengine.chain;
  * 中文：通过责任链模式解耦各类前置逻辑，保证可插拔、可扩展与顺序可控。
  * English: Decouple pre-logic via chain-of-responsibility, ensuring pluggability, extensibility, and ordered control.
  */
-import com.hao.strategyengine.core.StrategyHandler;
 import com.hao.strategyengine.common.model.core.StrategyContext;
-import lombok.RequiredArgsConstructor;
+import com.hao.strategyengine.core.StrategyHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
  * 运行流程联动（配合上层 Facade）
  * Controller
@@ -46,8 +63,15 @@ import java.util.List;
  * 【核心思路】：
  *   - 系统中可能存在多个不同的 Handler（风控、白名单、账户冻结校验等）；
  *   - Spring 启动时自动注入所有实现 StrategyHandler 接口的 Bean；
- *   - StrategyChain 统一按顺序遍历执行；
- *   - 任意一个 Handler 抛出异常即可中断整个策略执行流程。
+ *   - StrategyChain 按 @Order 排序后分阶段执行：
+ *       · 顺序处理器（默认）单独成为一个阶段，在调用线程上执行；
+ *       · 相邻的并发处理器（concurrent() = true）合并为一个阶段，在虚拟线程上同时执行，
+ *         阶段耗时从各处理器之和降为其中最大值；
+ *       · 只有无副作用的处理器可以并发：同阶段其他处理器拒绝或超时时，已执行的副作用无法撤销
+ *         （如限流已扣减的配额），因此带副作用的处理器保持顺序，排在会拒绝请求的检查之后；
+ *   - 并发阶段内每个处理器受各自时间预算约束，超出预算视为拒绝；
+ *   - 任意一个 Handler 抛出异常立即中断整个流程（短路），同阶段仍在执行的处理器被取消；
+ *   - 每个处理器的耗时按结果（pass / reject / timeout）输出到 strategy.chain.handler.latency。
  *
  * 【执行链位置】：
  *    属于系统执行链的「第 1 阶段：风控 / 前置校验阶段」
@@ -55,9 +79,9 @@ import java.util.List;
  *
  * 【执行流程】：
  *   ┌────────────────────────────────────────┐
- *   │ Step 1：按顺序遍历所有注册的 Handler 实例      │
- *   │ Step 2：逐个执行 handle(ctx) 方法              │
- *   │ Step 3：若某个 Handler 抛异常 → 中断流程        │
+ *   │ Step 1：按阶段遍历排序后的 Handler             │
+ *   │ Step 2：顺序阶段直接执行 / 并发阶段同时执行       │
+ *   │ Step 3：某个 Handler 拒绝或超时 → 取消并中断流程  │
  *   │ Step 4：所有 Handler 执行通过 → 放行策略阶段     │
  *   └────────────────────────────────────────┘
  *
@@ -69,26 +93,52 @@ import java.util.List;
  *     - 常用于安全校验 / 请求过滤 / 风控前置逻辑。
  *
  * 【扩展方向】：
- *   - 可通过 @Order 注解控制 Handler 执行顺序；
+ *   - 通过 @Order 注解控制 Handler 执行顺序（已支持）；
  *   - 可引入动态配置（从数据库 / Nacos 加载启停策略）；
  *   - 可加入后置责任链（Post-Chain）用于审计或结果校验。
  */
+@Slf4j
 @Component
-@RequiredArgsConstructor
 public class StrategyChain {
 
     /**
-     * 系统自动注入的所有责任节点：
+     * 排序并分阶段后的责任节点：
      *   - 由 Spring 扫描所有实现 StrategyHandler 的 Bean；
-     *   - 以 List 形式注入；
-     *   - 可通过 @Order 控制执行顺序。
+     *   - 按 @Order 排序，相邻的并发处理器合并为同一阶段。
      *
      * 示例：
-     *   RiskCheckHandler   → 风控拦截
-     *   LimitCheckHandler  → 限流检查
-     *   AuthCheckHandler   → 鉴权验证
+     *   [AuthHandler] → [RiskCheckHandler, ...] → [RateLimitHandler]
+     *   鉴权（顺序）     风控等只读检查（并发）   限流（顺序，扣减配额）
+     */
+    private final List<List<StrategyHandler>> stages;
+
+    /**
+     * 并发阶段使用的执行器（虚拟线程，I/O 等待不占用平台线程）
+     */
+    private final Executor executor;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 处理器未声明时间预算时的默认值（毫秒）
      */
-    private final List<StrategyHandler> handlers;
+    private final long defaultBudgetMs;
+
+    /**
+     * 已注册的耗时计时器，key = handler:outcome
+     */
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public StrategyChain(List<StrategyHandler> handlers,
+                         @Qualifier("virtualThreadExecutor") Executor executor,
+                         MeterRegistry meterRegistry,
+                         @Value("${strategy.chain.handler-budget-ms:200}") long defaultBudgetMs) {
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.defaultBudgetMs = defaultBudgetMs;
+        this.stages = buildStages(handlers);
+        log.info("责任链初始化完成|Strategy_chain_initialized,stages={}", describe(stages));
+    }
 
     /**
      * ===============================================================
@@ -96,22 +146,23 @@ public class StrategyChain {
      * ===============================================================
      *
      * 【功能】：
-     *   执行整个责任链的处理逻辑；
-     *   若任一 Handler 抛出异常，则中止策略执行。
+     *   分阶段执行整个责任链的处理逻辑；
+     *   若任一 Handler 抛出异常或超出时间预算，则立即中止策略执行。
      *
      * 【参数】：
      *   @param ctx 策略上下文对象（StrategyContext）
      *
      * 【异常】：
-     *   抛出 Exception 代表校验未通过，阻止后续执行。
+     *   抛出 Exception 代表校验未通过，阻止后续执行；
+     *   并发处理器原样抛出自身的异常，超出预算时抛出 TimeoutException。
      *
      * 【调用位置】：
-     *   StrategyEngineFacade.executeAll() → Step 1 调用。
+     *   StrategyEngineFacade.executeAllAsync() → Step 1 调用。
      */
     /**
      * 方法说明 / Method Description:
-     * 中文：执行责任链中的所有前置处理器，如遇异常则中断策略执行。
-     * English: Execute all pre-handlers in the chain; interrupt strategy execution on exception.
+     * 中文：分阶段执行责任链中的前置处理器，顺序阶段逐个执行，并发阶段同时执行，任一拒绝即短路。
+     * English: Execute pre-handlers stage by stage; sequential stages run inline, concurrent stages run in parallel; any rejection short-circuits.
      *
      * 参数 / Parameters:
      * @param ctx 中文：策略上下文 / English: strategy context
@@ -120,17 +171,153 @@ public class StrategyChain {
      * 中文：无返回值；通过异常控制流程中断 / English: void; flow interruption via exception
      *
      * 异常 / Exceptions:
-     * 中文：处理器抛出异常表示校验未通过 / English: handler exceptions indicate validation failure
+     * 中文：处理器抛出异常或超时表示校验未通过 / English: handler exceptions or timeouts indicate validation failure
      */
     public void apply(StrategyContext ctx) throws Exception {
-        // Step 1⃣ 依次执行所有前置 Handler
-        for (StrategyHandler handler : handlers) {
-            // 中文：执行单一处理器的前置校验或风控逻辑
-            // English: Execute pre-check or risk control logic of a single handler
+        // Step 1⃣ 按阶段执行前置 Handler
+        for (List<StrategyHandler> stage : stages) {
+            if (stage.size() == 1 && !stage.get(0).concurrent()) {
+                // 中文：顺序处理器直接在调用线程执行，避免线程切换
+                // English: Sequential handler runs inline on the caller thread
+                runInline(stage.get(0), ctx);
+            } else {
+                // 中文：独立的 I/O 型处理器同时执行，阶段耗时取最大值
+                // English: Independent I/O-bound handlers run concurrently; stage latency is the max, not the sum
+                runConcurrently(stage, ctx);
+            }
+        }
+
+        // Step 2⃣ 所有 Handler 校验通过，放行策略计算阶段
+    }
+
+    private void runInline(StrategyHandler handler, StrategyContext ctx) throws Exception {
+        long start = System.nanoTime();
+        String outcome = "reject";
+        try {
             handler.handle(ctx);
+            outcome = "pass";
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            record(handler, outcome, elapsed);
+            long budgetMs = budgetOf(handler);
+            if (TimeUnit.NANOSECONDS.toMillis(elapsed) > budgetMs) {
+                // 顺序处理器在调用线程执行，无法抢占，只记录超预算
+                log.warn("责任链处理器超出时间预算|Chain_handler_over_budget,handler={},elapsedMs={},budgetMs={}",
+                        nameOf(handler), TimeUnit.NANOSECONDS.toMillis(elapsed), budgetMs);
+            }
+        }
+    }
+
+    private void runConcurrently(List<StrategyHandler> stage, StrategyContext ctx) throws Exception {
+        long start = System.nanoTime();
+        List<FutureTask<Void>> tasks = new ArrayList<>(stage.size());
+        List<CompletableFuture<Void>> results = new ArrayList<>(stage.size());
+        // 第一个拒绝或超时，用于短路等待
+        CompletableFuture<Void> firstFailure = new CompletableFuture<>();
 
+        for (StrategyHandler handler : stage) {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            long budgetMs = budgetOf(handler);
+            // 派生 Future 在记录与短路之后才完成，保证等待方看到的是 firstFailure 中的异常
+            CompletableFuture<Void> observed = result.orTimeout(budgetMs, TimeUnit.MILLISECONDS).whenComplete((v, e) -> {
+                long elapsed = System.nanoTime() - start;
+                if (e == null) {
+                    record(handler, "pass", elapsed);
+                } else if (e instanceof TimeoutException) {
+                    record(handler, "timeout", elapsed);
+                    firstFailure.completeExceptionally(new TimeoutException(
+                            "pre-check handler " + nameOf(handler) + " exceeded time budget " + budgetMs + "ms"));
+                } else {
+                    record(handler, "reject", elapsed);
+                    firstFailure.completeExceptionally(e);
+                }
+            });
+            FutureTask<Void> task = new FutureTask<>(() -> {
+                try {
+                    handler.handle(ctx);
+                    result.complete(null);
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                }
+            }, null);
+            tasks.add(task);
+            results.add(observed);
+            try {
+                executor.execute(task);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
         }
 
-        // Step 2⃣ 所有 Handler 校验通过，放行策略计算阶段
+        // 每个结果都有超时兜底，等待一定会结束：全部通过，或出现第一个失败
+        try {
+            CompletableFuture.anyOf(CompletableFuture.allOf(results.toArray(new CompletableFuture[0])), firstFailure).get();
+        } catch (ExecutionException e) {
+            cancel(tasks);
+            Throwable cause = firstFailure.isCompletedExceptionally()
+                    ? firstFailure.handle((v, t) -> t).join() : e.getCause();
+            if (cause instanceof Exception ex) {
+                throw ex;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            cancel(tasks);
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    private static void cancel(List<FutureTask<Void>> tasks) {
+        for (FutureTask<Void> task : tasks) {
+            task.cancel(true);
+        }
+    }
+
+    private void record(StrategyHandler handler, String outcome, long elapsedNanos) {
+        String name = nameOf(handler);
+        timers.computeIfAbsent(name + ":" + outcome, k -> Timer.builder("strategy.chain.handler.latency")
+                        .description("责任链处理器耗时")
+                        .tag("handler", name)
+                        .tag("outcome", outcome)
+                        .publishPercentiles(0.5, 0.99)
+                        .register(meterRegistry))
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private long budgetOf(StrategyHandler handler) {
+        long budget = handler.timeBudgetMs();
+        return budget > 0 ? budget : defaultBudgetMs;
+    }
+
+    private static String nameOf(StrategyHandler handler) {
+        return ClassUtils.getUserClass(handler).getSimpleName();
+    }
+
+    private static List<List<StrategyHandler>> buildStages(List<StrategyHandler> handlers) {
+        List<StrategyHandler> sorted = new ArrayList<>(handlers);
+        AnnotationAwareOrderComparator.sort(sorted);
+        List<List<StrategyHandler>> stages = new ArrayList<>();
+        List<StrategyHandler> concurrentStage = null;
+        for (StrategyHandler handler : sorted) {
+            if (handler.concurrent()) {
+                if (concurrentStage == null) {
+                    concurrentStage = new ArrayList<>();
+                    stages.add(concurrentStage);
+                }
+                concurrentStage.add(handler);
+            } else {
+                concurrentStage = null;
+                stages.add(List.of(handler));
+            }
+        }
+        return stages;
+    }
+
+    private static String describe(List<List<StrategyHandler>> stages) {
+        List<List<String>> names = new ArrayList<>(stages.size());
+        for (List<StrategyHandler> stage : stages) {
+            names.add(stage.stream().map(StrategyChain::nameOf).toList());
+        }
+        return names.toString();
     }
 }
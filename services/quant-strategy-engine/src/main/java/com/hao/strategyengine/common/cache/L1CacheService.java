@@ -1,10 +1,152 @@
 package com.hao.strategyengine.common.cache;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hao.strategyengine.common.market.MarketDataVersionRegistry;
+import com.hao.strategyengine.common.model.response.StrategyResult;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
 /**
+ * ===============================================================
+ * 【类名】：L1CacheService（进程内近端缓存）
+ * ===============================================================
+ *
+ * 【功能定位】：
+ *   ⦿ 位于 Redis（L2）之前的 Caffeine 近端缓存，热点策略结果在微秒级返回，
+ *     省去一次 Redis 往返与解码；
+ *   ⦿ 缓存 key = 业务 key（strategyId:symbol）+ 行情数据版本（{@link MarketDataVersionRegistry}），版本前进后旧条目自然失效。
+ *
+ * 【核心机制】：
+ *   - 防击穿：未命中时先登记在途 future，同 key 并发请求等待同一 future，只回源一次；
+ *     回源在调用线程上、Caffeine 的 compute 锁之外执行，不阻塞同一哈希桶内的其他 key，回源失败的 future 随即移除；
+ *   - 淘汰：key 已带版本戳，版本不变时结果一直有效，只按容量（cache.l1.max-size）淘汰，不设 TTL 与提前刷新；
+ *   - 跨节点对齐：新行情落地时经 {@link #onMarketData()} 通过 Redis pub/sub 广播本节点版本，消费滞后的节点取较大值追上；
+ *     为避免逐笔行情刷屏，广播按 cache.l1.invalidate-interval-ms 节流。
+ *
  * @author hli
  * @program: quant-nano-alpha
  * @Date 2025-10-23 20:08:36
  * @description: Caffeine
  */
+@Slf4j
+@Service
 public class L1CacheService {
+
+    /** 跨节点失效主题，消息体为 "发起节点ID|版本号" */
+    static final String INVALIDATE_TOPIC = "cache:l1:invalidate";
+
+    private final RedissonClient redisson;
+    private final MarketDataVersionRegistry versionRegistry;
+    private final AsyncCache<String, StrategyResult> cache;
+    private final long invalidateIntervalMs;
+
+    /** 本节点 ID，用于忽略自己发出的失效广播 */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /** 上次广播版本的时间，用于节流 */
+    private final AtomicLong lastInvalidateAt = new AtomicLong();
+
+    public L1CacheService(RedissonClient redisson,
+                          MarketDataVersionRegistry versionRegistry,
+                          @Value("${cache.l1.max-size:10000}") long maxSize,
+                          @Value("${cache.l1.invalidate-interval-ms:1000}") long invalidateIntervalMs) {
+        this.redisson = redisson;
+        this.versionRegistry = versionRegistry;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .buildAsync();
+        this.invalidateIntervalMs = invalidateIntervalMs;
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            RTopic topic = redisson.getTopic(INVALIDATE_TOPIC, StringCodec.INSTANCE);
+            topic.addListener(String.class, (channel, message) -> onRemoteVersion(message));
+            log.info("订阅近端缓存失效广播|L1_invalidate_topic_subscribed,topic={}", INVALIDATE_TOPIC);
+        } catch (RuntimeException e) {
+            log.warn("订阅近端缓存失效广播失败_仅本地失效|L1_invalidate_subscribe_failed,topic={}", INVALIDATE_TOPIC, e);
+        }
+    }
+
+    /**
+     * 读取近端缓存，未命中时回源加载
+     *
+     * @param key    已带版本戳的缓存键
+     * @param loader 回源逻辑（通常为 Redis 读取或策略计算）
+     * @return 缓存值
+     */
+    public StrategyResult get(String key, Supplier<StrategyResult> loader) {
+        CompletableFuture<StrategyResult> loading = new CompletableFuture<>();
+        CompletableFuture<StrategyResult> existing = cache.asMap().putIfAbsent(key, loading);
+        if (existing == null) {
+            // 未命中且本线程抢到在途位：在 compute 锁之外回源，其余请求等待同一 future
+            try {
+                StrategyResult value = loader.get();
+                loading.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                // 移除失败的在途 future，等待方收到同一异常，下次请求重新回源
+                cache.asMap().remove(key, loading);
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return existing.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 新行情落地（本地版本已由 {@link MarketDataVersionRegistry} 推进）：节流广播本节点版本
+     */
+    public void onMarketData() {
+        long now = System.currentTimeMillis();
+        long last = lastInvalidateAt.get();
+        if (now - last < invalidateIntervalMs || !lastInvalidateAt.compareAndSet(last, now)) {
+            return;
+        }
+        try {
+            redisson.getTopic(INVALIDATE_TOPIC, StringCodec.INSTANCE)
+                    .publishAsync(nodeId + "|" + versionRegistry.current());
+        } catch (RuntimeException e) {
+            log.warn("近端缓存失效广播失败|L1_invalidate_publish_failed", e);
+        }
+    }
+
+    /**
+     * 处理其他节点的版本广播，自身消息与格式异常的消息直接忽略
+     */
+    void onRemoteVersion(String message) {
+        int sep = message == null ? -1 : message.indexOf('|');
+        if (sep < 0 || message.regionMatches(0, nodeId, 0, sep) && sep == nodeId.length()) {
+            return;
+        }
+        try {
+            long v = versionRegistry.merge(Long.parseLong(message.substring(sep + 1)));
+            log.debug("近端缓存版本推进|L1_version_advanced,version={}", v);
+        } catch (NumberFormatException e) {
+            log.warn("近端缓存失效广播格式错误|L1_invalidate_message_invalid,message={}", message);
+        }
+    }
 }
@@ -1,6 +1,6 @@
 package com.hao.strategyengine.common.cache;
 
-import com.alibaba.fastjson.JSON;
+import com.hao.strategyengine.common.codec.StrategyResultCodec;
 import com.hao.strategyengine.common.model.response.StrategyResult;
 import com.hao.strategyengine.common.model.response.StrategyResultBundle;
 import lombok.RequiredArgsConstructor;
@@ -17,15 +17,17 @@ import java.util.function.Supplier;
  * ===============================================================
  *
  * 【功能定位】：
- *   ⦿ 本类封装了策略结果在 Redis 中的读写逻辑。
+ *   ⦿ 本类封装了策略结果在 L1（Caffeine，{@link L1CacheService}）与 L2（Redis）两级缓存中的读写逻辑。
  *   ⦿ 提供两类缓存能力：
  *       ① 单策略结果缓存（getOrCompute）
  *       ② 组合策略结果缓存（save）
  *
  * 【核心思路】：
- *   - 优先读取 Redis 缓存；
+ *   - 缓存键由调用方携带行情数据版本（实际写入的 bar，新增或修订即前进；版本前进后两级缓存同时换新 key）；
+ *   - 优先读取 L1 近端缓存，未命中再读取 Redis 缓存；
  *   - 若不存在则执行 supplier 计算；
- *   - 将结果 JSON 化后写入 Redis；
+ *   - 将结果经 StrategyResultCodec 二进制编码（Base64）后写入 Redis；
+ *   - 单策略结果按版本记忆化，版本不变即一直有效；Redis TTL 只用于回收版本前进后不再访问的旧 key，L1 按容量淘汰；
  *   - 写入时增加随机 TTL 防止缓存雪崩。
  *
  * 【执行流程位置】：
@@ -39,9 +41,15 @@ public class StrategyCacheService {
     /** Redis 客户端（Spring 提供的字符串模板） */
     private final StringRedisTemplate redis;
 
+    /** 进程内近端缓存 */
+    private final L1CacheService l1Cache;
+
     /** 基础 TTL，随机增加少量偏移防止缓存雪崩 */
     private static final Duration BASE_TTL = Duration.ofMinutes(5);
 
+    /** 版本化结果的 TTL：覆盖收盘到次日开盘，版本不变时结果不因过期重算，只回收旧版本 key */
+    private static final Duration VERSIONED_TTL = Duration.ofHours(24);
+
     /**
      * ===============================================================
      * 【方法名】：getOrCompute
@@ -51,7 +59,7 @@ public class StrategyCacheService {
      *   获取单个策略结果缓存；若不存在，则计算并写入缓存。
      *
      * 【参数】：
-     *   @param key       缓存键（如 "strategy:MA:600519"）
+     *   @param key       已带行情数据版本的缓存键（如 "MA:600519:vs1024"）
      *   @param supplier  当缓存缺失时执行的计算逻辑
      *
      * 【返回】：
@@ -61,11 +69,22 @@ public class StrategyCacheService {
      *   Dispatcher 内部或单策略执行时调用
      */
     public StrategyResult getOrCompute(String key, Supplier<StrategyResult> supplier) {
+        return l1Cache.get(key, () -> loadFromRedisOrCompute(key, supplier));
+    }
+
+    /**
+     * L2 回源：读取 Redis，未命中则计算并写回
+     */
+    private StrategyResult loadFromRedisOrCompute(String key, Supplier<StrategyResult> supplier) {
         // Step 1⃣ 从缓存获取
         String s = redis.opsForValue().get(key);
         if (s != null) {
             try {
-                return JSON.parseObject(s, StrategyResult.class);
+                // 非二进制格式（如历史 JSON 缓存）解码为 null，按未命中处理
+                StrategyResult cached = StrategyResultCodec.decodeResult(s);
+                if (cached != null) {
+                    return cached;
+                }
             } catch (Exception ignored) {}
         }
 
@@ -73,8 +92,8 @@ public class StrategyCacheService {
         StrategyResult v = supplier.get();
 
         // Step 3⃣ 计算随机 TTL 并写入 Redis
-        Duration ttl = BASE_TTL.plusSeconds(ThreadLocalRandom.current().nextInt(0, 60));
-        redis.opsForValue().set(key, JSON.toJSONString(v), ttl);
+        Duration ttl = VERSIONED_TTL.plusSeconds(ThreadLocalRandom.current().nextInt(0, 600));
+        redis.opsForValue().set(key, StrategyResultCodec.encodeToString(v), ttl);
 
         return v;
     }
@@ -104,6 +123,6 @@ public class StrategyCacheService {
         }
         String key = "bundle:" + bundle.getComboKey();
         Duration ttl = BASE_TTL.plusSeconds(ThreadLocalRandom.current().nextInt(0, 60));
-        redis.opsForValue().set(key, JSON.toJSONString(bundle), ttl);
+        redis.opsForValue().set(key, StrategyResultCodec.encodeToString(bundle), ttl);
     }
 }
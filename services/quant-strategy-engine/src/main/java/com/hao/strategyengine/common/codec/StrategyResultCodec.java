@@ -0,0 +1,342 @@
+package com.hao.strategyengine.common.codec;
+
+import com.alibaba.fastjson.JSON;
+import com.hao.strategyengine.common.model.response.SignalRows;
+import com.hao.strategyengine.common.model.response.StrategyResult;
+import com.hao.strategyengine.common.model.response.StrategyResultBundle;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * ===============================================================
+ * 【类名】：StrategyResultCodec（策略结果二进制编解码）
+ * ===============================================================
+ *
+ * 【功能定位】：
+ *   ⦿ 手写的 StrategyResult / StrategyResultBundle 二进制格式，替代 fastjson 反射序列化；
+ *   ⦿ 用于 Redis 策略缓存与 Kafka 结果主题，二者均为 String 通道，故对外提供 Base64 形式。
+ *
+ * 【编码格式（version 1，大端）】：
+ *   bundle = 'Q' 'B' version comboKey:str count:varint result*
+ *   single = 'Q' 'R' version result
+ *   result = strategyId:str durationMs:i64 success:u8 kind:u8 payload
+ *   kind   = 0 空 | 1 SignalRows | 2 嵌套 StrategyResult 列表 | 3 fastjson 文本（其他数据类型兜底）
+ *   rows   = featureCount:varint name:str* rowCount:varint (symbolId:varint windCode:str score:f64 feature:f32*)*
+ *   str    = (len+1):varint utf8bytes，0 表示 null
+ *
+ * 【兼容性】：
+ *   解码遇到非本格式（如旧的 JSON 缓存）返回 null，由调用方按缓存未命中处理。
+ */
+public final class StrategyResultCodec {
+
+    private static final byte MAGIC_0 = 'Q';
+    private static final byte MAGIC_BUNDLE = 'B';
+    private static final byte MAGIC_RESULT = 'R';
+    private static final byte VERSION = 1;
+
+    private static final byte KIND_NULL = 0;
+    private static final byte KIND_SIGNALS = 1;
+    private static final byte KIND_NESTED = 2;
+    private static final byte KIND_JSON = 3;
+
+    private StrategyResultCodec() {
+    }
+
+    // ======================== 对外 API ========================
+
+    public static byte[] encode(StrategyResult result) {
+        Sink sink = new Sink(256);
+        sink.u8(MAGIC_0).u8(MAGIC_RESULT).u8(VERSION);
+        writeResult(sink, result);
+        return sink.toByteArray();
+    }
+
+    public static byte[] encode(StrategyResultBundle bundle) {
+        Sink sink = new Sink(1024);
+        sink.u8(MAGIC_0).u8(MAGIC_BUNDLE).u8(VERSION);
+        sink.str(bundle.getComboKey());
+        writeResults(sink, bundle.getResults());
+        return sink.toByteArray();
+    }
+
+    /**
+     * 解码单策略结果
+     *
+     * @return 结果；非本格式返回 null
+     */
+    public static StrategyResult decodeResult(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        if (!header(in, MAGIC_RESULT)) {
+            return null;
+        }
+        return readResult(in);
+    }
+
+    /**
+     * 解码结果包
+     *
+     * @return 结果包；非本格式返回 null
+     */
+    public static StrategyResultBundle decodeBundle(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        if (!header(in, MAGIC_BUNDLE)) {
+            return null;
+        }
+        String comboKey = readStr(in);
+        return new StrategyResultBundle(comboKey, readResults(in));
+    }
+
+    public static String encodeToString(StrategyResult result) {
+        return Base64.getEncoder().encodeToString(encode(result));
+    }
+
+    public static String encodeToString(StrategyResultBundle bundle) {
+        return Base64.getEncoder().encodeToString(encode(bundle));
+    }
+
+    /**
+     * 从 Base64 文本解码单策略结果
+     *
+     * @return 结果；非本格式或非法 Base64 返回 null
+     */
+    public static StrategyResult decodeResult(String text) {
+        byte[] bytes = base64(text);
+        return bytes == null ? null : decodeResult(bytes);
+    }
+
+    /**
+     * 从 Base64 文本解码结果包
+     *
+     * @return 结果包；非本格式或非法 Base64 返回 null
+     */
+    public static StrategyResultBundle decodeBundle(String text) {
+        byte[] bytes = base64(text);
+        return bytes == null ? null : decodeBundle(bytes);
+    }
+
+    // ======================== 编码 ========================
+
+    private static void writeResults(Sink sink, List<StrategyResult> results) {
+        if (results == null) {
+            sink.varint(0);
+            return;
+        }
+        sink.varint(results.size());
+        for (StrategyResult r : results) {
+            writeResult(sink, r);
+        }
+    }
+
+    private static void writeResult(Sink sink, StrategyResult r) {
+        sink.str(r.getStrategyId());
+        sink.i64(r.getDurationMs());
+        sink.u8(r.isSuccess() ? 1 : 0);
+        Object data = r.getData();
+        if (data == null) {
+            sink.u8(KIND_NULL);
+        } else if (data instanceof SignalRows rows) {
+            sink.u8(KIND_SIGNALS);
+            writeRows(sink, rows);
+        } else if (isResultList(data)) {
+            sink.u8(KIND_NESTED);
+            @SuppressWarnings("unchecked")
+            List<StrategyResult> nested = (List<StrategyResult>) data;
+            writeResults(sink, nested);
+        } else {
+            sink.u8(KIND_JSON);
+            sink.str(JSON.toJSONString(data));
+        }
+    }
+
+    private static void writeRows(Sink sink, SignalRows rows) {
+        int featureCount = rows.featureCount();
+        sink.varint(featureCount);
+        for (int f = 0; f < featureCount; f++) {
+            sink.str(rows.featureName(f));
+        }
+        int size = rows.size();
+        sink.varint(size);
+        for (int row = 0; row < size; row++) {
+            sink.varint(rows.symbolId(row));
+            sink.str(rows.windCode(row));
+            sink.f64(rows.score(row));
+            for (int f = 0; f < featureCount; f++) {
+                sink.f32(rows.feature(row, f));
+            }
+        }
+    }
+
+    private static boolean isResultList(Object data) {
+        if (!(data instanceof List<?> list) || list.isEmpty()) {
+            return false;
+        }
+        for (Object o : list) {
+            if (!(o instanceof StrategyResult)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ======================== 解码 ========================
+
+    private static boolean header(ByteBuffer in, byte kind) {
+        return in.remaining() >= 3 && in.get() == MAGIC_0 && in.get() == kind && in.get() == VERSION;
+    }
+
+    private static List<StrategyResult> readResults(ByteBuffer in) {
+        int count = readVarint(in);
+        List<StrategyResult> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(readResult(in));
+        }
+        return results;
+    }
+
+    private static StrategyResult readResult(ByteBuffer in) {
+        String strategyId = readStr(in);
+        long durationMs = in.getLong();
+        boolean success = in.get() != 0;
+        byte kind = in.get();
+        Object data = switch (kind) {
+            case KIND_NULL -> null;
+            case KIND_SIGNALS -> readRows(in);
+            case KIND_NESTED -> readResults(in);
+            case KIND_JSON -> JSON.parse(readStr(in));
+            default -> throw new IllegalArgumentException("unknown strategy result kind: " + kind);
+        };
+        return StrategyResult.builder()
+                .strategyId(strategyId)
+                .durationMs(durationMs)
+                .isSuccess(success)
+                .data(data)
+                .build();
+    }
+
+    private static SignalRows readRows(ByteBuffer in) {
+        int featureCount = readVarint(in);
+        String[] names = new String[featureCount];
+        for (int f = 0; f < featureCount; f++) {
+            names[f] = readStr(in);
+        }
+        int size = readVarint(in);
+        SignalRows rows = new SignalRows(names, size);
+        for (int i = 0; i < size; i++) {
+            int symbolId = readVarint(in);
+            String windCode = readStr(in);
+            int row = rows.add(symbolId, windCode, in.getDouble());
+            for (int f = 0; f < featureCount; f++) {
+                rows.set(row, f, in.getFloat());
+            }
+        }
+        return rows;
+    }
+
+    private static String readStr(ByteBuffer in) {
+        int len = readVarint(in) - 1;
+        if (len < 0) {
+            return null;
+        }
+        String s = new String(in.array(), in.arrayOffset() + in.position(), len, StandardCharsets.UTF_8);
+        in.position(in.position() + len);
+        return s;
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    private static byte[] base64(String text) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            return Base64.getDecoder().decode(text);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 可增长的字节写入器，避免 DataOutputStream 的同步与装饰层开销
+     */
+    private static final class Sink {
+
+        private byte[] buf;
+        private int pos;
+
+        Sink(int capacity) {
+            this.buf = new byte[capacity];
+        }
+
+        Sink u8(int v) {
+            ensure(1);
+            buf[pos++] = (byte) v;
+            return this;
+        }
+
+        void varint(int v) {
+            ensure(5);
+            while ((v & ~0x7F) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        void i64(long v) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[pos++] = (byte) (v >>> shift);
+            }
+        }
+
+        void f64(double v) {
+            i64(Double.doubleToRawLongBits(v));
+        }
+
+        void f32(float v) {
+            int bits = Float.floatToRawIntBits(v);
+            ensure(4);
+            buf[pos++] = (byte) (bits >>> 24);
+            buf[pos++] = (byte) (bits >>> 16);
+            buf[pos++] = (byte) (bits >>> 8);
+            buf[pos++] = (byte) bits;
+        }
+
+        void str(String s) {
+            if (s == null) {
+                varint(0);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length + 1);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+
+        private void ensure(int n) {
+            if (pos + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length << 1, pos + n));
+            }
+        }
+    }
+}
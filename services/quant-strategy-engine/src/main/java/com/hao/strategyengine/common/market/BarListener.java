@@ -0,0 +1,24 @@
+package com.hao.strategyengine.common.market;
+
+/**
+ * 分钟线写入监听器
+ *
+ * <p>在 {@link BarSeries} 的序列锁内同步回调，实现方必须是 O(1) 的轻量操作，不得阻塞或访问外部 IO。</p>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+@FunctionalInterface
+public interface BarListener {
+
+    /**
+     * 新 bar 写入或最后一根 bar 被修订
+     *
+     * @param series      所属序列
+     * @param epochSecond bar 时间（epoch 秒）
+     * @param price       最新价
+     * @param volume      成交量
+     * @param revised     true=同一时间戳修订最后一根，false=新增一根
+     */
+    void onBar(BarSeries series, long epochSecond, double price, double volume, boolean revised);
+}
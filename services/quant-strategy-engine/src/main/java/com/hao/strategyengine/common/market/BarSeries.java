@@ -0,0 +1,159 @@
+package com.hao.strategyengine.common.market;
+
+/**
+ * 单标的分钟线环形缓冲区 (Bar Series)
+ *
+ * <p><b>类职责:</b></p>
+ * <p>以列式原始数组（{@code long[]}/{@code double[]}）保存单只股票最近 N 根分钟线，
+ * 替代各策略内部临时构建的 {@code List<Double>}，消除装箱与重复加载。</p>
+ *
+ * <p><b>并发模型:</b></p>
+ * <ul>
+ *     <li>写入：同一标的的行情来自同一 Kafka 分区，写入基本无竞争；{@code append} 加锁仅为兜底预热与实时流并发。</li>
+ *     <li>读取：读者通过 volatile 的 {@code sequence} 获得发布点，随后无锁读取数组。</li>
+ *     <li>容量远大于策略回看窗口，读取期间被写入覆盖的概率可忽略；如需强一致可用 {@link BarSeriesView#isValid()} 校验。</li>
+ * </ul>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+public final class BarSeries {
+
+    /** 追加结果：新增一根 bar */
+    public static final int APPENDED = 1;
+    /** 追加结果：同一时间戳，修订最后一根 bar */
+    public static final int REVISED = 2;
+    /** 追加结果：乱序丢弃 */
+    public static final int DROPPED = 0;
+
+    private final int symbolId;
+    private final int mask;
+
+    final long[] times;
+    final double[] prices;
+    final double[] volumes;
+    final double[] averagePrices;
+
+    /**
+     * 已写入的累计条数（单调递增），读者以此作为发布点
+     */
+    private volatile long sequence;
+
+    /**
+     * 成功写入次数（新增与修订均计一次，乱序丢弃不计），作为该标的的行情数据版本
+     */
+    private volatile long updates;
+
+    BarSeries(int symbolId, int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.symbolId = symbolId;
+        this.mask = capacity - 1;
+        this.times = new long[capacity];
+        this.prices = new double[capacity];
+        this.volumes = new double[capacity];
+        this.averagePrices = new double[capacity];
+    }
+
+    /**
+     * 追加一根分钟线
+     *
+     * <p>同一时间戳重复推送时覆盖最后一根；早于最后一根的乱序数据直接丢弃。</p>
+     *
+     * @param epochSecond  bar 时间（epoch 秒）
+     * @param price        最新价
+     * @param volume       成交量
+     * @param averagePrice 均价
+     * @return {@link #APPENDED}/{@link #REVISED}/{@link #DROPPED}
+     */
+    synchronized int append(long epochSecond, double price, double volume, double averagePrice) {
+        long seq = sequence;
+        int idx;
+        long next;
+        if (seq > 0) {
+            int last = (int) ((seq - 1) & mask);
+            if (epochSecond < times[last]) {
+                return DROPPED;
+            }
+            if (epochSecond == times[last]) {
+                idx = last;
+                next = seq;
+            } else {
+                idx = (int) (seq & mask);
+                next = seq + 1;
+            }
+        } else {
+            idx = 0;
+            next = 1;
+        }
+        times[idx] = epochSecond;
+        prices[idx] = price;
+        volumes[idx] = volume;
+        averagePrices[idx] = averagePrice;
+        // volatile 写作为发布屏障，保证读者看到完整的一行
+        sequence = next;
+        updates++;
+        return next == seq ? REVISED : APPENDED;
+    }
+
+    /**
+     * 获取最近 length 根 bar 的只读视图（零拷贝）
+     *
+     * @param length 期望长度，不足时返回全部可用数据
+     * @return 视图对象
+     */
+    public BarSeriesView view(int length) {
+        long end = sequence;
+        int available = (int) Math.min(end, capacity());
+        int size = Math.max(0, Math.min(length, available));
+        return new BarSeriesView(this, end - size, size);
+    }
+
+    /**
+     * 获取最新一根 bar 所在交易日的全部分钟线视图
+     *
+     * @param utcOffsetSeconds 交易所时区偏移（A 股为 +8h）
+     * @return 当日视图
+     */
+    public BarSeriesView intradayView(int utcOffsetSeconds) {
+        long end = sequence;
+        int available = (int) Math.min(end, capacity());
+        if (available == 0) {
+            return new BarSeriesView(this, end, 0);
+        }
+        long lastTime = times[(int) ((end - 1) & mask)];
+        long dayStart = lastTime - Math.floorMod(lastTime + utcOffsetSeconds, 86_400L);
+        int size = 1;
+        while (size < available && times[(int) ((end - 1 - size) & mask)] >= dayStart) {
+            size++;
+        }
+        return new BarSeriesView(this, end - size, size);
+    }
+
+    public int getSymbolId() {
+        return symbolId;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 累计写入条数
+     */
+    public long sequence() {
+        return sequence;
+    }
+
+    /**
+     * 该标的的行情数据版本：每次新增或修订 bar 加一，单调递增
+     */
+    public long updates() {
+        return updates;
+    }
+
+    int index(long seq) {
+        return (int) (seq & mask);
+    }
+}
@@ -0,0 +1,66 @@
+package com.hao.strategyengine.common.market;
+
+/**
+ * 分钟线只读视图 (Bar Series View)
+ *
+ * <p>对 {@link BarSeries} 环形缓冲区某一段的零拷贝窗口，下标 0 为最旧、{@code size()-1} 为最新。
+ * 视图只持有起始序号与长度，不复制底层数组，策略可按下标直接读取原始 double 值。</p>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+public final class BarSeriesView {
+
+    /** 空视图：标的未注册或尚无数据 */
+    public static final BarSeriesView EMPTY = new BarSeriesView(null, 0, 0);
+
+    private final BarSeries series;
+    private final long startSeq;
+    private final int size;
+
+    BarSeriesView(BarSeries series, long startSeq, int size) {
+        this.series = series;
+        this.startSeq = startSeq;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long time(int i) {
+        return series.times[series.index(startSeq + i)];
+    }
+
+    public double price(int i) {
+        return series.prices[series.index(startSeq + i)];
+    }
+
+    public double volume(int i) {
+        return series.volumes[series.index(startSeq + i)];
+    }
+
+    public double averagePrice(int i) {
+        return series.averagePrices[series.index(startSeq + i)];
+    }
+
+    /**
+     * 最新价（视图最后一根 bar）
+     */
+    public double lastPrice() {
+        return price(size - 1);
+    }
+
+    /**
+     * 校验读取期间视图是否被写入方覆盖
+     *
+     * @return true=视图内数据仍然有效
+     */
+    public boolean isValid() {
+        return series == null || series.sequence() - startSeq <= series.capacity();
+    }
+}
@@ -0,0 +1,166 @@
+package com.hao.strategyengine.common.market;
+
+import dto.HistoryTrendDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 共享列式行情存储 (Bar Store)
+ *
+ * <p><b>类职责:</b></p>
+ * <p>进程内唯一的分钟线存储，由 Kafka quotation 实时流与 tb_quotation_history_hot 预热数据共同写入，
+ * 所有信号策略通过 {@link #view(String, int)} 获取零拷贝视图，不再各自生成或加载价格序列。
+ * 每个节点以独立消费组接收 quotation 全部分区，存储覆盖全市场而不只是本节点分到的分区。</p>
+ *
+ * <p><b>数据布局:</b></p>
+ * <ul>
+ *     <li>windCode 经 {@link SymbolRegistry} 驻留为 int id，按 id 直接索引 {@link BarSeries} 数组。</li>
+ *     <li>每个标的一组等长原始数组（时间/价格/成交量/均价），容量为 2 的幂，按位与取模。</li>
+ *     <li>写入成功后在序列锁内回调 {@link BarListener}，供增量指标等派生状态同步推进。</li>
+ * </ul>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+public class BarStore {
+
+    /** A 股交易所时区 */
+    public static final ZoneOffset MARKET_ZONE = ZoneOffset.ofHours(8);
+
+    private final SymbolRegistry symbols = new SymbolRegistry();
+
+    private final int capacity;
+
+    /** id -> 序列，仅在注册新标的时扩容替换 */
+    private volatile BarSeries[] seriesById = new BarSeries[256];
+
+    private final List<BarListener> listeners = new CopyOnWriteArrayList<>();
+
+    public BarStore(@Value("${bar-store.capacity:512}") int capacity) {
+        // 向上取整为 2 的幂，便于环形下标按位与计算
+        this.capacity = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * 写入一条行情快照
+     *
+     * @param dto 行情数据（来自 Kafka 或数据库）
+     * @return true=写入成功，false=数据不完整或乱序丢弃
+     */
+    public boolean append(HistoryTrendDTO dto) {
+        if (dto == null || dto.getWindCode() == null || dto.getTradeDate() == null || dto.getLatestPrice() == null) {
+            return false;
+        }
+        return append(dto.getWindCode(),
+                dto.getTradeDate().toEpochSecond(MARKET_ZONE),
+                dto.getLatestPrice(),
+                dto.getTotalVolume() == null ? 0D : dto.getTotalVolume(),
+                dto.getAveragePrice() == null ? dto.getLatestPrice() : dto.getAveragePrice());
+    }
+
+    /**
+     * 写入一根分钟线
+     *
+     * @param windCode     股票代码
+     * @param epochSecond  bar 时间（epoch 秒）
+     * @param price        最新价
+     * @param volume       成交量
+     * @param averagePrice 均价
+     * @return true=写入成功，false=乱序丢弃
+     */
+    public boolean append(String windCode, long epochSecond, double price, double volume, double averagePrice) {
+        BarSeries series = seriesFor(symbols.intern(windCode));
+        // 与派生状态的懒加载回放共用序列锁，保证监听器看到的 bar 流不重不漏
+        synchronized (series) {
+            int result = series.append(epochSecond, price, volume, averagePrice);
+            if (result == BarSeries.DROPPED) {
+                return false;
+            }
+            boolean revised = result == BarSeries.REVISED;
+            for (BarListener listener : listeners) {
+                listener.onBar(series, epochSecond, price, volume, revised);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 注册 bar 写入监听器
+     *
+     * @param listener 监听器
+     */
+    public void addListener(BarListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 获取标的最近 length 根 bar 的视图
+     *
+     * @param windCode 股票代码
+     * @param length   回看长度
+     * @return 视图，标的未知时返回 {@link BarSeriesView#EMPTY}
+     */
+    public BarSeriesView view(String windCode, int length) {
+        BarSeries series = series(symbols.lookup(windCode));
+        return series == null ? BarSeriesView.EMPTY : series.view(length);
+    }
+
+    /**
+     * 获取标的最新交易日的全部分钟线视图
+     *
+     * @param windCode 股票代码
+     * @return 当日视图，标的未知时返回 {@link BarSeriesView#EMPTY}
+     */
+    public BarSeriesView intradayView(String windCode) {
+        BarSeries series = series(symbols.lookup(windCode));
+        return series == null ? BarSeriesView.EMPTY : series.intradayView(MARKET_ZONE.getTotalSeconds());
+    }
+
+    /**
+     * 按 id 获取序列
+     *
+     * @param symbolId 标的 id
+     * @return 序列，不存在返回 null
+     */
+    public BarSeries series(int symbolId) {
+        BarSeries[] current = seriesById;
+        return symbolId >= 0 && symbolId < current.length ? current[symbolId] : null;
+    }
+
+    public SymbolRegistry symbols() {
+        return symbols;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private BarSeries seriesFor(int symbolId) {
+        BarSeries series = series(symbolId);
+        if (series != null) {
+            return series;
+        }
+        synchronized (this) {
+            BarSeries[] current = seriesById;
+            if (symbolId < current.length && current[symbolId] != null) {
+                return current[symbolId];
+            }
+            if (symbolId >= current.length) {
+                current = Arrays.copyOf(current, Math.max(current.length << 1, symbolId + 1));
+            }
+            series = new BarSeries(symbolId, capacity);
+            current[symbolId] = series;
+            seriesById = current;
+            log.debug("注册行情序列|Bar_series_registered,symbolId={},capacity={}", symbolId, capacity);
+            return series;
+        }
+    }
+}
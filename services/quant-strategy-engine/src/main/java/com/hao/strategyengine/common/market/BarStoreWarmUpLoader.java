@@ -0,0 +1,68 @@
+package com.hao.strategyengine.common.market;
+
+import com.hao.strategyengine.integration.db.mapper.QuotationHistoryMapper;
+import dto.HistoryTrendDTO;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 行情存储预热器
+ *
+ * <p><b>类职责:</b></p>
+ * <p>在 Kafka 监听容器启动之前，从 tb_quotation_history_hot 流式加载最近几个交易日的分钟线写入 {@link BarStore}，
+ * 使策略在服务刚启动时即可获得足够的回看窗口。</p>
+ *
+ * <p><b>设计说明:</b></p>
+ * <ul>
+ *     <li>放在 {@code @PostConstruct} 中执行：早于监听容器 start，避免实时新数据先到导致历史数据被判为乱序丢弃。</li>
+ *     <li>预热失败只记录日志，不阻断启动，实时流仍会逐步填充存储。</li>
+ * </ul>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BarStoreWarmUpLoader {
+
+    private final BarStore barStore;
+    private final QuotationHistoryMapper quotationHistoryMapper;
+
+    @Value("${bar-store.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${bar-store.warmup.lookback-days:3}")
+    private int lookbackDays;
+
+    @PostConstruct
+    public void warmUp() {
+        if (!enabled) {
+            log.info("行情存储预热已关闭|Bar_store_warmup_disabled");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        LocalDateTime since = LocalDate.now().minusDays(lookbackDays).atStartOfDay();
+        long[] counters = new long[2];
+        try {
+            quotationHistoryMapper.streamHistoryTrendSince(since, ctx -> {
+                HistoryTrendDTO row = ctx.getResultObject();
+                if (barStore.append(row)) {
+                    counters[0]++;
+                } else {
+                    counters[1]++;
+                }
+            });
+            log.info("行情存储预热完成|Bar_store_warmup_done,since={},loaded={},dropped={},symbols={},costMs={}",
+                    since, counters[0], counters[1], barStore.symbols().size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("行情存储预热失败|Bar_store_warmup_failed,since={},loaded={}", since, counters[0], e);
+        }
+    }
+}
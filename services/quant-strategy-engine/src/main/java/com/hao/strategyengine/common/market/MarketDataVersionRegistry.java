@@ -0,0 +1,76 @@
+package com.hao.strategyengine.common.market;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 行情数据版本登记表
+ *
+ * <p>以实际写入 {@link BarStore} 的 bar 作为行情数据版本，作为策略结果记忆化（memoization）的依据：
+ * 输入未变时版本不变，缓存结果可一直复用；任何一根 bar 新增或修订，版本随即前进，旧结果不再命中。</p>
+ *
+ * <p>实现说明：</p>
+ * <ul>
+ *     <li>标的版本：{@link BarSeries#updates()}，该标的每次新增或修订 bar 加一，只在该标的自身数据变化时前进；</li>
+ *     <li>全局版本：作为 {@link BarListener} 注册到 {@link BarStore}，任一标的新增、修订或迟到补写 bar 均加一，
+ *     用于未指定标的的请求与跨节点广播；乱序丢弃的 bar 未写入，不改变版本；</li>
+ *     <li>版本与墙钟无关：盘中仍在形成的 bar 每次修订都会推进版本，收盘后不再有新 bar，版本保持不变；</li>
+ *     <li>{@link #merge(long)} 用于合并其他节点广播的全局版本，只取较大值、不额外推进，重复广播不会产生新版本。</li>
+ * </ul>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+@Component
+public class MarketDataVersionRegistry implements BarListener {
+
+    private final BarStore barStore;
+
+    /** 全局版本：本节点 bar 写入次数与远端广播版本的较大值 */
+    private final AtomicLong version = new AtomicLong();
+
+    public MarketDataVersionRegistry(BarStore barStore) {
+        this.barStore = barStore;
+    }
+
+    @PostConstruct
+    public void init() {
+        barStore.addListener(this);
+    }
+
+    @Override
+    public void onBar(BarSeries series, long epochSecond, double price, double volume, boolean revised) {
+        // 新增与修订都改变了策略输入
+        version.incrementAndGet();
+    }
+
+    /**
+     * 当前全局行情数据版本
+     */
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * 指定标的的行情数据版本
+     *
+     * @param windCode 股票代码，为空或标的未知时退化为全局版本
+     * @return 版本号，"s" 前缀为标的版本，"g" 前缀为全局版本，两者不会混用同一 key
+     */
+    public String current(String windCode) {
+        BarSeries series = windCode == null ? null : barStore.series(barStore.symbols().lookup(windCode));
+        return series == null ? "g" + version.get() : "s" + series.updates();
+    }
+
+    /**
+     * 合并远端节点的全局版本号：取 max(本地, 远端)，本节点消费滞后时追上远端，不额外推进
+     *
+     * @param remote 远端版本
+     * @return 合并后的本地版本
+     */
+    public long merge(long remote) {
+        return version.accumulateAndGet(remote, Math::max);
+    }
+}
@@ -0,0 +1,93 @@
+package com.hao.strategyengine.common.market;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 标的代码驻留表 (Symbol Registry)
+ *
+ * <p><b>类职责:</b></p>
+ * <p>把 windCode 字符串映射为进程内连续递增的 int 标识（symbolId），
+ * 供行情存储、指标状态等以数组下标方式直接寻址，避免在热点路径上反复做字符串哈希。</p>
+ *
+ * <p><b>核心实现思路:</b></p>
+ * <ol>
+ *     <li>读路径：{@link ConcurrentHashMap#get} 无锁查询，命中即返回。</li>
+ *     <li>写路径：首次出现的代码在同步块内分配新 id，并追加到 id -> 代码 的反查数组。</li>
+ *     <li>id 一经分配永不回收，保证下游按 id 缓存的数组始终有效。</li>
+ * </ol>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+public final class SymbolRegistry {
+
+    /** 未注册标的的返回值 */
+    public static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    /** id -> windCode 反查表，仅在同步块内扩容替换 */
+    private volatile String[] codes = new String[256];
+
+    private int size;
+
+    /**
+     * 获取或分配标的 id
+     *
+     * @param windCode 股票代码，如 600519.SH
+     * @return 标的 id
+     */
+    public int intern(String windCode) {
+        Integer id = ids.get(windCode);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(windCode);
+            if (id != null) {
+                return id;
+            }
+            int newId = size;
+            String[] current = codes;
+            if (newId == current.length) {
+                current = Arrays.copyOf(current, current.length << 1);
+            }
+            current[newId] = windCode;
+            codes = current;
+            size = newId + 1;
+            ids.put(windCode, newId);
+            return newId;
+        }
+    }
+
+    /**
+     * 查询标的 id，不存在时不分配
+     *
+     * @param windCode 股票代码
+     * @return 标的 id，未注册返回 {@link #UNKNOWN}
+     */
+    public int lookup(String windCode) {
+        Integer id = ids.get(windCode);
+        return id == null ? UNKNOWN : id;
+    }
+
+    /**
+     * 根据 id 反查股票代码
+     *
+     * @param symbolId 标的 id
+     * @return 股票代码，越界返回 null
+     */
+    public String code(int symbolId) {
+        String[] current = codes;
+        return symbolId >= 0 && symbolId < current.length ? current[symbolId] : null;
+    }
+
+    /**
+     * 已注册标的数量
+     */
+    public int size() {
+        return ids.size();
+    }
+}
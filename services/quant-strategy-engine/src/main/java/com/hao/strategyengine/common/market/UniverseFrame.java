@@ -0,0 +1,142 @@
+package com.hao.strategyengine.common.market;
+
+import com.hao.strategyengine.common.market.indicator.IndicatorEngine;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 全市场截面快照 (Universe Frame)
+ *
+ * <p><b>类职责:</b></p>
+ * <p>以列式（Structure-of-Arrays）布局保存某一时刻全部标的的近期价格、成交量以及指标值，
+ * 下标 i 对应同一只股票，便于策略以 SIMD 内核对整列一次性计算，而非逐只股票循环。</p>
+ *
+ * <p><b>约定:</b></p>
+ * <ul>
+ *     <li>{@code price(lag)} / {@code volume(lag)} 中 lag=0 为最新一根 bar，历史不足的位置填充 {@code NaN}。</li>
+ *     <li>{@code NaN} 经过内核运算后仍为 {@code NaN}，任何比较均为 false，因此数据不足的标的会被自然过滤。</li>
+ *     <li>快照不可变，指标列按槽位懒加载并缓存，可在同一请求的多个策略间共享。</li>
+ * </ul>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+public final class UniverseFrame {
+
+    private final int size;
+    private final int[] symbolIds;
+    private final String[] codes;
+    private final double[][] prices;
+    private final double[][] volumes;
+    private final long builtAt;
+    private final IndicatorEngine indicatorEngine;
+    private final Map<Integer, double[]> indicatorColumns = new ConcurrentHashMap<>();
+
+    UniverseFrame(int size, int[] symbolIds, String[] codes, double[][] prices, double[][] volumes,
+                  long builtAt, IndicatorEngine indicatorEngine) {
+        this.size = size;
+        this.symbolIds = symbolIds;
+        this.codes = codes;
+        this.prices = prices;
+        this.volumes = volumes;
+        this.builtAt = builtAt;
+        this.indicatorEngine = indicatorEngine;
+    }
+
+    /**
+     * 由行情存储构建截面快照
+     *
+     * @param barStore        行情存储
+     * @param indicatorEngine 指标引擎
+     * @param depth           每只股票保留的回看长度（lag 取值范围 [0, depth)）
+     * @return 截面快照
+     */
+    public static UniverseFrame capture(BarStore barStore, IndicatorEngine indicatorEngine, int depth) {
+        int capacity = barStore.symbols().size();
+        int[] ids = new int[capacity];
+        String[] codes = new String[capacity];
+        double[][] prices = new double[depth][capacity];
+        double[][] volumes = new double[depth][capacity];
+        int n = 0;
+        for (int symbolId = 0; symbolId < capacity; symbolId++) {
+            BarSeries series = barStore.series(symbolId);
+            if (series == null) {
+                continue;
+            }
+            BarSeriesView bars = series.view(depth);
+            if (bars.isEmpty()) {
+                continue;
+            }
+            ids[n] = symbolId;
+            codes[n] = barStore.symbols().code(symbolId);
+            int last = bars.size() - 1;
+            for (int lag = 0; lag < depth; lag++) {
+                if (lag <= last) {
+                    prices[lag][n] = bars.price(last - lag);
+                    volumes[lag][n] = bars.volume(last - lag);
+                } else {
+                    prices[lag][n] = Double.NaN;
+                    volumes[lag][n] = Double.NaN;
+                }
+            }
+            n++;
+        }
+        return new UniverseFrame(n, ids, codes, prices, volumes, System.currentTimeMillis(), indicatorEngine);
+    }
+
+    /**
+     * 截面中的标的数量；各列数组长度可能大于该值，超出部分无意义
+     */
+    public int size() {
+        return size;
+    }
+
+    public int symbolId(int i) {
+        return symbolIds[i];
+    }
+
+    public String code(int i) {
+        return codes[i];
+    }
+
+    /**
+     * 滞后 lag 根 bar 的价格列
+     */
+    public double[] price(int lag) {
+        return prices[lag];
+    }
+
+    /**
+     * 滞后 lag 根 bar 的成交量列
+     */
+    public double[] volume(int lag) {
+        return volumes[lag];
+    }
+
+    public int depth() {
+        return prices.length;
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * 指标列：按截面顺序收集指标当前值，未就绪为 {@code NaN}
+     *
+     * @param slot 指标槽位号
+     * @return 指标列（只读，勿修改）
+     */
+    public double[] indicator(int slot) {
+        return indicatorColumns.computeIfAbsent(slot, s -> {
+            double[] column = new double[Math.max(size, 1)];
+            Arrays.fill(column, Double.NaN);
+            for (int i = 0; i < size; i++) {
+                column[i] = indicatorEngine.value(symbolIds[i], s);
+            }
+            return column;
+        });
+    }
+}
@@ -0,0 +1,65 @@
+package com.hao.strategyengine.common.market;
+
+import com.hao.strategyengine.common.market.indicator.IndicatorEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 截面快照提供者
+ *
+ * <p>同一时间窗口内的多个策略、多个请求共享同一份 {@link UniverseFrame}，
+ * 快照超过 {@code max-age-ms} 后由下一个调用方重建，重建期间其他调用方继续使用旧快照。</p>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+public class UniverseFrameProvider {
+
+    private final BarStore barStore;
+    private final IndicatorEngine indicatorEngine;
+    private final int depth;
+    private final long maxAgeMs;
+
+    private final AtomicReference<UniverseFrame> current = new AtomicReference<>();
+    private final Object rebuildLock = new Object();
+
+    public UniverseFrameProvider(BarStore barStore,
+                                 IndicatorEngine indicatorEngine,
+                                 @Value("${bar-store.frame.depth:21}") int depth,
+                                 @Value("${bar-store.frame.max-age-ms:1000}") long maxAgeMs) {
+        this.barStore = barStore;
+        this.indicatorEngine = indicatorEngine;
+        this.depth = depth;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    /**
+     * 获取当前截面快照
+     *
+     * @return 截面快照
+     */
+    public UniverseFrame snapshot() {
+        UniverseFrame frame = current.get();
+        long now = System.currentTimeMillis();
+        if (frame != null && now - frame.getBuiltAt() < maxAgeMs) {
+            return frame;
+        }
+        synchronized (rebuildLock) {
+            frame = current.get();
+            if (frame != null && System.currentTimeMillis() - frame.getBuiltAt() < maxAgeMs) {
+                return frame;
+            }
+            long start = System.nanoTime();
+            frame = UniverseFrame.capture(barStore, indicatorEngine, depth);
+            current.set(frame);
+            log.debug("截面快照重建|Universe_frame_rebuilt,size={},depth={},costMicros={}",
+                    frame.size(), depth, (System.nanoTime() - start) / 1_000);
+            return frame;
+        }
+    }
+}
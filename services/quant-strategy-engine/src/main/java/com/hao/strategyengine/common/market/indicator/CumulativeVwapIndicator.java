@@ -0,0 +1,55 @@
+package com.hao.strategyengine.common.market.indicator;
+
+import com.hao.strategyengine.common.market.BarStore;
+
+/**
+ * 当日累计 VWAP
+ *
+ * <p>按交易所时区切分交易日，跨日自动清零；以分钟最新价作为典型价格累计 Σ(p·v) / Σv。</p>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+final class CumulativeVwapIndicator implements Indicator {
+
+    private static final long SECONDS_PER_DAY = 86_400L;
+    private static final int OFFSET_SECONDS = BarStore.MARKET_ZONE.getTotalSeconds();
+
+    private long tradingDay = Long.MIN_VALUE;
+    private double sumPriceVolume;
+    private double sumVolume;
+    private double lastPrice;
+    private double lastVolume;
+    private int bars;
+
+    @Override
+    public void update(long epochSecond, double price, double volume, boolean revise) {
+        if (revise && bars > 0) {
+            sumPriceVolume += price * volume - lastPrice * lastVolume;
+            sumVolume += volume - lastVolume;
+        } else {
+            long day = Math.floorDiv(epochSecond + OFFSET_SECONDS, SECONDS_PER_DAY);
+            if (day != tradingDay) {
+                tradingDay = day;
+                sumPriceVolume = 0D;
+                sumVolume = 0D;
+                bars = 0;
+            }
+            sumPriceVolume += price * volume;
+            sumVolume += volume;
+            bars++;
+        }
+        lastPrice = price;
+        lastVolume = volume;
+    }
+
+    @Override
+    public boolean isReady() {
+        return bars > 0 && sumVolume > 1e-6;
+    }
+
+    @Override
+    public double value() {
+        return sumVolume > 1e-6 ? sumPriceVolume / sumVolume : 0D;
+    }
+}
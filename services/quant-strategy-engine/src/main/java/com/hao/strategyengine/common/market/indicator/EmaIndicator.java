@@ -0,0 +1,44 @@
+package com.hao.strategyengine.common.market.indicator;
+
+/**
+ * 指数移动平均
+ *
+ * <p>平滑系数 alpha = 2 / (period + 1)，首值以首个价格初始化；保留上一根 bar 之前的 EMA 以支持修订。</p>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+final class EmaIndicator implements Indicator {
+
+    private final int period;
+    private final double alpha;
+    private int count;
+    private double ema;
+    private double previousEma;
+
+    EmaIndicator(int period) {
+        this.period = period;
+        this.alpha = 2D / (period + 1);
+    }
+
+    @Override
+    public void update(long epochSecond, double price, double volume, boolean revise) {
+        if (revise && count > 0) {
+            ema = count == 1 ? price : previousEma + alpha * (price - previousEma);
+            return;
+        }
+        previousEma = ema;
+        ema = count == 0 ? price : ema + alpha * (price - ema);
+        count++;
+    }
+
+    @Override
+    public boolean isReady() {
+        return count >= period;
+    }
+
+    @Override
+    public double value() {
+        return ema;
+    }
+}
@@ -0,0 +1,33 @@
+package com.hao.strategyengine.common.market.indicator;
+
+/**
+ * 增量指标状态
+ *
+ * <p>每个实例对应一个 (标的, 指标, 周期) 组合，随 bar 推进以 O(1) 更新，读取时直接返回当前值。
+ * 实例不自带同步，由 {@link IndicatorEngine} 在序列锁内统一驱动。</p>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+public interface Indicator {
+
+    /**
+     * 推进或修订指标
+     *
+     * @param epochSecond bar 时间（epoch 秒）
+     * @param price       最新价
+     * @param volume      成交量
+     * @param revise      true=修订最后一根 bar（撤销其贡献后重新计入），false=新增一根 bar
+     */
+    void update(long epochSecond, double price, double volume, boolean revise);
+
+    /**
+     * 是否已积累足够数据
+     */
+    boolean isReady();
+
+    /**
+     * 当前指标值，未就绪时结果无意义
+     */
+    double value();
+}
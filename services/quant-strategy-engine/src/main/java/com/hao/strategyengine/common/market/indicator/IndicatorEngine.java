@@ -0,0 +1,160 @@
+package com.hao.strategyengine.common.market.indicator;
+
+import com.hao.strategyengine.common.market.BarListener;
+import com.hao.strategyengine.common.market.BarSeries;
+import com.hao.strategyengine.common.market.BarSeriesView;
+import com.hao.strategyengine.common.market.BarStore;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 增量指标引擎 (Indicator Engine)
+ *
+ * <p><b>类职责:</b></p>
+ * <p>为每个 (标的, 指标, 周期) 维护 O(1) 更新的滚动状态，随 {@link BarStore} 的每根 bar 同步推进，
+ * 策略直接读取当前值，不再对回看窗口做全量重算。</p>
+ *
+ * <p><b>使用方式:</b></p>
+ * <ol>
+ *     <li>策略在构造阶段调用 {@link #register(IndicatorType, int)} 登记所需指标，获得槽位号。</li>
+ *     <li>执行时通过 {@link #value(int, int)} 按 symbolId + 槽位读取当前值，未就绪返回 {@code NaN}。</li>
+ * </ol>
+ *
+ * <p><b>并发与一致性:</b></p>
+ * <ul>
+ *     <li>指标状态在首次读取时懒创建，并在序列锁内用环形缓冲区中的历史 bar 回放初始化。</li>
+ *     <li>此后的推进同样在序列锁内由 {@link BarListener} 回调完成，保证 bar 流不重不漏。</li>
+ *     <li>读取持有同一把锁，锁几乎无竞争（同一标的只有一个写入方）。</li>
+ * </ul>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+public class IndicatorEngine implements BarListener {
+
+    private final BarStore barStore;
+
+    /** "类型:周期" -> 槽位号 */
+    private final Map<String, Integer> slotIndex = new ConcurrentHashMap<>();
+    private final List<IndicatorType> slotTypes = new CopyOnWriteArrayList<>();
+    private final List<Integer> slotPeriods = new CopyOnWriteArrayList<>();
+
+    /** symbolId -> 该标的已创建的指标状态（按槽位下标） */
+    private volatile Indicator[][] indicatorsBySymbol = new Indicator[256][];
+
+    public IndicatorEngine(BarStore barStore) {
+        this.barStore = barStore;
+    }
+
+    @PostConstruct
+    public void init() {
+        barStore.addListener(this);
+    }
+
+    /**
+     * 登记指标，重复登记同一 (类型, 周期) 返回同一槽位
+     *
+     * @param type   指标类型
+     * @param period 周期（VWAP 忽略）
+     * @return 槽位号
+     */
+    public int register(IndicatorType type, int period) {
+        if (type != IndicatorType.VWAP && period <= 0) {
+            throw new IllegalArgumentException("indicator period must be positive: " + period);
+        }
+        String key = type.name() + ":" + period;
+        Integer slot = slotIndex.get(key);
+        if (slot != null) {
+            return slot;
+        }
+        synchronized (slotIndex) {
+            return slotIndex.computeIfAbsent(key, k -> {
+                slotTypes.add(type);
+                slotPeriods.add(period);
+                log.info("登记增量指标|Indicator_registered,type={},period={},slot={}", type, period, slotTypes.size() - 1);
+                return slotTypes.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * 读取指标当前值
+     *
+     * @param symbolId 标的 id
+     * @param slot     槽位号
+     * @return 当前值，标的不存在或数据不足时返回 {@link Double#NaN}
+     */
+    public double value(int symbolId, int slot) {
+        BarSeries series = barStore.series(symbolId);
+        if (series == null) {
+            return Double.NaN;
+        }
+        synchronized (series) {
+            Indicator indicator = indicator(series, slot);
+            return indicator.isReady() ? indicator.value() : Double.NaN;
+        }
+    }
+
+    @Override
+    public void onBar(BarSeries series, long epochSecond, double price, double volume, boolean revised) {
+        Indicator[] indicators = indicators(series.getSymbolId());
+        if (indicators == null) {
+            return;
+        }
+        for (Indicator indicator : indicators) {
+            if (indicator != null) {
+                indicator.update(epochSecond, price, volume, revised);
+            }
+        }
+    }
+
+    /**
+     * 获取或懒创建指标状态，调用方须持有序列锁
+     */
+    private Indicator indicator(BarSeries series, int slot) {
+        int symbolId = series.getSymbolId();
+        Indicator[] indicators = indicators(symbolId);
+        if (indicators == null || slot >= indicators.length) {
+            indicators = indicators == null
+                    ? new Indicator[slotTypes.size()]
+                    : Arrays.copyOf(indicators, slotTypes.size());
+            store(symbolId, indicators);
+        }
+        Indicator indicator = indicators[slot];
+        if (indicator == null) {
+            indicator = slotTypes.get(slot).create(slotPeriods.get(slot));
+            // 用环形缓冲区内的历史 bar 回放，使新指标立即可用
+            BarSeriesView history = series.view(series.capacity());
+            for (int i = 0; i < history.size(); i++) {
+                indicator.update(history.time(i), history.price(i), history.volume(i), false);
+            }
+            indicators[slot] = indicator;
+        }
+        return indicator;
+    }
+
+    private Indicator[] indicators(int symbolId) {
+        Indicator[][] current = indicatorsBySymbol;
+        return symbolId < current.length ? current[symbolId] : null;
+    }
+
+    private void store(int symbolId, Indicator[] indicators) {
+        synchronized (this) {
+            Indicator[][] current = indicatorsBySymbol;
+            if (symbolId >= current.length) {
+                current = Arrays.copyOf(current, Math.max(current.length << 1, symbolId + 1));
+            }
+            current[symbolId] = indicators;
+            indicatorsBySymbol = current;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.hao.strategyengine.common.market.indicator;
+
+/**
+ * 增量指标类型
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+public enum IndicatorType {
+
+    /** 价格简单移动平均 */
+    SMA {
+        @Override
+        Indicator create(int period) {
+            return new SmaIndicator(period, false);
+        }
+    },
+    /** 成交量简单移动平均 */
+    VOLUME_SMA {
+        @Override
+        Indicator create(int period) {
+            return new SmaIndicator(period, true);
+        }
+    },
+    /** 价格指数移动平均 */
+    EMA {
+        @Override
+        Indicator create(int period) {
+            return new EmaIndicator(period);
+        }
+    },
+    /** Wilder 平滑 RSI */
+    RSI {
+        @Override
+        Indicator create(int period) {
+            return new WilderRsiIndicator(period);
+        }
+    },
+    /** 滑动窗口总体标准差（Welford），配合 SMA 构成布林带 */
+    STDDEV {
+        @Override
+        Indicator create(int period) {
+            return new RollingStdDevIndicator(period);
+        }
+    },
+    /** 当日累计 VWAP，周期参数忽略 */
+    VWAP {
+        @Override
+        Indicator create(int period) {
+            return new CumulativeVwapIndicator();
+        }
+    };
+
+    abstract Indicator create(int period);
+}
@@ -0,0 +1,83 @@
+package com.hao.strategyengine.common.market.indicator;
+
+/**
+ * 滑动窗口总体标准差（Welford 增量算法）
+ *
+ * <p>窗口未满时按 Welford 递推累加；窗口已满时将最旧值替换为新值：</p>
+ * <pre>
+ * mean' = mean + (new - old) / n
+ * M2'   = M2 + (new - old) * (new - mean' + old - mean)
+ * </pre>
+ * <p>修订最后一根 bar 同样视为一次替换。写指针每回绕一圈按两遍法重算一次，抑制误差累积。</p>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+final class RollingStdDevIndicator implements Indicator {
+
+    private final double[] window;
+    private int head;
+    private int count;
+    private double mean;
+    private double m2;
+
+    RollingStdDevIndicator(int period) {
+        this.window = new double[period];
+    }
+
+    @Override
+    public void update(long epochSecond, double price, double volume, boolean revise) {
+        int period = window.length;
+        if (revise && count > 0) {
+            int last = head == 0 ? period - 1 : head - 1;
+            replace(window[last], price);
+            window[last] = price;
+            return;
+        }
+        if (count == period) {
+            replace(window[head], price);
+        } else {
+            count++;
+            double delta = price - mean;
+            mean += delta / count;
+            m2 += delta * (price - mean);
+        }
+        window[head] = price;
+        if (++head == period) {
+            head = 0;
+            recompute();
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return count == window.length;
+    }
+
+    @Override
+    public double value() {
+        return count == 0 ? 0D : Math.sqrt(Math.max(0D, m2 / count));
+    }
+
+    private void replace(double oldValue, double newValue) {
+        double oldMean = mean;
+        double delta = newValue - oldValue;
+        mean += delta / count;
+        m2 += delta * (newValue - mean + oldValue - oldMean);
+    }
+
+    private void recompute() {
+        double s = 0;
+        for (int i = 0; i < count; i++) {
+            s += window[i];
+        }
+        double m = s / count;
+        double sq = 0;
+        for (int i = 0; i < count; i++) {
+            double d = window[i] - m;
+            sq += d * d;
+        }
+        mean = m;
+        m2 = sq;
+    }
+}
@@ -0,0 +1,65 @@
+package com.hao.strategyengine.common.market.indicator;
+
+/**
+ * 滑动窗口简单移动平均
+ *
+ * <p>环形数组保存窗口内原始值并维护累加和；每当写指针回绕一圈重新求和一次，
+ * 以均摊 O(1) 的代价消除浮点累加误差漂移。</p>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+final class SmaIndicator implements Indicator {
+
+    private final double[] window;
+    private final boolean useVolume;
+    private int head;
+    private int count;
+    private double sum;
+
+    SmaIndicator(int period, boolean useVolume) {
+        this.window = new double[period];
+        this.useVolume = useVolume;
+    }
+
+    @Override
+    public void update(long epochSecond, double price, double volume, boolean revise) {
+        double x = useVolume ? volume : price;
+        int period = window.length;
+        if (revise && count > 0) {
+            int last = head == 0 ? period - 1 : head - 1;
+            sum += x - window[last];
+            window[last] = x;
+            return;
+        }
+        if (count == period) {
+            sum -= window[head];
+        } else {
+            count++;
+        }
+        window[head] = x;
+        sum += x;
+        if (++head == period) {
+            head = 0;
+            resum();
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return count == window.length;
+    }
+
+    @Override
+    public double value() {
+        return count == 0 ? 0D : sum / count;
+    }
+
+    private void resum() {
+        double s = 0;
+        for (int i = 0; i < count; i++) {
+            s += window[i];
+        }
+        sum = s;
+    }
+}
@@ -0,0 +1,78 @@
+package com.hao.strategyengine.common.market.indicator;
+
+/**
+ * Wilder 平滑 RSI
+ *
+ * <p>前 period 个价格变动取简单平均作为种子，此后按 avg = (avg * (n - 1) + x) / n 递推。
+ * 每次推进前保存一份快照，修订最后一根 bar 时回滚到快照后重新计入。</p>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+final class WilderRsiIndicator implements Indicator {
+
+    private final int period;
+
+    private boolean hasPrice;
+    private double lastPrice;
+    private int changes;
+    private double avgGain;
+    private double avgLoss;
+
+    // 最后一根 bar 计入之前的快照
+    private boolean snapHasPrice;
+    private double snapLastPrice;
+    private int snapChanges;
+    private double snapAvgGain;
+    private double snapAvgLoss;
+
+    WilderRsiIndicator(int period) {
+        this.period = period;
+    }
+
+    @Override
+    public void update(long epochSecond, double price, double volume, boolean revise) {
+        if (revise) {
+            hasPrice = snapHasPrice;
+            lastPrice = snapLastPrice;
+            changes = snapChanges;
+            avgGain = snapAvgGain;
+            avgLoss = snapAvgLoss;
+        } else {
+            snapHasPrice = hasPrice;
+            snapLastPrice = lastPrice;
+            snapChanges = changes;
+            snapAvgGain = avgGain;
+            snapAvgLoss = avgLoss;
+        }
+        if (hasPrice) {
+            double change = price - lastPrice;
+            double gain = change > 0 ? change : 0D;
+            double loss = change < 0 ? -change : 0D;
+            if (changes < period) {
+                avgGain = (avgGain * changes + gain) / (changes + 1);
+                avgLoss = (avgLoss * changes + loss) / (changes + 1);
+                changes++;
+            } else {
+                avgGain = (avgGain * (period - 1) + gain) / period;
+                avgLoss = (avgLoss * (period - 1) + loss) / period;
+            }
+        }
+        hasPrice = true;
+        lastPrice = price;
+    }
+
+    @Override
+    public boolean isReady() {
+        return changes >= period;
+    }
+
+    @Override
+    public double value() {
+        if (avgLoss == 0) {
+            return 100.0; // 避免除零
+        }
+        double rs = avgGain / avgLoss;
+        return 100 - (100 / (1 + rs));
+    }
+}
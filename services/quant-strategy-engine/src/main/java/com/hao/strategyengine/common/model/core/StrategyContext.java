@@ -4,6 +4,7 @@ import lombok.Builder;
 import lombok.Data;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -15,6 +16,7 @@ import java.util.Map;
  * <ul>
  *     <li>userId - 用户唯一标识，用于区分不同用户的请求</li>
  *     <li>symbol - 交易标的代码，如股票、期货等</li>
+ *     <li>strategyIds - 本次请求执行的策略ID集合，由 Facade 在前置责任链之前填入，供限流等处理器按策略判定</li>
  *     <li>extra - 扩展字段，可存储策略执行所需的额外参数，如杠杆倍数、风控等级等</li>
  *     <li>requestTime - 请求时间，用于策略执行时间窗口或日志追踪</li>
  * </ul>
@@ -57,6 +59,11 @@ public class StrategyContext {
      */
     private String symbol;
 
+    /**
+     * 本次请求执行的策略ID集合
+     */
+    private List<String> strategyIds;
+
     /**
      * 扩展字段，用于存储策略执行所需的额外参数
      */
@@ -0,0 +1,423 @@
+package com.hao.strategyengine.common.model.response;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONAware;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.hao.strategyengine.common.util.TopKSelector;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * SignalRows
+ *
+ * <p>信号策略的类型化结果表，替代 {@code List<Map<String, Object>>}：每行由
+ * 标的 id、股票代码、信号分数与固定长度的 float 特征向量组成，按列存放于原始数组中。</p>
+ *
+ * <p>字段说明：</p>
+ * <ul>
+ *     <li>featureNames - 特征列名（如 current_price、return_5bar），由策略以常量声明，整表共享</li>
+ *     <li>symbolIds / windCodes - 标的 id（进程内驻留 id）与股票代码</li>
+ *     <li>scores - 信号分数，double 精度保证排序稳定</li>
+ *     <li>features - 行优先的特征矩阵，长度 = 行数 × 特征数</li>
+ * </ul>
+ *
+ * <p>Top-K 模式：</p>
+ * <ul>
+ *     <li>{@link #topK(String[], int)} 创建的表内置 {@link TopKSelector}，容量固定为 k，
+ *         {@link #add(int, String, double)} 对落选候选返回 {@link #REJECTED}，入选者复用被淘汰行的存储；</li>
+ *     <li>{@link #fuse(int, List, double[], boolean)} 按权重融合多个策略的排名分，用于复合策略的共振与加权融合。</li>
+ * </ul>
+ *
+ * <p>序列化：</p>
+ * <ul>
+ *     <li>Redis / Kafka 走 {@link com.hao.strategyengine.common.codec.StrategyResultCodec} 二进制编码；</li>
+ *     <li>HTTP/SSE（Jackson）与 fastjson 输出为与原 Map 行一致的 JSON 对象数组，对前端保持兼容；</li>
+ *     <li>两条 JSON 路径逐字节一致：分数按 double、特征按 float 的最短十进制表示输出，NaN/Infinity（缺失特征）输出为 null。</li>
+ * </ul>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+@JsonSerialize(using = SignalRows.JacksonSerializer.class)
+public final class SignalRows implements JSONAware {
+
+    public static final String FIELD_WIND_CODE = "wind_code";
+    public static final String FIELD_SIGNAL_SCORE = "signal_score";
+    /** Top-K 模式下候选落选 */
+    public static final int REJECTED = TopKSelector.REJECTED;
+
+    private final String[] featureNames;
+    private final int featureCount;
+    private int size;
+    private int[] symbolIds;
+    private String[] windCodes;
+    private double[] scores;
+    private float[] features;
+    /** Top-K 模式的选择器；为 null 表示普通追加模式，排序后置 null 结束选择阶段 */
+    private TopKSelector selector;
+
+    public SignalRows(String[] featureNames, int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        this.featureNames = featureNames;
+        this.featureCount = featureNames.length;
+        this.symbolIds = new int[capacity];
+        this.windCodes = new String[capacity];
+        this.scores = new double[capacity];
+        this.features = new float[capacity * featureCount];
+    }
+
+    /**
+     * 创建只保留分数最高 k 行的结果表
+     *
+     * @param featureNames 特征列名
+     * @param k            保留行数
+     * @return Top-K 模式的结果表
+     */
+    public static SignalRows topK(String[] featureNames, int k) {
+        SignalRows rows = new SignalRows(featureNames, k);
+        rows.selector = new TopKSelector(k);
+        return rows;
+    }
+
+    /**
+     * 按权重融合多个策略的结果
+     *
+     * <p>各表需已按分数降序排列。不同策略的分数量纲不同，先换算为排名分
+     * {@code 1 - rank / size}（第一名为 1），再按权重加权平均：
+     * {@code fused = Σ(weight_i × rankScore_i) / Σweight_i}，未选中该标的的策略贡献 0。</p>
+     *
+     * @param k          保留行数，&lt;= 0 表示全部保留
+     * @param parts      各策略结果表
+     * @param weights    各策略权重，与 parts 一一对应
+     * @param requireAll 是否只保留被全部策略选中的标的（共振）
+     * @return 按融合分降序排列的结果，特征列为各表并集，取首个选中该标的的表的值
+     */
+    public static SignalRows fuse(int k, List<SignalRows> parts, double[] weights, boolean requireAll) {
+        String[] names = unionNames(parts);
+        int maxSymbolId = maxSymbolId(parts);
+        double totalWeight = 0;
+        for (int p = 0; p < parts.size(); p++) {
+            totalWeight += weights[p];
+        }
+
+        double[] fused = new double[maxSymbolId + 1];
+        int[] hits = new int[maxSymbolId + 1];
+        for (int p = 0; p < parts.size(); p++) {
+            SignalRows part = parts.get(p);
+            for (int row = 0; row < part.size; row++) {
+                int id = part.symbolIds[row];
+                if (id >= 0) {
+                    fused[id] += weights[p] * (1.0 - (double) row / part.size) / totalWeight;
+                    hits[id]++;
+                }
+            }
+        }
+
+        int[][] columnMaps = new int[parts.size()][];
+        for (int p = 0; p < parts.size(); p++) {
+            columnMaps[p] = columnMap(names, parts.get(p));
+        }
+        SignalRows out = k > 0 ? topK(names, k) : new SignalRows(names, 16);
+        for (int id = 0; id <= maxSymbolId; id++) {
+            if (hits[id] == 0 || (requireAll && hits[id] < parts.size()) || !out.accepts(fused[id])) {
+                continue;
+            }
+            int target = REJECTED;
+            for (int p = 0; p < parts.size(); p++) {
+                SignalRows part = parts.get(p);
+                int row = part.indexOf(id);
+                if (row < 0) {
+                    continue;
+                }
+                if (target == REJECTED) {
+                    target = out.add(id, part.windCodes[row], fused[id]);
+                    for (int f = 0; f < names.length; f++) {
+                        out.set(target, f, Double.NaN);
+                    }
+                }
+                for (int f = 0; f < names.length; f++) {
+                    int column = columnMaps[p][f];
+                    if (column >= 0 && Float.isNaN(out.feature(target, f))) {
+                        out.set(target, f, part.feature(row, column));
+                    }
+                }
+            }
+        }
+        return out.sortByScoreDescending();
+    }
+
+    /**
+     * Top-K 模式下该分数能否入选，可在计算特征前提前剪枝；普通模式恒为 true
+     */
+    public boolean accepts(double score) {
+        return selector == null || selector.accepts(score);
+    }
+
+    /**
+     * 追加一行
+     *
+     * @param symbolId 标的 id
+     * @param windCode 股票代码
+     * @param score    信号分数
+     * @return 行号，用于后续 {@link #set(int, int, double)}；Top-K 模式下落选返回 {@link #REJECTED}
+     */
+    public int add(int symbolId, String windCode, double score) {
+        int row;
+        if (selector != null) {
+            row = selector.offer(score);
+            if (row == REJECTED) {
+                return REJECTED;
+            }
+            size = selector.size();
+        } else {
+            if (size == scores.length) {
+                grow();
+            }
+            row = size++;
+        }
+        symbolIds[row] = symbolId;
+        windCodes[row] = windCode;
+        scores[row] = score;
+        return row;
+    }
+
+    /**
+     * 设置特征值
+     *
+     * @param row     行号
+     * @param feature 特征列下标
+     * @param value   特征值（以 float 存储）
+     * @return this
+     */
+    public SignalRows set(int row, int feature, double value) {
+        features[row * featureCount + feature] = (float) value;
+        return this;
+    }
+
+    /**
+     * 按分数降序原地排序（堆排序，无装箱）
+     *
+     * <p>Top-K 模式下排序即结束选择阶段，之后的 {@link #add(int, String, double)} 按普通追加处理。</p>
+     *
+     * @return this
+     */
+    public SignalRows sortByScoreDescending() {
+        selector = null;
+        // 建小顶堆后依次把堆顶（最小值）换到末尾，得到降序
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i, size);
+        }
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+        return this;
+    }
+
+    /**
+     * 只保留前 limit 行
+     *
+     * @param limit 保留行数
+     * @return this
+     */
+    public SignalRows truncate(int limit) {
+        if (limit < size) {
+            Arrays.fill(windCodes, limit, size, null);
+            size = limit;
+        }
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int featureCount() {
+        return featureCount;
+    }
+
+    public String featureName(int feature) {
+        return featureNames[feature];
+    }
+
+    public int symbolId(int row) {
+        return symbolIds[row];
+    }
+
+    public String windCode(int row) {
+        return windCodes[row];
+    }
+
+    public double score(int row) {
+        return scores[row];
+    }
+
+    public float feature(int row, int feature) {
+        return features[row * featureCount + feature];
+    }
+
+    @Override
+    public String toJSONString() {
+        StringBuilder sb = new StringBuilder(32 + size * (48 + featureCount * 24));
+        sb.append('[');
+        for (int row = 0; row < size; row++) {
+            if (row > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"").append(FIELD_WIND_CODE).append("\":").append(JSON.toJSONString(windCodes[row]));
+            sb.append(",\"").append(FIELD_SIGNAL_SCORE).append("\":").append(jsonNumber(scores[row]));
+            for (int f = 0; f < featureCount; f++) {
+                sb.append(",\"").append(featureNames[f]).append("\":").append(jsonNumber(feature(row, f)));
+            }
+            sb.append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    @Override
+    public String toString() {
+        return "SignalRows(size=" + size + ", features=" + Arrays.toString(featureNames) + ")";
+    }
+
+    private int indexOf(int symbolId) {
+        for (int row = 0; row < size; row++) {
+            if (symbolIds[row] == symbolId) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private static String[] unionNames(List<SignalRows> parts) {
+        List<String> names = new ArrayList<>();
+        for (SignalRows part : parts) {
+            for (String name : part.featureNames) {
+                if (!names.contains(name)) {
+                    names.add(name);
+                }
+            }
+        }
+        return names.toArray(new String[0]);
+    }
+
+    private static int maxSymbolId(List<SignalRows> parts) {
+        int max = -1;
+        for (SignalRows part : parts) {
+            for (int row = 0; row < part.size; row++) {
+                max = Math.max(max, part.symbolIds[row]);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 目标列 → 源表列下标，源表缺失该列为 -1
+     */
+    private static int[] columnMap(String[] names, SignalRows part) {
+        List<String> source = Arrays.asList(part.featureNames);
+        int[] map = new int[names.length];
+        for (int f = 0; f < names.length; f++) {
+            map[f] = source.indexOf(names[f]);
+        }
+        return map;
+    }
+
+    /**
+     * 分数的 JSON 表示，非有限值为 null
+     */
+    private static String jsonNumber(double v) {
+        return Double.isFinite(v) ? Double.toString(v) : "null";
+    }
+
+    /**
+     * 特征的 JSON 表示：按 float 取最短十进制（0.1f 输出 0.1 而非 0.10000000149011612），非有限值为 null
+     */
+    private static String jsonNumber(float v) {
+        return Float.isFinite(v) ? Float.toString(v) : "null";
+    }
+
+    private void siftDown(int i, int n) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) {
+                return;
+            }
+            if (child + 1 < n && scores[child + 1] < scores[child]) {
+                child++;
+            }
+            if (scores[i] <= scores[child]) {
+                return;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = symbolIds[a];
+        symbolIds[a] = symbolIds[b];
+        symbolIds[b] = id;
+        String code = windCodes[a];
+        windCodes[a] = windCodes[b];
+        windCodes[b] = code;
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+        int fa = a * featureCount;
+        int fb = b * featureCount;
+        for (int f = 0; f < featureCount; f++) {
+            float tmp = features[fa + f];
+            features[fa + f] = features[fb + f];
+            features[fb + f] = tmp;
+        }
+    }
+
+    private void grow() {
+        int capacity = scores.length << 1;
+        symbolIds = Arrays.copyOf(symbolIds, capacity);
+        windCodes = Arrays.copyOf(windCodes, capacity);
+        scores = Arrays.copyOf(scores, capacity);
+        features = Arrays.copyOf(features, capacity * featureCount);
+    }
+
+    /**
+     * Jackson 流式输出：逐行写出 JSON 对象，不构造中间 Map；数字格式与 {@link #toJSONString()} 共用 jsonNumber
+     */
+    static final class JacksonSerializer extends JsonSerializer<SignalRows> {
+
+        @Override
+        public void serialize(SignalRows rows, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeStartArray();
+            for (int row = 0; row < rows.size; row++) {
+                gen.writeStartObject();
+                gen.writeStringField(FIELD_WIND_CODE, rows.windCodes[row]);
+                gen.writeFieldName(FIELD_SIGNAL_SCORE);
+                writeNumber(gen, jsonNumber(rows.scores[row]));
+                for (int f = 0; f < rows.featureCount; f++) {
+                    gen.writeFieldName(rows.featureNames[f]);
+                    writeNumber(gen, jsonNumber(rows.feature(row, f)));
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+
+        private static void writeNumber(JsonGenerator gen, String number) throws IOException {
+            if ("null".equals(number)) {
+                gen.writeNull();
+            } else {
+                gen.writeNumber(number);
+            }
+        }
+    }
+}
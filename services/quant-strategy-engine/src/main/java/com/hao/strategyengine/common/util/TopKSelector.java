@@ -0,0 +1,140 @@
+package com.hao.strategyengine.common.util;
+
+/**
+ * TopKSelector 有界 Top-K 选择器
+ *
+ * <p>以 double 分数为键的原始类型小顶堆，只保留分数最高的 k 个候选，
+ * 全市场扫描时复杂度为 O(n log k)，且不产生装箱与比较器分配。</p>
+ *
+ * <p>槽位语义：</p>
+ * <ul>
+ *     <li>{@link #offer(double)} 返回的槽位号在 [0, k) 内且在被淘汰前保持不变，
+ *         调用方可按槽位号把行数据写入自己的并行数组；</li>
+ *     <li>堆内只移动 (score, slot) 二元组，行数据本身不搬动；</li>
+ *     <li>堆满后新分数严格大于堆顶（当前第 k 名）才会入选，并复用被淘汰者的槽位。</li>
+ * </ul>
+ *
+ * <p>用途示例：</p>
+ * <pre>{@code
+ * TopKSelector selector = new TopKSelector(40);
+ * for (int i = 0; i < n; i++) {
+ *     int slot = selector.offer(score[i]);
+ *     if (slot >= 0) {
+ *         winners[slot] = i;
+ *     }
+ * }
+ * }</pre>
+ *
+ * <p>注意：非线程安全，按单次扫描使用；NaN 分数一律拒绝。</p>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+public final class TopKSelector {
+
+    /** 拒绝入选 */
+    public static final int REJECTED = -1;
+
+    private final int capacity;
+    private final double[] heapScores;
+    private final int[] heapSlots;
+    private int size;
+
+    public TopKSelector(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.heapScores = new double[capacity];
+        this.heapSlots = new int[capacity];
+    }
+
+    /**
+     * 是否会接纳该分数（不修改堆），可用于在计算特征前提前剪枝
+     *
+     * @param score 候选分数
+     * @return true 表示 {@link #offer(double)} 会返回有效槽位
+     */
+    public boolean accepts(double score) {
+        return !Double.isNaN(score) && (size < capacity || score > heapScores[0]);
+    }
+
+    /**
+     * 提交一个候选
+     *
+     * @param score 候选分数
+     * @return 分配给该候选的槽位号；未入选返回 {@link #REJECTED}
+     */
+    public int offer(double score) {
+        if (!accepts(score)) {
+            return REJECTED;
+        }
+        if (size < capacity) {
+            int slot = size;
+            heapScores[size] = score;
+            heapSlots[size] = slot;
+            siftUp(size++);
+            return slot;
+        }
+        // 淘汰当前第 k 名，复用其槽位
+        int slot = heapSlots[0];
+        heapScores[0] = score;
+        siftDown(0);
+        return slot;
+    }
+
+    /**
+     * 当前入选门槛：堆未满时为负无穷，否则为第 k 名的分数
+     */
+    public double threshold() {
+        return size < capacity ? Double.NEGATIVE_INFINITY : heapScores[0];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        double score = heapScores[i];
+        int slot = heapSlots[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapScores[parent] <= score) {
+                break;
+            }
+            heapScores[i] = heapScores[parent];
+            heapSlots[i] = heapSlots[parent];
+            i = parent;
+        }
+        heapScores[i] = score;
+        heapSlots[i] = slot;
+    }
+
+    private void siftDown(int i) {
+        double score = heapScores[i];
+        int slot = heapSlots[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heapScores[child + 1] < heapScores[child]) {
+                child++;
+            }
+            if (score <= heapScores[child]) {
+                break;
+            }
+            heapScores[i] = heapScores[child];
+            heapSlots[i] = heapSlots[child];
+            i = child;
+        }
+        heapScores[i] = score;
+        heapSlots[i] = slot;
+    }
+}
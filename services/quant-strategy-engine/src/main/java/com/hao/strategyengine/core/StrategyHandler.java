@@ -26,6 +26,13 @@ import com.hao.strategyengine.common.model.core.StrategyContext;
  * }
  * }</pre>
  *
+ * <p>执行编排（由 StrategyChain 负责）：</p>
+ * <ul>
+ *     <li>顺序：实现类上的 {@code @Order} 或 {@link org.springframework.core.Ordered}，数值小的先执行；</li>
+ *     <li>并发：{@link #concurrent()} 为 true 且顺序相邻的处理器组成一个并发阶段，同时执行；</li>
+ *     <li>时间预算：{@link #timeBudgetMs()} 限定并发阶段内单个处理器的最长执行时间，超出视为拒绝。</li>
+ * </ul>
+ *
  * @author hli
  * @date 2025-10-22
  */
@@ -38,4 +45,21 @@ public interface StrategyHandler {
      * @throws Exception 可抛出异常以中断策略执行链或反馈错误
      */
     void handle(StrategyContext ctx) throws Exception;
+
+    /**
+     * 是否可与相邻的并发处理器同时执行
+     *
+     * <p>仅当处理器自身无副作用、不依赖其他处理器的结果、且以 I/O 等待为主（如远程风控查询）时返回 true。
+     * 会修改外部状态的处理器（如扣减 Redis 限流配额）必须保持顺序：同阶段其他处理器拒绝或超时取消时，已产生的副作用无法撤销。</p>
+     */
+    default boolean concurrent() {
+        return false;
+    }
+
+    /**
+     * 单个处理器的时间预算（毫秒），小于等于 0 表示使用责任链默认值
+     */
+    default long timeBudgetMs() {
+        return 0L;
+    }
 }
@@ -14,14 +14,24 @@ package com.hao.strategyengine.core.dispatcher;
  * English: Decouple strategy registry from execution path; extend non-functional requirements via decorators, keeping core strategies simple.
  */
 import com.hao.strategyengine.common.cache.StrategyCacheService;
+import com.hao.strategyengine.common.market.MarketDataVersionRegistry;
 import com.hao.strategyengine.core.registry.StrategyRegistry;
 import com.hao.strategyengine.common.model.core.StrategyContext;
 import com.hao.strategyengine.common.model.response.StrategyResult;
 import com.hao.strategyengine.strategy.QuantStrategy;
+import com.hao.strategyengine.resilience.AdaptiveConcurrencyLimiter;
+import com.hao.strategyengine.resilience.CircuitBreakerService;
+import com.hao.strategyengine.resilience.StrategyBulkhead;
+import com.hao.strategyengine.strategy.decorator.BulkheadDecorator;
 import com.hao.strategyengine.strategy.decorator.CachingDecorator;
+import com.hao.strategyengine.strategy.decorator.CircuitBreakerDecorator;
+import com.hao.strategyengine.strategy.decorator.ConcurrencyLimitDecorator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * StrategyDispatcher
  *
@@ -59,6 +69,21 @@ public class StrategyDispatcher {
     /** 策略缓存服务，用于装饰策略执行，提升性能 */
     private final StrategyCacheService cacheService;
 
+    /** 行情数据版本登记表，缓存结果按版本记忆化 */
+    private final MarketDataVersionRegistry versionRegistry;
+
+    /** 自适应并发限流器，按策略ID限制在途计算数 */
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    /** 断路器服务，按策略ID熔断持续失败或变慢的策略 */
+    private final CircuitBreakerService circuitBreakerService;
+
+    /** 策略舱壁，按策略类型隔离并发额度 */
+    private final StrategyBulkhead bulkhead;
+
+    /** 装饰后的策略实例，按策略ID复用，避免每次分发重建装饰器 */
+    private final Map<String, QuantStrategy> decorated = new ConcurrentHashMap<>();
+
     /**
      * 根据策略ID分发并执行策略
      *
@@ -89,9 +114,13 @@ public class StrategyDispatcher {
         if (s == null) {
             throw new IllegalArgumentException("unknown strategy: " + strategyId);
         }
-        // 中文：使用缓存装饰器包裹策略，降低重复计算与外部IO成本
-        // English: Wrap strategy with caching decorator to reduce repeated computation and external IO cost
-        QuantStrategy wrapped = new CachingDecorator(s, cacheService);
+        // 中文：缓存 -> 类型舱壁 -> 断路器 -> 并发限流，缓存命中不占用任何许可，舱壁排队不计入熔断慢调用
+        // English: Caching -> type bulkhead -> circuit breaker -> concurrency limit; cache hits take no permit, bulkhead queueing is not a slow call
+        QuantStrategy wrapped = decorated.computeIfAbsent(strategyId, id -> new CachingDecorator(
+                new BulkheadDecorator(
+                        new CircuitBreakerDecorator(new ConcurrencyLimitDecorator(s, concurrencyLimiter), circuitBreakerService),
+                        bulkhead),
+                cacheService, versionRegistry));
         // 中文：执行被装饰后的策略并返回结构化结果
         // English: Execute the decorated strategy and return structured result
         return wrapped.execute(ctx);
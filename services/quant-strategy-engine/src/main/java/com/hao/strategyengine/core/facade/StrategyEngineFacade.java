@@ -25,12 +25,15 @@ import com.hao.strategyengine.strategy.lock.DistributedLockService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
-import java.util.function.Supplier;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 /**
  * ===============================================================
@@ -64,6 +67,18 @@ import java.util.stream.Collectors;
  * │ Step 5：结果聚合 → 缓存 → Kafka 异步发布         │
  * └─────────────────────────────────────┘
  * <p>
+ * 【异步执行】：
+ * ⦿ {@link #executeAllAsync} 不阻塞调用线程，返回 {@code CompletableFuture<StrategyResultBundle>}；
+ * ⦿ 各策略在 virtualThreadExecutor 上并行执行；本节点同一组合的并发请求共享一次执行（{@link Execution}），
+ *   只有第一个请求竞争分布式锁并发起计算；
+ * ⦿ 并发额度按策略类型由 StrategyBulkhead 分区隔离，慢的信息型/复合型策略不会挤占信号型策略；
+ * ⦿ 每个请求按自己的截止时间（到达时刻 + strategy.engine.request-timeout-ms）从共享执行中取结果：
+ *   截止时未完成的策略以失败结果占位，已完成的照常返回（部分结果语义），不影响仍在等待的其他请求；
+ * ⦿ 共享执行只在全部关联请求都已离开（取消或到达各自截止时间）后才取消（中断）在途策略；
+ * ⦿ 共享执行的结果只在完整时写入缓存，避免以不完整结果命中后续请求；
+ * ⦿ 前置责任链拒绝（鉴权/风控/限流/超时）时 Future 以处理器原始异常完成，不再继续执行策略；
+ * ⦿ 可传入单策略完成回调，每个策略完成即推送，供 SSE 流式返回（见 StrategyController）。
+ * <p>
  * 【对应执行链说明】：
  * ◉ 属于系统主执行链的「第 3 层」：
  * Controller(第1层) → Service(第2层) → Facade(第3层)
@@ -101,17 +116,22 @@ public class StrategyEngineFacade {
     private KafkaResultPublisher kafkaPublisher;
 
     /**
-     * 线程池：用于并行执行多策略计算
+     * 虚拟线程执行器：承载锁等待与各策略执行（含缓存 IO），阻塞不占用平台线程
      */
-    private final ExecutorService pool = new ThreadPoolExecutor(
-            8, // corePoolSize
-            64, // maximumPoolSize
-            60L, // keepAliveTime
-            TimeUnit.SECONDS,
-            new LinkedBlockingQueue<>(2000), // 任务队列
-            r -> new Thread(r, "strategy-worker"), // 自定义线程名
-            new ThreadPoolExecutor.CallerRunsPolicy() // 拒绝策略：回退执行
-    );
+    @Autowired
+    @Qualifier("virtualThreadExecutor")
+    private Executor virtualThreadExecutor;
+
+    /**
+     * 请求级截止时间（毫秒），超时未完成的策略以失败结果占位
+     */
+    @Value("${strategy.engine.request-timeout-ms:3000}")
+    private long requestTimeoutMs;
+
+    /**
+     * 本节点在途的共享执行：key 为组合 key，同一组合的并发请求共享一次计算
+     */
+    private final Map<String, Execution> inFlight = new ConcurrentHashMap<>();
 
     /**
      * ===============================================================
@@ -156,66 +176,387 @@ public class StrategyEngineFacade {
      * 中文：可能抛出线程池拒绝、锁等待超时、运行时计算异常；调用方需捕获并按业务容错处理 / English: May throw thread pool rejection, lock wait timeout, runtime compute errors; caller should handle gracefully per business policy.
      */
     public StrategyResultBundle executeAll(Integer userId, List<String> strategyIds, StrategyContext ctx) throws Exception {
-        // 中文：前置风险/合规校验，阻断不合法或超限的执行请求
-        // English: Pre-run risk and compliance checks to block illegal or exceeded execution requests
-        // Step 1⃣ 前置责任链风控校验 —— 防止违规策略执行
         try {
-            chain.apply(ctx);
-        } catch (Exception e) {
-            log.error("责任链执行异常：{}|Log_message", e.getMessage(), e);
-            // 可视情况决定：是否中断策略执行 / 返回默认结果
-        }
-
-
-        // 中文：根据策略ID集合生成组合键，用于锁控制与结果标识
-        // English: Generate a combo key from strategy ID set for lock control and result identification
-        // Step 2⃣ 生成组合Key（如 "MA_MOM_DRAGON_TWO"）
-        String comboKey = KeyUtils.comboKey(strategyIds);
-
-        // 中文：以Supplier封装计算体，实现惰性执行与锁保护分离
-        // English: Wrap compute body as Supplier to enable lazy execution and separate from lock protection
-        // Step 3⃣ 构建计算逻辑 Supplier —— 包含并行执行多个策略的逻辑
-        //当执行到这行时：
-        // compute 只是被“定义”出来（函数体还没执行）这里的 compute 是一个 惰性执行（lazy execution） 的计算逻辑。
-        // 真正的策略计算逻辑（CompletableFuture那段）此时还没跑。
-        Supplier<StrategyResultBundle> compute = () -> {
-            // 中文：（1）为每个策略创建并行任务，利用线程池提升吞吐
-            // English: (1) Create parallel tasks for each strategy to increase throughput using thread pool
-            // （1）异步并行执行每个策略
-            List<CompletableFuture<StrategyResult>> futures = strategyIds.stream()
-                    .map(id -> CompletableFuture.supplyAsync(() -> dispatcher.dispatch(id, ctx), pool))
-                    .collect(Collectors.toList());
-
-            // 中文：（2）等待所有策略完成，确保结果一致性与完整性
-            // English: (2) Await completion of all strategies to ensure result consistency and completeness
-            // （2）阻塞等待全部策略执行完成并收集结果
-            List<StrategyResult> results = futures.stream()
-                    .map(CompletableFuture::join)
-                    .collect(Collectors.toList());
-
-            // 中文：（3）聚合结果为统一的结果包，便于下游消费
-            // English: (3) Aggregate results into a unified bundle for downstream consumption
-            // （3）封装为聚合结果包
-            StrategyResultBundle bundle = new StrategyResultBundle(comboKey, results);
-
-            // 中文：（4）异步缓存与发布，缩短关键路径并提升整体吞吐
-            // English: (4) Cache and publish asynchronously to shorten critical path and improve throughput
-            // （4）异步缓存与消息发布
-            cacheService.save(bundle);
-            kafkaPublisher.publish("quant-strategy-result", bundle);
-            return bundle;
-        };
+            return executeAllAsync(userId, strategyIds, ctx).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：非阻塞执行多个策略，返回结果包 Future；请求截止时间内未完成的策略被取消并以失败结果占位。
+     * English: Execute strategies without blocking the caller; strategies unfinished at the request deadline are cancelled and reported as failed entries.
+     *
+     * 参数 / Parameters:
+     * @param userId 中文说明：用户标识 / English: User identifier
+     * @param strategyIds 中文说明：策略ID集合 / English: Set of strategy IDs
+     * @param ctx 中文说明：策略执行上下文 / English: Strategy execution context
+     *
+     * 返回值 / Return:
+     * 中文：结果包 Future；取消该 Future 只让本请求离开，同一组合的其他请求都离开后才取消在途策略 /
+     * English: Future of the bundle; cancelling it detaches this caller, in-flight strategies are cancelled once every caller of the combo has left
+     *
+     * 异常 / Exceptions:
+     * 中文：前置责任链拒绝、锁等待超时或组合Key非法时 Future 异常完成 / English: Completes exceptionally on pre-check rejection, lock wait timeout or invalid combo key.
+     */
+    public CompletableFuture<StrategyResultBundle> executeAllAsync(Integer userId, List<String> strategyIds, StrategyContext ctx) {
+        return executeAllAsync(userId, strategyIds, ctx, result -> {
+        });
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：同 {@link #executeAllAsync(Integer, List, StrategyContext)}，并在本节点实际计算时于每个策略完成后立即回调结果，
+     * 用于 SSE 等流式输出；首个结果的到达时间取决于最快的策略而非最慢的策略。
+     * English: Same as the 3-arg variant, additionally invoking the listener as soon as each strategy completes on this node,
+     * so streaming clients see the fastest strategy first.
+     *
+     * 参数 / Parameters:
+     * @param onResult 中文说明：单策略完成回调（在策略执行线程上调用，需线程安全且不可阻塞）；
+     *                 加入时已完成的策略立即回调；本请求截止时间之后完成的策略、以及其他节点计算的结果不会经过该回调 /
+     *                 English: per-strategy callback (invoked on the strategy thread, must be thread-safe and non-blocking);
+     *                 strategies already finished when joining are replayed at once; strategies finishing after this caller's
+     *                 deadline, and results computed by other nodes, never reach the callback
+     */
+    public CompletableFuture<StrategyResultBundle> executeAllAsync(Integer userId, List<String> strategyIds, StrategyContext ctx,
+                                                                   Consumer<StrategyResult> onResult) {
+        Caller caller = new Caller(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(requestTimeoutMs), onResult);
+        CompletableFuture<StrategyResultBundle> future = CompletableFuture.supplyAsync(() -> {
+            // 中文：前置风险/合规校验，阻断不合法或超限的执行请求
+            // English: Pre-run risk and compliance checks to block illegal or exceeded execution requests
+            // Step 1⃣ 前置责任链风控校验 —— 任一处理器拒绝即终止，不加锁、不计算，Future 以该异常完成
+            if (ctx.getStrategyIds() == null) {
+                // 限流处理器按策略维度判定
+                ctx.setStrategyIds(strategyIds);
+            }
+            try {
+                chain.apply(ctx);
+            } catch (Exception e) {
+                log.warn("责任链拒绝执行|Pre_check_rejected,userId={},error={}", userId, e.getMessage());
+                throw new CompletionException(e);
+            }
+
+            // Step 2⃣ 生成组合Key（如 "MA_MOM_DRAGON_TWO"）
+            String comboKey = KeyUtils.comboKey(strategyIds);
+
+            // Step 3⃣ 加入本节点同一组合的共享执行 —— 不存在时新建，由其竞争分布式锁后计算或等待其他节点广播
+            Execution execution = join(comboKey, strategyIds, ctx, caller);
+
+            // Step 4⃣ 按本请求自己的截止时间从共享执行中取结果（虚拟线程上阻塞等待）
+            return execution.await(caller);
+        }, virtualThreadExecutor);
+        // 完成、超时或调用方取消（如 SSE 断开）→ 离开共享执行；最后一个请求离开时才取消在途策略
+        future.whenComplete((bundle, error) -> caller.leave());
+        return future;
+    }
+
+    /**
+     * 加入本节点同 key 的共享执行；已被全部请求放弃的执行不再复用
+     */
+    private Execution join(String comboKey, List<String> strategyIds, StrategyContext ctx, Caller caller) {
+        while (true) {
+            Execution execution = inFlight.computeIfAbsent(comboKey, key -> new Execution(key, strategyIds, ctx));
+            if (!execution.retain()) {
+                inFlight.remove(comboKey, execution);
+                continue;
+            }
+            if (!caller.attach(execution)) {
+                // 调用方在加入前已取消
+                execution.release();
+                throw new CancellationException("caller cancelled: " + comboKey);
+            }
+            if (execution.claimLead()) {
+                virtualThreadExecutor.execute(execution::lead);
+            }
+            return execution;
+        }
+    }
+
+    /**
+     * 回调单策略结果；取消不回调，回调异常不影响计算
+     */
+    private static void notifyResult(Consumer<StrategyResult> onResult, String comboKey, String strategyId,
+                                     StrategyResult result, Throwable error) {
+        if (error instanceof CancellationException) {
+            return;
+        }
+        try {
+            if (error == null) {
+                onResult.accept(result);
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                onResult.accept(failedResult(strategyId, String.valueOf(cause.getMessage())));
+            }
+        } catch (RuntimeException e) {
+            log.warn("策略结果回调异常|Strategy_result_listener_failed,comboKey={},strategyId={}", comboKey, strategyId, e);
+        }
+    }
+
+    /**
+     * 按当前完成状态组装结果包：未完成的以超时结果占位（不取消），取消与异常的以失败结果占位
+     *
+     * @return 结果包，及是否为部分结果
+     */
+    private static Collected collect(String comboKey, List<String> strategyIds, List<CompletableFuture<StrategyResult>> futures) {
+        List<StrategyResult> results = new ArrayList<>(strategyIds.size());
+        boolean partial = false;
+        for (int i = 0; i < futures.size(); i++) {
+            String id = strategyIds.get(i);
+            CompletableFuture<StrategyResult> f = futures.get(i);
+            if (!f.isDone()) {
+                log.warn("策略未在请求截止时间内完成|Strategy_missed_request_deadline,comboKey={},strategyId={}", comboKey, id);
+                results.add(failedResult(id, "timeout"));
+                partial = true;
+            } else if (f.isCancelled()) {
+                results.add(failedResult(id, "cancelled"));
+                partial = true;
+            } else if (f.isCompletedExceptionally()) {
+                Throwable cause = f.handle((r, e) -> e instanceof CompletionException ? e.getCause() : e).join();
+                log.warn("策略执行失败|Strategy_execution_failed,comboKey={},strategyId={},error={}", comboKey, id,
+                        cause == null ? null : cause.getMessage());
+                results.add(failedResult(id, cause == null ? "failed" : String.valueOf(cause.getMessage())));
+                partial = true;
+            } else {
+                results.add(f.join());
+            }
+        }
+        return new Collected(new StrategyResultBundle(comboKey, results), partial);
+    }
+
+    private static StrategyResult failedResult(String strategyId, String error) {
+        return StrategyResult.builder()
+                .strategyId(strategyId)
+                .data(Map.of("error", error))
+                .isSuccess(false)
+                .build();
+    }
+
+    private record Collected(StrategyResultBundle bundle, boolean partial) {
+    }
+
+    /**
+     * 单个请求：自身截止时间、单策略回调，以及所加入的共享执行
+     */
+    private static final class Caller {
+
+        private final long deadline;
+        private final Consumer<StrategyResult> onResult;
+        private Execution execution;
+        private boolean left;
+
+        Caller(long deadline, Consumer<StrategyResult> onResult) {
+            this.deadline = deadline;
+            this.onResult = onResult;
+        }
+
+        /**
+         * @return 调用方已离开（取消）时返回 false
+         */
+        synchronized boolean attach(Execution execution) {
+            if (left) {
+                return false;
+            }
+            this.execution = execution;
+            return true;
+        }
+
+        synchronized boolean active() {
+            return !left;
+        }
+
+        void leave() {
+            Execution joined;
+            synchronized (this) {
+                if (left) {
+                    return;
+                }
+                left = true;
+                joined = execution;
+            }
+            if (joined != null) {
+                joined.release();
+            }
+        }
+
+        /**
+         * 离开后不再回调，避免截止时间之后完成的策略推送给已结束的请求
+         */
+        void deliver(String comboKey, String strategyId, StrategyResult result, Throwable error) {
+            if (active()) {
+                notifyResult(onResult, comboKey, strategyId, result, error);
+            }
+        }
+    }
+
+    /**
+     * 本节点同一组合的共享执行
+     *
+     * <p>第一个加入的请求通过 {@link #lead()} 竞争分布式锁：持锁则在本节点逐个提交策略，
+     * 否则等待其他节点广播的结果。各请求按自己的截止时间读取策略 Future 并各自组装结果包；
+     * 关联请求计数归零（全部取消或到达截止时间）时才取消在途策略。</p>
+     */
+    private final class Execution {
+
+        private final String comboKey;
+        private final List<String> strategyIds;
+        private final StrategyContext ctx;
+        private final List<FutureTask<Void>> tasks = new ArrayList<>();
+        private final List<CompletableFuture<StrategyResult>> futures = new ArrayList<>();
+        /** 本节点持锁并已提交全部策略 */
+        private final CompletableFuture<Void> computing = new CompletableFuture<>();
+        /** 锁竞争结束后的整体结果：本节点计算的结果包，或其他节点广播的结果包 */
+        private final CompletableFuture<StrategyResultBundle> shared = new CompletableFuture<>();
+        private final List<Caller> listeners = new ArrayList<>();
+        private int callers;
+        private boolean leading;
+        private boolean abandoned;
+
+        Execution(String comboKey, List<String> strategyIds, StrategyContext ctx) {
+            this.comboKey = comboKey;
+            this.strategyIds = strategyIds;
+            this.ctx = ctx;
+        }
+
+        /**
+         * @return 已被全部请求放弃时返回 false，调用方应新建执行
+         */
+        synchronized boolean retain() {
+            if (abandoned) {
+                return false;
+            }
+            callers++;
+            return true;
+        }
+
+        synchronized boolean claimLead() {
+            if (leading) {
+                return false;
+            }
+            leading = true;
+            return true;
+        }
+
+        /**
+         * 请求离开；最后一个离开时中断运行中的策略并完成其 Future，让共享计算尽快结束
+         */
+        synchronized void release() {
+            if (--callers > 0) {
+                return;
+            }
+            abandoned = true;
+            for (int i = 0; i < tasks.size(); i++) {
+                tasks.get(i).cancel(true);
+                futures.get(i).cancel(false);
+            }
+        }
+
+        /**
+         * 竞争分布式锁；执行结束后从在途表移除，之后到达的请求发起新的执行
+         */
+        void lead() {
+            try {
+                shared.complete(lockService.acquireOrWait(comboKey, this::compute));
+            } catch (RuntimeException e) {
+                shared.completeExceptionally(e);
+            } finally {
+                inFlight.remove(comboKey, this);
+            }
+        }
 
         /**
-         * todo 目前方案功能上没错：锁在 compute 外，保证了同一组合不会重复计算
-         *
-         * 优化空间在于：缩小锁粒度 → 锁只保护 CPU/IO 核心计算，不阻塞缓存/Kafka
-         *
-         * 面试加分点：你可以说：“锁保护核心计算，异步发布和缓存操作不占锁，最大化吞吐量”，这样既安全又高效
+         * 持锁节点的计算：等待全部策略结束（或全部请求离开后被取消），完整结果写缓存，结果包发布到 Kafka
          */
-        // 中文：通过分布式锁保护计算体，保证同一组合在集群内只执行一次；其他节点等待结果
-        // English: Protect compute body with distributed lock to ensure single execution per combo across cluster; other nodes wait for the result
-        // Step 4⃣ 分布式锁控制 —— 仅允许一个节点执行计算，其余节点等待结果
-        return lockService.acquireOrWait(comboKey, compute);
+        private StrategyResultBundle compute() {
+            CompletableFuture<?>[] all = submitAll();
+            CompletableFuture.allOf(all).handle((v, e) -> null).join();
+            Collected collected = collect(comboKey, strategyIds, futures);
+            if (!collected.partial()) {
+                cacheService.save(collected.bundle());
+            }
+            kafkaPublisher.publish("quant-strategy-result", collected.bundle());
+            return collected.bundle();
+        }
+
+        /**
+         * 每个策略一个可中断任务，提交到虚拟线程；已加入的请求立即挂上单策略回调
+         */
+        private synchronized CompletableFuture<?>[] submitAll() {
+            for (String id : strategyIds) {
+                CompletableFuture<StrategyResult> future = new CompletableFuture<>();
+                FutureTask<Void> task = new FutureTask<>(() -> {
+                    try {
+                        future.complete(dispatcher.dispatch(id, ctx));
+                    } catch (Throwable t) {
+                        future.completeExceptionally(t);
+                    }
+                }, null);
+                tasks.add(task);
+                futures.add(future);
+                if (abandoned) {
+                    task.cancel(true);
+                    future.cancel(false);
+                    continue;
+                }
+                try {
+                    virtualThreadExecutor.execute(task);
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+            for (Caller caller : listeners) {
+                listen(caller);
+            }
+            listeners.clear();
+            computing.complete(null);
+            return futures.toArray(new CompletableFuture[0]);
+        }
+
+        private void listen(Caller caller) {
+            for (int i = 0; i < futures.size(); i++) {
+                String id = strategyIds.get(i);
+                futures.get(i).whenComplete((result, error) -> caller.deliver(comboKey, id, result, error));
+            }
+        }
+
+        /**
+         * 按调用方自己的截止时间等待：本节点计算时组装自己的（可能为部分的）结果包，
+         * 其他节点计算时返回其广播的结果包，截止时仍无结果则超时失败
+         */
+        StrategyResultBundle await(Caller caller) {
+            CompletableFuture<?> settled;
+            boolean replay;
+            synchronized (this) {
+                replay = computing.isDone();
+                if (!replay) {
+                    listeners.add(caller);
+                }
+                settled = CompletableFuture.anyOf(shared,
+                        computing.thenCompose(v -> CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))));
+            }
+            if (replay) {
+                // 策略已全部提交，列表不再变化，在锁外回放已完成的结果
+                listen(caller);
+            }
+            try {
+                settled.get(Math.max(0, caller.deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException | ExecutionException ignored) {
+                // 按当前状态组装，见下
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            List<CompletableFuture<StrategyResult>> snapshot;
+            synchronized (this) {
+                snapshot = computing.isDone() ? List.copyOf(futures) : null;
+            }
+            if (snapshot != null) {
+                return collect(comboKey, strategyIds, snapshot).bundle();
+            }
+            if (shared.isDone()) {
+                return shared.join();
+            }
+            throw new CompletionException(new TimeoutException("等待计算超时：" + comboKey));
+        }
     }
 }
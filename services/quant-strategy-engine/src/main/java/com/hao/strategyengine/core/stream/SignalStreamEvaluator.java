@@ -0,0 +1,247 @@
+package com.hao.strategyengine.core.stream;
+
+import com.hao.strategyengine.common.market.BarStore;
+import com.hao.strategyengine.common.market.SymbolRegistry;
+import com.hao.strategyengine.common.model.response.SignalRows;
+import com.hao.strategyengine.common.model.response.StrategyResult;
+import com.hao.strategyengine.common.model.response.StrategyResultBundle;
+import com.hao.strategyengine.integration.kafka.KafkaResultPublisher;
+import com.hao.strategyengine.integration.nacos.properties.StreamEvaluationProperties;
+import com.hao.strategyengine.strategy.IncrementalStrategy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 行情流增量求值器 (Signal Stream Evaluator)
+ *
+ * <p><b>类职责:</b></p>
+ * <p>行情 bar 写入 {@link BarStore} 后，只对订阅了该标的的 {@link IncrementalStrategy} 做单标的求值，
+ * 新触发的信号打包为 {@link StrategyResultBundle} 发布到结果 topic。</p>
+ *
+ * <p><b>线程模型:</b></p>
+ * <ul>
+ *     <li>行情按股票代码作为 key 写入 Kafka，同一标的总落在同一分区，分区由固定的监听线程消费。</li>
+ *     <li>每个节点都接收全量行情，但只对共享消费组分给本节点的分区调用求值，同一信号只由一个节点发布。</li>
+ *     <li>订阅解析结果与信号触发状态按线程保存在 {@link Lane} 中，只被该线程读写，求值路径无锁、无共享可变状态。</li>
+ *     <li>再均衡后分区可能迁移到其他线程，新线程从空状态开始，最多对仍满足条件的标的重复发布一次信号。</li>
+ * </ul>
+ *
+ * <p><b>边沿触发:</b></p>
+ * <p>信号条件从不满足变为满足时才发布，条件持续满足期间的后续 tick 不重复发布，条件消失后重新计数。</p>
+ *
+ * @author hli
+ * @date 2026-10-17
+ */
+@Slf4j
+@Component
+public class SignalStreamEvaluator {
+
+    /** 结果包 comboKey 前缀，后接股票代码，保证同一标的的信号在结果 topic 内有序 */
+    public static final String COMBO_KEY_PREFIX = "stream:";
+
+    /** 订阅掩码未解析的标记，策略数不超过 63 时不会与真实掩码冲突 */
+    private static final long UNRESOLVED = -1L;
+    private static final int MAX_STRATEGIES = Long.SIZE - 1;
+
+    private final BarStore barStore;
+    private final KafkaResultPublisher resultPublisher;
+    private final StreamEvaluationProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final List<IncrementalStrategy> candidates;
+
+    /** 参与求值的策略，下标即掩码位 */
+    private IncrementalStrategy[] strategies = new IncrementalStrategy[0];
+    /** 按策略下标：null=订阅全部标的，否则为订阅的股票代码 */
+    private Set<String>[] symbolFilters;
+    private Counter[] signalCounters;
+    private Timer evaluateTimer;
+
+    private final ThreadLocal<Lane> lanes = ThreadLocal.withInitial(Lane::new);
+
+    public SignalStreamEvaluator(BarStore barStore,
+                                 KafkaResultPublisher resultPublisher,
+                                 StreamEvaluationProperties properties,
+                                 MeterRegistry meterRegistry,
+                                 List<IncrementalStrategy> strategies) {
+        this.barStore = barStore;
+        this.resultPublisher = resultPublisher;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.candidates = strategies;
+    }
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void init() {
+        Map<String, List<String>> subscriptions = properties.getSubscriptions();
+        List<IncrementalStrategy> selected = new ArrayList<>();
+        List<Set<String>> filters = new ArrayList<>();
+        for (IncrementalStrategy strategy : candidates) {
+            Set<String> filter = null;
+            if (!subscriptions.isEmpty()) {
+                List<String> symbols = subscriptions.get(strategy.getId());
+                if (symbols == null || symbols.isEmpty()) {
+                    continue;
+                }
+                filter = symbols.contains(StreamEvaluationProperties.ALL_SYMBOLS) ? null : new HashSet<>(symbols);
+            }
+            selected.add(strategy);
+            filters.add(filter);
+        }
+        if (selected.size() > MAX_STRATEGIES) {
+            throw new IllegalStateException("too many incremental strategies: " + selected.size() + " > " + MAX_STRATEGIES);
+        }
+        for (String strategyId : subscriptions.keySet()) {
+            if (candidates.stream().noneMatch(s -> s.getId().equals(strategyId))) {
+                log.warn("订阅的策略不支持增量求值|Subscription_strategy_not_incremental,strategyId={}", strategyId);
+            }
+        }
+
+        strategies = selected.toArray(new IncrementalStrategy[0]);
+        symbolFilters = filters.toArray(new Set[0]);
+        signalCounters = new Counter[strategies.length];
+        for (int i = 0; i < strategies.length; i++) {
+            signalCounters[i] = Counter.builder("strategy.stream.signals")
+                    .description("行情流增量求值触发的信号数")
+                    .tag("strategy_id", strategies[i].getId())
+                    .register(meterRegistry);
+        }
+        evaluateTimer = Timer.builder("strategy.stream.evaluate")
+                .description("单个 tick 的增量求值耗时")
+                .register(meterRegistry);
+        log.info("行情流增量求值初始化完成|Stream_evaluator_initialized,enabled={},strategies={}",
+                properties.isEnabled(), Arrays.stream(strategies).map(IncrementalStrategy::getId).toList());
+    }
+
+    /**
+     * 标的写入新 bar 后求值，须在消费该标的所在分区的线程上调用
+     *
+     * @param windCode 股票代码
+     * @return 本次发布的信号数
+     */
+    public int onBar(String windCode) {
+        if (!properties.isEnabled() || strategies.length == 0) {
+            return 0;
+        }
+        int symbolId = barStore.symbols().lookup(windCode);
+        if (symbolId == SymbolRegistry.UNKNOWN) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        Lane lane = lanes.get();
+        lane.ensureCapacity(symbolId);
+        long subscribed = lane.subscribed[symbolId];
+        if (subscribed == UNRESOLVED) {
+            subscribed = resolve(windCode);
+            lane.subscribed[symbolId] = subscribed;
+        }
+        if (subscribed == 0L) {
+            return 0;
+        }
+
+        long previous = lane.fired[symbolId];
+        long current = 0L;
+        List<StrategyResult> results = null;
+        for (int i = 0; i < strategies.length; i++) {
+            long bit = 1L << i;
+            if ((subscribed & bit) == 0L) {
+                continue;
+            }
+            IncrementalStrategy strategy = strategies[i];
+            SignalRows rows = lane.rows(i, strategy);
+            boolean hit;
+            try {
+                hit = strategy.evaluate(symbolId, windCode, rows);
+            } catch (RuntimeException e) {
+                // 求值异常不改变触发状态，避免异常恢复后重复发布
+                log.warn("增量求值异常|Incremental_evaluate_failed,strategyId={},windCode={}", strategy.getId(), windCode, e);
+                current |= previous & bit;
+                continue;
+            }
+            if (!hit) {
+                continue;
+            }
+            current |= bit;
+            if ((previous & bit) == 0L && !rows.isEmpty()) {
+                if (results == null) {
+                    results = new ArrayList<>(2);
+                }
+                results.add(StrategyResult.builder()
+                        .strategyId(strategy.getId())
+                        .data(rows)
+                        .durationMs((System.nanoTime() - start) / 1_000_000L)
+                        .build());
+                signalCounters[i].increment();
+            }
+        }
+        lane.fired[symbolId] = current;
+
+        int published = 0;
+        if (results != null) {
+            try {
+                // 发布时同步编码，返回后即可复用本线程的信号缓冲
+                resultPublisher.publish(properties.getResultTopic(),
+                        new StrategyResultBundle(COMBO_KEY_PREFIX + windCode, results));
+                published = results.size();
+            } catch (RuntimeException e) {
+                log.error("信号发布失败|Signal_publish_failed,windCode={},signals={}", windCode, results.size(), e);
+            }
+        }
+        evaluateTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return published;
+    }
+
+    private long resolve(String windCode) {
+        long mask = 0L;
+        for (int i = 0; i < strategies.length; i++) {
+            if (symbolFilters[i] == null || symbolFilters[i].contains(windCode)) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 单个消费线程独占的求值状态，按 symbolId 下标存取
+     */
+    private final class Lane {
+        private long[] subscribed = new long[0];
+        private long[] fired = new long[0];
+        private final SignalRows[] scratch = new SignalRows[strategies.length];
+
+        private void ensureCapacity(int symbolId) {
+            if (symbolId < subscribed.length) {
+                return;
+            }
+            int length = Math.max(Math.max(256, subscribed.length << 1), symbolId + 1);
+            int old = subscribed.length;
+            subscribed = Arrays.copyOf(subscribed, length);
+            Arrays.fill(subscribed, old, length, UNRESOLVED);
+            fired = Arrays.copyOf(fired, length);
+        }
+
+        /**
+         * 清空并返回该策略的单行信号缓冲
+         */
+        private SignalRows rows(int index, IncrementalStrategy strategy) {
+            SignalRows rows = scratch[index];
+            if (rows == null) {
+                rows = new SignalRows(strategy.features(), 1);
+                scratch[index] = rows;
+            }
+            return rows.truncate(0);
+        }
+    }
+}
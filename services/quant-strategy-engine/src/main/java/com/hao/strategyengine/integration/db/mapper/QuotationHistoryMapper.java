@@ -0,0 +1,37 @@
+package com.hao.strategyengine.integration.db.mapper;
+
+import dto.HistoryTrendDTO;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.time.LocalDateTime;
+
+/**
+ * 历史分时行情查询 (tb_quotation_history_hot)
+ *
+ * <p>用于启动时预热 {@link com.hao.strategyengine.common.market.BarStore}，
+ * 采用流式 ResultHandler 逐行回调，避免一次性加载百万级行情到堆内。</p>
+ */
+@Mapper
+public interface QuotationHistoryMapper {
+
+    @Select("SELECT wind_code, trade_date, latest_price, total_volume, average_price " +
+            "FROM tb_quotation_history_hot " +
+            "WHERE trade_date >= #{startTime} " +
+            "ORDER BY trade_date ASC")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @Results(id = "historyTrendMap", value = {
+            @Result(property = "windCode", column = "wind_code"),
+            @Result(property = "tradeDate", column = "trade_date"),
+            @Result(property = "latestPrice", column = "latest_price"),
+            @Result(property = "totalVolume", column = "total_volume"),
+            @Result(property = "averagePrice", column = "average_price")
+    })
+    void streamHistoryTrendSince(@Param("startTime") LocalDateTime startTime, ResultHandler<HistoryTrendDTO> handler);
+}
@@ -1,16 +1,21 @@
 package com.hao.strategyengine.integration.kafka;
 
-import com.alibaba.fastjson.JSON;
+import com.hao.strategyengine.common.codec.StrategyResultCodec;
 import com.hao.strategyengine.common.model.response.StrategyResultBundle;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.KafkaException;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -21,34 +26,129 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String serversConfig;
 
+    /**
+     * 行情存储的消费组，每个节点独立一组，全量接收 quotation 各分区，进程内行情存储覆盖全市场；
+     * 节点标识默认取主机名，重启后沿用同一组继续消费
+     */
+    @Value("${kafka.consumer.bar-group-id:strategy-bars-${kafka.consumer.node-id:${HOSTNAME:${random.uuid}}}}")
+    private String barGroupId;
+
+    /** 共享消费组，只用于在节点间划分增量求值的分区归属 */
+    @Value("${kafka.consumer.group-id:strategy-service-group}")
+    private String sharedGroupId;
+
+    /** 监听容器并发数，每个线程独占若干分区，同一标的的行情只在一个线程上处理 */
+    @Value("${kafka.consumer.concurrency:3}")
+    private int concurrency;
+
+    /** 单次 poll 最大条数，即批量监听模式下每批的上限 */
+    @Value("${kafka.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+
+    /** broker 凑够该字节数再返回，配合 fetch-max-wait-ms 以少量延迟换取更大的批次 */
+    @Value("${kafka.consumer.fetch-min-bytes:1}")
+    private int fetchMinBytes;
+
+    @Value("${kafka.consumer.fetch-max-wait-ms:500}")
+    private int fetchMaxWaitMs;
+
+    @Value("${kafka.consumer.max-partition-fetch-bytes:1048576}")
+    private int maxPartitionFetchBytes;
+
+    /** 监听方法抛出异常后重投的间隔与次数，耗尽后由错误处理器记录并跳过 */
+    @Value("${kafka.consumer.retry.interval-ms:1000}")
+    private long retryIntervalMs;
+
+    @Value("${kafka.consumer.retry.max-attempts:5}")
+    private long retryMaxAttempts;
+
     public KafkaConsumerConfig(KafkaTemplate<String, String> kafka) {
         this.kafka = kafka;
     }
 
     @Bean
-    public ConsumerFactory<String, String> consumerFactory() {
+    public ConsumerFactory<String, byte[]> consumerFactory() {
+        return new DefaultKafkaConsumerFactory<>(consumerProps(barGroupId));
+    }
+
+    private Map<String, Object> consumerProps(String groupId) {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, serversConfig);
-        props.put(ConsumerConfig.GROUP_ID_CONFIG, "strategy-service-group");
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        // 行情值按字节接收，由监听方按首字节识别 QuotationCodec 二进制或旧版 JSON
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false); //  关闭自动提交
-        return new DefaultKafkaConsumerFactory<>(props);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, fetchMinBytes);
+        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, fetchMaxWaitMs);
+        props.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, maxPartitionFetchBytes);
+        // 增量再均衡：扩缩容时只迁移必要的分区，其余分区上的标的继续按序消费不停顿
+        props.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, CooperativeStickyAssignor.class.getName());
+        return props;
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> kafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
         factory.getContainerProperties().setAckMode(
                 org.springframework.kafka.listener.ContainerProperties.AckMode.MANUAL_IMMEDIATE
         ); //  设置手动提交模式
+        factory.setConcurrency(concurrency);
+        factory.setCommonErrorHandler(errorHandler());
+        return factory;
+    }
+
+    /**
+     * 批量监听容器：一次 poll 的全部记录作为 List 交给监听方法，监听方法处理完整批后手动确认一次
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(
+                org.springframework.kafka.listener.ContainerProperties.AckMode.MANUAL_IMMEDIATE
+        );
+        factory.setConcurrency(concurrency);
+        factory.setCommonErrorHandler(errorHandler());
         return factory;
     }
+
+    /**
+     * 监听方法抛出的异常交给容器处理：按固定间隔在内存中重投同一条/同一批消息，期间不提交 offset；
+     * 重试耗尽后逐条记录失败消息的分区与 offset 再跳过，避免单个坏批次永久阻塞分区
+     */
+    @Bean
+    public DefaultErrorHandler errorHandler() {
+        DefaultErrorHandler handler = new DefaultErrorHandler(new FixedBackOff(retryIntervalMs, retryMaxAttempts));
+        handler.setLogLevel(KafkaException.Level.ERROR);
+        return handler;
+    }
+
+    /**
+     * 分区归属容器：加入共享消费组只为获得分区分配，分配到的分区立即暂停，不拉取也不提交任何消息
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> ownershipListenerContainerFactory(
+            QuotationPartitionOwnership ownership) {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(consumerProps(sharedGroupId)));
+        factory.getContainerProperties().setAckMode(
+                org.springframework.kafka.listener.ContainerProperties.AckMode.MANUAL_IMMEDIATE
+        );
+        factory.getContainerProperties().setConsumerRebalanceListener(ownership);
+        factory.setConcurrency(1);
+        return factory;
+    }
+
     private final KafkaTemplate<String, String> kafka;
 
     public void publish(String topic, StrategyResultBundle bundle) {
-        kafka.send(topic, bundle.getComboKey(), JSON.toJSONString(bundle));
+        kafka.send(topic, bundle.getComboKey(), StrategyResultCodec.encodeToString(bundle));
     }
 }
@@ -1,63 +1,246 @@
 package com.hao.strategyengine.integration.kafka;
 
+import com.alibaba.fastjson.JSON;
+import com.hao.strategyengine.common.cache.L1CacheService;
+import com.hao.strategyengine.common.market.BarStore;
+import com.hao.strategyengine.core.stream.SignalStreamEvaluator;
+import dto.HistoryTrendDTO;
+import integration.kafka.QuotationCodec;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * 行情消费服务
+ *
+ * <p>两种监听模式由 {@code kafka.consumer.mode} 选择，同一时刻只启动其中一个：</p>
+ * <ul>
+ *     <li>batch（默认）：{@link #consumeBatch(List, List, Acknowledgment)} 一次处理一个 poll 批次，
+ *     复用解析器与列式缓冲，按标的分组写入，每批确认一次；</li>
+ *     <li>record：{@link #consume(byte[], int, Acknowledgment)} 逐条解析、逐条确认。</li>
+ * </ul>
+ *
+ * <p>处理失败时异常抛给容器的 {@link org.springframework.kafka.listener.DefaultErrorHandler}（见 {@link KafkaConsumerConfig}）
+ * 重投，监听方法自身不确认失败的消息。</p>
+ *
+ * <p>消费组为每个节点独立的 {@code kafka.consumer.bar-group-id}，每个节点都接收全部分区写入行情存储；
+ * 增量求值只对 {@link QuotationPartitionOwnership} 判定归本节点的分区执行，同一信号只由一个节点发布。</p>
+ *
+ * <p>消息值按字节接收：首字节为 {@link QuotationCodec#VERSION_1} 的按二进制定长记录解码，
+ * 否则按旧版 JSON 文本解析，生产端切换格式期间两种消息可以混合出现。</p>
+ */
 @Slf4j
 @Service
 public class KafkaConsumerService {
 
     private final AtomicInteger counter = new AtomicInteger(0);
     private volatile long windowStart = System.currentTimeMillis();
-    private volatile String firstMessage = null;
-    private volatile String lastMessage = null;
+    private volatile byte[] firstMessage = null;
+    private volatile byte[] lastMessage = null;
 
     private final ThreadPoolTaskExecutor ioTaskExecutor;
 
-    public KafkaConsumerService(ThreadPoolTaskExecutor ioTaskExecutor) {
+    private final BarStore barStore;
+
+    private final L1CacheService l1CacheService;
+
+    private final SignalStreamEvaluator signalStreamEvaluator;
+
+    private final QuotationPartitionOwnership ownership;
+
+    /** 每个监听线程独占的批次缓冲，分区固定归属线程，无需同步 */
+    private final ThreadLocal<QuotationBatch> batches;
+
+    public KafkaConsumerService(ThreadPoolTaskExecutor ioTaskExecutor, BarStore barStore, L1CacheService l1CacheService,
+                                SignalStreamEvaluator signalStreamEvaluator,
+                                QuotationPartitionOwnership ownership,
+                                @Value("${kafka.consumer.max-poll-records:500}") int maxPollRecords) {
         this.ioTaskExecutor = ioTaskExecutor;
+        this.barStore = barStore;
+        this.l1CacheService = l1CacheService;
+        this.signalStreamEvaluator = signalStreamEvaluator;
+        this.ownership = ownership;
+        this.batches = ThreadLocal.withInitial(() -> new QuotationBatch(barStore.symbols(), maxPollRecords));
     }
 
+    /**
+     * 批量消费：解析整批 -> 按标的分组写入行情存储 -> 每个标的求值一次 -> 确认整批 offset
+     *
+     * @param messages   一次 poll 的消息，条数不超过 max-poll-records
+     * @param partitions 与 messages 一一对应的分区号
+     * @param ack      手动确认，整批处理完成后调用一次
+     */
     @KafkaListener(
+            id = "quotation-batch-listener",
             topics = "quotation",
-            groupId = "strategy-service-group",
-            containerFactory = "kafkaListenerContainerFactory"
+            idIsGroup = false,
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "#{'${kafka.consumer.mode:batch}' == 'batch'}"
     )
-    public void consume(String message, Acknowledgment ack) {  //  注意这里加了 Acknowledgment
+    public void consumeBatch(List<byte[]> messages,
+                             @Header(KafkaHeaders.RECEIVED_PARTITION) List<Integer> partitions,
+                             Acknowledgment ack) {
+        QuotationBatch batch = batches.get();
         try {
-            long now = System.currentTimeMillis();
-            // 记录第一条消息
-            if (firstMessage == null) {
-                firstMessage = message;
-            }
-            // 每条消息都更新 lastMessage
-            lastMessage = message;
-            // 增加计数
-            int count = counter.incrementAndGet();
-            // 每秒输出一次统计
-            if (now - windowStart >= 1000) {
-                log.info("Thread_name={},_消息处理量={}条/s,_本秒第一条消息={},_最后一条消息={}",
-                        Thread.currentThread().getName(),
-                        count,
-                        firstMessage,
-                        lastMessage);
-                // 重置计数器和窗口
-                counter.set(0);
-                firstMessage = null;
-                lastMessage = null;
-                windowStart = now;
+            int dropped = 0;
+            for (int m = 0; m < messages.size(); m++) {
+                byte[] message = messages.get(m);
+                batch.currentPartition(partitions.get(m));
+                if (!parse(message, batch)) {
+                    dropped++;
+                    log.debug("行情丢弃_数据不完整|Quotation_dropped,message={}", describe(message));
+                }
+            }
+
+            int appended = 0;
+            boolean symbolUpdated = false;
+            int[] rows = batch.groupBySymbol();
+            for (int i = 0; i < batch.size(); i++) {
+                int row = rows[i];
+                if (barStore.append(batch.windCode(row), batch.epochSecond(row), batch.price(row),
+                        batch.volume(row), batch.averagePrice(row))) {
+                    appended++;
+                    symbolUpdated = true;
+                } else {
+                    dropped++;
+                }
+                // 同一标的的 bar 全部写入后只求值一次
+                boolean lastOfSymbol = i == batch.size() - 1 || batch.symbolId(rows[i + 1]) != batch.symbolId(row);
+                if (lastOfSymbol && symbolUpdated && ownership.owns(batch.partition(row))) {
+                    signalStreamEvaluator.onBar(batch.windCode(row));
+                }
+                if (lastOfSymbol) {
+                    symbolUpdated = false;
+                }
+            }
+            if (appended > 0) {
+                l1CacheService.onMarketData();
+            }
+            if (dropped > 0) {
+                log.debug("批次内行情丢弃|Batch_quotation_dropped,batchSize={},dropped={}", messages.size(), dropped);
             }
+            recordThroughput(messages.size(), messages.isEmpty() ? null : messages.get(0),
+                    messages.isEmpty() ? null : messages.get(messages.size() - 1));
+            // 整批处理完成后一次性提交 offset
+            ack.acknowledge();
+        } catch (RuntimeException e) {
+            log.error("批量消息处理异常|Batch_message_failed,batchSize={}", messages.size(), e);
+            // 交给容器错误处理器：不提交 offset，整批按退避重投；重复的 bar 按同一时间戳修订，乱序的被丢弃。
+            // 不能吞掉异常，否则下一批的确认会把本批 offset 一并提交
+            throw e;
+        } finally {
+            batch.clear();
+        }
+    }
+
+    @KafkaListener(
+            id = "quotation-record-listener",
+            topics = "quotation",
+            idIsGroup = false,
+            containerFactory = "kafkaListenerContainerFactory",
+            autoStartup = "#{'${kafka.consumer.mode:batch}' == 'record'}"
+    )
+    public void consume(byte[] message, @Header(KafkaHeaders.RECEIVED_PARTITION) int partition, Acknowledgment ack) {  //  注意这里加了 Acknowledgment
+        try {
+            // 解析行情快照并写入共享行情存储，供信号策略零拷贝读取
+            HistoryTrendDTO quotation = QuotationCodec.isBinary(message)
+                    ? QuotationCodec.decode(message)
+                    : JSON.parseObject(new String(message, StandardCharsets.UTF_8), HistoryTrendDTO.class);
+            if (barStore.append(quotation)) {
+                // 新行情落地：数据版本由 bar 时间戳决定，此处节流广播供消费滞后的节点对齐
+                l1CacheService.onMarketData();
+                // 本节点负责该分区时，在当前分区线程上对订阅该标的的策略增量求值，新信号发布到结果 topic
+                if (ownership.owns(partition)) {
+                    signalStreamEvaluator.onBar(quotation.getWindCode());
+                }
+            } else {
+                log.debug("行情丢弃_数据不完整或乱序|Quotation_dropped,message={}", describe(message));
+            }
+            recordThroughput(1, message, message);
             // 手动提交 offset
             ack.acknowledge();
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
             log.error("消息处理异常|Log_message", e);
-            // 不提交 offset，消息会重试
+            // 交给容器错误处理器按退避重投本条，不提交 offset
+            throw e;
+        }
+    }
+
+    /**
+     * 解析单条消息到批次：二进制直接解码；JSON 先走快速解析，不支持的格式回退到 fastjson。
+     * 单条坏消息只丢弃自身，不阻塞整批确认
+     *
+     * @return true=已写入批次
+     */
+    private boolean parse(byte[] message, QuotationBatch batch) {
+        try {
+            if (QuotationCodec.isBinary(message)) {
+                QuotationCodec.decode(message, batch);
+                return true;
+            }
+            String json = new String(message, StandardCharsets.UTF_8);
+            int status = QuotationJsonParser.parse(json, batch);
+            if (status != QuotationJsonParser.UNSUPPORTED) {
+                return status == QuotationJsonParser.PARSED;
+            }
+            return batch.add(JSON.parseObject(json, HistoryTrendDTO.class));
+        } catch (RuntimeException e) {
+            log.warn("行情解析失败|Quotation_parse_failed,message={}", describe(message), e);
+            return false;
+        }
+    }
+
+    /**
+     * 消息的可读形式，仅用于日志
+     */
+    private static String describe(byte[] message) {
+        if (message == null) {
+            return null;
+        }
+        if (QuotationCodec.isBinary(message)) {
+            try {
+                return QuotationCodec.decode(message).toString();
+            } catch (IllegalArgumentException e) {
+                return "binary[" + message.length + "]";
+            }
+        }
+        return new String(message, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 每秒输出一次消费吞吐统计
+     */
+    private void recordThroughput(int messages, byte[] first, byte[] last) {
+        long now = System.currentTimeMillis();
+        // 记录第一条消息
+        if (firstMessage == null) {
+            firstMessage = first;
+        }
+        // 每条消息都更新 lastMessage
+        lastMessage = last;
+        // 增加计数
+        int count = counter.addAndGet(messages);
+        // 每秒输出一次统计
+        if (now - windowStart >= 1000) {
+            log.info("Thread_name={},_消息处理量={}条/s,_本秒第一条消息={},_最后一条消息={}",
+                    Thread.currentThread().getName(),
+                    count,
+                    describe(firstMessage),
+                    describe(lastMessage));
+            // 重置计数器和窗口
+            counter.set(0);
+            firstMessage = null;
+            lastMessage = null;
+            windowStart = now;
         }
-//         TODO: 这里可以根据 wind_code 解析消息 JSON，然后处理策略
     }
 }
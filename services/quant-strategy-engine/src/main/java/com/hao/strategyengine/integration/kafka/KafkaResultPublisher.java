@@ -1,6 +1,6 @@
 package com.hao.strategyengine.integration.kafka;
 
-import com.alibaba.fastjson.JSON;
+import com.hao.strategyengine.common.codec.StrategyResultCodec;
 import com.hao.strategyengine.common.model.response.StrategyResultBundle;
 import lombok.RequiredArgsConstructor;
 import org.springframework.kafka.core.KafkaTemplate;
@@ -18,7 +18,10 @@ import org.springframework.stereotype.Component;
 public class KafkaResultPublisher {
     private final KafkaTemplate kafka;
 
+    /**
+     * 发布结果包，消息体为 StrategyResultCodec 二进制编码的 Base64 文本（沿用 String 序列化器）
+     */
     public void publish(String topic, StrategyResultBundle bundle) {
-        kafka.send(topic, bundle.getComboKey(), JSON.toJSONString(bundle));
+        kafka.send(topic, bundle.getComboKey(), StrategyResultCodec.encodeToString(bundle));
     }
 }
\ No newline at end of file
@@ -0,0 +1,180 @@
+package com.hao.strategyengine.integration.kafka;
+
+import com.hao.strategyengine.common.market.BarStore;
+import com.hao.strategyengine.common.market.SymbolRegistry;
+import dto.HistoryTrendDTO;
+import integration.kafka.QuotationCodec;
+
+import java.util.Arrays;
+
+/**
+ * 行情批次缓冲 (Quotation Batch)
+ *
+ * <p>批量监听一次 poll 得到的行情按列存放在可复用的原始数组中，清空后下一批直接覆盖，
+ * 稳定状态下不再为每条消息分配 DTO。每个监听线程独占一个实例，非线程安全。</p>
+ *
+ * <p>实现 {@link QuotationCodec.Sink}，二进制行情可直接解码进批次。</p>
+ *
+ * <p>{@link #groupBySymbol()} 按 (symbolId, 到达顺序) 排序，同一标的的行情连续且保持原有顺序，
+ * 写入 {@link BarStore} 时序列锁与缓存行都在同一标的上连续命中。</p>
+ *
+ * @author hli
+ * @date 2026-10-17
+ */
+public final class QuotationBatch implements QuotationCodec.Sink {
+
+    private final SymbolRegistry symbols;
+
+    private int size;
+    private int[] symbolIds;
+    private String[] windCodes;
+    private long[] epochSeconds;
+    private double[] prices;
+    private double[] volumes;
+    private double[] averagePrices;
+    /** 消息所在的 quotation 分区，决定本节点是否负责该标的的增量求值 */
+    private int[] partitions;
+    /** 后续追加的行所属分区 */
+    private int currentPartition;
+    /** 排序键：高 32 位 symbolId，低 32 位行号 */
+    private long[] order;
+    private int[] rows;
+
+    public QuotationBatch(SymbolRegistry symbols, int initialCapacity) {
+        this.symbols = symbols;
+        int capacity = Math.max(16, initialCapacity);
+        this.symbolIds = new int[capacity];
+        this.windCodes = new String[capacity];
+        this.epochSeconds = new long[capacity];
+        this.prices = new double[capacity];
+        this.volumes = new double[capacity];
+        this.averagePrices = new double[capacity];
+        this.partitions = new int[capacity];
+        this.order = new long[capacity];
+        this.rows = new int[capacity];
+    }
+
+    /**
+     * 追加一条行情
+     *
+     * @param windCode     股票代码
+     * @param epochSecond  bar 时间（epoch 秒）
+     * @param price        最新价
+     * @param volume       成交量
+     * @param averagePrice 均价
+     */
+    public void add(String windCode, long epochSecond, double price, double volume, double averagePrice) {
+        if (size == symbolIds.length) {
+            grow();
+        }
+        symbolIds[size] = symbols.intern(windCode);
+        windCodes[size] = windCode;
+        epochSeconds[size] = epochSecond;
+        prices[size] = price;
+        volumes[size] = volume;
+        averagePrices[size] = averagePrice;
+        partitions[size] = currentPartition;
+        size++;
+    }
+
+    /**
+     * 追加一条 DTO 形式的行情，缺失字段的处理与 {@link BarStore#append(HistoryTrendDTO)} 一致
+     *
+     * @return false=数据不完整被丢弃
+     */
+    public boolean add(HistoryTrendDTO dto) {
+        if (dto == null || dto.getWindCode() == null || dto.getTradeDate() == null || dto.getLatestPrice() == null) {
+            return false;
+        }
+        add(dto.getWindCode(),
+                dto.getTradeDate().toEpochSecond(BarStore.MARKET_ZONE),
+                dto.getLatestPrice(),
+                dto.getTotalVolume() == null ? 0D : dto.getTotalVolume(),
+                dto.getAveragePrice() == null ? dto.getLatestPrice() : dto.getAveragePrice());
+        return true;
+    }
+
+    /**
+     * 接收二进制解码结果，缺失的成交量按 0、均价按最新价补齐
+     */
+    @Override
+    public void accept(String windCode, long epochSecond, double price, double volume, double averagePrice) {
+        add(windCode, epochSecond, price, Double.isNaN(volume) ? 0D : volume,
+                Double.isNaN(averagePrice) ? price : averagePrice);
+    }
+
+    /**
+     * 设置后续追加的行所属的分区，解析每条消息前调用
+     */
+    public void currentPartition(int partition) {
+        this.currentPartition = partition;
+    }
+
+    /**
+     * 按标的分组，返回分组后的行号顺序（长度为 {@link #size()}，数组在下一次调用时复用）
+     */
+    public int[] groupBySymbol() {
+        for (int i = 0; i < size; i++) {
+            order[i] = ((long) symbolIds[i] << 32) | i;
+        }
+        Arrays.sort(order, 0, size);
+        for (int i = 0; i < size; i++) {
+            rows[i] = (int) order[i];
+        }
+        return rows;
+    }
+
+    /**
+     * 清空批次，保留底层数组供下一批复用
+     */
+    public void clear() {
+        Arrays.fill(windCodes, 0, size, null);
+        size = 0;
+        currentPartition = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int symbolId(int row) {
+        return symbolIds[row];
+    }
+
+    public String windCode(int row) {
+        return windCodes[row];
+    }
+
+    public long epochSecond(int row) {
+        return epochSeconds[row];
+    }
+
+    public double price(int row) {
+        return prices[row];
+    }
+
+    public double volume(int row) {
+        return volumes[row];
+    }
+
+    public double averagePrice(int row) {
+        return averagePrices[row];
+    }
+
+    public int partition(int row) {
+        return partitions[row];
+    }
+
+    private void grow() {
+        int capacity = symbolIds.length << 1;
+        symbolIds = Arrays.copyOf(symbolIds, capacity);
+        windCodes = Arrays.copyOf(windCodes, capacity);
+        epochSeconds = Arrays.copyOf(epochSeconds, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        volumes = Arrays.copyOf(volumes, capacity);
+        averagePrices = Arrays.copyOf(averagePrices, capacity);
+        partitions = Arrays.copyOf(partitions, capacity);
+        order = new long[capacity];
+        rows = new int[capacity];
+    }
+}
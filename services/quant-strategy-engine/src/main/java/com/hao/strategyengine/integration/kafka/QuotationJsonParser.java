@@ -0,0 +1,282 @@
+package com.hao.strategyengine.integration.kafka;
+
+import com.hao.strategyengine.common.market.BarStore;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * 行情消息解析器 (Quotation JSON Parser)
+ *
+ * <p>面向 {@code quotation} topic 的扁平 JSON（生产端 {@code JSON.toJSONString(HistoryTrendDTO)}）的单遍扫描解析，
+ * 直接把字段写入 {@link QuotationBatch} 的原始数组，不构建 DTO、Map 或中间字符串（股票代码除外）。</p>
+ *
+ * <p>支持的形态：</p>
+ * <ul>
+ *     <li>字段顺序任意，未知字段与 null 值跳过；</li>
+ *     <li>tradeDate 为 {@code yyyy-MM-dd'T'HH:mm[:ss[.SSS]]} / {@code yyyy-MM-dd HH:mm:ss} 文本或 epoch 毫秒；</li>
+ *     <li>数值无指数且有效位不超过 15 位时走快速路径，按预计算的 10 的幂一次除法得到正确舍入的 double。</li>
+ * </ul>
+ * 遇到转义字符、嵌套结构或其他日期格式时返回 {@link #UNSUPPORTED}，由调用方回退到 fastjson。
+ *
+ * @author hli
+ * @date 2026-10-17
+ */
+public final class QuotationJsonParser {
+
+    /** 解析成功并已写入批次 */
+    public static final int PARSED = 0;
+    /** 格式正确但缺少股票代码、时间或最新价，应丢弃 */
+    public static final int INCOMPLETE = 1;
+    /** 超出快速路径支持范围，需回退到通用 JSON 解析 */
+    public static final int UNSUPPORTED = 2;
+
+    private static final int FIELD_OTHER = 0;
+    private static final int FIELD_WIND_CODE = 1;
+    private static final int FIELD_TRADE_DATE = 2;
+    private static final int FIELD_LATEST_PRICE = 3;
+    private static final int FIELD_TOTAL_VOLUME = 4;
+    private static final int FIELD_AVERAGE_PRICE = 5;
+
+    /** 2^53 以内的整数可被 double 精确表示 */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POW10 = new double[23];
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    static {
+        POW10[0] = 1D;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10D;
+        }
+    }
+
+    private QuotationJsonParser() {
+    }
+
+    /**
+     * 解析一条行情消息并追加到批次
+     *
+     * @param json 消息文本
+     * @param out  目标批次
+     * @return {@link #PARSED} / {@link #INCOMPLETE} / {@link #UNSUPPORTED}
+     */
+    public static int parse(String json, QuotationBatch out) {
+        int n = json.length();
+        int i = skipWhitespace(json, 0);
+        if (i >= n || json.charAt(i) != '{') {
+            return UNSUPPORTED;
+        }
+        String windCode = null;
+        long epochSecond = NO_TIME;
+        double price = Double.NaN;
+        double volume = Double.NaN;
+        double averagePrice = Double.NaN;
+
+        i = skipWhitespace(json, i + 1);
+        if (i < n && json.charAt(i) == '}') {
+            return INCOMPLETE;
+        }
+        while (true) {
+            if (i >= n || json.charAt(i) != '"') {
+                return UNSUPPORTED;
+            }
+            int keyStart = i + 1;
+            int keyEnd = json.indexOf('"', keyStart);
+            if (keyEnd < 0) {
+                return UNSUPPORTED;
+            }
+            int field = field(json, keyStart, keyEnd - keyStart);
+            i = skipWhitespace(json, keyEnd + 1);
+            if (i >= n || json.charAt(i) != ':') {
+                return UNSUPPORTED;
+            }
+            i = skipWhitespace(json, i + 1);
+            if (i >= n) {
+                return UNSUPPORTED;
+            }
+
+            char c = json.charAt(i);
+            if (c == '"') {
+                int start = i + 1;
+                int end = json.indexOf('"', start);
+                if (end < 0 || json.indexOf('\\', start, end) >= 0) {
+                    return UNSUPPORTED;
+                }
+                if (field == FIELD_WIND_CODE) {
+                    windCode = json.substring(start, end);
+                } else if (field == FIELD_TRADE_DATE) {
+                    epochSecond = parseDateTime(json, start, end);
+                    if (epochSecond == NO_TIME) {
+                        return UNSUPPORTED;
+                    }
+                } else if (field != FIELD_OTHER) {
+                    return UNSUPPORTED;
+                }
+                i = end + 1;
+            } else if (c == '-' || (c >= '0' && c <= '9')) {
+                int end = i + 1;
+                while (end < n && isNumberChar(json.charAt(end))) {
+                    end++;
+                }
+                double value;
+                try {
+                    value = parseNumber(json, i, end);
+                } catch (NumberFormatException e) {
+                    return UNSUPPORTED;
+                }
+                switch (field) {
+                    case FIELD_TRADE_DATE -> epochSecond = Math.floorDiv((long) value, 1000L);
+                    case FIELD_LATEST_PRICE -> price = value;
+                    case FIELD_TOTAL_VOLUME -> volume = value;
+                    case FIELD_AVERAGE_PRICE -> averagePrice = value;
+                    case FIELD_WIND_CODE -> windCode = json.substring(i, end);
+                    default -> {
+                        // 未关心的数值字段直接跳过
+                    }
+                }
+                i = end;
+            } else if (json.startsWith("null", i)) {
+                i += 4;
+            } else if (json.startsWith("true", i)) {
+                i += 4;
+            } else if (json.startsWith("false", i)) {
+                i += 5;
+            } else {
+                return UNSUPPORTED;
+            }
+
+            i = skipWhitespace(json, i);
+            if (i >= n) {
+                return UNSUPPORTED;
+            }
+            c = json.charAt(i);
+            if (c == '}') {
+                break;
+            }
+            if (c != ',') {
+                return UNSUPPORTED;
+            }
+            i = skipWhitespace(json, i + 1);
+        }
+
+        if (windCode == null || epochSecond == NO_TIME || Double.isNaN(price)) {
+            return INCOMPLETE;
+        }
+        out.add(windCode, epochSecond, price,
+                Double.isNaN(volume) ? 0D : volume,
+                Double.isNaN(averagePrice) ? price : averagePrice);
+        return PARSED;
+    }
+
+    private static int field(String json, int start, int length) {
+        if (length == 8 && json.startsWith("windCode", start)) {
+            return FIELD_WIND_CODE;
+        }
+        if (length == 9 && json.startsWith("tradeDate", start)) {
+            return FIELD_TRADE_DATE;
+        }
+        if (length == 11 && json.startsWith("latestPrice", start)) {
+            return FIELD_LATEST_PRICE;
+        }
+        if (length == 11 && json.startsWith("totalVolume", start)) {
+            return FIELD_TOTAL_VOLUME;
+        }
+        if (length == 12 && json.startsWith("averagePrice", start)) {
+            return FIELD_AVERAGE_PRICE;
+        }
+        return FIELD_OTHER;
+    }
+
+    /**
+     * 解析本地日期时间文本为 epoch 秒（按 {@link BarStore#MARKET_ZONE}），不支持的格式返回 {@link #NO_TIME}
+     */
+    private static long parseDateTime(String s, int start, int end) {
+        int length = end - start;
+        if (length < 16 || s.charAt(start + 4) != '-' || s.charAt(start + 7) != '-'
+                || (s.charAt(start + 10) != 'T' && s.charAt(start + 10) != ' ') || s.charAt(start + 13) != ':') {
+            return NO_TIME;
+        }
+        int year = digits(s, start, 4);
+        int month = digits(s, start + 5, 2);
+        int day = digits(s, start + 8, 2);
+        int hour = digits(s, start + 11, 2);
+        int minute = digits(s, start + 14, 2);
+        int second = 0;
+        if (length > 16) {
+            // 秒之后的小数部分不影响分钟线时间，忽略
+            if (length < 19 || s.charAt(start + 16) != ':' || (length > 19 && s.charAt(start + 19) != '.')) {
+                return NO_TIME;
+            }
+            second = digits(s, start + 17, 2);
+        }
+        if ((year | month | day | hour | minute | second) < 0 || hour > 23 || minute > 59 || second > 59) {
+            return NO_TIME;
+        }
+        try {
+            return LocalDate.of(year, month, day).toEpochDay() * 86_400L
+                    + hour * 3_600L + minute * 60L + second
+                    - BarStore.MARKET_ZONE.getTotalSeconds();
+        } catch (DateTimeException e) {
+            return NO_TIME;
+        }
+    }
+
+    /**
+     * 读取定长十进制数字，含非数字字符时返回 -1
+     */
+    private static int digits(String s, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private static double parseNumber(String s, int start, int end) {
+        int i = start;
+        boolean negative = s.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+        long mantissa = 0;
+        int digitCount = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+            if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+            if (c < '0' || c > '9' || ++digitCount > 15) {
+                // 指数形式或有效位过多，交给 JDK 保证精度
+                return Double.parseDouble(s.substring(start, end));
+            }
+            mantissa = mantissa * 10 + (c - '0');
+            if (fractionDigits >= 0) {
+                fractionDigits++;
+            }
+        }
+        if (digitCount == 0 || mantissa >= MAX_EXACT_MANTISSA) {
+            return Double.parseDouble(s.substring(start, end));
+        }
+        // 尾数与 10 的幂都可被精确表示，一次 IEEE 除法即得到正确舍入的结果
+        double value = fractionDigits > 0 ? mantissa / POW10[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private static boolean isNumberChar(char c) {
+        return (c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-';
+    }
+
+    private static int skipWhitespace(String s, int i) {
+        int n = s.length();
+        while (i < n && s.charAt(i) <= ' ') {
+            i++;
+        }
+        return i;
+    }
+}
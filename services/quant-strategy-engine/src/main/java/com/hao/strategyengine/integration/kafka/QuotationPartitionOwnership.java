@@ -0,0 +1,82 @@
+package com.hao.strategyengine.integration.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 行情分区归属 (Quotation Partition Ownership)
+ *
+ * <p>每个节点用独立消费组全量接收行情写入 {@link com.hao.strategyengine.common.market.BarStore}，
+ * 但行情流增量求值与信号发布只能由一个节点负责，否则同一信号会被每个节点各发布一次。</p>
+ *
+ * <p>本类以共享消费组 {@code kafka.consumer.group-id} 订阅 quotation，只为借助 Kafka 的分区分配在节点间划分归属：
+ * 分到的分区立即在消费者上暂停，不拉取消息、不提交 offset；节点增减时由再均衡自动迁移归属。
+ * 再均衡期间归属短暂缺失或重叠，最多漏发或重复发布一次信号，与分区迁移后求值状态从空开始的行为一致。</p>
+ *
+ * @author hli
+ * @date 2026-10-17
+ */
+@Slf4j
+@Component
+public class QuotationPartitionOwnership implements ConsumerAwareRebalanceListener {
+
+    static final String TOPIC = "quotation";
+
+    private final Set<Integer> owned = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 当前节点是否负责该分区上标的的增量求值
+     */
+    public boolean owns(int partition) {
+        return owned.contains(partition);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // 只要分配结果，不消费：暂停后 poll 不再返回这些分区的消息
+        consumer.pause(partitions);
+        assign(partitions.stream().filter(tp -> TOPIC.equals(tp.topic())).map(TopicPartition::partition).toList());
+        log.info("行情求值分区归属新增|Quotation_ownership_assigned,partitions={},owned={}", partitions, owned);
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        revoke(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        revoke(partitions);
+    }
+
+    /**
+     * 分区全部暂停，监听方法不会收到消息
+     */
+    @KafkaListener(
+            id = "quotation-ownership-listener",
+            topics = TOPIC,
+            idIsGroup = false,
+            containerFactory = "ownershipListenerContainerFactory"
+    )
+    public void ignore(byte[] message) {
+        // no-op
+    }
+
+    void assign(List<Integer> partitions) {
+        owned.addAll(partitions);
+    }
+
+    private void revoke(Collection<TopicPartition> partitions) {
+        partitions.stream().filter(tp -> TOPIC.equals(tp.topic())).map(TopicPartition::partition).forEach(owned::remove);
+        log.info("行情求值分区归属移除|Quotation_ownership_revoked,partitions={},owned={}", partitions, owned);
+    }
+}
@@ -0,0 +1,52 @@
+package com.hao.strategyengine.integration.nacos.properties;
+
+import enums.strategy.StrategyType;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 策略舱壁隔离配置
+ *
+ * <p>示例：</p>
+ * <pre>
+ * bulkhead:
+ *   partitions:
+ *     SIGNAL:      { max-concurrent: 128, max-queue: 64, max-wait-ms: 20 }
+ *     INFORMATION: { max-concurrent: 16,  max-queue: 16, max-wait-ms: 200 }
+ * </pre>
+ * 未配置的字段按 {@link enums.strategy.StrategyMetaEnum} 中该类型策略的单机 QPS 之和推导。
+ *
+ * @author hli
+ * @date 2026-10-17
+ */
+@Data
+@ConfigurationProperties(prefix = "bulkhead")
+@Component
+public class BulkheadProperties {
+
+    /** 是否启用舱壁隔离 */
+    private boolean enabled = true;
+
+    /** 推导并发上限时的上界 */
+    private int maxConcurrentCap = 256;
+
+    /** 默认最大排队等待时间(毫秒) */
+    private long defaultMaxWaitMs = 100;
+
+    /** 按策略类型覆盖的分区配置 */
+    private Map<StrategyType, Partition> partitions = new EnumMap<>(StrategyType.class);
+
+    @Data
+    public static class Partition {
+        /** 最大并发执行数 */
+        private Integer maxConcurrent;
+        /** 最大排队数，超过后直接拒绝 */
+        private Integer maxQueue;
+        /** 最大排队等待时间(毫秒) */
+        private Long maxWaitMs;
+    }
+}
@@ -0,0 +1,44 @@
+package com.hao.strategyengine.integration.nacos.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 行情流增量求值配置
+ *
+ * <p>示例：</p>
+ * <pre>
+ * strategy:
+ *   stream:
+ *     result-topic: quant-strategy-result
+ *     subscriptions:
+ *       SIG_RSI:  ["*"]
+ *       SIG_VWAP: ["600519.SH", "000001.SZ"]
+ * </pre>
+ * 未配置 subscriptions 时，全部增量策略订阅全部标的；"*" 表示订阅全部标的。
+ *
+ * @author hli
+ * @date 2026-10-17
+ */
+@Data
+@ConfigurationProperties(prefix = "strategy.stream")
+@Component
+public class StreamEvaluationProperties {
+
+    /** 订阅全部标的的通配符 */
+    public static final String ALL_SYMBOLS = "*";
+
+    /** 是否启用行情流增量求值 */
+    private boolean enabled = true;
+
+    /** 信号结果发布的 topic */
+    private String resultTopic = "quant-strategy-result";
+
+    /** 策略ID -> 订阅的股票代码 */
+    private Map<String, List<String>> subscriptions = new LinkedHashMap<>();
+}
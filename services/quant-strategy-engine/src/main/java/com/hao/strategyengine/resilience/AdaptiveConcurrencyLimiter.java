@@ -0,0 +1,244 @@
+package com.hao.strategyengine.resilience;
+
+import com.hao.strategyengine.monitoring.RateLimitMetrics;
+import enums.strategy.StrategyMetaEnum;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * 自适应并发限流器（按策略ID）
+ *
+ * <p>以"在途请求数"而非固定 QPS 保护策略执行：根据观测到的执行耗时自动收放每个策略的并发上限，
+ * 代价高的策略在负载升高时被自动收紧，无需手工调参。</p>
+ *
+ * <p>算法（Gradient 思路 + p99 保护）：</p>
+ * <ul>
+ *     <li>每收集 window-size 个样本结算一次窗口，计算窗口内 p50 / p99 耗时；</li>
+ *     <li>基线耗时取 p50 的长期指数平均（出现更低的 p50 时快速下探），
+ *         梯度 = clamp(tolerance × 基线 / p50, 0.5, 1.0)，耗时升高则上限按梯度收缩；</li>
+ *     <li>窗口内出现过拒绝或在途数顶到上限（需求大于供给）且耗时健康时，上限增加 √limit；</li>
+ *     <li>p99 超过预算或失败率超过 10% 时额外乘性收缩；</li>
+ *     <li>新上限与旧上限做平滑，并限制在 [min-limit, max-limit] 之间。</li>
+ * </ul>
+ *
+ * <p>初始上限取 {@link StrategyMetaEnum#getLocalQps()}，静态配置只作为冷启动种子。</p>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    /** 长期基线的平滑系数 */
+    private static final double BASELINE_ALPHA = 0.05d;
+    /** 新旧上限的平滑系数 */
+    private static final double SMOOTHING = 0.2d;
+    /** 梯度下限，单个窗口最多收缩一半 */
+    private static final double MIN_GRADIENT = 0.5d;
+    /** 失败率超过该值时乘性收缩 */
+    private static final double FAILURE_RATE_THRESHOLD = 0.1d;
+    /** 乘性收缩系数 */
+    private static final double BACKOFF = 0.8d;
+
+    private final RateLimitMetrics rateLimitMetrics;
+    private final MeterRegistry meterRegistry;
+    private final int defaultInitialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int windowSize;
+    private final double tolerance;
+    private final long p99BudgetNanos;
+    private final LongSupplier nanoClock;
+
+    private final ConcurrentMap<String, LimitState> states = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AdaptiveConcurrencyLimiter(RateLimitMetrics rateLimitMetrics,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${adaptive-limit.initial-limit:20}") int defaultInitialLimit,
+                                      @Value("${adaptive-limit.min-limit:1}") int minLimit,
+                                      @Value("${adaptive-limit.max-limit:200}") int maxLimit,
+                                      @Value("${adaptive-limit.window-size:50}") int windowSize,
+                                      @Value("${adaptive-limit.tolerance:2.0}") double tolerance,
+                                      @Value("${adaptive-limit.p99-budget-ms:2000}") long p99BudgetMs) {
+        this(rateLimitMetrics, meterRegistry, defaultInitialLimit, minLimit, maxLimit, windowSize, tolerance, p99BudgetMs,
+                System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(RateLimitMetrics rateLimitMetrics, MeterRegistry meterRegistry, int defaultInitialLimit,
+                               int minLimit, int maxLimit, int windowSize, double tolerance, long p99BudgetMs,
+                               LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.rateLimitMetrics = rateLimitMetrics;
+        this.meterRegistry = meterRegistry;
+        this.defaultInitialLimit = defaultInitialLimit;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.windowSize = Math.max(10, windowSize);
+        this.tolerance = Math.max(1d, tolerance);
+        this.p99BudgetNanos = p99BudgetMs * 1_000_000L;
+    }
+
+    /**
+     * 申请一个执行许可
+     *
+     * @param strategyId 策略ID
+     * @return 许可；在途数已达上限时返回 null
+     */
+    public Permit tryAcquire(String strategyId) {
+        LimitState state = states.computeIfAbsent(strategyId, this::newState);
+        if (!state.tryEnter()) {
+            rateLimitMetrics.recordRateLimitReject("ADAPTIVE_CONCURRENCY", "n/a", strategyId);
+            return null;
+        }
+        return new Permit(state, nanoClock.getAsLong());
+    }
+
+    /**
+     * 当前并发上限，未知策略返回 -1
+     */
+    public int currentLimit(String strategyId) {
+        LimitState state = states.get(strategyId);
+        return state == null ? -1 : state.limit;
+    }
+
+    private LimitState newState(String strategyId) {
+        StrategyMetaEnum meta = StrategyMetaEnum.fromId(strategyId);
+        int initial = meta != null ? meta.getLocalQps() : defaultInitialLimit;
+        LimitState state = new LimitState(strategyId, Math.max(minLimit, Math.min(maxLimit, initial)), windowSize);
+        Gauge.builder("strategy.concurrency.limit", state, s -> s.limit)
+                .description("策略自适应并发上限")
+                .tag("strategy_id", strategyId)
+                .register(meterRegistry);
+        Gauge.builder("strategy.concurrency.in_flight", state, s -> s.inFlight.get())
+                .description("策略在途执行数")
+                .tag("strategy_id", strategyId)
+                .register(meterRegistry);
+        return state;
+    }
+
+    /**
+     * 执行许可，必须且只能结束一次
+     */
+    public final class Permit {
+        private final LimitState state;
+        private final long startNanos;
+        private boolean released;
+
+        private Permit(LimitState state, long startNanos) {
+            this.state = state;
+            this.startNanos = startNanos;
+        }
+
+        /** 执行成功 */
+        public void onSuccess() {
+            release(true);
+        }
+
+        /** 执行失败或超时 */
+        public void onFailure() {
+            release(false);
+        }
+
+        private void release(boolean success) {
+            if (released) {
+                return;
+            }
+            released = true;
+            state.inFlight.decrementAndGet();
+            state.record(nanoClock.getAsLong() - startNanos, success);
+        }
+    }
+
+    /**
+     * 单个策略的限流状态
+     */
+    private final class LimitState {
+        private final String strategyId;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile int limit;
+        /** 本窗口内是否出现过拒绝或在途数顶到上限 */
+        private volatile boolean saturated;
+
+        // 以下字段仅在 synchronized(this) 内访问
+        private final long[] samples;
+        private int sampleCount;
+        private int failures;
+        private double baselineNanos;
+
+        private LimitState(String strategyId, int initialLimit, int windowSize) {
+            this.strategyId = strategyId;
+            this.limit = initialLimit;
+            this.samples = new long[windowSize];
+        }
+
+        private boolean tryEnter() {
+            int current;
+            do {
+                current = inFlight.get();
+                if (current >= limit) {
+                    saturated = true;
+                    return false;
+                }
+            } while (!inFlight.compareAndSet(current, current + 1));
+            if (current + 1 >= limit) {
+                saturated = true;
+            }
+            return true;
+        }
+
+        private synchronized void record(long latencyNanos, boolean success) {
+            samples[sampleCount++] = latencyNanos;
+            if (!success) {
+                failures++;
+            }
+            if (sampleCount == samples.length) {
+                adjust();
+            }
+        }
+
+        private void adjust() {
+            Arrays.sort(samples, 0, sampleCount);
+            long p50 = samples[(int) (sampleCount * 0.5)];
+            long p99 = samples[Math.min(sampleCount - 1, (int) Math.ceil(sampleCount * 0.99) - 1)];
+            double failureRate = (double) failures / sampleCount;
+
+            // 基线: 长期平均, 出现更低的 p50 时直接下探
+            baselineNanos = baselineNanos == 0 || p50 < baselineNanos
+                    ? p50 : baselineNanos * (1 - BASELINE_ALPHA) + p50 * BASELINE_ALPHA;
+
+            int old = limit;
+            double gradient = Math.max(MIN_GRADIENT, Math.min(1d, tolerance * baselineNanos / Math.max(1L, p50)));
+            double target = old * gradient;
+            if (saturated && gradient >= 1d) {
+                target += Math.sqrt(old);
+            }
+            if (p99 > p99BudgetNanos || failureRate > FAILURE_RATE_THRESHOLD) {
+                target = Math.min(target, old * BACKOFF);
+            }
+            double smoothed = old * (1 - SMOOTHING) + target * SMOOTHING;
+            // 平滑后不足一个单位的增长按 1 计，避免小上限永远无法增长
+            int next = (int) (smoothed > old ? Math.ceil(smoothed) : Math.floor(smoothed));
+            limit = Math.max(minLimit, Math.min(maxLimit, next));
+
+            if (limit != old) {
+                log.info("自适应并发上限调整|Adaptive_limit_adjusted,strategyId={},old={},new={},p50Ms={},p99Ms={},failureRate={}",
+                        strategyId, old, limit, p50 / 1_000_000d, p99 / 1_000_000d, failureRate);
+            }
+            sampleCount = 0;
+            failures = 0;
+            saturated = false;
+        }
+    }
+}
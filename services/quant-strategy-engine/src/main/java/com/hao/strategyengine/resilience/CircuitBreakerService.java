@@ -1,6 +1,10 @@
 package com.hao.strategyengine.resilience;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
 import lombok.Getter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
@@ -13,9 +17,22 @@ import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 通用断路器服务，提供故障统计、状态流转与自愈能力。
+ *
+ * <p>实现要点：</p>
+ * <ul>
+ *     <li>无锁：状态机为 CAS 切换的不可变状态对象，热路径上没有 monitor 竞争；</li>
+ *     <li>按比率熔断：基于计数型环形滑动窗口统计失败率与慢调用率，
+ *         样本数达到 minimum-calls 后任一比率超过阈值即打开；</li>
+ *     <li>半开限流：半开状态只发放 half-open-permits 个试探许可，全部返回后按失败率/慢调用率决定关闭或重新打开；
+ *         试探结果迟迟未凑齐（如许可泄漏、调用挂起）时，半开超过 half-open-max-wait-seconds 即重新打开，不会永久停留在半开；</li>
+ *     <li>指标：状态、调用结果、拒绝与状态切换通过 Micrometer 输出（circuit_breaker.*）。</li>
+ * </ul>
  */
 @Slf4j
 @Service
@@ -23,23 +40,46 @@ public class CircuitBreakerService {
 
     private final ConcurrentMap<String, CircuitBreakerEntry> breakers = new ConcurrentHashMap<>();
 
-    @Value("${circuit-breaker.failure-threshold:5}")
-    private int defaultFailureThreshold;
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Value("${circuit-breaker.failure-rate-threshold:50}")
+    private float defaultFailureRateThreshold;
+
+    @Value("${circuit-breaker.slow-call-rate-threshold:80}")
+    private float defaultSlowCallRateThreshold;
+
+    @Value("${circuit-breaker.slow-call-duration-ms:2000}")
+    private long defaultSlowCallDurationMs;
+
+    @Value("${circuit-breaker.window-size:100}")
+    private int defaultWindowSize;
+
+    @Value("${circuit-breaker.minimum-calls:20}")
+    private int defaultMinimumCalls;
 
     @Value("${circuit-breaker.open-state-duration-seconds:30}")
     private long defaultOpenStateSeconds;
 
-    @Value("${circuit-breaker.half-open-success-threshold:3}")
-    private int defaultHalfOpenSuccessThreshold;
+    @Value("${circuit-breaker.half-open-permits:5}")
+    private int defaultHalfOpenPermits;
+
+    @Value("${circuit-breaker.half-open-max-wait-seconds:60}")
+    private long defaultHalfOpenMaxWaitSeconds;
 
     private CircuitBreakerConfig defaultConfig;
 
     @PostConstruct
     public void init() {
         defaultConfig = new CircuitBreakerConfig(
-                defaultFailureThreshold,
+                defaultFailureRateThreshold,
+                defaultSlowCallRateThreshold,
+                Duration.ofMillis(defaultSlowCallDurationMs),
+                defaultWindowSize,
+                defaultMinimumCalls,
                 Duration.ofSeconds(Math.max(1, defaultOpenStateSeconds)),
-                defaultHalfOpenSuccessThreshold
+                defaultHalfOpenPermits,
+                Duration.ofSeconds(Math.max(1, defaultHalfOpenMaxWaitSeconds))
         );
         log.info("CircuitBreakerService_初始化完成:_defaultConfig={}_", defaultConfig);
     }
@@ -51,7 +91,7 @@ public class CircuitBreakerService {
         Objects.requireNonNull(name, "breaker name cannot be null");
         breakers.compute(name, (k, entry) -> {
             if (entry == null) {
-                return new CircuitBreakerEntry(config == null ? defaultConfig : config);
+                return newEntry(k, config == null ? defaultConfig : config);
             }
             entry.updateConfig(config == null ? defaultConfig : config);
             return entry;
@@ -59,35 +99,52 @@ public class CircuitBreakerService {
     }
 
     /**
-     * 判断是否允许请求通过。
+     * 判断是否允许请求通过；半开状态下返回 true 即占用一个试探许可，调用方必须记录结果。
      */
     public boolean allowRequest(String name) {
-        CircuitBreakerEntry entry = breakers.computeIfAbsent(name, k -> new CircuitBreakerEntry(defaultConfig));
-        return entry.allowRequest();
+        return entry(name).allowRequest();
     }
 
     /**
      * 记录成功。
      */
     public void recordSuccess(String name) {
-        CircuitBreakerEntry entry = breakers.computeIfAbsent(name, k -> new CircuitBreakerEntry(defaultConfig));
-        entry.recordSuccess();
+        entry(name).record(false, 0L);
+    }
+
+    /**
+     * 记录成功，耗时超过慢调用阈值时按慢调用统计。
+     */
+    public void recordSuccess(String name, long durationNanos) {
+        entry(name).record(false, durationNanos);
     }
 
     /**
      * 记录失败。
      */
     public void recordFailure(String name) {
-        CircuitBreakerEntry entry = breakers.computeIfAbsent(name, k -> new CircuitBreakerEntry(defaultConfig));
-        entry.recordFailure();
+        entry(name).record(true, 0L);
+    }
+
+    /**
+     * 记录失败，同时参与慢调用统计。
+     */
+    public void recordFailure(String name, long durationNanos) {
+        entry(name).record(true, durationNanos);
+    }
+
+    /**
+     * 放弃已获取但未实际执行的调用（如被下游限流拒绝），归还半开试探许可且不计入统计。
+     */
+    public void releasePermission(String name) {
+        entry(name).releasePermission();
     }
 
     /**
      * 手动重置。
      */
     public void reset(String name) {
-        CircuitBreakerEntry entry = breakers.computeIfAbsent(name, k -> new CircuitBreakerEntry(defaultConfig));
-        entry.reset();
+        entry(name).reset();
     }
 
     /**
@@ -108,93 +165,280 @@ public class CircuitBreakerService {
         return breakers.size();
     }
 
+    private CircuitBreakerEntry entry(String name) {
+        CircuitBreakerEntry entry = breakers.get(name);
+        return entry != null ? entry : breakers.computeIfAbsent(name, k -> newEntry(k, defaultConfig));
+    }
+
+    private CircuitBreakerEntry newEntry(String name, CircuitBreakerConfig config) {
+        CircuitBreakerEntry entry = new CircuitBreakerEntry(name, config, meterRegistry);
+        if (meterRegistry != null) {
+            Gauge.builder("circuit_breaker.state", entry, e -> e.current.get().state.ordinal())
+                    .description("断路器状态: 0=CLOSED, 1=OPEN, 2=HALF_OPEN")
+                    .tag("name", name)
+                    .register(meterRegistry);
+            Gauge.builder("circuit_breaker.failure_rate", entry, e -> e.window.failureRate())
+                    .description("滑动窗口失败率(%)")
+                    .tag("name", name)
+                    .register(meterRegistry);
+            Gauge.builder("circuit_breaker.slow_call_rate", entry, e -> e.window.slowCallRate())
+                    .description("滑动窗口慢调用率(%)")
+                    .tag("name", name)
+                    .register(meterRegistry);
+        }
+        return entry;
+    }
+
     private enum State {
         CLOSED,
         OPEN,
         HALF_OPEN
     }
 
+    /**
+     * 不可变状态对象，状态切换通过 CAS 替换整个对象完成
+     */
+    private static final class StateHolder {
+        private final State state;
+        private final long since;
+        /** 半开状态剩余试探许可 */
+        private final AtomicInteger halfOpenPermits;
+        /** 半开状态试探结果 */
+        private final AtomicInteger halfOpenCalls = new AtomicInteger();
+        private final AtomicInteger halfOpenFailures = new AtomicInteger();
+        private final AtomicInteger halfOpenSlowCalls = new AtomicInteger();
+
+        private StateHolder(State state, int halfOpenPermits) {
+            this.state = state;
+            this.since = System.currentTimeMillis();
+            this.halfOpenPermits = new AtomicInteger(halfOpenPermits);
+        }
+    }
+
     private static final class CircuitBreakerEntry {
+        private final String name;
         private volatile CircuitBreakerConfig config;
-        private volatile State state = State.CLOSED;
-        private final AtomicInteger failureCount = new AtomicInteger();
-        private final AtomicInteger halfOpenSuccessCount = new AtomicInteger();
-        private volatile long stateSince = System.currentTimeMillis();
+        private final AtomicReference<StateHolder> current;
+        private volatile SlidingWindow window;
 
-        private CircuitBreakerEntry(CircuitBreakerConfig config) {
+        private final Counter successCounter;
+        private final Counter failureCounter;
+        private final Counter slowCounter;
+        private final Counter rejectedCounter;
+        private final MeterRegistry meterRegistry;
+
+        private CircuitBreakerEntry(String name, CircuitBreakerConfig config, MeterRegistry meterRegistry) {
+            this.name = name;
             this.config = config;
+            this.current = new AtomicReference<>(new StateHolder(State.CLOSED, 0));
+            this.window = new SlidingWindow(config.getWindowSize());
+            this.meterRegistry = meterRegistry;
+            this.successCounter = callCounter(meterRegistry, name, "success");
+            this.failureCounter = callCounter(meterRegistry, name, "failure");
+            this.slowCounter = callCounter(meterRegistry, name, "slow");
+            this.rejectedCounter = callCounter(meterRegistry, name, "not_permitted");
         }
 
-        private synchronized boolean allowRequest() {
-            long now = System.currentTimeMillis();
-            switch (state) {
-                case CLOSED:
-                    return true;
-                case OPEN:
-                    if (now - stateSince >= config.getOpenStateDuration().toMillis()) {
-                        transitionToHalfOpen();
+        private boolean allowRequest() {
+            while (true) {
+                StateHolder holder = current.get();
+                switch (holder.state) {
+                    case CLOSED:
+                        return true;
+                    case OPEN:
+                        if (System.currentTimeMillis() - holder.since < config.getOpenStateDuration().toMillis()) {
+                            increment(rejectedCounter);
+                            return false;
+                        }
+                        // 打开期满：由 CAS 胜出者切换到半开，所有线程重新走半开分支争抢许可
+                        transition(holder, State.HALF_OPEN);
+                        continue;
+                    case HALF_OPEN:
+                        if (System.currentTimeMillis() - holder.since >= config.getMaxWaitInHalfOpen().toMillis()) {
+                            // 试探结果迟迟未凑齐：重新打开，打开期满后以新的一轮许可再试探
+                            transition(holder, State.OPEN);
+                            continue;
+                        }
+                        int permits;
+                        do {
+                            permits = holder.halfOpenPermits.get();
+                            if (permits <= 0) {
+                                increment(rejectedCounter);
+                                return false;
+                            }
+                        } while (!holder.halfOpenPermits.compareAndSet(permits, permits - 1));
                         return true;
+                    default:
+                        return true;
+                }
+            }
+        }
+
+        private void record(boolean failure, long durationNanos) {
+            CircuitBreakerConfig cfg = config;
+            boolean slow = durationNanos > 0 && durationNanos >= cfg.getSlowCallDuration().toNanos();
+            increment(failure ? failureCounter : successCounter);
+            if (slow) {
+                increment(slowCounter);
+            }
+
+            StateHolder holder = current.get();
+            switch (holder.state) {
+                case CLOSED:
+                    window.record(failure, slow);
+                    if (window.calls() >= cfg.getMinimumCalls()
+                            && (window.failureRate() >= cfg.getFailureRateThreshold()
+                            || window.slowCallRate() >= cfg.getSlowCallRateThreshold())) {
+                        transition(holder, State.OPEN);
                     }
-                    return false;
+                    break;
                 case HALF_OPEN:
-                    return halfOpenSuccessCount.get() < config.getHalfOpenSuccessThreshold();
+                    if (failure) {
+                        holder.halfOpenFailures.incrementAndGet();
+                    }
+                    if (slow) {
+                        holder.halfOpenSlowCalls.incrementAndGet();
+                    }
+                    int calls = holder.halfOpenCalls.incrementAndGet();
+                    if (calls >= cfg.getHalfOpenPermits()) {
+                        float failureRate = holder.halfOpenFailures.get() * 100f / calls;
+                        float slowRate = holder.halfOpenSlowCalls.get() * 100f / calls;
+                        boolean healthy = failureRate < cfg.getFailureRateThreshold()
+                                && slowRate < cfg.getSlowCallRateThreshold();
+                        transition(holder, healthy ? State.CLOSED : State.OPEN);
+                    }
+                    break;
                 default:
-                    return true;
+                    // OPEN 期间返回的迟到结果不参与统计
+                    break;
             }
         }
 
-        private synchronized void recordSuccess() {
-            if (state == State.HALF_OPEN) {
-                int success = halfOpenSuccessCount.incrementAndGet();
-                if (success >= config.getHalfOpenSuccessThreshold()) {
-                    transitionToClosed();
-                }
-            } else {
-                failureCount.set(0);
+        private void releasePermission() {
+            StateHolder holder = current.get();
+            if (holder.state == State.HALF_OPEN) {
+                holder.halfOpenPermits.incrementAndGet();
             }
         }
 
-        private synchronized void recordFailure() {
-            if (state == State.HALF_OPEN) {
-                transitionToOpen();
+        private void reset() {
+            current.set(new StateHolder(State.CLOSED, 0));
+            window = new SlidingWindow(config.getWindowSize());
+        }
+
+        private CircuitBreakerSnapshot snapshot() {
+            StateHolder holder = current.get();
+            SlidingWindow w = window;
+            return new CircuitBreakerSnapshot(holder.state, w.failures(), w.calls(), w.failureRate(), w.slowCallRate(),
+                    holder.since, config);
+        }
+
+        private void updateConfig(CircuitBreakerConfig newConfig) {
+            CircuitBreakerConfig old = this.config;
+            this.config = newConfig;
+            if (old.getWindowSize() != newConfig.getWindowSize()) {
+                window = new SlidingWindow(newConfig.getWindowSize());
+            }
+        }
+
+        private void transition(StateHolder expected, State target) {
+            int permits = target == State.HALF_OPEN ? config.getHalfOpenPermits() : 0;
+            if (!current.compareAndSet(expected, new StateHolder(target, permits))) {
                 return;
             }
-            int currentFailures = failureCount.incrementAndGet();
-            if (currentFailures >= config.getFailureThreshold()) {
-                transitionToOpen();
+            if (target == State.CLOSED) {
+                window = new SlidingWindow(config.getWindowSize());
+            }
+            if (meterRegistry != null) {
+                Counter.builder("circuit_breaker.transition")
+                        .description("断路器状态切换次数")
+                        .tag("name", name)
+                        .tag("from", expected.state.name())
+                        .tag("to", target.name())
+                        .register(meterRegistry)
+                        .increment();
+            }
+            log.info("断路器状态切换|Circuit_breaker_transition,name={},from={},to={}", name, expected.state, target);
+        }
+
+        private static Counter callCounter(MeterRegistry registry, String name, String kind) {
+            if (registry == null) {
+                return null;
+            }
+            return Counter.builder("circuit_breaker.calls")
+                    .description("断路器调用结果统计")
+                    .tag("name", name)
+                    .tag("kind", kind)
+                    .register(registry);
+        }
+
+        private static void increment(Counter counter) {
+            if (counter != null) {
+                counter.increment();
             }
         }
+    }
 
-        private synchronized void reset() {
-            transitionToClosed();
+    /**
+     * 计数型环形滑动窗口（无锁）
+     *
+     * <p>每个槽位存放一次调用的结果编码，写入时用 getAndSet 取出被覆盖的旧结果，
+     * 聚合计数按"减旧加新"增量维护，读取比率为 O(1)。</p>
+     */
+    private static final class SlidingWindow {
+        private static final int EMPTY = 0;
+        private static final int SUCCESS = 1;
+        private static final int FAILURE = 2;
+        private static final int SLOW_FLAG = 4;
+
+        private final AtomicIntegerArray slots;
+        private final AtomicLong cursor = new AtomicLong();
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicInteger slowCalls = new AtomicInteger();
+
+        private SlidingWindow(int size) {
+            this.slots = new AtomicIntegerArray(Math.max(1, size));
         }
 
-        private synchronized CircuitBreakerSnapshot snapshot() {
-            return new CircuitBreakerSnapshot(state, failureCount.get(), halfOpenSuccessCount.get(), stateSince, config);
+        private void record(boolean failure, boolean slow) {
+            int outcome = (failure ? FAILURE : SUCCESS) | (slow ? SLOW_FLAG : 0);
+            int index = (int) (cursor.getAndIncrement() % slots.length());
+            int evicted = slots.getAndSet(index, outcome);
+            if (evicted == EMPTY) {
+                calls.incrementAndGet();
+            } else {
+                if ((evicted & FAILURE) != 0) {
+                    failures.decrementAndGet();
+                }
+                if ((evicted & SLOW_FLAG) != 0) {
+                    slowCalls.decrementAndGet();
+                }
+            }
+            if (failure) {
+                failures.incrementAndGet();
+            }
+            if (slow) {
+                slowCalls.incrementAndGet();
+            }
         }
 
-        private void updateConfig(CircuitBreakerConfig newConfig) {
-            this.config = newConfig;
+        private int calls() {
+            return calls.get();
         }
 
-        private void transitionToClosed() {
-            state = State.CLOSED;
-            failureCount.set(0);
-            halfOpenSuccessCount.set(0);
-            stateSince = System.currentTimeMillis();
+        private int failures() {
+            return failures.get();
         }
 
-        private void transitionToOpen() {
-            state = State.OPEN;
-            stateSince = System.currentTimeMillis();
-            halfOpenSuccessCount.set(0);
+        private float failureRate() {
+            int n = calls.get();
+            return n == 0 ? 0f : failures.get() * 100f / n;
         }
 
-        private void transitionToHalfOpen() {
-            state = State.HALF_OPEN;
-            failureCount.set(0);
-            halfOpenSuccessCount.set(0);
-            stateSince = System.currentTimeMillis();
+        private float slowCallRate() {
+            int n = calls.get();
+            return n == 0 ? 0f : slowCalls.get() * 100f / n;
         }
     }
 
@@ -204,20 +448,57 @@ public class CircuitBreakerService {
     @Getter
     @ToString
     public static class CircuitBreakerConfig {
-        private final int failureThreshold;
+        /** 未指定时半开状态最长停留时间 */
+        private static final Duration DEFAULT_MAX_WAIT_IN_HALF_OPEN = Duration.ofSeconds(60);
+
+        /** 失败率阈值(%) */
+        private final float failureRateThreshold;
+        /** 慢调用率阈值(%) */
+        private final float slowCallRateThreshold;
+        /** 慢调用判定耗时 */
+        private final Duration slowCallDuration;
+        /** 滑动窗口大小(调用次数) */
+        private final int windowSize;
+        /** 计算比率所需的最少样本数 */
+        private final int minimumCalls;
         private final Duration openStateDuration;
-        private final int halfOpenSuccessThreshold;
+        /** 半开状态试探许可数 */
+        private final int halfOpenPermits;
+        /** 半开状态最长停留时间，超过后重新打开 */
+        private final Duration maxWaitInHalfOpen;
+
+        public CircuitBreakerConfig(float failureRateThreshold, float slowCallRateThreshold, Duration slowCallDuration,
+                                    int windowSize, int minimumCalls, Duration openStateDuration, int halfOpenPermits) {
+            this(failureRateThreshold, slowCallRateThreshold, slowCallDuration, windowSize, minimumCalls, openStateDuration,
+                    halfOpenPermits, DEFAULT_MAX_WAIT_IN_HALF_OPEN);
+        }
 
-        public CircuitBreakerConfig(int failureThreshold, Duration openStateDuration, int halfOpenSuccessThreshold) {
-            if (failureThreshold <= 0) {
-                throw new IllegalArgumentException("failureThreshold must be > 0");
+        public CircuitBreakerConfig(float failureRateThreshold, float slowCallRateThreshold, Duration slowCallDuration,
+                                    int windowSize, int minimumCalls, Duration openStateDuration, int halfOpenPermits,
+                                    Duration maxWaitInHalfOpen) {
+            if (failureRateThreshold <= 0 || failureRateThreshold > 100) {
+                throw new IllegalArgumentException("failureRateThreshold must be in (0, 100]");
+            }
+            if (slowCallRateThreshold <= 0 || slowCallRateThreshold > 100) {
+                throw new IllegalArgumentException("slowCallRateThreshold must be in (0, 100]");
+            }
+            if (windowSize <= 0 || minimumCalls <= 0) {
+                throw new IllegalArgumentException("windowSize and minimumCalls must be > 0");
+            }
+            if (halfOpenPermits <= 0) {
+                throw new IllegalArgumentException("halfOpenPermits must be > 0");
             }
-            if (halfOpenSuccessThreshold <= 0) {
-                throw new IllegalArgumentException("halfOpenSuccessThreshold must be > 0");
+            if (maxWaitInHalfOpen == null || maxWaitInHalfOpen.isNegative() || maxWaitInHalfOpen.isZero()) {
+                throw new IllegalArgumentException("maxWaitInHalfOpen must be > 0");
             }
-            this.failureThreshold = failureThreshold;
+            this.failureRateThreshold = failureRateThreshold;
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            this.slowCallDuration = Objects.requireNonNull(slowCallDuration, "slowCallDuration cannot be null");
+            this.windowSize = windowSize;
+            this.minimumCalls = Math.min(minimumCalls, windowSize);
             this.openStateDuration = Objects.requireNonNull(openStateDuration, "openStateDuration cannot be null");
-            this.halfOpenSuccessThreshold = halfOpenSuccessThreshold;
+            this.halfOpenPermits = halfOpenPermits;
+            this.maxWaitInHalfOpen = maxWaitInHalfOpen;
         }
     }
 
@@ -229,15 +510,19 @@ public class CircuitBreakerService {
     public static class CircuitBreakerSnapshot {
         private final String state;
         private final int failureCount;
-        private final int halfOpenSuccessCount;
+        private final int bufferedCalls;
+        private final float failureRate;
+        private final float slowCallRate;
         private final long stateSince;
         private final CircuitBreakerConfig config;
 
-        private CircuitBreakerSnapshot(State state, int failureCount, int halfOpenSuccessCount, long stateSince,
-                                       CircuitBreakerConfig config) {
+        private CircuitBreakerSnapshot(State state, int failureCount, int bufferedCalls, float failureRate,
+                                       float slowCallRate, long stateSince, CircuitBreakerConfig config) {
             this.state = state.name();
             this.failureCount = failureCount;
-            this.halfOpenSuccessCount = halfOpenSuccessCount;
+            this.bufferedCalls = bufferedCalls;
+            this.failureRate = failureRate;
+            this.slowCallRate = slowCallRate;
             this.stateSince = stateSince;
             this.config = config;
         }
@@ -1,16 +1,22 @@
 package com.hao.strategyengine.resilience;
 
 import com.google.common.util.concurrent.RateLimiter;
+import com.hao.strategyengine.resilience.ratelimit.GcraRateLimitAlgorithm;
+import com.hao.strategyengine.resilience.ratelimit.QuotaLeaseManager;
+import com.hao.strategyengine.resilience.ratelimit.RateLimitAlgorithm;
+import com.hao.strategyengine.resilience.ratelimit.RateLimitDecision;
+import com.hao.strategyengine.resilience.ratelimit.SlidingWindowRateLimitAlgorithm;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
-import java.util.Collections;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
@@ -18,32 +24,21 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 /**
- * 通用限流服务，封装分布式滑动窗口与本地令牌桶两种实现，
+ * 通用限流服务，封装分布式限流与本地令牌桶两种实现，
  * 提供全局 / 用户 / 策略类型等多维度限流能力。
+ *
+ * <p>分布式算法由 rate-limit.algorithm 选择：默认 gcra（每个 key O(1) 状态，支持突发容量与 retry-after），
+ * 可切回 sliding-window（原 ZSET 滑动窗口）。Redis 异常时统一降级到本地令牌桶。</p>
+ *
+ * <p>开启 rate-limit.lease.enabled 后按块从 Redis 租用配额、在本地计数器上发放（见 {@link QuotaLeaseManager}），
+ * Redis 访问量下降一到两个数量级，集群总放行量仍不超过全局限额。</p>
  */
 @Slf4j
 @Service
 public class RateLimiterService {
 
-    private static final String LUA_SCRIPT =
-            "local key = KEYS[1]\n" +
-            "local window = tonumber(ARGV[1])\n" +
-            "local limit = tonumber(ARGV[2])\n" +
-            "local now = tonumber(ARGV[3])\n" +
-            "local permits = tonumber(ARGV[4])\n" +
-            "local windowStart = now - window * 1000\n" +
-            "redis.call('ZREMRANGEBYSCORE', key, 0, windowStart)\n" +
-            "local current = redis.call('ZCARD', key)\n" +
-            "if current + permits <= limit then\n" +
-            "    for i = 1, permits do\n" +
-            "        local member = now .. '-' .. i\n" +
-            "        redis.call('ZADD', key, now, member)\n" +
-            "    end\n" +
-            "    redis.call('EXPIRE', key, window + 1)\n" +
-            "    return 1\n" +
-            "else\n" +
-            "    return 0\n" +
-            "end";
+    /** 申请许可数超过突发容量时永远无法满足 */
+    private static final long NEVER = Long.MAX_VALUE;
 
     private static final double MIN_RATE = 0.01d;
 
@@ -59,7 +54,24 @@ public class RateLimiterService {
     @Value("${rate-limit.default-window-seconds:1}")
     private long defaultWindowSeconds;
 
-    private DefaultRedisScript<Long> rateLimitScript;
+    @Value("${rate-limit.algorithm:gcra}")
+    private String algorithm;
+
+    @Value("${rate-limit.lease.enabled:false}")
+    private boolean leaseEnabled;
+
+    @Value("${rate-limit.lease.fraction:0.1}")
+    private double leaseFraction;
+
+    @Value("${rate-limit.lease.ttl-ms:1000}")
+    private long leaseTtlMs;
+
+    @Resource
+    private ThreadPoolTaskExecutor ioTaskExecutor;
+
+    private RateLimitAlgorithm distributedAlgorithm;
+
+    private QuotaLeaseManager leaseManager;
 
     private Duration defaultWindow;
 
@@ -68,11 +80,33 @@ public class RateLimiterService {
     @PostConstruct
     public void init() {
         defaultWindow = Duration.ofSeconds(Math.max(1, defaultWindowSeconds));
-        rateLimitScript = new DefaultRedisScript<>();
-        rateLimitScript.setScriptText(LUA_SCRIPT);
-        rateLimitScript.setResultType(Long.class);
-        log.info("RateLimiterService_初始化完成:_distributedEnabled={},_defaultWindow={}s", distributedEnabled,
-                defaultWindow.getSeconds());
+        distributedAlgorithm = "sliding-window".equalsIgnoreCase(algorithm)
+                ? new SlidingWindowRateLimitAlgorithm(stringRedisTemplate)
+                : new GcraRateLimitAlgorithm(stringRedisTemplate);
+        if (leaseEnabled) {
+            leaseManager = new QuotaLeaseManager(distributedAlgorithm, ioTaskExecutor, leaseFraction,
+                    Duration.ofMillis(leaseTtlMs));
+        }
+        log.info("RateLimiterService_初始化完成:_distributedEnabled={},_algorithm={},_lease={},_defaultWindow={}s", distributedEnabled,
+                distributedAlgorithm.getClass().getSimpleName(), leaseEnabled, defaultWindow.getSeconds());
+    }
+
+    /**
+     * 定期退回已过期租约的剩余许可，避免过期后不再被访问的 key 长期占用全局配额
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.lease.sweep-interval-ms:1000}")
+    public void releaseExpiredLeases() {
+        if (leaseManager != null) {
+            leaseManager.releaseExpired();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (leaseManager != null) {
+            // 节点下线前退回未使用的租约配额
+            leaseManager.releaseAll();
+        }
     }
 
     /**
@@ -114,18 +148,35 @@ public class RateLimiterService {
     }
 
     /**
-     * 通用限流入口，调用方只需提供限流维度后缀即可。
+     * 通用限流入口，调用方只需提供限流维度后缀即可，突发容量等于窗口阈值。
      */
     public boolean tryAcquire(String keySuffix, int permits, int limitPerWindow, Duration window) {
+        return acquire(keySuffix, permits, limitPerWindow, window, limitPerWindow).allowed();
+    }
+
+    /**
+     * 通用限流入口，返回包含 retry-after 的判定结果。
+     *
+     * @param keySuffix      限流维度后缀
+     * @param permits        本次申请的许可数
+     * @param limitPerWindow 每个窗口允许的许可数
+     * @param window         窗口大小，为空时使用默认窗口
+     * @param burst          突发容量，瞬时最多可获取的许可数
+     */
+    public RateLimitDecision acquire(String keySuffix, int permits, int limitPerWindow, Duration window, int burst) {
         if (limitPerWindow <= 0 || permits <= 0) {
-            return false;
+            return RateLimitDecision.reject(NEVER);
+        }
+        int safeBurst = Math.max(1, burst);
+        if (permits > safeBurst) {
+            return RateLimitDecision.reject(NEVER);
         }
         Duration targetWindow = normalizeWindow(window);
         String redisKey = buildKey(keySuffix);
         if (distributedEnabled && stringRedisTemplate != null) {
-            Boolean distributedPass = tryAcquireDistributed(redisKey, permits, limitPerWindow, targetWindow);
-            if (distributedPass != null) {
-                return distributedPass;
+            RateLimitDecision decision = tryAcquireDistributed(redisKey, permits, limitPerWindow, targetWindow, safeBurst);
+            if (decision != null) {
+                return decision;
             }
             log.warn("分布式限流执行异常，降级到本地限流:_key={}_permits={}_limit={}_window={}", redisKey, permits, limitPerWindow,
                     targetWindow);
@@ -170,24 +221,19 @@ public class RateLimiterService {
         return Optional.ofNullable(limiter).map(RateLimiter::getRate);
     }
 
-    private Boolean tryAcquireDistributed(String redisKey, int permits, int limitPerWindow, Duration window) {
+    private RateLimitDecision tryAcquireDistributed(String redisKey, int permits, int limitPerWindow, Duration window, int burst) {
         try {
-            Long result = stringRedisTemplate.execute(
-                    rateLimitScript,
-                    Collections.singletonList(redisKey),
-                    String.valueOf(window.getSeconds()),
-                    String.valueOf(limitPerWindow),
-                    String.valueOf(System.currentTimeMillis()),
-                    String.valueOf(permits)
-            );
-            return Long.valueOf(1).equals(result);
+            if (leaseManager != null) {
+                return leaseManager.tryAcquire(redisKey, permits, limitPerWindow, window, burst);
+            }
+            return distributedAlgorithm.tryAcquire(redisKey, permits, limitPerWindow, window, burst);
         } catch (Exception ex) {
             log.error("分布式限流执行失败:_key={}_permits={}_limit={}_window={}", redisKey, permits, limitPerWindow, window, ex);
             return null;
         }
     }
 
-    private boolean tryAcquireLocal(String redisKey, int permits, int limitPerWindow, Duration window) {
+    private RateLimitDecision tryAcquireLocal(String redisKey, int permits, int limitPerWindow, Duration window) {
         double permitsPerSecond = computePermitsPerSecond(limitPerWindow, window);
         RateLimiter limiter = localLimiters.compute(redisKey, (k, existing) -> {
             if (existing == null) {
@@ -201,8 +247,10 @@ public class RateLimiterService {
         boolean acquired = limiter.tryAcquire(permits, 100, TimeUnit.MILLISECONDS);
         if (!acquired) {
             log.debug("本地限流拒绝:_key={}_permits={}_rate={}pps", redisKey, permits, limiter.getRate());
+            // 本地令牌桶无法给出精确等待时间，按稳态速率估算
+            return RateLimitDecision.reject((long) Math.ceil(permits * 1000d / limiter.getRate()));
         }
-        return acquired;
+        return RateLimitDecision.allow(-1L);
     }
 
     private Duration normalizeWindow(Duration window) {
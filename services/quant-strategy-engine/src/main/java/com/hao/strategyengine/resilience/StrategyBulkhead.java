@@ -0,0 +1,197 @@
+package com.hao.strategyengine.resilience;
+
+import com.hao.strategyengine.integration.nacos.properties.BulkheadProperties;
+import com.hao.strategyengine.monitoring.RateLimitMetrics;
+import enums.strategy.StrategyMetaEnum;
+import enums.strategy.StrategyType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 策略舱壁（按 {@link StrategyType} 分区）
+ *
+ * <p>全部策略共用同一执行器时，一个慢的信息型策略（如热点题材的 Redis 读取）或一个重的复合策略
+ * 可以耗尽执行资源，拖慢廉价的信号型策略。舱壁为每种策略类型划出独立的并发额度，
+ * 某一类型的拥塞只会在本分区内排队或拒绝，其他类型的尾延迟不受影响。</p>
+ *
+ * <p>实现要点：</p>
+ * <ul>
+ *     <li>策略运行在虚拟线程上，分区采用信号量而非独立线程池，阻塞等待不占用平台线程；</li>
+ *     <li>每个分区有独立的并发上限、排队上限与最大等待时间，排队超限或等待超时抛出 RejectedExecutionException；</li>
+ *     <li>并发上限默认取该类型全部策略单机 QPS 之和（上界 max-concurrent-cap），可按类型覆盖；</li>
+ *     <li>未登记在 {@link StrategyMetaEnum} 中的策略（如动态组合的复合策略）归入 COMPOSITE 分区；</li>
+ *     <li>指标：bulkhead.available / bulkhead.queued 仪表、bulkhead.queue_wait 计时器、bulkhead.rejected 计数。</li>
+ * </ul>
+ *
+ * @author hli
+ * @date 2026-10-17
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StrategyBulkhead {
+
+    private final BulkheadProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final RateLimitMetrics rateLimitMetrics;
+
+    private final Map<StrategyType, Partition> partitions = new EnumMap<>(StrategyType.class);
+
+    @PostConstruct
+    public void init() {
+        for (StrategyType type : StrategyType.values()) {
+            BulkheadProperties.Partition override = properties.getPartitions().get(type);
+            int maxConcurrent = override != null && override.getMaxConcurrent() != null
+                    ? override.getMaxConcurrent() : derivedConcurrency(type);
+            int maxQueue = override != null && override.getMaxQueue() != null
+                    ? override.getMaxQueue() : maxConcurrent;
+            long maxWaitMs = override != null && override.getMaxWaitMs() != null
+                    ? override.getMaxWaitMs() : properties.getDefaultMaxWaitMs();
+            partitions.put(type, new Partition(type, Math.max(1, maxConcurrent), Math.max(0, maxQueue), maxWaitMs));
+        }
+        log.info("策略舱壁初始化完成|Strategy_bulkhead_initialized,enabled={},partitions={}",
+                properties.isEnabled(), partitions.values());
+    }
+
+    /**
+     * 在策略所属分区内获取执行许可
+     *
+     * @param strategyId 策略ID
+     * @return 已占用的分区，执行结束后必须调用 {@link Partition#release()}；未启用时返回 null
+     * @throws RejectedExecutionException 排队已满或等待超时
+     */
+    public Partition acquire(String strategyId) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        Partition partition = partitions.get(typeOf(strategyId));
+        partition.acquire(strategyId);
+        return partition;
+    }
+
+    /**
+     * 分区快照：可用许可数，用于监控与测试
+     */
+    public int available(StrategyType type) {
+        return partitions.get(type).semaphore.availablePermits();
+    }
+
+    private int derivedConcurrency(StrategyType type) {
+        int sum = 0;
+        for (StrategyMetaEnum meta : StrategyMetaEnum.values()) {
+            if (meta.getType() == type) {
+                sum += meta.getLocalQps();
+            }
+        }
+        return Math.min(properties.getMaxConcurrentCap(), Math.max(1, sum));
+    }
+
+    private static StrategyType typeOf(String strategyId) {
+        StrategyMetaEnum meta = StrategyMetaEnum.fromId(strategyId);
+        return meta == null ? StrategyType.COMPOSITE : meta.getType();
+    }
+
+    /**
+     * 单个策略类型的舱壁分区
+     */
+    public final class Partition {
+        private final StrategyType type;
+        private final int maxConcurrent;
+        private final int maxQueue;
+        private final long maxWaitNanos;
+        private final Semaphore semaphore;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final Timer queueWait;
+        private final Counter queueFull;
+        private final Counter timeout;
+
+        private Partition(StrategyType type, int maxConcurrent, int maxQueue, long maxWaitMs) {
+            this.type = type;
+            this.maxConcurrent = maxConcurrent;
+            this.maxQueue = maxQueue;
+            this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+            this.semaphore = new Semaphore(maxConcurrent, true);
+            String tag = type.name();
+            Gauge.builder("bulkhead.available", semaphore, Semaphore::availablePermits)
+                    .description("舱壁分区可用并发许可")
+                    .tag("strategy_type", tag)
+                    .register(meterRegistry);
+            Gauge.builder("bulkhead.queued", queued, AtomicInteger::get)
+                    .description("舱壁分区排队数")
+                    .tag("strategy_type", tag)
+                    .register(meterRegistry);
+            this.queueWait = Timer.builder("bulkhead.queue_wait")
+                    .description("舱壁分区排队等待耗时")
+                    .tag("strategy_type", tag)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            this.queueFull = rejectCounter(tag, "queue_full");
+            this.timeout = rejectCounter(tag, "timeout");
+        }
+
+        private void acquire(String strategyId) {
+            if (semaphore.tryAcquire()) {
+                return;
+            }
+            if (queued.incrementAndGet() > maxQueue) {
+                queued.decrementAndGet();
+                reject(strategyId, queueFull, "queue full");
+            }
+            long start = System.nanoTime();
+            boolean acquired;
+            try {
+                acquired = semaphore.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("bulkhead wait interrupted: " + type);
+            } finally {
+                queued.decrementAndGet();
+                queueWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            if (!acquired) {
+                reject(strategyId, timeout, "wait timeout");
+            }
+        }
+
+        /**
+         * 归还执行许可
+         */
+        public void release() {
+            semaphore.release();
+        }
+
+        private void reject(String strategyId, Counter counter, String reason) {
+            counter.increment();
+            rateLimitMetrics.recordRateLimitReject("BULKHEAD", "n/a", type.name());
+            log.warn("舱壁拒绝执行|Bulkhead_rejected,strategyType={},strategyId={},reason={}", type, strategyId, reason);
+            throw new RejectedExecutionException("bulkhead " + reason + ": " + type);
+        }
+
+        private Counter rejectCounter(String tag, String reason) {
+            return Counter.builder("bulkhead.rejected")
+                    .description("舱壁分区拒绝次数")
+                    .tag("strategy_type", tag)
+                    .tag("reason", reason)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public String toString() {
+            return type + "{maxConcurrent=" + maxConcurrent + ",maxQueue=" + maxQueue
+                    + ",maxWaitMs=" + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + "}";
+        }
+    }
+}
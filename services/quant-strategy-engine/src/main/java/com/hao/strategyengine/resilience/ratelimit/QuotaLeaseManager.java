@@ -0,0 +1,278 @@
+package com.hao.strategyengine.resilience.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 限流配额租约管理器
+ *
+ * <p>节点按块（默认全局预算的 10%）从 Redis 预支许可，请求在本地无锁计数器上扣减，
+ * Redis 调用从"每个请求一次"降为"每个租约块一次"。</p>
+ *
+ * <p>租约生命周期：</p>
+ * <ul>
+ *     <li>首次请求或租约耗尽/过期时，同一 key 只有一个线程同步向 Redis 申请新块；</li>
+ *     <li>余量低于水位线时由后台线程预取下一块并追加到当前租约，热路径不等待 Redis；</li>
+ *     <li>租约到期后剩余许可经 {@link RateLimitAlgorithm#release} 退回 Redis，供其他节点使用：
+ *     再次访问该 key 时先退回再申请（无论申请成功与否），长时间不再访问的 key 由 {@link #releaseExpired()} 定期退回；</li>
+ *     <li>Redis 拒绝时记录 retry-after，到期前本地直接拒绝，不再反复访问 Redis。</li>
+ * </ul>
+ *
+ * <p>误差边界：许可先从 Redis 扣减再在本地发放，集群总放行量不会超过全局限额；
+ * 代价是已租出未使用的许可在退回前对其他节点不可见，最多为 节点数 × 块大小。</p>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+@Slf4j
+public class QuotaLeaseManager {
+
+    /** 余量低于块大小的该比例时触发后台预取 */
+    private static final double LOW_WATERMARK = 0.2d;
+
+    private final RateLimitAlgorithm algorithm;
+    private final Executor executor;
+    private final double leaseFraction;
+    private final long leaseTtlNanos;
+
+    private final ConcurrentMap<String, LeaseSlot> slots = new ConcurrentHashMap<>();
+
+    /**
+     * @param algorithm     分布式限流算法（需支持多许可申请与归还）
+     * @param executor      后台预取与归还使用的线程池
+     * @param leaseFraction 每块占窗口限额的比例
+     * @param leaseTtl      租约有效期，到期后剩余许可退回
+     */
+    public QuotaLeaseManager(RateLimitAlgorithm algorithm, Executor executor, double leaseFraction, Duration leaseTtl) {
+        this.algorithm = algorithm;
+        this.executor = executor;
+        this.leaseFraction = leaseFraction;
+        this.leaseTtlNanos = leaseTtl.toNanos();
+    }
+
+    /**
+     * 从本地租约获取许可，租约不足时向 Redis 申请新块
+     */
+    public RateLimitDecision tryAcquire(String redisKey, int permits, int limitPerWindow, Duration window, int burst) {
+        int block = blockSize(limitPerWindow, burst);
+        if (permits > block) {
+            // 大额申请不走租约，直接判定
+            return algorithm.tryAcquire(redisKey, permits, limitPerWindow, window, burst);
+        }
+        LeaseSlot slot = slots.computeIfAbsent(redisKey, LeaseSlot::new);
+        long now = System.nanoTime();
+        Lease lease = slot.current;
+        if (lease != null && lease.isValid(now) && lease.take(permits)) {
+            long left = lease.remaining.get();
+            if (left < block * LOW_WATERMARK) {
+                prefetch(slot, lease, block, limitPerWindow, window, burst);
+            }
+            return RateLimitDecision.allow(left);
+        }
+        if (lease != null && !lease.isValid(now)) {
+            expire(slot, lease);
+        }
+        long blockedFor = slot.blockedUntil - now;
+        if (blockedFor > 0) {
+            return RateLimitDecision.reject(TimeUnit.NANOSECONDS.toMillis(blockedFor) + 1);
+        }
+        return refill(slot, permits, block, limitPerWindow, window, burst);
+    }
+
+    /**
+     * 同步退回全部租约剩余许可（节点下线时调用，此时线程池可能已不再接收任务）
+     */
+    public void releaseAll() {
+        for (LeaseSlot slot : slots.values()) {
+            Lease lease;
+            synchronized (slot) {
+                lease = slot.current;
+                slot.current = null;
+            }
+            long permits = lease == null ? 0 : lease.drain();
+            if (permits > 0) {
+                try {
+                    algorithm.release(slot.key, (int) permits, lease.limitPerWindow, lease.window);
+                } catch (Exception e) {
+                    log.warn("限流配额退回失败|Rate_limit_lease_release_failed,key={},permits={}", slot.key, permits, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 退回全部已过期租约的剩余许可，由调用方定期执行，覆盖过期后不再被访问的 key
+     */
+    public void releaseExpired() {
+        long now = System.nanoTime();
+        for (LeaseSlot slot : slots.values()) {
+            Lease lease = slot.current;
+            if (lease != null && !lease.isValid(now)) {
+                expire(slot, lease);
+            }
+        }
+    }
+
+    /**
+     * 摘下已过期的租约并退回剩余许可；drain 为原子操作，并发过期只会退回一次
+     */
+    private void expire(LeaseSlot slot, Lease lease) {
+        synchronized (slot) {
+            if (slot.current == lease) {
+                slot.current = null;
+            }
+        }
+        giveBack(slot.key, lease.drain(), lease);
+    }
+
+    private RateLimitDecision refill(LeaseSlot slot, int permits, int block, int limitPerWindow, Duration window, int burst) {
+        synchronized (slot) {
+            long now = System.nanoTime();
+            // 等锁期间可能已有其他线程完成续租
+            Lease lease = slot.current;
+            if (lease != null && lease.isValid(now) && lease.take(permits)) {
+                return RateLimitDecision.allow(lease.remaining.get());
+            }
+            if (lease != null && !lease.isValid(now)) {
+                // 先退回过期租约，不依赖后续申请是否成功
+                expire(slot, lease);
+                lease = null;
+            }
+            if (slot.blockedUntil - now > 0) {
+                return RateLimitDecision.reject(TimeUnit.NANOSECONDS.toMillis(slot.blockedUntil - now) + 1);
+            }
+
+            RateLimitDecision decision = algorithm.tryAcquire(slot.key, block, limitPerWindow, window, burst);
+            if (decision.allowed()) {
+                slot.current = new Lease(block - permits, limitPerWindow, window, now + leaseTtlNanos);
+                if (lease != null) {
+                    giveBack(slot.key, lease.drain(), lease);
+                }
+                return RateLimitDecision.allow(block - permits);
+            }
+            // 整块不足时退化为按需申请，避免配额碎片导致饿死
+            if (block > permits) {
+                decision = algorithm.tryAcquire(slot.key, permits, limitPerWindow, window, burst);
+                if (decision.allowed()) {
+                    return decision;
+                }
+            }
+            slot.blockedUntil = now + TimeUnit.MILLISECONDS.toNanos(decision.retryAfterMillis());
+            return decision;
+        }
+    }
+
+    private void prefetch(LeaseSlot slot, Lease lease, int block, int limitPerWindow, Duration window, int burst) {
+        if (!slot.prefetching.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    RateLimitDecision decision = algorithm.tryAcquire(slot.key, block, limitPerWindow, window, burst);
+                    if (!decision.allowed()) {
+                        return;
+                    }
+                    synchronized (slot) {
+                        // 租约已被替换或已过期：新取得的块直接退回
+                        if (slot.current == lease && lease.isValid(System.nanoTime())) {
+                            lease.topUp(block, System.nanoTime() + leaseTtlNanos);
+                        } else {
+                            giveBack(slot.key, block, lease);
+                        }
+                    }
+                } catch (Exception e) {
+                    log.warn("限流配额预取失败|Rate_limit_lease_prefetch_failed,key={}", slot.key, e);
+                } finally {
+                    slot.prefetching.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            slot.prefetching.set(false);
+        }
+    }
+
+    private void giveBack(String redisKey, long permits, Lease lease) {
+        if (permits <= 0) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    algorithm.release(redisKey, (int) permits, lease.limitPerWindow, lease.window);
+                } catch (Exception e) {
+                    log.warn("限流配额退回失败|Rate_limit_lease_release_failed,key={},permits={}", redisKey, permits, e);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("限流配额退回被拒绝|Rate_limit_lease_release_rejected,key={},permits={}", redisKey, permits);
+        }
+    }
+
+    private int blockSize(int limitPerWindow, int burst) {
+        int block = (int) Math.ceil(limitPerWindow * leaseFraction);
+        return Math.max(1, Math.min(block, burst));
+    }
+
+    /**
+     * 单个限流 key 的租约槽位
+     */
+    private static final class LeaseSlot {
+        private final String key;
+        private final AtomicBoolean prefetching = new AtomicBoolean();
+        private volatile Lease current;
+        private volatile long blockedUntil = System.nanoTime();
+
+        private LeaseSlot(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * 已从 Redis 预支的一块许可
+     */
+    private static final class Lease {
+        private final AtomicLong remaining;
+        private final int limitPerWindow;
+        private final Duration window;
+        private volatile long expiresAt;
+
+        private Lease(long remaining, int limitPerWindow, Duration window, long expiresAt) {
+            this.remaining = new AtomicLong(remaining);
+            this.limitPerWindow = limitPerWindow;
+            this.window = window;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isValid(long now) {
+            return now - expiresAt < 0;
+        }
+
+        private boolean take(int permits) {
+            long current;
+            do {
+                current = remaining.get();
+                if (current < permits) {
+                    return false;
+                }
+            } while (!remaining.compareAndSet(current, current - permits));
+            return true;
+        }
+
+        private void topUp(int permits, long newExpiresAt) {
+            remaining.addAndGet(permits);
+            expiresAt = newExpiresAt;
+        }
+
+        private long drain() {
+            return remaining.getAndSet(0);
+        }
+    }
+}
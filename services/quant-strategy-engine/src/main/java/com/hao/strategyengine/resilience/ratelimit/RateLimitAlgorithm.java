@@ -0,0 +1,38 @@
+package com.hao.strategyengine.resilience.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * 分布式限流算法扩展点
+ *
+ * <p>由 RateLimiterService 按 rate-limit.algorithm 选择具体实现，执行失败时直接抛出异常，
+ * 由调用方统一降级到本地令牌桶。</p>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+public interface RateLimitAlgorithm {
+
+    /**
+     * 尝试获取许可
+     *
+     * @param redisKey       限流 key
+     * @param permits        本次申请的许可数
+     * @param limitPerWindow 每个窗口允许的许可数（稳态速率 = limitPerWindow / window）
+     * @param window         窗口大小
+     * @param burst          突发容量（瞬时最多可获取的许可数）
+     * @return 判定结果
+     */
+    RateLimitDecision tryAcquire(String redisKey, int permits, int limitPerWindow, Duration window, int burst);
+
+    /**
+     * 归还已获取但未使用的许可（配额租约到期时调用），不支持归还的算法忽略即可
+     *
+     * @param redisKey       限流 key
+     * @param permits        归还的许可数
+     * @param limitPerWindow 每个窗口允许的许可数
+     * @param window         窗口大小
+     */
+    default void release(String redisKey, int permits, int limitPerWindow, Duration window) {
+    }
+}
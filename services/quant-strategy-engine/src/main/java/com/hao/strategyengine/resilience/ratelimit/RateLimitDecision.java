@@ -0,0 +1,21 @@
+package com.hao.strategyengine.resilience.ratelimit;
+
+/**
+ * 限流判定结果
+ *
+ * @param allowed          是否放行
+ * @param retryAfterMillis 被拒绝时建议的重试等待时间（毫秒），放行时为 0
+ * @param remaining        本次判定后仍可立即获取的许可数（突发余量），未知时为 -1
+ * @author hli
+ * @date 2026-10-16
+ */
+public record RateLimitDecision(boolean allowed, long retryAfterMillis, long remaining) {
+
+    public static RateLimitDecision allow(long remaining) {
+        return new RateLimitDecision(true, 0L, remaining);
+    }
+
+    public static RateLimitDecision reject(long retryAfterMillis) {
+        return new RateLimitDecision(false, Math.max(0L, retryAfterMillis), 0L);
+    }
+}
@@ -0,0 +1,60 @@
+package com.hao.strategyengine.resilience.ratelimit;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.time.Duration;
+import java.util.Collections;
+
+/**
+ * ZSET 滑动窗口分布式限流（原实现，保留作为 rate-limit.algorithm=sliding-window 的可选项）
+ *
+ * <p>每个许可对应一个 ZSET 成员，内存随 QPS 线性增长，突发容量固定等于窗口阈值，
+ * 拒绝时无法给出精确的 retry-after，统一返回一个窗口长度。</p>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+public class SlidingWindowRateLimitAlgorithm implements RateLimitAlgorithm {
+
+    static final String SLIDING_WINDOW_LUA_SCRIPT =
+            "local key = KEYS[1]\n" +
+            "local window = tonumber(ARGV[1])\n" +
+            "local limit = tonumber(ARGV[2])\n" +
+            "local now = tonumber(ARGV[3])\n" +
+            "local permits = tonumber(ARGV[4])\n" +
+            "local windowStart = now - window * 1000\n" +
+            "redis.call('ZREMRANGEBYSCORE', key, 0, windowStart)\n" +
+            "local current = redis.call('ZCARD', key)\n" +
+            "if current + permits <= limit then\n" +
+            "    for i = 1, permits do\n" +
+            "        local member = now .. '-' .. i\n" +
+            "        redis.call('ZADD', key, now, member)\n" +
+            "    end\n" +
+            "    redis.call('EXPIRE', key, window + 1)\n" +
+            "    return 1\n" +
+            "else\n" +
+            "    return 0\n" +
+            "end";
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final DefaultRedisScript<Long> script = new DefaultRedisScript<>(SLIDING_WINDOW_LUA_SCRIPT, Long.class);
+
+    public SlidingWindowRateLimitAlgorithm(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public RateLimitDecision tryAcquire(String redisKey, int permits, int limitPerWindow, Duration window, int burst) {
+        Long result = redisTemplate.execute(script, Collections.singletonList(redisKey),
+                String.valueOf(window.getSeconds()),
+                String.valueOf(limitPerWindow),
+                String.valueOf(System.currentTimeMillis()),
+                String.valueOf(permits));
+        if (result == null) {
+            throw new IllegalStateException("sliding window script returned null");
+        }
+        return result == 1L ? RateLimitDecision.allow(-1L) : RateLimitDecision.reject(window.toMillis());
+    }
+}
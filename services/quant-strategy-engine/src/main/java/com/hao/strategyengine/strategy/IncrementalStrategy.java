@@ -0,0 +1,38 @@
+package com.hao.strategyengine.strategy;
+
+import com.hao.strategyengine.common.model.response.SignalRows;
+
+/**
+ * 增量策略（Incremental Strategy）
+ * <p>
+ * 用处：行情流每写入一根 bar，只对该标的重新求值，而不是对全市场截面重算。
+ * 实现方直接读取 {@link com.hao.strategyengine.common.market.indicator.IndicatorEngine} 增量维护的指标当前值。
+ * <p>
+ * 约束：同一标的的求值总在同一个消费线程上发生，不同标的可能并发求值，实现方不得持有跨标的的可变状态。
+ */
+public interface IncrementalStrategy {
+
+    /**
+     * 获取策略唯一标识
+     *
+     * @return 策略ID
+     */
+    String getId();
+
+    /**
+     * 信号特征列，与 {@link #evaluate(int, String, SignalRows)} 写入的列一一对应
+     *
+     * @return 特征列名
+     */
+    String[] features();
+
+    /**
+     * 对单个标的增量求值
+     *
+     * @param symbolId 标的 id
+     * @param windCode 股票代码
+     * @param out      信号输出，命中时追加一行
+     * @return true=该标的当前满足信号条件
+     */
+    boolean evaluate(int symbolId, String windCode, SignalRows out);
+}
@@ -1,6 +1,7 @@
 package com.hao.strategyengine.strategy;
 
 
+import com.hao.strategyengine.common.market.UniverseFrame;
 import com.hao.strategyengine.common.model.core.StrategyContext;
 import com.hao.strategyengine.common.model.response.StrategyResult;
 
@@ -26,4 +27,18 @@ public interface QuantStrategy {
      * @return StrategyResult 策略执行结果，包含策略ID、计算数据和耗时
      */
     StrategyResult execute(StrategyContext context);
+
+    /**
+     * 批量截面执行
+     * <p>
+     * 基于全市场列式快照一次性计算整个股票池，同一请求内的多个策略可共享同一份快照。
+     * 默认忽略快照，退化为 {@link #execute(StrategyContext)}。
+     *
+     * @param context 策略上下文
+     * @param frame   全市场截面快照
+     * @return StrategyResult 策略执行结果
+     */
+    default StrategyResult execute(StrategyContext context, UniverseFrame frame) {
+        return execute(context);
+    }
 }
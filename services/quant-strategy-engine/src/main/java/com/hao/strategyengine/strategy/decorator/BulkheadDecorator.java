@@ -0,0 +1,52 @@
+package com.hao.strategyengine.strategy.decorator;
+
+import com.hao.strategyengine.common.model.core.StrategyContext;
+import com.hao.strategyengine.common.model.response.StrategyResult;
+import com.hao.strategyengine.resilience.StrategyBulkhead;
+import com.hao.strategyengine.strategy.QuantStrategy;
+
+/**
+ * BulkheadDecorator
+ *
+ * <p>策略装饰器，在策略类型对应的 {@link StrategyBulkhead} 分区内执行策略。</p>
+ *
+ * <p>实现细节：</p>
+ * <ul>
+ *     <li>位于 CachingDecorator 内层、CircuitBreakerDecorator 外层：缓存命中不占用分区许可，
+ *     排队等待不计入断路器的慢调用耗时</li>
+ *     <li>分区排队已满或等待超时时抛出 RejectedExecutionException，由上层按失败结果处理</li>
+ * </ul>
+ *
+ * @author hli
+ * @date 2026-10-17
+ */
+public class BulkheadDecorator implements QuantStrategy {
+
+    /** 被装饰的策略对象 */
+    private final QuantStrategy delegate;
+
+    /** 策略舱壁 */
+    private final StrategyBulkhead bulkhead;
+
+    public BulkheadDecorator(QuantStrategy delegate, StrategyBulkhead bulkhead) {
+        this.delegate = delegate;
+        this.bulkhead = bulkhead;
+    }
+
+    @Override
+    public String getId() {
+        return delegate.getId();
+    }
+
+    @Override
+    public StrategyResult execute(StrategyContext context) {
+        StrategyBulkhead.Partition partition = bulkhead.acquire(delegate.getId());
+        try {
+            return delegate.execute(context);
+        } finally {
+            if (partition != null) {
+                partition.release();
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.hao.strategyengine.strategy.decorator;
 
 import com.hao.strategyengine.common.cache.StrategyCacheService;
+import com.hao.strategyengine.common.market.MarketDataVersionRegistry;
 import com.hao.strategyengine.common.model.core.StrategyContext;
 import com.hao.strategyengine.common.model.response.StrategyResult;
 import com.hao.strategyengine.strategy.QuantStrategy;
@@ -26,14 +27,15 @@ import com.hao.strategyengine.strategy.QuantStrategy;
  * <p>示例用法：</p>
  * <pre>{@code
  * QuantStrategy strategy = new MyStrategy();
- * QuantStrategy cachedStrategy = new CachingDecorator(strategy, cacheService);
+ * QuantStrategy cachedStrategy = new CachingDecorator(strategy, cacheService, versionRegistry);
  * StrategyResult result = cachedStrategy.execute(context);
  * }</pre>
  *
  * <p>实现细节：</p>
  * <ul>
  *     <li>通过 StrategyCacheService.getOrCompute 获取或计算缓存</li>
- *     <li>缓存 key 由策略 ID + 标的 symbol 构成，确保不同策略或标的独立缓存</li>
+ *     <li>缓存 key 由策略 ID + 标的 symbol + 行情数据版本构成，确保不同策略或标的独立缓存</li>
+ *     <li>版本取该标的实际写入的 bar（新增或修订各推进一次），未指定标的时取全局版本；输入不变时 key 不变，结果一直复用</li>
  *     <li>遵循装饰器模式，实现 QuantStrategy 接口并委托原策略方法</li>
  * </ul>
  *
@@ -51,9 +53,14 @@ public class CachingDecorator implements QuantStrategy {
     /** 缓存服务 */
     private final StrategyCacheService cacheService;
 
-    public CachingDecorator(QuantStrategy delegate, StrategyCacheService cacheService) {
+    /** 行情数据版本 */
+    private final MarketDataVersionRegistry versionRegistry;
+
+    public CachingDecorator(QuantStrategy delegate, StrategyCacheService cacheService,
+                            MarketDataVersionRegistry versionRegistry) {
         this.delegate = delegate;
         this.cacheService = cacheService;
+        this.versionRegistry = versionRegistry;
     }
 
     @Override
@@ -63,8 +70,8 @@ public class CachingDecorator implements QuantStrategy {
 
     @Override
     public StrategyResult execute(StrategyContext context) {
-        // 缓存 key = 策略ID + 标的symbol
-        String key = delegate.getId() + ":" + context.getSymbol();
+        // 缓存 key = 策略ID + 标的symbol + 行情数据版本
+        String key = delegate.getId() + ":" + context.getSymbol() + ":v" + versionRegistry.current(context.getSymbol());
         // 获取缓存或计算
         return cacheService.getOrCompute(key, () -> delegate.execute(context));
     }
@@ -0,0 +1,75 @@
+package com.hao.strategyengine.strategy.decorator;
+
+import com.hao.strategyengine.common.model.core.StrategyContext;
+import com.hao.strategyengine.common.model.response.StrategyResult;
+import com.hao.strategyengine.resilience.CircuitBreakerService;
+import com.hao.strategyengine.strategy.QuantStrategy;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * CircuitBreakerDecorator
+ *
+ * <p>策略装饰器，按策略ID使用 {@link CircuitBreakerService} 熔断持续失败或持续变慢的策略。</p>
+ *
+ * <p>实现细节：</p>
+ * <ul>
+ *     <li>位于 CachingDecorator 与 ConcurrencyLimitDecorator 之间，缓存命中不计入失败率与慢调用率</li>
+ *     <li>断路器打开时抛出 RejectedExecutionException，快速失败，不占用并发许可</li>
+ *     <li>内层并发限流的拒绝属于过载保护而非策略故障，既不计成功也不计失败，占用的半开许可被归还</li>
+ *     <li>策略抛出任何异常（含 Error）或返回失败结果时按失败记录，耗时参与慢调用判定，半开试探许可不会泄漏</li>
+ * </ul>
+ *
+ * @author hli
+ * @date 2026-10-17
+ */
+public class CircuitBreakerDecorator implements QuantStrategy {
+
+    /** 断路器名称前缀 */
+    public static final String BREAKER_PREFIX = "strategy:";
+
+    /** 被装饰的策略对象 */
+    private final QuantStrategy delegate;
+
+    /** 断路器服务 */
+    private final CircuitBreakerService circuitBreakerService;
+
+    /** 断路器名称 */
+    private final String breakerName;
+
+    public CircuitBreakerDecorator(QuantStrategy delegate, CircuitBreakerService circuitBreakerService) {
+        this.delegate = delegate;
+        this.circuitBreakerService = circuitBreakerService;
+        this.breakerName = BREAKER_PREFIX + delegate.getId();
+    }
+
+    @Override
+    public String getId() {
+        return delegate.getId();
+    }
+
+    @Override
+    public StrategyResult execute(StrategyContext context) {
+        if (!circuitBreakerService.allowRequest(breakerName)) {
+            throw new RejectedExecutionException("strategy circuit breaker open: " + delegate.getId());
+        }
+        long start = System.nanoTime();
+        StrategyResult result;
+        try {
+            result = delegate.execute(context);
+        } catch (RejectedExecutionException e) {
+            circuitBreakerService.releasePermission(breakerName);
+            throw e;
+        } catch (Throwable e) {
+            circuitBreakerService.recordFailure(breakerName, System.nanoTime() - start);
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (result != null && result.isSuccess()) {
+            circuitBreakerService.recordSuccess(breakerName, elapsed);
+        } else {
+            circuitBreakerService.recordFailure(breakerName, elapsed);
+        }
+        return result;
+    }
+}
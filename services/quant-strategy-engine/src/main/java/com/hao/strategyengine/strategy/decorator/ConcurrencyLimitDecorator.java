@@ -0,0 +1,62 @@
+package com.hao.strategyengine.strategy.decorator;
+
+import com.hao.strategyengine.common.model.core.StrategyContext;
+import com.hao.strategyengine.common.model.response.StrategyResult;
+import com.hao.strategyengine.resilience.AdaptiveConcurrencyLimiter;
+import com.hao.strategyengine.strategy.QuantStrategy;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * ConcurrencyLimitDecorator
+ *
+ * <p>策略装饰器，用 {@link AdaptiveConcurrencyLimiter} 限制单个策略的在途执行数。</p>
+ *
+ * <p>实现细节：</p>
+ * <ul>
+ *     <li>位于 CachingDecorator 内层，只有真正发生计算的执行才占用许可并贡献耗时样本，缓存命中不受影响</li>
+ *     <li>在途数已达上限时抛出 RejectedExecutionException，由上层按失败结果处理，且不会写入缓存</li>
+ *     <li>策略抛出异常或返回失败结果时按失败样本记录，参与失败率判定</li>
+ * </ul>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+public class ConcurrencyLimitDecorator implements QuantStrategy {
+
+    /** 被装饰的策略对象 */
+    private final QuantStrategy delegate;
+
+    /** 自适应并发限流器 */
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public ConcurrencyLimitDecorator(QuantStrategy delegate, AdaptiveConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public String getId() {
+        return delegate.getId();
+    }
+
+    @Override
+    public StrategyResult execute(StrategyContext context) {
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire(delegate.getId());
+        if (permit == null) {
+            throw new RejectedExecutionException("strategy concurrency limit exceeded: " + delegate.getId());
+        }
+        boolean success = false;
+        try {
+            StrategyResult result = delegate.execute(context);
+            success = result != null && result.isSuccess();
+            return result;
+        } finally {
+            if (success) {
+                permit.onSuccess();
+            } else {
+                permit.onFailure();
+            }
+        }
+    }
+}
@@ -1,15 +1,24 @@
 package com.hao.strategyengine.strategy.impl.composite;
 
+import com.hao.strategyengine.common.market.UniverseFrame;
 import com.hao.strategyengine.common.model.core.StrategyContext;
+import com.hao.strategyengine.common.model.response.SignalRows;
 import com.hao.strategyengine.common.model.response.StrategyResult;
 import com.hao.strategyengine.strategy.QuantStrategy;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 复合策略 (Composite Strategy)
@@ -33,17 +42,66 @@ import java.util.Map;
  * <ol>
  *     <li><b>树形结构:</b> 内部维护一个 {@code List<QuantStrategy>}，用于存储子策略节点。</li>
  *     <li><b>统一接口:</b> 实现 {@link QuantStrategy} 接口，使自身也能被其他复合策略包含，形成递归结构。</li>
- *     <li><b>委托执行:</b> 当 {@code execute} 方法被调用时，它会遍历内部的子策略列表，并依次执行它们。</li>
+ *     <li><b>委托执行:</b> 当 {@code execute} 方法被调用时，按 {@link Mode} 串行或并行执行子策略。</li>
  *     <li><b>结果聚合:</b> 将每个子策略的执行结果 ({@link StrategyResult}) 收集起来，聚合成一个新的列表，作为复合策略自身的执行结果数据。</li>
  * </ol>
+ *
+ * <p><b>并行模式:</b></p>
+ * <ol>
+ *     <li>子策略同时提交到执行器（通常为 virtualThreadExecutor），共享同一份截面快照，总耗时约等于最慢子策略而非各子策略之和。
+ *     执行器不应与调用方共用有界线程池：调用线程阻塞等待子策略，共用时池满即互相卡死。</li>
+ *     <li>每个子策略有独立截止时间，超时或被执行器拒绝均按该子策略失败处理，不向调用方抛出异常。</li>
+ *     <li>结果一旦确定（失败、共振交集为空、融合权重不足法定比例）立即返回，并取消其余尚未完成的子策略。</li>
+ * </ol>
  */
 @Slf4j
 public class CompositeStrategy implements QuantStrategy {
+
+    /**
+     * 复合执行模式
+     */
+    public enum Mode {
+        /** 串行执行，任一子策略失败即中断，返回子结果列表 */
+        SEQUENTIAL,
+        /** 并行执行，全部子策略须成功，且只保留被全部信号型子策略选中的标的（共振） */
+        ALL_PASS,
+        /** 并行执行，按权重融合各子策略排名分；失败子策略的权重计为损失，剩余权重低于法定比例时提前失败 */
+        WEIGHTED_FUSION
+    }
+
+    /** 加权融合模式下须成功的权重比例 */
+    private static final double FUSION_QUORUM = 0.5;
+
     private final String id;
-    private final List<QuantStrategy> children = new ArrayList<>();
+    private final List<Child> children = new ArrayList<>();
+    /** 并行模式融合后保留的选股数量，&lt;= 0 表示全部保留 */
+    private final int topK;
+    private final Mode mode;
+    /** 并行模式的执行器 */
+    private final Executor executor;
+    /** 子策略默认截止时间（毫秒） */
+    private final long childTimeoutMs;
 
     public CompositeStrategy(String id) {
+        this(id, Mode.SEQUENTIAL, null, 0, 0);
+    }
+
+    /**
+     * @param id             复合策略ID
+     * @param mode           执行模式
+     * @param executor       并行模式子策略的执行器，SEQUENTIAL 可为 null；不应是调用方所在的有界线程池
+     * @param childTimeoutMs 子策略默认截止时间（毫秒），仅并行模式生效
+     * @param topK           并行模式融合后保留数量，&lt;= 0 表示全部保留
+     */
+    public CompositeStrategy(String id, Mode mode, Executor executor, long childTimeoutMs, int topK) {
+        if (mode != Mode.SEQUENTIAL && (executor == null || childTimeoutMs <= 0)) {
+            throw new IllegalArgumentException("parallel composite requires executor and positive child timeout");
+        }
         this.id = id;
+        this.mode = mode;
+        this.executor = executor;
+        this.childTimeoutMs = childTimeoutMs;
+        this.topK = topK;
     }
 
     /**
@@ -51,7 +109,31 @@ public class CompositeStrategy implements QuantStrategy {
      * @param strategy 待添加的子策略
      */
     public void add(QuantStrategy strategy) {
-        children.add(strategy);
+        add(strategy, 1.0, childTimeoutMs);
+    }
+
+    /**
+     * 添加带融合权重的子策略
+     *
+     * @param strategy 子策略
+     * @param weight   融合权重，须为正数
+     */
+    public void add(QuantStrategy strategy, double weight) {
+        add(strategy, weight, childTimeoutMs);
+    }
+
+    /**
+     * 添加带融合权重与独立截止时间的子策略
+     *
+     * @param strategy  子策略
+     * @param weight    融合权重，须为正数
+     * @param timeoutMs 该子策略的截止时间（毫秒）
+     */
+    public void add(QuantStrategy strategy, double weight, long timeoutMs) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("weight must be positive: " + strategy.getId());
+        }
+        children.add(new Child(strategy, weight, timeoutMs));
     }
 
     @Override
@@ -59,55 +141,69 @@ public class CompositeStrategy implements QuantStrategy {
         return id;
     }
 
+    @Override
+    public StrategyResult execute(StrategyContext context) {
+        return execute(context, null);
+    }
+
     /**
      * 执行复合策略
      *
      * <p><b>实现逻辑:</b></p>
      * <ol>
-     *     <li>遍历所有子策略。</li>
-     *     <li>依次执行每个子策略，并记录其开始和结束时间。</li>
-     *     <li>将每个子策略的完整 {@link StrategyResult} 添加到结果列表中。</li>
-     *     <li>如果任何子策略执行失败，则立即中断并返回失败结果。</li>
-     *     <li>所有子策略成功后，构建一个包含所有子策略结果的、新的成功 {@link StrategyResult}。</li>
+     *     <li>SEQUENTIAL：依次执行每个子策略，任一失败立即中断并返回失败结果，全部成功后聚合子结果。</li>
+     *     <li>ALL_PASS / WEIGHTED_FUSION：并行提交全部子策略，由 {@link Fanout} 在子策略完成时增量判定结果，
+     *     判定后取消其余子策略。</li>
      * </ol>
      *
      * @param context 策略执行上下文
+     * @param frame   全市场截面快照，为 null 时子策略自行获取
      * @return 聚合了所有子策略结果的复合策略结果
      */
     @Override
-    public StrategyResult execute(StrategyContext context) {
+    public StrategyResult execute(StrategyContext context, UniverseFrame frame) {
         long start = System.currentTimeMillis();
-        log.info("开始执行复合策略|Execute_composite_strategy_start,id={}", id);
-
-        List<StrategyResult> childResults = new ArrayList<>();
+        log.info("开始执行复合策略|Execute_composite_strategy_start,id={},mode={}", id, mode);
         try {
-            for (QuantStrategy childStrategy : children) {
-                log.debug("开始执行子策略|Execute_child_strategy_start,compositeId={},childId={}", id, childStrategy.getId());
-                StrategyResult childResult = childStrategy.execute(context);
-                childResults.add(childResult);
-
-                // 如果任何一个子策略失败，则整个复合策略失败
-                if (!childResult.isSuccess()) {
-                    log.error("子策略执行失败_复合策略中断|Child_strategy_failed_composite_aborted,compositeId={},failedChildId={}",
-                            id, childStrategy.getId());
-                    return buildErrorResult(start, "Child strategy " + childStrategy.getId() + " failed.");
-                }
-                log.debug("子策略执行成功|Execute_child_strategy_success,compositeId={},childId={}", id, childStrategy.getId());
+            if (mode == Mode.SEQUENTIAL) {
+                return executeSequential(context, frame, start);
             }
-
-            log.info("复合策略执行成功|Composite_strategy_execution_success,id={},childCount={}", id, children.size());
-            return StrategyResult.builder()
-                    .strategyId(id)
-                    .data(childResults) // 聚合完整的子策略结果
-                    .durationMs(System.currentTimeMillis() - start)
-                    .build();
-
+            return new Fanout(context, frame, start).run();
         } catch (Exception e) {
             log.error("复合策略执行时发生未知异常|Unknown_exception_in_composite_strategy,id={}", id, e);
             return buildErrorResult(start, "Composite strategy execution failed with an unexpected error.");
         }
     }
 
+    private StrategyResult executeSequential(StrategyContext context, UniverseFrame frame, long start) {
+        List<StrategyResult> childResults = new ArrayList<>();
+        for (Child child : children) {
+            QuantStrategy childStrategy = child.strategy();
+            log.debug("开始执行子策略|Execute_child_strategy_start,compositeId={},childId={}", id, childStrategy.getId());
+            StrategyResult childResult = invoke(childStrategy, context, frame);
+            childResults.add(childResult);
+
+            // 如果任何一个子策略失败，则整个复合策略失败
+            if (!childResult.isSuccess()) {
+                log.error("子策略执行失败_复合策略中断|Child_strategy_failed_composite_aborted,compositeId={},failedChildId={}",
+                        id, childStrategy.getId());
+                return buildErrorResult(start, "Child strategy " + childStrategy.getId() + " failed.");
+            }
+            log.debug("子策略执行成功|Execute_child_strategy_success,compositeId={},childId={}", id, childStrategy.getId());
+        }
+
+        log.info("复合策略执行成功|Composite_strategy_execution_success,id={},childCount={}", id, children.size());
+        return StrategyResult.builder()
+                .strategyId(id)
+                .data(childResults) // 聚合完整的子策略结果
+                .durationMs(System.currentTimeMillis() - start)
+                .build();
+    }
+
+    private static StrategyResult invoke(QuantStrategy strategy, StrategyContext context, UniverseFrame frame) {
+        return frame == null ? strategy.execute(context) : strategy.execute(context, frame);
+    }
+
     /**
      * 构建错误的策略结果
      * @param start 策略开始时间
@@ -124,4 +220,172 @@ public class CompositeStrategy implements QuantStrategy {
                 .durationMs(System.currentTimeMillis() - start)
                 .build();
     }
+
+    private record Child(QuantStrategy strategy, double weight, long timeoutMs) {
+    }
+
+    /**
+     * 一次并行执行的协调器
+     *
+     * <p>子策略完成（成功、失败、超时、被拒绝）时在 {@link #onChildDone} 中串行化处理，
+     * 首次得出结论即完成 {@link #decided}，调用线程随后取消全部未完成任务。</p>
+     */
+    private final class Fanout {
+
+        private final StrategyContext context;
+        private final UniverseFrame frame;
+        private final long start;
+        private final CompletableFuture<StrategyResult> decided = new CompletableFuture<>();
+        private final List<FutureTask<Void>> tasks = new ArrayList<>(children.size());
+        private final StrategyResult[] results = new StrategyResult[children.size()];
+        private final double totalWeight;
+        /** ALL_PASS 模式下仍被全部已完成信号型子策略选中的标的 */
+        private BitSet survivors;
+        private int pending = children.size();
+        private double failedWeight;
+
+        private Fanout(StrategyContext context, UniverseFrame frame, long start) {
+            this.context = context;
+            this.frame = frame;
+            this.start = start;
+            double weight = 0;
+            for (Child child : children) {
+                weight += child.weight();
+            }
+            this.totalWeight = weight;
+        }
+
+        StrategyResult run() {
+            if (children.isEmpty()) {
+                return success(List.of());
+            }
+            for (int i = 0; i < children.size(); i++) {
+                submit(i);
+            }
+            try {
+                // 每个子策略都会以结果、异常或超时结束，decided 必然完成
+                return decided.join();
+            } finally {
+                for (FutureTask<Void> task : tasks) {
+                    task.cancel(true);
+                }
+            }
+        }
+
+        private void submit(int index) {
+            Child child = children.get(index);
+            CompletableFuture<StrategyResult> future = new CompletableFuture<>();
+            FutureTask<Void> task = new FutureTask<>(() -> {
+                try {
+                    future.complete(invoke(child.strategy(), context, frame));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            }, null);
+            tasks.add(task);
+            future.orTimeout(child.timeoutMs(), TimeUnit.MILLISECONDS)
+                    .whenComplete((result, error) -> onChildDone(index, result, error));
+            try {
+                executor.execute(task);
+            } catch (RuntimeException e) {
+                // 执行器拒绝（有界池的 AbortPolicy、已关闭的执行器）按子策略失败处理
+                future.completeExceptionally(e);
+            }
+        }
+
+        private synchronized void onChildDone(int index, StrategyResult result, Throwable error) {
+            if (decided.isDone()) {
+                return;
+            }
+            pending--;
+            Child child = children.get(index);
+            String childId = child.strategy().getId();
+            boolean failed = error != null || result == null || !result.isSuccess();
+            if (failed) {
+                String reason = error instanceof TimeoutException ? "timed out"
+                        : error instanceof RejectedExecutionException ? "rejected" : "failed";
+                log.warn("子策略执行失败|Child_strategy_failed,compositeId={},childId={},reason={}", id, childId, reason);
+                if (mode == Mode.ALL_PASS) {
+                    decide(buildErrorResult(start, "Child strategy " + childId + " " + reason + "."));
+                    return;
+                }
+                failedWeight += child.weight();
+                if (totalWeight - failedWeight < totalWeight * FUSION_QUORUM) {
+                    decide(buildErrorResult(start, "Fusion quorum lost after child strategy " + childId + " " + reason + "."));
+                    return;
+                }
+            } else {
+                results[index] = result;
+                if (mode == Mode.ALL_PASS && result.getData() instanceof SignalRows rows && intersect(rows)) {
+                    log.info("共振交集为空_提前结束|Resonance_empty_short_circuit,compositeId={},childId={},pending={}",
+                            id, childId, pending);
+                    decide(success(fuse()));
+                    return;
+                }
+            }
+            if (pending == 0) {
+                decide(success(fuse()));
+            }
+        }
+
+        /**
+         * 与当前共振集合求交
+         *
+         * @return 交集是否已为空
+         */
+        private boolean intersect(SignalRows rows) {
+            BitSet selected = new BitSet();
+            for (int row = 0; row < rows.size(); row++) {
+                if (rows.symbolId(row) >= 0) {
+                    selected.set(rows.symbolId(row));
+                }
+            }
+            if (survivors == null) {
+                survivors = selected;
+            } else {
+                survivors.and(selected);
+            }
+            return survivors.isEmpty();
+        }
+
+        /**
+         * 融合已完成子策略的信号；没有信号型子结果时返回子结果列表
+         */
+        private Object fuse() {
+            List<SignalRows> parts = new ArrayList<>();
+            List<StrategyResult> others = new ArrayList<>();
+            double[] weights = new double[results.length];
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == null) {
+                    continue;
+                }
+                if (results[i].getData() instanceof SignalRows rows) {
+                    weights[parts.size()] = children.get(i).weight();
+                    parts.add(rows);
+                } else {
+                    others.add(results[i]);
+                }
+            }
+            if (parts.isEmpty()) {
+                return others;
+            }
+            if (survivors != null && survivors.isEmpty()) {
+                return new SignalRows(new String[0], 1);
+            }
+            return SignalRows.fuse(topK, parts, weights, mode == Mode.ALL_PASS);
+        }
+
+        private StrategyResult success(Object data) {
+            return StrategyResult.builder()
+                    .strategyId(id)
+                    .data(data)
+                    .durationMs(System.currentTimeMillis() - start)
+                    .build();
+        }
+
+        private void decide(StrategyResult result) {
+            log.info("复合策略执行完成|Composite_strategy_decided,id={},success={},pending={}", id, result.isSuccess(), pending);
+            decided.complete(result);
+        }
+    }
 }
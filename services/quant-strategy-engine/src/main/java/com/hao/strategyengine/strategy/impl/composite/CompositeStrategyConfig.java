@@ -0,0 +1,70 @@
+package com.hao.strategyengine.strategy.impl.composite;
+
+import com.hao.strategyengine.strategy.impl.signal.BreakoutStrategy;
+import com.hao.strategyengine.strategy.impl.signal.MeanReversionStrategy;
+import com.hao.strategyengine.strategy.impl.signal.MomentumStrategy;
+import com.hao.strategyengine.strategy.impl.signal.RSIStrategy;
+import com.hao.strategyengine.strategy.impl.signal.VWAPStrategy;
+import enums.strategy.StrategyMetaEnum;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executor;
+
+/**
+ * CompositeStrategyConfig
+ *
+ * <p>复合策略装配，将 {@link StrategyMetaEnum} 中的复合型策略注册为 Spring Bean，
+ * 由 StrategyRegistry 统一收集后即可按ID分发。</p>
+ *
+ * <p>装配说明：</p>
+ * <ul>
+ *     <li>COMBO_BASIC - 动量 + 突破共振（ALL_PASS），只保留两个趋势型策略同时选中的标的</li>
+ *     <li>COMBO_ADV - 五个信号策略加权融合（WEIGHTED_FUSION），以排名分加权平均</li>
+ *     <li>子策略在 virtualThreadExecutor 上并行执行，截止时间由 composite.child-timeout-ms 控制。
+ *     复合策略自身运行在 cpuTaskExecutor 上并阻塞等待子策略，子策略若也提交到该有界池（队列 100、AbortPolicy），
+ *     池满时父任务占住线程等待排不上队的子任务，会互相卡死或被拒绝；虚拟线程执行器无界且不占用平台线程</li>
+ * </ul>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+@Configuration
+public class CompositeStrategyConfig {
+
+    @Value("${composite.child-timeout-ms:800}")
+    private long childTimeoutMs;
+
+    @Value("${composite.top-k:30}")
+    private int topK;
+
+    @Bean
+    public CompositeStrategy comboBasicStrategy(@Qualifier("virtualThreadExecutor") Executor childExecutor,
+                                                MomentumStrategy momentum,
+                                                BreakoutStrategy breakout) {
+        CompositeStrategy combo = new CompositeStrategy(StrategyMetaEnum.COMBO_BASIC.getId(),
+                CompositeStrategy.Mode.ALL_PASS, childExecutor, childTimeoutMs, topK);
+        combo.add(momentum);
+        combo.add(breakout);
+        return combo;
+    }
+
+    @Bean
+    public CompositeStrategy comboAdvancedStrategy(@Qualifier("virtualThreadExecutor") Executor childExecutor,
+                                                   MomentumStrategy momentum,
+                                                   BreakoutStrategy breakout,
+                                                   MeanReversionStrategy meanReversion,
+                                                   RSIStrategy rsi,
+                                                   VWAPStrategy vwap) {
+        CompositeStrategy combo = new CompositeStrategy(StrategyMetaEnum.COMBO_ADVANCED.getId(),
+                CompositeStrategy.Mode.WEIGHTED_FUSION, childExecutor, childTimeoutMs, topK);
+        combo.add(momentum, 0.30);
+        combo.add(breakout, 0.25);
+        combo.add(meanReversion, 0.15);
+        combo.add(rsi, 0.15);
+        combo.add(vwap, 0.15);
+        return combo;
+    }
+}
@@ -1,8 +1,14 @@
 package com.hao.strategyengine.strategy.impl.signal;
 
+import com.hao.strategyengine.common.market.UniverseFrame;
+import com.hao.strategyengine.common.market.UniverseFrameProvider;
+import com.hao.strategyengine.common.market.indicator.IndicatorEngine;
+import com.hao.strategyengine.common.market.indicator.IndicatorType;
 import com.hao.strategyengine.common.model.core.StrategyContext;
+import com.hao.strategyengine.common.model.response.SignalRows;
 import com.hao.strategyengine.common.model.response.StrategyResult;
 import com.hao.strategyengine.strategy.QuantStrategy;
+import com.hao.strategyengine.strategy.kernel.CrossSectionKernels;
 import enums.strategy.StrategyMetaEnum;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -28,12 +34,12 @@ import java.util.*;
  *
  * <p><b>核心实现思路:</b></p>
  * <ol>
- *     <li><b>数据准备:</b> 获取股票池中所有股票的近期历史价格数据。</li>
+ *     <li><b>数据准备:</b> 获取全市场列式截面快照 {@link UniverseFrame}。</li>
  *     <li><b>指标计算:</b> 对每只股票：
  *         <ul>
- *             <li>计算N日（如20日）的移动平均价 (MA)。</li>
- *             <li>计算N日的价格标准差 (Standard Deviation)。</li>
- *             <li>计算Z-score = (当前价格 - MA) / 标准差。</li>
+ *             <li>读取 {@link IndicatorEngine} 增量维护的N根分钟 bar（如20根）移动平均价 (MA)。</li>
+ *             <li>读取N日的滚动价格标准差 (Welford Standard Deviation)。</li>
+ *             <li>以向量内核整列计算Z-score = (当前价格 - MA) / 标准差。</li>
  *         </ul>
  *     </li>
  *     <li><b>信号筛选:</b> 筛选出Z-score低于某一负阈值（如-1.0）的股票，这表示股价已显著低于其近期均值。</li>
@@ -61,6 +67,22 @@ public class MeanReversionStrategy implements QuantStrategy {
      * 最大返回结果数
      */
     private static final int MAX_RESULTS = 50;
+    /**
+     * 信号特征列
+     */
+    private static final String[] FEATURES = {"z_score", "current_price", "moving_average", "deviation_percent"};
+
+    private static final CrossSectionKernels KERNELS = CrossSectionKernels.best();
+
+    private final UniverseFrameProvider frameProvider;
+    private final int movingAverageSlot;
+    private final int stdDevSlot;
+
+    public MeanReversionStrategy(UniverseFrameProvider frameProvider, IndicatorEngine indicatorEngine) {
+        this.frameProvider = frameProvider;
+        this.movingAverageSlot = indicatorEngine.register(IndicatorType.SMA, LOOKBACK_PERIOD);
+        this.stdDevSlot = indicatorEngine.register(IndicatorType.STDDEV, LOOKBACK_PERIOD);
+    }
 
     @Override
     public String getId() {
@@ -70,75 +92,66 @@ public class MeanReversionStrategy implements QuantStrategy {
     /**
      * 执行均值回归策略
      *
+     * @param context 策略执行上下文
+     * @return 策略执行结果
+     */
+    @Override
+    public StrategyResult execute(StrategyContext context) {
+        return execute(context, frameProvider.snapshot());
+    }
+
+    /**
+     * 基于截面快照批量执行均值回归策略
+     *
      * <p><b>实现逻辑:</b></p>
      * <ol>
-     *     <li>获取股票池和相应的历史价格数据。</li>
-     *     <li>遍历每只股票，计算其Z-score。</li>
+     *     <li>读取均线、标准差指标列，以向量内核整列计算Z-score。</li>
      *     <li>如果Z-score低于预设阈值，则认为出现交易信号。</li>
      *     <li>将信号分数（-Z-score）和其他相关指标存入结果列表。</li>
-     *     <li>对结果列表按信号分数降序排序，并截取Top N。</li>
+     *     <li>以有界小顶堆只保留分数最高的 Top N，最后对 N 行降序排序。</li>
      *     <li>记录日志并构建包含最终结果的{@link StrategyResult}。</li>
      *     <li>在发生异常时，记录错误并返回失败的{@link StrategyResult}。</li>
      * </ol>
      *
      * @param context 策略执行上下文
+     * @param frame   全市场截面快照
      * @return 策略执行结果
      */
     @Override
-    public StrategyResult execute(StrategyContext context) {
+    public StrategyResult execute(StrategyContext context, UniverseFrame frame) {
         long start = System.currentTimeMillis();
         log.info("开始执行均值回归策略|Execute_mean_reversion_strategy_start");
 
         try {
-            // TODO: 后续应从 context 获取真实的股票池
-            List<String> stockPool = getStockPool();
-            List<Map<String, Object>> selectedStocks = new ArrayList<>();
-
-            for (String stockCode : stockPool) {
-                // TODO: 后续应从 context 获取真实的行情数据
-                List<Double> historicalPrices = getHistoricalPrices(stockCode);
-                
-                if (historicalPrices.size() < LOOKBACK_PERIOD) {
-                    log.warn("股票数据不足_跳过计算|Stock_data_insufficient_skip_calculation,stockCode={},dataSize={}", stockCode, historicalPrices.size());
-                    continue;
-                }
+            int n = frame.size();
+            double[] prices = frame.price(0);
+            double[] movingAverage = frame.indicator(movingAverageSlot);
 
-                // 计算核心指标
-                double currentPrice = historicalPrices.get(historicalPrices.size() - 1);
-                double movingAverage = calculateMovingAverage(historicalPrices);
-                double standardDeviation = calculateStandardDeviation(historicalPrices, movingAverage);
-                
-                // Z-score为0或标准差过小可能导致除零异常或结果无意义
-                if (standardDeviation < 1e-6) {
-                    log.warn("价格波动过小_跳过计算|Price_fluctuation_too_small_skip_calculation,stockCode={}", stockCode);
-                    continue;
-                }
-                double zScore = (currentPrice - movingAverage) / standardDeviation;
+            // 标准差过小（波动过小）的标的 Z-score 为 NaN，自然被过滤
+            double[] zScore = new double[n];
+            KERNELS.zScores(prices, movingAverage, frame.indicator(stdDevSlot), zScore, n);
 
+            SignalRows selectedStocks = SignalRows.topK(FEATURES, MAX_RESULTS);
+            for (int i = 0; i < n; i++) {
                 // 筛选符合条件的股票
-                if (zScore < ZSCORE_THRESHOLD) {
-                    Map<String, Object> stockSignal = new HashMap<>();
-                    stockSignal.put("wind_code", stockCode);
-                    stockSignal.put("signal_score", -zScore); // 负的Z-score转为正分数，越大越好
-                    stockSignal.put("z_score", zScore);
-                    stockSignal.put("current_price", currentPrice);
-                    stockSignal.put("moving_average", movingAverage);
-                    stockSignal.put("deviation_percent", (currentPrice - movingAverage) / movingAverage * 100);
-                    selectedStocks.add(stockSignal);
+                if (zScore[i] < ZSCORE_THRESHOLD) {
+                    // 负的Z-score转为正分数，越大越好
+                    int row = selectedStocks.add(frame.symbolId(i), frame.code(i), -zScore[i]);
+                    if (row != SignalRows.REJECTED) {
+                        selectedStocks.set(row, 0, zScore[i])
+                                .set(row, 1, prices[i])
+                                .set(row, 2, movingAverage[i])
+                                .set(row, 3, (prices[i] - movingAverage[i]) / movingAverage[i] * 100);
+                    }
                 }
             }
 
             // 按信号分数降序排列（Z-score越小，信号分数越大）
-            selectedStocks.sort((a, b) -> 
-                Double.compare((Double)b.get("signal_score"), (Double)a.get("signal_score")));
-            
             // 限制返回数量
-            if (selectedStocks.size() > MAX_RESULTS) {
-                selectedStocks = selectedStocks.subList(0, MAX_RESULTS);
-            }
+            selectedStocks.sortByScoreDescending();
 
             log.info("均值回归策略执行完成|Mean_reversion_strategy_execution_finished,selectedCount={},candidateCount={}",
-                    selectedStocks.size(), stockPool.size());
+                    selectedStocks.size(), n);
 
             return StrategyResult.builder()
                     .strategyId(getId())
@@ -152,65 +165,6 @@ public class MeanReversionStrategy implements QuantStrategy {
         }
     }
 
-    /**
-     * 获取股票池
-     * @return 股票代码列表
-     */
-    private List<String> getStockPool() {
-        // TODO: 此处应通过 context 中的数据源客户端获取真实的股票池
-        return Arrays.asList(
-            "000001.SZ", "000002.SZ", "000063.SZ", "000069.SZ", "000100.SZ",
-            "000157.SZ", "000166.SZ", "000333.SZ", "000338.SZ", "000402.SZ",
-            "000413.SZ", "000415.SZ", "000423.SZ", "000425.SZ", "000538.SZ"
-        );
-    }
-
-    /**
-     * 获取单个股票的历史价格数据
-     * @param stockCode 股票代码
-     * @return 价格列表
-     */
-    private List<Double> getHistoricalPrices(String stockCode) {
-        // TODO: 此处应通过 context 中的数据源客户端获取真实的行情数据
-        List<Double> prices = new ArrayList<>();
-        Random random = new Random();
-        double basePrice = 10.0 + random.nextDouble() * 90;
-        for (int i = 0; i < 30; i++) {
-            prices.add(basePrice + random.nextDouble() * 20 - 10);
-        }
-        return prices;
-    }
-
-    /**
-     * 计算移动平均值
-     * @param prices 价格列表
-     * @return 移动平均值
-     */
-    private double calculateMovingAverage(List<Double> prices) {
-        double sum = 0;
-        int startIndex = prices.size() - LOOKBACK_PERIOD;
-        for (int i = startIndex; i < prices.size(); i++) {
-            sum += prices.get(i);
-        }
-        return sum / LOOKBACK_PERIOD;
-    }
-
-    /**
-     * 计算标准差
-     * @param prices 价格列表
-     * @param mean 均值
-     * @return 标准差
-     */
-    private double calculateStandardDeviation(List<Double> prices, double mean) {
-        double sumSquaredDiff = 0;
-        int startIndex = prices.size() - LOOKBACK_PERIOD;
-        for (int i = startIndex; i < prices.size(); i++) {
-            double diff = prices.get(i) - mean;
-            sumSquaredDiff += diff * diff;
-        }
-        return Math.sqrt(sumSquaredDiff / LOOKBACK_PERIOD);
-    }
-
     /**
      * 构建错误的策略结果
      * @param start 策略开始时间
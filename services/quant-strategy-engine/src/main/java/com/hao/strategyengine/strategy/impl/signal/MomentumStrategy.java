@@ -1,8 +1,14 @@
 package com.hao.strategyengine.strategy.impl.signal;
 
+import com.hao.strategyengine.common.market.indicator.IndicatorEngine;
+import com.hao.strategyengine.common.market.indicator.IndicatorType;
+import com.hao.strategyengine.common.market.UniverseFrame;
+import com.hao.strategyengine.common.market.UniverseFrameProvider;
 import com.hao.strategyengine.common.model.core.StrategyContext;
+import com.hao.strategyengine.common.model.response.SignalRows;
 import com.hao.strategyengine.common.model.response.StrategyResult;
 import com.hao.strategyengine.strategy.QuantStrategy;
+import com.hao.strategyengine.strategy.kernel.CrossSectionKernels;
 import enums.strategy.StrategyMetaEnum;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -28,11 +34,12 @@ import java.util.*;
  *
  * <p><b>核心实现思路:</b></p>
  * <ol>
- *     <li><b>数据准备:</b> 获取股票池及各股票近期的历史价格和成交量数据。</li>
+ *     <li><b>数据准备:</b> 获取全市场列式截面快照 {@link UniverseFrame}，价格、成交量按滞后期成列。</li>
  *     <li><b>指标计算:</b> 对每只股票计算：
  *         <ul>
- *             <li>短期（5日）、中期（10日）、长期（20日）的区间收益率。</li>
- *             <li>近期（5日）平均成交量与历史（20日）平均成交量的比率。</li>
+ *             <li>短期（5根）、中期（10根）、长期（20根）分钟 bar 的区间收益率。</li>
+ *             <li>近期（5根 bar）平均成交量与历史（20根 bar）平均成交量的比率，由 {@link IndicatorEngine} 增量维护的成交量均线推导。</li>
+ *             <li>以上均由 {@link CrossSectionKernels} 对整列向量化计算。</li>
  *         </ul>
  *     </li>
  *     <li><b>信号筛选:</b> 筛选同时满足以下条件的股票：
@@ -58,8 +65,20 @@ public class MomentumStrategy implements QuantStrategy {
     private static final int MID_TERM_PERIOD = 10;
     private static final int LONG_TERM_PERIOD = 20;
     private static final double VOLUME_RATIO_THRESHOLD = 1.1;
-    private static final int MIN_DATA_SIZE = LONG_TERM_PERIOD + 1;
     private static final int MAX_RESULTS = 40;
+    /** 信号特征列，周期单位为分钟 bar（行情存储只保存分钟线），不是交易日 */
+    private static final String[] FEATURES = {"current_price", "return_5bar", "return_10bar", "return_20bar", "volume_ratio"};
+    private static final CrossSectionKernels KERNELS = CrossSectionKernels.best();
+
+    private final UniverseFrameProvider frameProvider;
+    private final int shortVolumeSlot;
+    private final int longVolumeSlot;
+
+    public MomentumStrategy(UniverseFrameProvider frameProvider, IndicatorEngine indicatorEngine) {
+        this.frameProvider = frameProvider;
+        this.shortVolumeSlot = indicatorEngine.register(IndicatorType.VOLUME_SMA, SHORT_TERM_PERIOD);
+        this.longVolumeSlot = indicatorEngine.register(IndicatorType.VOLUME_SMA, LONG_TERM_PERIOD);
+    }
 
     @Override
     public String getId() {
@@ -69,76 +88,81 @@ public class MomentumStrategy implements QuantStrategy {
     /**
      * 执行动量策略
      *
+     * @param context 策略执行上下文
+     * @return 策略执行结果
+     */
+    @Override
+    public StrategyResult execute(StrategyContext context) {
+        return execute(context, frameProvider.snapshot());
+    }
+
+    /**
+     * 基于截面快照批量执行动量策略
+     *
      * <p><b>实现逻辑:</b></p>
      * <ol>
-     *     <li>获取股票池及所需数据。</li>
-     *     <li>遍历股票，计算各周期收益率和成交量比率。</li>
-     *     <li>应用动量和成交量条件进行筛选。</li>
-     *     <li>为满足条件的股票计算综合动量得分。</li>
-     *     <li>对结果按分值排序并截取。</li>
+     *     <li>以向量内核对整列计算5/10/20根 bar 的收益率。</li>
+     *     <li>由增量成交量均线列推导历史均量，计算成交量比率列。</li>
+     *     <li>逐行应用动量和成交量条件进行筛选，为满足条件的股票计算综合动量得分。</li>
+     *     <li>以有界小顶堆只保留分值最高的 Top N，最后对 N 行降序排序。</li>
      *     <li>记录日志并构建返回结果。</li>
      * </ol>
      *
      * @param context 策略执行上下文
+     * @param frame   全市场截面快照
      * @return 策略执行结果
      */
     @Override
-    public StrategyResult execute(StrategyContext context) {
+    public StrategyResult execute(StrategyContext context, UniverseFrame frame) {
         long start = System.currentTimeMillis();
         log.info("开始执行动量策略|Execute_momentum_strategy_start");
 
         try {
-            // TODO: 从context获取真实股票池
-            List<String> stockPool = getStockPool();
-            List<Map<String, Object>> selectedStocks = new ArrayList<>();
-
-            for (String stockCode : stockPool) {
-                // TODO: 从context获取真实行情数据
-                List<Double> prices = getHistoricalPrices(stockCode);
-                List<Double> volumes = getHistoricalVolumes(stockCode);
-
-                if (prices.size() < MIN_DATA_SIZE) {
-                    log.warn("数据量不足_跳过计算|Data_insufficient_skip_calculation,stockCode={},dataSize={}", stockCode, prices.size());
-                    continue;
-                }
-
-                // 计算不同周期收益率
-                double return5D = calculateReturn(prices, SHORT_TERM_PERIOD);
-                double return10D = calculateReturn(prices, MID_TERM_PERIOD);
-                double return20D = calculateReturn(prices, LONG_TERM_PERIOD);
-
-                // 计算成交量比率
-                double volumeRatio = calculateVolumeRatio(volumes, SHORT_TERM_PERIOD, LONG_TERM_PERIOD);
-
-                // 动量条件：短期动量强于中长期，且均为正收益
-                boolean momentumCondition = return5D > return10D && return10D > return20D && return20D > 0;
-                boolean volumeCondition = volumeRatio > VOLUME_RATIO_THRESHOLD;
+            int n = frame.size();
+            double[] prices = frame.price(0);
+
+            // 计算不同周期收益率
+            double[] return5Bar = new double[n];
+            double[] return10Bar = new double[n];
+            double[] return20Bar = new double[n];
+            KERNELS.returns(prices, frame.price(SHORT_TERM_PERIOD), return5Bar, n);
+            KERNELS.returns(prices, frame.price(MID_TERM_PERIOD), return10Bar, n);
+            KERNELS.returns(prices, frame.price(LONG_TERM_PERIOD), return20Bar, n);
+
+            // 计算成交量比率：历史均量 = (长周期均量 * 长周期 - 短周期均量 * 短周期) / (长周期 - 短周期)
+            double[] avgRecent = frame.indicator(shortVolumeSlot);
+            double[] avgHistorical = new double[n];
+            double[] volumeRatio = new double[n];
+            int historicalBars = LONG_TERM_PERIOD - SHORT_TERM_PERIOD;
+            KERNELS.axpy((double) LONG_TERM_PERIOD / historicalBars, frame.indicator(longVolumeSlot), avgHistorical, n);
+            KERNELS.axpy(-(double) SHORT_TERM_PERIOD / historicalBars, avgRecent, avgHistorical, n);
+            KERNELS.ratios(avgRecent, avgHistorical, volumeRatio, n);
+
+            SignalRows selectedStocks = SignalRows.topK(FEATURES, MAX_RESULTS);
+            for (int i = 0; i < n; i++) {
+                // 动量条件：短期动量强于中长期，且均为正收益；数据不足的标的为 NaN，条件恒为 false
+                boolean momentumCondition = return5Bar[i] > return10Bar[i] && return10Bar[i] > return20Bar[i] && return20Bar[i] > 0;
+                boolean volumeCondition = volumeRatio[i] > VOLUME_RATIO_THRESHOLD;
 
                 if (momentumCondition && volumeCondition) {
-                    double momentumScore = calculateMomentumScore(return5D, return10D, return20D, volumeRatio);
-
-                    Map<String, Object> stockSignal = new HashMap<>();
-                    stockSignal.put("wind_code", stockCode);
-                    stockSignal.put("signal_score", momentumScore);
-                    stockSignal.put("current_price", prices.get(prices.size() - 1));
-                    stockSignal.put("return_5d", return5D * 100);
-                    stockSignal.put("return_10d", return10D * 100);
-                    stockSignal.put("return_20d", return20D * 100);
-                    stockSignal.put("volume_ratio", volumeRatio);
-                    selectedStocks.add(stockSignal);
+                    double momentumScore = calculateMomentumScore(return5Bar[i], return10Bar[i], return20Bar[i], volumeRatio[i]);
+
+                    int row = selectedStocks.add(frame.symbolId(i), frame.code(i), momentumScore);
+                    if (row != SignalRows.REJECTED) {
+                        selectedStocks.set(row, 0, prices[i])
+                                .set(row, 1, return5Bar[i] * 100)
+                                .set(row, 2, return10Bar[i] * 100)
+                                .set(row, 3, return20Bar[i] * 100)
+                                .set(row, 4, volumeRatio[i]);
+                    }
                 }
             }
 
             // 按动量分数降序排列
-            selectedStocks.sort((a, b) ->
-                    Double.compare((Double)b.get("signal_score"), (Double)a.get("signal_score")));
-
-            if (selectedStocks.size() > MAX_RESULTS) {
-                selectedStocks = selectedStocks.subList(0, MAX_RESULTS);
-            }
+            selectedStocks.sortByScoreDescending();
 
             log.info("动量策略执行完成|Momentum_strategy_execution_finished,selectedCount={},candidateCount={}",
-                    selectedStocks.size(), stockPool.size());
+                    selectedStocks.size(), n);
 
             return StrategyResult.builder()
                     .strategyId(getId())
@@ -152,120 +176,24 @@ public class MomentumStrategy implements QuantStrategy {
         }
     }
 
-    /**
-     * 获取股票池
-     * @return 股票代码列表
-     */
-    private List<String> getStockPool() {
-        // TODO: 此处应通过 context 中的数据源客户端获取真实的股票池
-        return Arrays.asList(
-                "000001.SZ", "000002.SZ", "000063.SZ", "000069.SZ", "000100.SZ",
-                "000157.SZ", "000166.SZ", "000333.SZ", "000338.SZ", "000402.SZ",
-                "600000.SH", "600016.SH", "600028.SH", "600030.SH", "600036.SH"
-        );
-    }
-
-    /**
-     * 获取单个股票的历史价格数据
-     * @param stockCode 股票代码
-     * @return 价格列表
-     */
-    private List<Double> getHistoricalPrices(String stockCode) {
-        // TODO: 此处应通过 context 中的数据源客户端获取真实的行情数据
-        List<Double> prices = new ArrayList<>();
-        Random random = new Random();
-        double basePrice = 10.0 + random.nextDouble() * 90;
-        double trend = 0.005;
-        for (int i = 0; i < 30; i++) {
-            double price = basePrice * (1 + trend * i) + random.nextDouble() * 4 - 2;
-            prices.add(price);
-        }
-        return prices;
-    }
-
-    /**
-     * 获取单个股票的历史成交量数据
-     * @param stockCode 股票代码
-     * @return 成交量列表
-     */
-    private List<Double> getHistoricalVolumes(String stockCode) {
-        // TODO: 此处应通过 context 中的数据源客户端获取真实的行情数据
-        List<Double> volumes = new ArrayList<>();
-        Random random = new Random();
-        double baseVolume = 1000000.0;
-        for (int i = 0; i < 30; i++) {
-            volumes.add(baseVolume * (0.8 + random.nextDouble() * 0.8));
-        }
-        return volumes;
-    }
-
-    /**
-     * 计算指定周期内的收益率
-     * @param prices 价格列表
-     * @param days 周期天数
-     * @return 收益率
-     */
-    private double calculateReturn(List<Double> prices, int days) {
-        int currentIndex = prices.size() - 1;
-        int pastIndex = prices.size() - 1 - days;
-        if (pastIndex < 0) {
-            return 0.0; // 数据不足，返回0
-        }
-
-        double currentPrice = prices.get(currentIndex);
-        double pastPrice = prices.get(pastIndex);
-        return (currentPrice - pastPrice) / pastPrice;
-    }
-
-    /**
-     * 计算成交量比率（近期均量 / 历史均量）
-     * @param volumes 成交量列表
-     * @param recentDays 近期周期
-     * @param historicalDays 历史周期
-     * @return 成交量比率
-     */
-    private double calculateVolumeRatio(List<Double> volumes, int recentDays, int historicalDays) {
-        double sumRecent = 0;
-        double sumHistorical = 0;
-
-        int recentStart = volumes.size() - recentDays;
-        int historicalStart = volumes.size() - historicalDays;
-
-        for (int i = recentStart; i < volumes.size(); i++) {
-            sumRecent += volumes.get(i);
-        }
-
-        for (int i = historicalStart; i < recentStart; i++) {
-            sumHistorical += volumes.get(i);
-        }
-
-        double avgRecent = sumRecent / recentDays;
-        double avgHistorical = sumHistorical / (historicalDays - recentDays);
-
-        if (avgHistorical < 1e-6) {
-            return 0.0; // 避免除零
-        }
-        return avgRecent / avgHistorical;
-    }
-
     /**
      * 计算综合动量得分
-     * @param return5D 5日收益率
-     * @param return10D 10日收益率
-     * @param return20D 20日收益率
+     * @param return5Bar 5根 bar 收益率
+     * @param return10Bar 10根 bar 收益率
+     * @param return20Bar 20根 bar 收益率
      * @param volumeRatio 成交量比率
      * @return 综合动量得分
      */
-    private double calculateMomentumScore(double return5D, double return10D, double return20D, double volumeRatio) {
+    private double calculateMomentumScore(double return5Bar, double return10Bar, double return20Bar, double volumeRatio) {
         // 实现思路：综合动量评分 = 加权收益率 + 成交量奖励
         double shortTermWeight = 0.5;
         double midTermWeight = 0.3;
         double longTermWeight = 0.1;
         double volumeWeight = 0.1;
 
-        return return5D * 100 * shortTermWeight +
-                return10D * 100 * midTermWeight +
-                return20D * 100 * longTermWeight +
+        return return5Bar * 100 * shortTermWeight +
+                return10Bar * 100 * midTermWeight +
+                return20Bar * 100 * longTermWeight +
                 volumeRatio * volumeWeight;
     }
 
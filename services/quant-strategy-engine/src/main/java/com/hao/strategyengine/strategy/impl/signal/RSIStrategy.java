@@ -1,8 +1,18 @@
 package com.hao.strategyengine.strategy.impl.signal;
 
+import com.hao.strategyengine.common.market.BarSeries;
+import com.hao.strategyengine.common.market.BarSeriesView;
+import com.hao.strategyengine.common.market.BarStore;
+import com.hao.strategyengine.common.market.UniverseFrame;
+import com.hao.strategyengine.common.market.UniverseFrameProvider;
+import com.hao.strategyengine.common.market.indicator.IndicatorEngine;
+import com.hao.strategyengine.common.market.indicator.IndicatorType;
 import com.hao.strategyengine.common.model.core.StrategyContext;
+import com.hao.strategyengine.common.model.response.SignalRows;
 import com.hao.strategyengine.common.model.response.StrategyResult;
+import com.hao.strategyengine.strategy.IncrementalStrategy;
 import com.hao.strategyengine.strategy.QuantStrategy;
+import com.hao.strategyengine.strategy.kernel.CrossSectionKernels;
 import enums.strategy.StrategyMetaEnum;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -28,11 +38,11 @@ import java.util.*;
  *
  * <p><b>核心实现思路:</b></p>
  * <ol>
- *     <li><b>数据准备:</b> 获取股票池及各股票的历史价格和成交量数据。</li>
+ *     <li><b>数据准备:</b> 获取全市场列式截面快照 {@link UniverseFrame}。</li>
  *     <li><b>指标计算:</b>
  *         <ul>
- *             <li>计算14日RSI指标。</li>
- *             <li>计算短期（如5日）的价格趋势和成交量趋势。</li>
+ *             <li>读取 {@link IndicatorEngine} 增量维护的14根 bar Wilder RSI。</li>
+ *             <li>计算短期（如5根 bar）的价格趋势和成交量趋势。</li>
  *         </ul>
  *     </li>
  *     <li><b>信号筛选:</b> 筛选同时满足以下条件的股票：
@@ -46,12 +56,14 @@ import java.util.*;
  *     <li><b>结果构建:</b> 对满足条件的股票按评分降序排序，并截取前N名。</li>
  * </ol>
  *
+ * <p>同时实现 {@link IncrementalStrategy}：行情流写入新 bar 后只对该标的按同一套条件与评分求值。</p>
+ *
  * @author hli
  * @date 2025-10-22
  */
 @Slf4j
 @Component
-public class RSIStrategy implements QuantStrategy {
+public class RSIStrategy implements QuantStrategy, IncrementalStrategy {
 
     // ================== 常量定义 ==================
     private static final int RSI_PERIOD = 14;
@@ -59,8 +71,26 @@ public class RSIStrategy implements QuantStrategy {
     private static final double OVERSOLD_THRESHOLD = 30.0;
     private static final double OVERBOUGHT_THRESHOLD = 70.0;
     private static final double PRICE_STABLE_THRESHOLD = 0.02;
-    private static final int MIN_DATA_SIZE = RSI_PERIOD + 10;
     private static final int MAX_RESULTS = 35;
+    /** 信号特征列 */
+    private static final String[] FEATURES = {"rsi", "price_trend", "volume_trend", "current_price"};
+    private static final CrossSectionKernels KERNELS = CrossSectionKernels.best();
+
+    private final UniverseFrameProvider frameProvider;
+    private final BarStore barStore;
+    private final IndicatorEngine indicatorEngine;
+    private final int rsiSlot;
+    private final int recentVolumeSlot;
+    private final int doubleVolumeSlot;
+
+    public RSIStrategy(UniverseFrameProvider frameProvider, BarStore barStore, IndicatorEngine indicatorEngine) {
+        this.frameProvider = frameProvider;
+        this.barStore = barStore;
+        this.indicatorEngine = indicatorEngine;
+        this.rsiSlot = indicatorEngine.register(IndicatorType.RSI, RSI_PERIOD);
+        this.recentVolumeSlot = indicatorEngine.register(IndicatorType.VOLUME_SMA, TREND_PERIOD);
+        this.doubleVolumeSlot = indicatorEngine.register(IndicatorType.VOLUME_SMA, 2 * TREND_PERIOD);
+    }
 
     @Override
     public String getId() {
@@ -70,72 +100,62 @@ public class RSIStrategy implements QuantStrategy {
     /**
      * 执行RSI策略选股
      *
+     * @param context 策略上下文，包含用户ID、股票代码等参数
+     * @return StrategyResult 包含选中的股票列表，按RSI信号强度排序
+     */
+    @Override
+    public StrategyResult execute(StrategyContext context) {
+        return execute(context, frameProvider.snapshot());
+    }
+
+    /**
+     * 基于截面快照批量执行RSI策略选股
+     *
      * <p><b>实现逻辑:</b></p>
      * <ol>
-     *     <li>获取股票池及所需数据。</li>
-     *     <li>遍历股票，计算RSI、价格趋势和成交量趋势。</li>
-     *     <li>应用超卖、企稳和放量条件进行筛选。</li>
+     *     <li>读取RSI指标列，以向量内核整列计算价格趋势和成交量趋势。</li>
+     *     <li>逐行应用超卖、企稳和放量条件进行筛选。</li>
      *     <li>为满足条件的股票计算综合得分。</li>
-     *     <li>对结果按分值排序并截取。</li>
+     *     <li>以有界小顶堆只保留分值最高的 Top N，最后对 N 行降序排序。</li>
      *     <li>记录日志并构建返回结果。</li>
      * </ol>
      *
      * @param context 策略上下文，包含用户ID、股票代码等参数
+     * @param frame   全市场截面快照
      * @return StrategyResult 包含选中的股票列表，按RSI信号强度排序
      */
     @Override
-    public StrategyResult execute(StrategyContext context) {
+    public StrategyResult execute(StrategyContext context, UniverseFrame frame) {
         long start = System.currentTimeMillis();
         log.info("开始执行RSI策略|Execute_rsi_strategy_start");
 
         try {
-            // TODO: 从context获取真实股票池
-            List<String> stockPool = getStockPool();
-            List<Map<String, Object>> selectedStocks = new ArrayList<>();
-
-            for (String stockCode : stockPool) {
-                // TODO: 从context获取真实行情数据
-                StockData stockData = getStockData(stockCode);
-                
-                if (stockData.prices.size() < MIN_DATA_SIZE) {
-                    log.warn("数据量不足_跳过计算|Data_insufficient_skip_calculation,stockCode={},dataSize={}", stockCode, stockData.prices.size());
-                    continue; 
-                }
+            int n = frame.size();
+            double[] prices = frame.price(0);
+            double[] rsi = frame.indicator(rsiSlot);
 
-                // 计算RSI指标
-                double rsi = calculateRSI(stockData.prices, RSI_PERIOD);
-                double priceTrend = calculatePriceTrend(stockData.prices, TREND_PERIOD);
-                double volumeTrend = calculateVolumeTrend(stockData.volumes, TREND_PERIOD);
+            // 价格趋势：近N根 bar 收益率
+            double[] priceTrend = new double[n];
+            KERNELS.returns(prices, frame.price(TREND_PERIOD), priceTrend, n);
 
-                // RSI超卖条件判断
-                boolean isOversold = rsi < OVERSOLD_THRESHOLD;
-                boolean isPriceStable = Math.abs(priceTrend) < PRICE_STABLE_THRESHOLD; // 价格波动小于2%
-                boolean isVolumeIncreasing = volumeTrend > 0;
+            // 成交量趋势：前期均量 = 2N均量 * 2 - N均量，趋势 = 近期均量 / 前期均量 - 1
+            double[] avgRecent = frame.indicator(recentVolumeSlot);
+            double[] avgPast = new double[n];
+            double[] volumeRatio = new double[n];
+            KERNELS.axpy(2D, frame.indicator(doubleVolumeSlot), avgPast, n);
+            KERNELS.axpy(-1D, avgRecent, avgPast, n);
+            KERNELS.ratios(avgRecent, avgPast, volumeRatio, n);
 
-                if (isOversold && (isPriceStable || priceTrend > 0) && isVolumeIncreasing) {
-                    double rsiScore = calculateRSIScore(rsi, priceTrend, volumeTrend);
-                    
-                    Map<String, Object> stockSignal = new HashMap<>();
-                    stockSignal.put("wind_code", stockCode);
-                    stockSignal.put("signal_score", rsiScore);
-                    stockSignal.put("rsi", rsi);
-                    stockSignal.put("price_trend", priceTrend * 100);
-                    stockSignal.put("volume_trend", volumeTrend * 100);
-                    stockSignal.put("current_price", stockData.prices.get(stockData.prices.size() - 1));
-                    selectedStocks.add(stockSignal);
-                }
+            SignalRows selectedStocks = SignalRows.topK(FEATURES, MAX_RESULTS);
+            for (int i = 0; i < n; i++) {
+                addIfSignal(selectedStocks, frame.symbolId(i), frame.code(i), rsi[i], priceTrend[i], volumeRatio[i], prices[i]);
             }
 
             // 按RSI信号分数降序排列（RSI越低，超卖程度越高，分数越高）
-            selectedStocks.sort((a, b) -> 
-                Double.compare((Double)b.get("signal_score"), (Double)a.get("signal_score")));
-            
-            if (selectedStocks.size() > MAX_RESULTS) {
-                selectedStocks = selectedStocks.subList(0, MAX_RESULTS);
-            }
+            selectedStocks.sortByScoreDescending();
 
             log.info("RSI策略执行完成|Rsi_strategy_execution_finished,selectedCount={},candidateCount={}",
-                    selectedStocks.size(), stockPool.size());
+                    selectedStocks.size(), n);
 
             return StrategyResult.builder()
                     .strategyId(getId())
@@ -149,133 +169,65 @@ public class RSIStrategy implements QuantStrategy {
         }
     }
 
-    /**
-     * 获取策略适用的股票池
-     * 
-     * @return List<String> 股票代码列表
-     */
-    private List<String> getStockPool() {
-        // TODO: 模拟股票池 - 实际应从数据库或配置文件获取
-        return Arrays.asList(
-            "000001.SZ", "000002.SZ", "000063.SZ", "000069.SZ", "000100.SZ",
-            "000157.SZ", "000166.SZ", "000333.SZ", "000338.SZ", "000402.SZ",
-            "000413.SZ", "000415.SZ", "000423.SZ", "000425.SZ", "000538.SZ",
-            "600000.SH", "600016.SH", "600028.SH", "600030.SH", "600036.SH"
-        );
-    }
-
-    /**
-     * 模拟获取股票历史数据
-     * 
-     * @param stockCode 股票代码
-     * @return StockData 包含价格和成交量数据
-     */
-    private StockData getStockData(String stockCode) {
-        // TODO: 模拟数据 - 实际应从数据源获取
-        StockData data = new StockData();
-        Random random = new Random();
-        double basePrice = 10.0 + random.nextDouble() * 90;
-        double baseVolume = 1000000.0;
-        
-        // 模拟价格数据，包含一定的波动性
-        for (int i = 0; i < 30; i++) {
-            double price = basePrice * (1 + (random.nextDouble() - 0.5) * 0.1);
-            data.prices.add(price);
-            data.volumes.add(baseVolume * (0.7 + random.nextDouble() * 0.6));
-        }
-        return data;
+    @Override
+    public String[] features() {
+        return FEATURES;
     }
 
     /**
-     * 计算RSI指标
-     * 
-     * @param prices 价格序列
-     * @param period RSI计算周期
-     * @return double RSI值
+     * 对单个标的增量求值
+     *
+     * <p>与批量路径使用相同的条件和评分，价格趋势取该标的最近 N+1 根 bar 的首尾收益率，
+     * 成交量趋势按同样的均量差分从增量指标推导。</p>
+     *
+     * @param symbolId 标的 id
+     * @param windCode 股票代码
+     * @param out      信号输出
+     * @return true=当前满足超卖反弹信号
      */
-    private double calculateRSI(List<Double> prices, int period) {
-        if (prices.size() <= period) {
-            return 50.0; // 数据不足时返回中性值
-        }
-        
-        List<Double> gains = new ArrayList<>();
-        List<Double> losses = new ArrayList<>();
-        
-        // 计算价格变动
-        for (int i = prices.size() - period; i < prices.size(); i++) {
-            double change = prices.get(i) - prices.get(i - 1);
-            if (change > 0) {
-                gains.add(change);
-                losses.add(0.0);
-            } else {
-                gains.add(0.0);
-                losses.add(-change);
-            }
+    @Override
+    public boolean evaluate(int symbolId, String windCode, SignalRows out) {
+        BarSeries series = barStore.series(symbolId);
+        if (series == null) {
+            return false;
         }
-        
-        // 计算平均增益和平均损失
-        double avgGain = gains.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-        double avgLoss = losses.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-        
-        if (avgLoss == 0) {
-            return 100.0; // 避免除零
+        BarSeriesView bars = series.view(TREND_PERIOD + 1);
+        if (bars.size() <= TREND_PERIOD) {
+            return false;
         }
-        
-        double rs = avgGain / avgLoss;
-        return 100 - (100 / (1 + rs));
+        double price = bars.lastPrice();
+        double priceTrend = (price - bars.price(0)) / bars.price(0);
+        double avgRecent = indicatorEngine.value(symbolId, recentVolumeSlot);
+        double avgPast = 2D * indicatorEngine.value(symbolId, doubleVolumeSlot) - avgRecent;
+        double volumeRatio = avgPast < 1e-6 ? 0D : avgRecent / avgPast;
+        return addIfSignal(out, symbolId, windCode, indicatorEngine.value(symbolId, rsiSlot), priceTrend, volumeRatio, price);
     }
 
     /**
-     * 计算价格趋势
-     * 
-     * @param prices 价格序列
-     * @param days 趋势计算天数
-     * @return double 价格趋势（百分比变化）
+     * 判断单只股票是否满足超卖、企稳和放量条件，满足时写入信号行
+     *
+     * @return true=满足信号条件（即使因 Top N 已满未被写入）
      */
-    private double calculatePriceTrend(List<Double> prices, int days) {
-        if (prices.size() < days + 1) {
-            return 0.0;
-        }
-        
-        double currentPrice = prices.get(prices.size() - 1);
-        double pastPrice = prices.get(prices.size() - 1 - days);
-        return (currentPrice - pastPrice) / pastPrice;
-    }
+    private boolean addIfSignal(SignalRows rows, int symbolId, String windCode, double rsi, double priceTrend,
+                                double volumeRatio, double price) {
+        // RSI超卖条件判断；指标未就绪为 NaN，条件恒为 false
+        double volumeTrend = volumeRatio == 0D ? 0D : volumeRatio - 1;
+        boolean isOversold = rsi < OVERSOLD_THRESHOLD;
+        boolean isPriceStable = Math.abs(priceTrend) < PRICE_STABLE_THRESHOLD; // 价格波动小于2%
+        boolean isVolumeIncreasing = volumeTrend > 0;
 
-    /**
-     * 计算成交量趋势
-     * 
-     * @param volumes 成交量序列
-     * @param days 趋势计算天数
-     * @return double 成交量趋势（百分比变化）
-     */
-    private double calculateVolumeTrend(List<Double> volumes, int days) {
-        if (volumes.size() < days + 1) {
-            return 0.0;
-        }
-        
-        double sumRecent = 0;
-        double sumPast = 0;
-        
-        // 计算近期成交量均值
-        for (int i = volumes.size() - days; i < volumes.size(); i++) {
-            sumRecent += volumes.get(i);
-        }
-        double avgRecent = sumRecent / days;
-        
-        // 计算前期成交量均值
-        for (int i = volumes.size() - 2 * days; i < volumes.size() - days; i++) {
-            if (i >= 0) {
-                sumPast += volumes.get(i);
-            }
+        if (!(isOversold && (isPriceStable || priceTrend > 0) && isVolumeIncreasing)) {
+            return false;
         }
-        double avgPast = sumPast / days;
-        
-        if (avgPast == 0) {
-            return 0.0;
+        double rsiScore = calculateRSIScore(rsi, priceTrend, volumeTrend);
+        int row = rows.add(symbolId, windCode, rsiScore);
+        if (row != SignalRows.REJECTED) {
+            rows.set(row, 0, rsi)
+                    .set(row, 1, priceTrend * 100)
+                    .set(row, 2, volumeTrend * 100)
+                    .set(row, 3, price);
         }
-        
-        return (avgRecent - avgPast) / avgPast;
+        return true;
     }
 
     /**
@@ -313,12 +265,4 @@ public class RSIStrategy implements QuantStrategy {
                 .durationMs(System.currentTimeMillis() - start)
                 .build();
     }
-
-    /**
-     * 内部数据类，用于组织股票数据
-     */
-    private static class StockData {
-        List<Double> prices = new ArrayList<>();
-        List<Double> volumes = new ArrayList<>();
-    }
 }
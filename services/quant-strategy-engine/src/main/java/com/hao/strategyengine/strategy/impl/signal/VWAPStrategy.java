@@ -1,7 +1,14 @@
 package com.hao.strategyengine.strategy.impl.signal;
 
+import com.hao.strategyengine.common.market.BarSeries;
+import com.hao.strategyengine.common.market.BarSeriesView;
+import com.hao.strategyengine.common.market.BarStore;
+import com.hao.strategyengine.common.market.indicator.IndicatorEngine;
+import com.hao.strategyengine.common.market.indicator.IndicatorType;
 import com.hao.strategyengine.common.model.core.StrategyContext;
+import com.hao.strategyengine.common.model.response.SignalRows;
 import com.hao.strategyengine.common.model.response.StrategyResult;
+import com.hao.strategyengine.strategy.IncrementalStrategy;
 import com.hao.strategyengine.strategy.QuantStrategy;
 import enums.strategy.StrategyMetaEnum;
 import lombok.extern.slf4j.Slf4j;
@@ -29,10 +36,10 @@ import java.util.*;
  *
  * <p><b>核心实现思路:</b></p>
  * <ol>
- *     <li><b>数据准备:</b> 获取股票池及各股票的当日分钟级行情数据（OHLC价格和成交量）。</li>
+ *     <li><b>数据准备:</b> 遍历共享行情存储 {@link BarStore} 中的全部标的，获取当日分钟线（最新价和成交量）的零拷贝视图。</li>
  *     <li><b>指标计算:</b>
  *         <ul>
- *             <li>计算当日至今的VWAP值。</li>
+ *             <li>读取 {@link IndicatorEngine} 增量累计的当日VWAP值。</li>
  *             <li>计算当前价格与VWAP的比率，衡量偏离程度。</li>
  *             <li>计算成交量集中度，评估成交量分布的均匀性。</li>
  *             <li>计算日内价格趋势，判断整体走势。</li>
@@ -49,12 +56,14 @@ import java.util.*;
  *     <li><b>结果构建:</b> 对满足条件的股票按评分降序排序，并截取前N名。</li>
  * </ol>
  *
+ * <p>同时实现 {@link IncrementalStrategy}：行情流写入新 bar 后只对该标的按同一套条件与评分求值。</p>
+ *
  * @author hli
  * @date 2025-10-22
  */
 @Slf4j
 @Component
-public class VWAPStrategy implements QuantStrategy {
+public class VWAPStrategy implements QuantStrategy, IncrementalStrategy {
 
     // ================== 常量定义 ==================
     private static final double PRICE_VWAP_RATIO_THRESHOLD = 1.02; // 价格高于VWAP的阈值
@@ -62,6 +71,19 @@ public class VWAPStrategy implements QuantStrategy {
     private static final double INTRADAY_TREND_THRESHOLD = 0.005; // 日内上涨趋势阈值
     private static final int MIN_DATA_POINTS = 30; // 至少需要30分钟的数据
     private static final int MAX_RESULTS = 25;
+    /** 信号特征列 */
+    private static final String[] FEATURES = {"current_price", "vwap", "price_vwap_ratio", "price_vwap_deviation",
+            "volume_concentration", "intraday_trend"};
+
+    private final BarStore barStore;
+    private final IndicatorEngine indicatorEngine;
+    private final int vwapSlot;
+
+    public VWAPStrategy(BarStore barStore, IndicatorEngine indicatorEngine) {
+        this.barStore = barStore;
+        this.indicatorEngine = indicatorEngine;
+        this.vwapSlot = indicatorEngine.register(IndicatorType.VWAP, 0);
+    }
 
     @Override
     public String getId() {
@@ -80,64 +102,24 @@ public class VWAPStrategy implements QuantStrategy {
         log.info("开始执行VWAP策略|Execute_vwap_strategy_start");
 
         try {
-            // TODO: 从context获取真实股票池
-            List<String> stockPool = getStockPool();
-            List<Map<String, Object>> selectedStocks = new ArrayList<>();
-
-            for (String stockCode : stockPool) {
-                // TODO: 从context获取真实分钟级行情数据
-                List<PriceVolumeData> minuteData = getMinutePriceVolumeData(stockCode);
-
-                if (minuteData.size() < MIN_DATA_POINTS) {
-                    log.warn("分钟数据不足_跳过计算|Minute_data_insufficient_skip_calculation,stockCode={},dataSize={}", stockCode, minuteData.size());
+            int candidateCount = barStore.symbols().size();
+            SignalRows selectedStocks = SignalRows.topK(FEATURES, MAX_RESULTS);
+            // 成交量集中度计算的排序缓冲区，按标的复用，避免逐只分配
+            double[] volumeBuffer = new double[barStore.capacity()];
+
+            for (int symbolId = 0; symbolId < candidateCount; symbolId++) {
+                BarSeries series = barStore.series(symbolId);
+                if (series == null) {
                     continue;
                 }
-
-                // 计算VWAP
-                double vwap = calculateVWAP(minuteData);
-                if (vwap < 1e-6) {
-                    log.warn("VWAP计算结果为零_跳过|VWAP_is_zero_skip,stockCode={}", stockCode);
-                    continue;
-                }
-                
-                double currentPrice = minuteData.get(minuteData.size() - 1).close;
-                double priceVwapRatio = currentPrice / vwap;
-
-                // 计算成交量集中度（避免成交量过于集中）
-                double volumeConcentration = calculateVolumeConcentration(minuteData);
-                double priceTrend = calculateIntradayPriceTrend(minuteData);
-
-                // VWAP选股条件
-                boolean isPriceAboveVWAP = priceVwapRatio > PRICE_VWAP_RATIO_THRESHOLD;
-                boolean isVolumeDistributed = volumeConcentration < VOLUME_CONCENTRATION_THRESHOLD;
-                boolean isUptrend = priceTrend > INTRADAY_TREND_THRESHOLD;
-
-                if (isPriceAboveVWAP && isVolumeDistributed && isUptrend) {
-                    double vwapScore = calculateVWAPScore(priceVwapRatio, volumeConcentration, priceTrend);
-
-                    Map<String, Object> stockSignal = new HashMap<>();
-                    stockSignal.put("wind_code", stockCode);
-                    stockSignal.put("signal_score", vwapScore);
-                    stockSignal.put("current_price", currentPrice);
-                    stockSignal.put("vwap", vwap);
-                    stockSignal.put("price_vwap_ratio", priceVwapRatio);
-                    stockSignal.put("price_vwap_deviation", (priceVwapRatio - 1) * 100);
-                    stockSignal.put("volume_concentration", volumeConcentration);
-                    stockSignal.put("intraday_trend", priceTrend * 100);
-                    selectedStocks.add(stockSignal);
-                }
+                evaluate(symbolId, series, barStore.symbols().code(symbolId), selectedStocks, volumeBuffer);
             }
 
             // 按VWAP信号分数降序排列
-            selectedStocks.sort((a, b) ->
-                    Double.compare((Double) b.get("signal_score"), (Double) a.get("signal_score")));
-
-            if (selectedStocks.size() > MAX_RESULTS) {
-                selectedStocks = selectedStocks.subList(0, MAX_RESULTS);
-            }
+            selectedStocks.sortByScoreDescending();
 
             log.info("VWAP策略执行完成|Vwap_strategy_execution_finished,selectedCount={},candidateCount={}",
-                    selectedStocks.size(), stockPool.size());
+                    selectedStocks.size(), candidateCount);
 
             return StrategyResult.builder()
                     .strategyId(getId())
@@ -151,53 +133,108 @@ public class VWAPStrategy implements QuantStrategy {
         }
     }
 
+    @Override
+    public String[] features() {
+        return FEATURES;
+    }
+
+    /**
+     * 对单个标的增量求值
+     *
+     * @param symbolId 标的 id
+     * @param windCode 股票代码
+     * @param out      信号输出
+     * @return true=当前满足 VWAP 强势信号
+     */
+    @Override
+    public boolean evaluate(int symbolId, String windCode, SignalRows out) {
+        BarSeries series = barStore.series(symbolId);
+        return series != null && evaluate(symbolId, series, windCode, out, null);
+    }
+
     /**
-     * 计算VWAP（成交量加权平均价格）
+     * 判断单只股票是否满足 VWAP 强势条件，满足时写入信号行
      *
-     * @param data 分时价格成交量数据
-     * @return double VWAP值
+     * @param volumeBuffer 复用的排序缓冲区，为 null 时按当日 bar 数临时分配
+     * @return true=满足信号条件（即使因 Top N 已满未被写入）
      */
-    private double calculateVWAP(List<PriceVolumeData> data) {
-        double cumulativeTypicalPriceVolume = 0;
-        double cumulativeVolume = 0;
-
-        for (PriceVolumeData item : data) {
-            double typicalPrice = (item.high + item.low + item.close) / 3;
-            cumulativeTypicalPriceVolume += typicalPrice * item.volume;
-            cumulativeVolume += item.volume;
+    private boolean evaluate(int symbolId, BarSeries series, String stockCode, SignalRows selectedStocks,
+                             double[] volumeBuffer) {
+        BarSeriesView minuteBars = series.intradayView(BarStore.MARKET_ZONE.getTotalSeconds());
+
+        if (minuteBars.size() < MIN_DATA_POINTS) {
+            log.debug("分钟数据不足_跳过计算|Minute_data_insufficient_skip_calculation,stockCode={},dataSize={}", stockCode, minuteBars.size());
+            return false;
         }
 
-        if (cumulativeVolume < 1e-6) {
-            return 0.0;
+        // 计算VWAP
+        double vwap = indicatorEngine.value(symbolId, vwapSlot);
+        if (Double.isNaN(vwap) || vwap < 1e-6) {
+            log.warn("VWAP计算结果为零_跳过|VWAP_is_zero_skip,stockCode={}", stockCode);
+            return false;
         }
 
-        return cumulativeTypicalPriceVolume / cumulativeVolume;
+        double currentPrice = minuteBars.lastPrice();
+        double priceVwapRatio = currentPrice / vwap;
+
+        // 计算成交量集中度（避免成交量过于集中）
+        double volumeConcentration = calculateVolumeConcentration(minuteBars,
+                volumeBuffer != null ? volumeBuffer : new double[minuteBars.size()]);
+        double priceTrend = calculateIntradayPriceTrend(minuteBars);
+
+        // VWAP选股条件
+        boolean isPriceAboveVWAP = priceVwapRatio > PRICE_VWAP_RATIO_THRESHOLD;
+        boolean isVolumeDistributed = volumeConcentration < VOLUME_CONCENTRATION_THRESHOLD;
+        boolean isUptrend = priceTrend > INTRADAY_TREND_THRESHOLD;
+
+        if (!(isPriceAboveVWAP && isVolumeDistributed && isUptrend)) {
+            return false;
+        }
+        double vwapScore = calculateVWAPScore(priceVwapRatio, volumeConcentration, priceTrend);
+
+        int row = selectedStocks.add(symbolId, stockCode, vwapScore);
+        if (row != SignalRows.REJECTED) {
+            selectedStocks.set(row, 0, currentPrice)
+                    .set(row, 1, vwap)
+                    .set(row, 2, priceVwapRatio)
+                    .set(row, 3, (priceVwapRatio - 1) * 100)
+                    .set(row, 4, volumeConcentration)
+                    .set(row, 5, priceTrend * 100);
+        }
+        return true;
     }
 
     /**
      * 计算成交量集中度
      *
-     * @param data 分时数据
+     * @param bars   当日分钟线视图
+     * @param buffer 复用的排序缓冲区，长度不小于视图长度
      * @return double 成交量集中度（0-1之间，越小分布越均匀）
      */
-    private double calculateVolumeConcentration(List<PriceVolumeData> data) {
-        if (data.isEmpty()) {
+    private double calculateVolumeConcentration(BarSeriesView bars, double[] buffer) {
+        int size = bars.size();
+        if (size == 0) {
             return 0.0;
         }
 
         // 计算总成交量
-        double totalVolume = data.stream().mapToDouble(d -> d.volume).sum();
+        double totalVolume = 0;
+        for (int i = 0; i < size; i++) {
+            buffer[i] = bars.volume(i);
+            totalVolume += buffer[i];
+        }
         if (totalVolume < 1e-6) {
             return 0.0;
         }
 
-        // 按成交量排序，计算前20%时间段的成交量占比
-        List<PriceVolumeData> sortedData = new ArrayList<>(data);
-        sortedData.sort((a, b) -> Double.compare(b.volume, a.volume));
+        // 按成交量升序排序，计算前20%时间段（尾部最大值）的成交量占比
+        Arrays.sort(buffer, 0, size);
 
-        int topCount = Math.max(1, sortedData.size() / 5); // 前20%
-        double topVolume = sortedData.subList(0, topCount).stream()
-                .mapToDouble(d -> d.volume).sum();
+        int topCount = Math.max(1, size / 5); // 前20%
+        double topVolume = 0;
+        for (int i = size - topCount; i < size; i++) {
+            topVolume += buffer[i];
+        }
 
         return topVolume / totalVolume;
     }
@@ -205,16 +242,16 @@ public class VWAPStrategy implements QuantStrategy {
     /**
      * 计算日内价格趋势
      *
-     * @param data 分时数据
+     * @param bars 当日分钟线视图
      * @return double 价格趋势（收益率）
      */
-    private double calculateIntradayPriceTrend(List<PriceVolumeData> data) {
-        if (data.size() < 2) {
+    private double calculateIntradayPriceTrend(BarSeriesView bars) {
+        if (bars.size() < 2) {
             return 0.0;
         }
 
-        double startPrice = data.get(0).close;
-        double endPrice = data.get(data.size() - 1).close;
+        double startPrice = bars.price(0);
+        double endPrice = bars.lastPrice();
 
         if (startPrice < 1e-6) {
             return 0.0;
@@ -245,49 +282,6 @@ public class VWAPStrategy implements QuantStrategy {
         return deviationScore * 0.5 + distributionScore * 0.3 + trendScore * 0.2;
     }
 
-    /**
-     * 获取股票池
-     * @return 股票代码列表
-     */
-    private List<String> getStockPool() {
-        // TODO: 模拟股票池 - 实际应从数据源获取
-        return Arrays.asList(
-                "000001.SZ", "000002.SZ", "000063.SZ", "000333.SZ", "000338.SZ",
-                "000651.SZ", "000725.SZ", "000768.SZ", "000858.SZ", "000876.SZ",
-                "600000.SH", "600015.SH", "600016.SH", "600028.SH", "600030.SH",
-                "600036.SH", "600048.SH", "600104.SH", "600276.SH", "600519.SH"
-        );
-    }
-
-    /**
-     * 模拟获取分时价格成交量数据
-     */
-    private List<PriceVolumeData> getMinutePriceVolumeData(String stockCode) {
-        // TODO: 模拟数据 - 实际应从数据源获取
-        List<PriceVolumeData> data = new ArrayList<>();
-        Random random = new Random();
-        double basePrice = 15.0 + random.nextDouble() * 85;
-
-        // 模拟一天的分时数据（240分钟）
-        for (int i = 0; i < 240; i++) {
-            PriceVolumeData item = new PriceVolumeData();
-            double variation = (random.nextDouble() - 0.5) * 0.02; // ±1%波动
-
-            item.open = basePrice * (1 + variation);
-            item.close = basePrice * (1 + variation + (random.nextDouble() - 0.5) * 0.01);
-            item.high = Math.max(item.open, item.close) * (1 + random.nextDouble() * 0.005);
-            item.low = Math.min(item.open, item.close) * (1 - random.nextDouble() * 0.005);
-            item.volume = 100000 + random.nextDouble() * 900000; // 10万-100万成交量
-
-            data.add(item);
-
-            // 轻微趋势
-            basePrice *= (1 + (random.nextDouble() - 0.48) * 0.001);
-        }
-
-        return data;
-    }
-
     /**
      * 构建错误的策略结果
      * @param start 策略开始时间
@@ -304,15 +298,4 @@ public class VWAPStrategy implements QuantStrategy {
                 .durationMs(System.currentTimeMillis() - start)
                 .build();
     }
-
-    /**
-     * 分时数据内部类
-     */
-    private static class PriceVolumeData {
-        double open;
-        double high;
-        double low;
-        double close;
-        double volume;
-    }
 }
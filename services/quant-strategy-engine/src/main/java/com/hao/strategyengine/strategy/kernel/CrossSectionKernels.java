@@ -0,0 +1,98 @@
+package com.hao.strategyengine.strategy.kernel;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 截面计算内核 (Cross-Section Kernels)
+ *
+ * <p><b>类职责:</b></p>
+ * <p>对 {@link com.hao.strategyengine.common.market.UniverseFrame} 的整列数据做逐元素运算，
+ * 覆盖收益率、Z-score、比率、布林带突破幅度与加权累加等信号策略的公共计算。</p>
+ *
+ * <p><b>实现选择:</b></p>
+ * <ul>
+ *     <li>{@link VectorCrossSectionKernels}：基于 {@code jdk.incubator.vector} 的 SIMD 实现，需以
+ *     {@code --add-modules jdk.incubator.vector} 启动；打包运行时由镜像中的 {@code JDK_JAVA_OPTIONS} 带上该参数。</li>
+ *     <li>{@link ScalarCrossSectionKernels}：标量实现，模块不可用时自动降级并输出 WARN，同时作为结果校验基准。</li>
+ * </ul>
+ * <p>两种实现只使用 IEEE 754 逐元素的加减乘除，结果逐位一致。</p>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+public interface CrossSectionKernels {
+
+    /**
+     * 区间收益率：out[i] = (current[i] - past[i]) / past[i]
+     */
+    void returns(double[] current, double[] past, double[] out, int n);
+
+    /**
+     * Z-score：out[i] = (value[i] - mean[i]) / std[i]，std 过小时为 NaN
+     */
+    void zScores(double[] value, double[] mean, double[] std, double[] out, int n);
+
+    /**
+     * 比率：out[i] = numerator[i] / denominator[i]，分母过小时为 0
+     */
+    void ratios(double[] numerator, double[] denominator, double[] out, int n);
+
+    /**
+     * 布林带上轨突破幅度：upper = mid + k * std，out[i] = (price[i] - upper) / upper
+     */
+    void bandBreach(double[] price, double[] mid, double[] std, double k, double[] out, int n);
+
+    /**
+     * 加权累加：out[i] += weight * x[i]
+     */
+    void axpy(double weight, double[] x, double[] out, int n);
+
+    /**
+     * 内核名称，用于日志
+     */
+    String name();
+
+    /**
+     * 选择当前 JVM 可用的最优实现
+     */
+    static CrossSectionKernels best() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * 标量实现
+     */
+    static CrossSectionKernels scalar() {
+        return ScalarCrossSectionKernels.INSTANCE;
+    }
+
+    @Slf4j
+    final class Holder {
+
+        static final CrossSectionKernels INSTANCE = resolve();
+
+        private Holder() {
+        }
+
+        private static CrossSectionKernels resolve() {
+            if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+                // java -jar 启动未带模块参数时走到这里，生产环境应通过 JDK_JAVA_OPTIONS 或启动脚本补上
+                log.warn("向量模块未加载_降级标量|Vector_module_absent_fallback_scalar,kernels={},hint={}",
+                        ScalarCrossSectionKernels.INSTANCE.name(), "--add-modules jdk.incubator.vector");
+                return ScalarCrossSectionKernels.INSTANCE;
+            }
+            try {
+                CrossSectionKernels kernels = (CrossSectionKernels) Class
+                        .forName("com.hao.strategyengine.strategy.kernel.VectorCrossSectionKernels")
+                        .getDeclaredConstructor()
+                        .newInstance();
+                log.info("截面内核选择_向量化|Cross_section_kernels_selected,kernels={}", kernels.name());
+                return kernels;
+            } catch (Throwable e) {
+                log.warn("向量内核加载失败_降级标量|Vector_kernels_unavailable_fallback_scalar,kernels={}",
+                        ScalarCrossSectionKernels.INSTANCE.name(), e);
+                return ScalarCrossSectionKernels.INSTANCE;
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.hao.strategyengine.strategy.kernel;
+
+/**
+ * 截面计算标量实现，向量模块不可用时的降级路径与结果校验基准
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+final class ScalarCrossSectionKernels implements CrossSectionKernels {
+
+    static final ScalarCrossSectionKernels INSTANCE = new ScalarCrossSectionKernels();
+
+    static final double EPSILON = 1e-6;
+
+    private ScalarCrossSectionKernels() {
+    }
+
+    @Override
+    public void returns(double[] current, double[] past, double[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = (current[i] - past[i]) / past[i];
+        }
+    }
+
+    @Override
+    public void zScores(double[] value, double[] mean, double[] std, double[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = std[i] < EPSILON ? Double.NaN : (value[i] - mean[i]) / std[i];
+        }
+    }
+
+    @Override
+    public void ratios(double[] numerator, double[] denominator, double[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = denominator[i] < EPSILON ? 0D : numerator[i] / denominator[i];
+        }
+    }
+
+    @Override
+    public void bandBreach(double[] price, double[] mid, double[] std, double k, double[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            double upper = std[i] * k + mid[i];
+            out[i] = (price[i] - upper) / upper;
+        }
+    }
+
+    @Override
+    public void axpy(double weight, double[] x, double[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] += weight * x[i];
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
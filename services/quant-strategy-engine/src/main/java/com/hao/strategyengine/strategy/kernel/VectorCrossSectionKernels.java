@@ -0,0 +1,104 @@
+package com.hao.strategyengine.strategy.kernel;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 截面计算 SIMD 实现（jdk.incubator.vector）
+ *
+ * <p>主循环按 {@link #SPECIES} 的 lane 数整块处理，尾部不足一个向量的元素走标量循环；
+ * 条件分支用掩码 blend 表达，保持与 {@link ScalarCrossSectionKernels} 逐位一致。</p>
+ *
+ * <p>仅通过 {@link CrossSectionKernels#best()} 反射加载，避免在未开启向量模块的 JVM 上触发类加载错误。</p>
+ *
+ * @author hli
+ * @date 2026-10-16
+ */
+final class VectorCrossSectionKernels implements CrossSectionKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final double EPSILON = ScalarCrossSectionKernels.EPSILON;
+
+    @Override
+    public void returns(double[] current, double[] past, double[] out, int n) {
+        int i = 0;
+        int bound = SPECIES.loopBound(n);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector c = DoubleVector.fromArray(SPECIES, current, i);
+            DoubleVector p = DoubleVector.fromArray(SPECIES, past, i);
+            c.sub(p).div(p).intoArray(out, i);
+        }
+        for (; i < n; i++) {
+            out[i] = (current[i] - past[i]) / past[i];
+        }
+    }
+
+    @Override
+    public void zScores(double[] value, double[] mean, double[] std, double[] out, int n) {
+        int i = 0;
+        int bound = SPECIES.loopBound(n);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, value, i);
+            DoubleVector m = DoubleVector.fromArray(SPECIES, mean, i);
+            DoubleVector s = DoubleVector.fromArray(SPECIES, std, i);
+            VectorMask<Double> flat = s.compare(VectorOperators.LT, EPSILON);
+            v.sub(m).div(s).blend(Double.NaN, flat).intoArray(out, i);
+        }
+        for (; i < n; i++) {
+            out[i] = std[i] < EPSILON ? Double.NaN : (value[i] - mean[i]) / std[i];
+        }
+    }
+
+    @Override
+    public void ratios(double[] numerator, double[] denominator, double[] out, int n) {
+        int i = 0;
+        int bound = SPECIES.loopBound(n);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector a = DoubleVector.fromArray(SPECIES, numerator, i);
+            DoubleVector b = DoubleVector.fromArray(SPECIES, denominator, i);
+            VectorMask<Double> tiny = b.compare(VectorOperators.LT, EPSILON);
+            a.div(b).blend(0D, tiny).intoArray(out, i);
+        }
+        for (; i < n; i++) {
+            out[i] = denominator[i] < EPSILON ? 0D : numerator[i] / denominator[i];
+        }
+    }
+
+    @Override
+    public void bandBreach(double[] price, double[] mid, double[] std, double k, double[] out, int n) {
+        int i = 0;
+        int bound = SPECIES.loopBound(n);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector p = DoubleVector.fromArray(SPECIES, price, i);
+            DoubleVector m = DoubleVector.fromArray(SPECIES, mid, i);
+            DoubleVector s = DoubleVector.fromArray(SPECIES, std, i);
+            DoubleVector upper = s.mul(k).add(m);
+            p.sub(upper).div(upper).intoArray(out, i);
+        }
+        for (; i < n; i++) {
+            double upper = std[i] * k + mid[i];
+            out[i] = (price[i] - upper) / upper;
+        }
+    }
+
+    @Override
+    public void axpy(double weight, double[] x, double[] out, int n) {
+        int i = 0;
+        int bound = SPECIES.loopBound(n);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector xv = DoubleVector.fromArray(SPECIES, x, i);
+            DoubleVector o = DoubleVector.fromArray(SPECIES, out, i);
+            xv.mul(weight).add(o).intoArray(out, i);
+        }
+        for (; i < n; i++) {
+            out[i] += weight * x[i];
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector-" + SPECIES.length() + "x" + SPECIES.elementSize();
+    }
+}
@@ -1,10 +1,14 @@
 package com.hao.strategyengine.strategy.lock;
 
+import com.hao.strategyengine.common.codec.StrategyResultCodec;
 import com.hao.strategyengine.common.model.response.StrategyResultBundle;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
 import org.redisson.api.RLock;
+import org.redisson.api.RTopic;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
@@ -20,11 +24,12 @@ import java.util.function.Supplier;
  * ⦿ 本类用于控制“策略组合计算”的并发执行。
  * ⦿ 核心目标：确保同一组合（comboKey）在多实例环境下只被计算一次。
  * <p>
- * 【核心思路】：
- * - 使用 Redisson 实现 Redis 分布式锁；
- * - 若当前线程成功获取锁 → 执行计算（compute.get()）；
- * - 若已有线程在计算 → 等待其完成，通过 CompletableFuture 获取结果；
- * - 所有等待者共享一个 pending future，避免重复计算。
+ * 【核心思路】（两级 single-flight）：
+ * - 第一级（进程内）：同一 comboKey 的请求先在本地 pending 表合并，第一个到达者成为本节点“代表”，
+ *   其余线程直接等待代表的 future，不产生任何 Redis 往返；
+ * - 第二级（集群）：只有代表去竞争 Redisson 分布式锁：
+ *   · 抢到锁 → 执行计算（compute.get()），完成本地 future，并把结果写入短 TTL 结果桶、通过 Redis pub/sub 广播；
+ *   · 未抢到 → 订阅结果主题，先查结果桶（防止错过刚发出的广播），再等待广播完成本地 future。
  * <p>
  * 【调用位置】：
  * ◉ Facade 层（StrategyEngineFacade） → Step 4 调用
@@ -40,12 +45,15 @@ import java.util.function.Supplier;
  * <p>
  * 【优势】：
  *  防止同一策略组合被多节点重复计算（幂等保证）
- *  支持集群下锁自动过期释放（30秒 lease）
+ *  不指定 leaseTime，由 Redisson 看门狗续期（默认 30 秒租约，每 10 秒续一次）：计算期间锁不会过期，
+ *  持锁节点宕机后续期停止，锁最迟 30 秒后自动释放
  *  轻量实现的 Future 等待机制，节省系统资源
  * <p>
  * 【局限性】：
- *  若计算耗时超过 30 秒，需要手动续期或调整 leaseTime；
- *  当前实现为非可重入锁（同线程重复获取需谨慎）。
+ *  固定 leaseTime 会在计算未结束时提前释放锁（请求截止时间为 strategy.engine.request-timeout-ms，默认 3 秒），
+ *  其他节点随即重复计算，因此不要改回固定租约；
+ *  当前实现为非可重入锁（同线程重复获取需谨慎）；
+ *  持锁节点计算失败时不广播，远端等待者仍按 5 秒超时失败。
  */
 @Slf4j
 @Service
@@ -58,12 +66,31 @@ public class DistributedLockService {
     private final RedissonClient redisson;
 
     /**
-     * 本地等待映射表：
+     * 跨节点结果广播主题，消息格式：comboKey + '\n' + Base64(StrategyResultCodec)
+     */
+    static final String RESULT_TOPIC = "combo:result";
+
+    /**
+     * 结果桶 key 前缀：持锁节点计算完成后短暂保留结果，覆盖“广播先于订阅”的竞态
+     */
+    private static final String RESULT_BUCKET_PREFIX = "combo:result:";
+
+    private static final long RESULT_BUCKET_TTL_SECONDS = 5;
+
+    private static final long WAIT_TIMEOUT_SECONDS = 5;
+
+    /**
+     * 本地 single-flight 映射表：
      * - key：组合策略 key（comboKey）
-     * - value：等待结果的 Future（多个线程共享等待）
+     * - value：本节点代表线程的结果 Future（代表与所有本地等待者共享）
      */
     private final Map<String, CompletableFuture<StrategyResultBundle>> pending = new ConcurrentHashMap<>();
 
+    /**
+     * 是否已订阅结果主题（懒订阅，仅在首次抢锁失败时建立）
+     */
+    private volatile boolean subscribed;
+
     /**
      * ===============================================================
      * 【方法名】：acquireOrWait
@@ -81,53 +108,76 @@ public class DistributedLockService {
      *                 StrategyResultBundle（策略结果聚合包）
      *                 <p>
      *                 【执行逻辑】：
-     *                 ① 尝试立即获取锁（非阻塞，leaseTime=30s）
-     *                 ② 若成功：执行 compute 并唤醒等待者
-     *                 ③ 若失败：阻塞等待 pending future 结果
-     *                 ④ 若等待超时：抛出 RuntimeException
+     *                 ① 本地已有同 key 代表 → 直接等待其结果，不访问 Redis
+     *                 ② 否则成为代表，尝试立即获取锁（非阻塞）
+     *                 ③ 若成功：执行 compute，唤醒本地等待者并广播结果
+     *                 ④ 若失败：订阅广播、检查结果桶，阻塞等待 pending future 结果
+     *                 ⑤ 若等待超时：抛出 RuntimeException
      */
     public StrategyResultBundle acquireOrWait(String comboKey, Supplier<StrategyResultBundle> compute) {
-        // Step 1⃣ 拼接分布式锁 key
+        // Step 1⃣ 进程内合并：第一个到达者成为代表，其余线程直接等待代表的结果
+        CompletableFuture<StrategyResultBundle> mine = new CompletableFuture<>();
+        CompletableFuture<StrategyResultBundle> existing = pending.putIfAbsent(comboKey, mine);
+        if (existing != null) {
+            log.info("本地合并请求_等待代表线程结果|Local_single_flight_join,comboKey={},Thread={}",
+                    comboKey, Thread.currentThread().getName());
+            return await(comboKey, existing);
+        }
+        try {
+            return represent(comboKey, compute, mine);
+        } finally {
+            pending.remove(comboKey, mine);
+        }
+    }
+
+    /**
+     * 代表本节点竞争分布式锁
+     */
+    private StrategyResultBundle represent(String comboKey, Supplier<StrategyResultBundle> compute,
+                                           CompletableFuture<StrategyResultBundle> future) {
+        // Step 2⃣ 拼接分布式锁 key
         String lockName = "lock:combo:" + comboKey;
         RLock lock = redisson.getLock(lockName);
         boolean acquired = false;
         try {
-            // Step 2⃣ 尝试立即获取锁（非阻塞），自动过期 3 秒
-            acquired = lock.tryLock(0, 1, TimeUnit.SECONDS);
+            // Step 3⃣ 尝试立即获取锁（非阻塞）；leaseTime=-1 启用看门狗，持锁期间自动续期直到 unlock
+            acquired = lock.tryLock(0, -1, TimeUnit.SECONDS);
 
             if (acquired) {
                 log.info("获取锁成功，Thread={}", Thread.currentThread().getName());
-                // Step 3⃣ 当前线程成功获取锁 → 执行策略计算
-                StrategyResultBundle result = compute.get();
-
-                // Step 4⃣ 唤醒等待中的任务（如果存在）
-                //todo 在真正的分布式环境下，本地 pending 只对单机有效，可能让多实例高并发时出现重复计算或等待超时
-                CompletableFuture<StrategyResultBundle> waiting = pending.remove(comboKey);
-                if (waiting != null) {
-                    waiting.complete(result);
+                // Step 4⃣ 当前线程成功获取锁 → 执行策略计算，唤醒本地等待者并广播给其他节点
+                StrategyResultBundle result;
+                try {
+                    result = compute.get();
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                    throw e;
                 }
-
+                future.complete(result);
+                broadcast(comboKey, result);
                 return result;
-            } else {
-                log.info("获取锁失败，已有线程在计算_→_等待_pending_future，Thread={}", Thread.currentThread().getName());
-                // Step 5⃣ 已有线程在计算 → 等待 pending future
-                CompletableFuture<StrategyResultBundle> future =
-                        pending.computeIfAbsent(comboKey, k -> new CompletableFuture<>());
+            }
 
-                try {
-                    // Step 6⃣ 等待计算结果（最多等待 5 秒）
-                    return future.get(5, TimeUnit.SECONDS);
-                } catch (TimeoutException te) {
-                    throw new RuntimeException("等待计算超时：" + comboKey);
-                } catch (ExecutionException e) {
-                    throw new RuntimeException("计算执行异常：" + comboKey, e);
-                }
+            log.info("获取锁失败，已有节点在计算_→_等待结果广播，Thread={}", Thread.currentThread().getName());
+            // Step 5⃣ 已有节点在计算 → 订阅广播并检查结果桶，等待 pending future
+            subscribe();
+            StrategyResultBundle ready = readResultBucket(comboKey);
+            if (ready != null) {
+                future.complete(ready);
+            }
+            try {
+                return await(comboKey, future);
+            } catch (RuntimeException e) {
+                // 本地等待者与代表同时失败，避免各自再等满超时
+                future.completeExceptionally(e);
+                throw e;
             }
         } catch (InterruptedException ie) {
             Thread.currentThread().interrupt();
+            future.completeExceptionally(ie);
             throw new RuntimeException("线程中断：" + comboKey, ie);
         } finally {
-            // Step 7⃣ 若当前线程持有锁，释放锁
+            // Step 6⃣ 若当前线程持有锁，释放锁
             if (acquired) {
                 try {
                     lock.unlock();
@@ -136,4 +186,83 @@ public class DistributedLockService {
             }
         }
     }
+
+    /**
+     * 等待结果（最多 5 秒）
+     */
+    private StrategyResultBundle await(String comboKey, CompletableFuture<StrategyResultBundle> future) {
+        try {
+            return future.get(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException te) {
+            throw new RuntimeException("等待计算超时：" + comboKey);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("计算执行异常：" + comboKey, e.getCause());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("线程中断：" + comboKey, ie);
+        }
+    }
+
+    /**
+     * 写结果桶并广播结果；Redis 异常只影响远端等待者，不影响本次返回
+     */
+    private void broadcast(String comboKey, StrategyResultBundle result) {
+        try {
+            String payload = StrategyResultCodec.encodeToString(result);
+            RBucket<String> bucket = redisson.getBucket(RESULT_BUCKET_PREFIX + comboKey, StringCodec.INSTANCE);
+            bucket.set(payload, RESULT_BUCKET_TTL_SECONDS, TimeUnit.SECONDS);
+            RTopic topic = redisson.getTopic(RESULT_TOPIC, StringCodec.INSTANCE);
+            topic.publish(comboKey + '\n' + payload);
+        } catch (RuntimeException e) {
+            log.warn("组合结果广播失败|Combo_result_broadcast_failed,comboKey={}", comboKey, e);
+        }
+    }
+
+    private StrategyResultBundle readResultBucket(String comboKey) {
+        try {
+            RBucket<String> bucket = redisson.getBucket(RESULT_BUCKET_PREFIX + comboKey, StringCodec.INSTANCE);
+            String payload = bucket.get();
+            return payload == null ? null : StrategyResultCodec.decodeBundle(payload);
+        } catch (RuntimeException e) {
+            log.warn("读取组合结果桶失败|Combo_result_bucket_read_failed,comboKey={}", comboKey, e);
+            return null;
+        }
+    }
+
+    /**
+     * 懒订阅结果主题：收到广播后完成本地同 key 的 pending future
+     */
+    private void subscribe() {
+        if (subscribed) {
+            return;
+        }
+        synchronized (this) {
+            if (subscribed) {
+                return;
+            }
+            try {
+                RTopic topic = redisson.getTopic(RESULT_TOPIC, StringCodec.INSTANCE);
+                topic.addListener(String.class, (channel, message) -> onRemoteResult(message));
+                subscribed = true;
+                log.info("订阅组合结果广播|Combo_result_topic_subscribed,topic={}", RESULT_TOPIC);
+            } catch (RuntimeException e) {
+                log.warn("订阅组合结果广播失败_降级为超时等待|Combo_result_subscribe_failed,topic={}", RESULT_TOPIC, e);
+            }
+        }
+    }
+
+    void onRemoteResult(String message) {
+        int split = message.indexOf('\n');
+        if (split <= 0) {
+            return;
+        }
+        CompletableFuture<StrategyResultBundle> waiting = pending.get(message.substring(0, split));
+        if (waiting == null || waiting.isDone()) {
+            return;
+        }
+        StrategyResultBundle bundle = StrategyResultCodec.decodeBundle(message.substring(split + 1));
+        if (bundle != null) {
+            waiting.complete(bundle);
+        }
+    }
 }
@@ -0,0 +1,178 @@
+package com.hao.strategyengine.api.controller;
+
+import com.hao.strategyengine.common.model.response.StrategyResult;
+import com.hao.strategyengine.common.model.response.StrategyResultBundle;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * StrategyEventStream 单元测试
+ *
+ * <p>覆盖逐策略推送与进度、结果包补推与去重、汇总后关闭、心跳、客户端断开回调以及慢客户端不阻塞调用线程。</p>
+ */
+class StrategyEventStreamTest {
+
+    /** 在调用线程上同步发送，便于断言 */
+    private static final Executor DIRECT = Runnable::run;
+
+    @Test
+    void streamsResultsThenBackfillsAndSummarizes() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        StrategyEventStream stream = new StrategyEventStream(emitter, 3, DIRECT);
+
+        stream.onResult(result("A", true));
+        stream.onResult(result("A", true));
+        stream.onBundle(new StrategyResultBundle("A_B_C", List.of(result("A", true), result("B", false), result("C", true))));
+
+        assertThat(emitter.names()).containsExactly(
+                "result", "progress", "result", "progress", "result", "progress", "summary");
+        assertThat(emitter.completed).isTrue();
+        assertThat(emitter.lastData()).isEqualTo(Map.of(
+                "comboKey", "A_B_C", "total", 3, "succeeded", 2, "failed", 1, "elapsedMs", emitter.lastElapsed()));
+
+        stream.onResult(result("D", true));
+        assertThat(emitter.names()).hasSize(7);
+    }
+
+    @Test
+    void sendsHeartbeatsUntilClosed() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter();
+        StrategyEventStream stream = new StrategyEventStream(emitter, 1, DIRECT);
+
+        stream.startHeartbeat(20, Executors.newVirtualThreadPerTaskExecutor());
+        assertThat(emitter.heartbeats.await(1, TimeUnit.SECONDS)).isTrue();
+        stream.close();
+        int sent = emitter.names().size();
+        Thread.sleep(100);
+
+        assertThat(emitter.names()).hasSize(sent);
+    }
+
+    @Test
+    void sendFailureTriggersDisconnect() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitter.fail = true;
+        StrategyEventStream stream = new StrategyEventStream(emitter, 2, DIRECT);
+        AtomicBoolean disconnected = new AtomicBoolean();
+        stream.onDisconnect(() -> disconnected.set(true));
+
+        stream.onResult(result("A", true));
+
+        assertThat(disconnected).isTrue();
+        stream.onResult(result("B", true));
+        assertThat(emitter.names()).isEmpty();
+    }
+
+    @Test
+    void slowClientDoesNotBlockTheCallingThread() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter();
+        CountDownLatch release = new CountDownLatch(1);
+        emitter.gate = release;
+        ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+        StrategyEventStream stream = new StrategyEventStream(emitter, 2, sender);
+
+        // 客户端阻塞期间，策略线程上的回调立即返回
+        long start = System.nanoTime();
+        stream.onResult(result("A", true));
+        stream.onResult(result("B", true));
+        stream.onBundle(new StrategyResultBundle("A_B", List.of(result("A", true), result("B", true))));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(500);
+        assertThat(emitter.completed).isFalse();
+
+        // 客户端恢复后按入队顺序写出
+        release.countDown();
+        sender.shutdown();
+        assertThat(sender.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(emitter.names()).containsExactly("result", "progress", "result", "progress", "summary");
+        assertThat(emitter.completed).isTrue();
+    }
+
+    private static StrategyResult result(String id, boolean success) {
+        return StrategyResult.builder().strategyId(id).isSuccess(success).build();
+    }
+
+    /**
+     * 记录事件名称与数据的 SseEmitter
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<Set<DataWithMediaType>> events = new ArrayList<>();
+        private final CountDownLatch heartbeats = new CountDownLatch(2);
+        private volatile boolean fail;
+        private volatile CountDownLatch gate;
+        private volatile boolean completed;
+
+        @Override
+        public synchronized void send(SseEventBuilder builder) throws IOException {
+            if (fail) {
+                throw new IOException("broken pipe");
+            }
+            if (gate != null) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            Set<DataWithMediaType> data = builder.build();
+            events.add(data);
+            if (text(data).contains("event:heartbeat")) {
+                heartbeats.countDown();
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        synchronized List<String> names() {
+            List<String> names = new ArrayList<>();
+            for (Set<DataWithMediaType> event : events) {
+                String text = text(event);
+                int start = text.indexOf("event:") + "event:".length();
+                names.add(text.substring(start, text.indexOf('\n', start)));
+            }
+            return names;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized Map<String, Object> lastData() {
+            for (DataWithMediaType part : events.get(events.size() - 1)) {
+                if (part.getData() instanceof Map<?, ?> map) {
+                    return (Map<String, Object>) map;
+                }
+            }
+            return Map.of();
+        }
+
+        Object lastElapsed() {
+            return lastData().get("elapsedMs");
+        }
+
+        private static String text(Set<DataWithMediaType> event) {
+            StringBuilder sb = new StringBuilder();
+            for (DataWithMediaType part : event) {
+                if (part.getData() instanceof String s) {
+                    sb.append(s);
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.hao.strategyengine.chain;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * MultiDimensionRateLimiter 单元测试
+ *
+ * <p>覆盖脚本参数布局（窗口、逐维度阈值）与返回值到维度下标的映射。</p>
+ */
+class MultiDimensionRateLimiterTest {
+
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    private final MultiDimensionRateLimiter limiter = new MultiDimensionRateLimiter(redis);
+    private final List<String> keys = List.of("rl:global", "rl:user:1", "rl:strategy:SIG_MOMENTUM");
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void singleCallCarriesAllDimensions() {
+        when(redis.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(0L);
+
+        assertThat(limiter.tryAcquire(keys, new int[]{200, 10, 50}, 1)).isEqualTo(MultiDimensionRateLimiter.PASSED);
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(redis).execute(any(RedisScript.class), eq(keys), args.capture());
+        Object[] argv = args.getValue();
+        assertThat(argv).containsExactly("1", "200", "10", "50");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rejectionMapsToDimensionIndex() {
+        when(redis.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(2L);
+
+        assertThat(limiter.tryAcquire(keys, new int[]{200, 10, 50}, 1)).isEqualTo(1);
+        assertThatThrownBy(() -> limiter.tryAcquire(keys, new int[]{200}, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
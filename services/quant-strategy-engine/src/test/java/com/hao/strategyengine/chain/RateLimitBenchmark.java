@@ -0,0 +1,131 @@
+package com.hao.strategyengine.chain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 限流判定吞吐基准：逐维度三次脚本调用 vs 多维度合并单次调用
+ *
+ * <p>需要可访问的 Redis（默认 localhost:6379，可用 -Dredis.host / -Dredis.port 覆盖），
+ * 不参与 mvn test，手动运行 {@link #main(String[])}：</p>
+ * <pre>{@code
+ * mvn -pl services/quant-strategy-engine test-compile exec:java \
+ *     -Dexec.classpathScope=test -Dexec.mainClass=com.hao.strategyengine.chain.RateLimitBenchmark
+ * }</pre>
+ *
+ * <p>阈值设置得足够大，保证每次判定都走完整的"判定 + 写入"路径。</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Threads(8)
+@Fork(1)
+public class RateLimitBenchmark {
+
+    /** 原 RateLimitHandler 的单 key 滑动窗口脚本（逐维度各调用一次） */
+    private static final String LEGACY_SCRIPT =
+            "local key = KEYS[1]\n" +
+                    "local window = tonumber(ARGV[1])\n" +
+                    "local limit = tonumber(ARGV[2])\n" +
+                    "local now = tonumber(ARGV[3])\n" +
+                    "local windowStart = now - window * 1000\n" +
+                    "redis.call('ZREMRANGEBYSCORE', key, 0, windowStart)\n" +
+                    "local current = redis.call('ZCARD', key)\n" +
+                    "if current < limit then\n" +
+                    "    redis.call('ZADD', key, now, now)\n" +
+                    "    redis.call('EXPIRE', key, window + 1)\n" +
+                    "    return 1\n" +
+                    "else\n" +
+                    "    return 0\n" +
+                    "end";
+
+    private static final String PREFIX = "bench:rate_limit:";
+    private static final String LIMIT = "1000000";
+    private static final int[] LIMITS = {1_000_000, 1_000_000, 1_000_000};
+
+    private final AtomicInteger userSeq = new AtomicInteger();
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redis;
+    private DefaultRedisScript<Long> legacyScript;
+    private MultiDimensionRateLimiter combined;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(
+                System.getProperty("redis.host", "localhost"),
+                Integer.getInteger("redis.port", 6379));
+        connectionFactory = new LettuceConnectionFactory(config);
+        connectionFactory.afterPropertiesSet();
+        redis = new StringRedisTemplate(connectionFactory);
+        legacyScript = new DefaultRedisScript<>(LEGACY_SCRIPT, Long.class);
+        combined = new MultiDimensionRateLimiter(redis);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @State(Scope.Thread)
+    public static class UserKeys {
+        List<String> keys;
+        String global;
+        String user;
+        String strategy;
+
+        @Setup(Level.Trial)
+        public void setUp(RateLimitBenchmark bench) {
+            global = PREFIX + "global";
+            user = PREFIX + "user:" + bench.userSeq.incrementAndGet();
+            strategy = PREFIX + "strategy:SIG_MOMENTUM";
+            keys = List.of(global, user, strategy);
+        }
+    }
+
+    @Benchmark
+    public boolean legacySequential(UserKeys k) {
+        String now = String.valueOf(System.currentTimeMillis());
+        return legacy(k.global, now) && legacy(k.user, now) && legacy(k.strategy, now);
+    }
+
+    @Benchmark
+    public int combinedSingleRoundTrip(UserKeys k) {
+        return combined.tryAcquire(k.keys, LIMITS, 1);
+    }
+
+    private boolean legacy(String key, String now) {
+        Long result = redis.execute(legacyScript, Collections.singletonList(key), "1", LIMIT, now);
+        return result != null && result == 1;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(RateLimitBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,83 @@
+package com.hao.strategyengine.chain;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.hao.strategyengine.common.model.core.StrategyContext;
+import com.hao.strategyengine.monitoring.RateLimitMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * RateLimitHandler 策略维度单元测试
+ *
+ * <p>策略维度取自请求的策略ID集合，阈值取 StrategyMetaEnum 的分布式/单机QPS。</p>
+ */
+class RateLimitHandlerStrategyDimensionTest {
+
+    private final MultiDimensionRateLimiter limiter = mock(MultiDimensionRateLimiter.class);
+    private final RateLimitMetrics metrics = mock(RateLimitMetrics.class);
+    private final RateLimitHandler handler = new RateLimitHandler();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(handler, "rateLimitMetrics", metrics);
+        ReflectionTestUtils.setField(handler, "multiDimensionLimiter", limiter);
+        ReflectionTestUtils.setField(handler, "rateLimitEnabled", true);
+        ReflectionTestUtils.setField(handler, "distributedEnabled", true);
+        ReflectionTestUtils.setField(handler, "redisKeyPrefix", "rl:");
+        ReflectionTestUtils.setField(handler, "globalQps", 200);
+        ReflectionTestUtils.setField(handler, "userQps", 10);
+        ReflectionTestUtils.setField(handler, "localGlobalLimiter", RateLimiter.create(200));
+        ReflectionTestUtils.setField(handler, "localUserLimiter", RateLimiter.create(10));
+    }
+
+    @Test
+    void eachKnownStrategyBecomesADimension() throws Exception {
+        when(limiter.tryAcquire(anyList(), any(int[].class), anyInt())).thenReturn(MultiDimensionRateLimiter.PASSED);
+
+        handler.handle(ctx(List.of("SIG_MOM", "UNKNOWN", "sig_mom", "COMBO_ADV")));
+
+        verify(limiter).tryAcquire(
+                eq(List.of("rl:global", "rl:user:1", "rl:strategy:SIG_MOM", "rl:strategy:COMBO_ADV")),
+                eq(new int[]{200, 10, 200, 10}), eq(1));
+    }
+
+    @Test
+    void rejectedStrategyDimensionNamesTheStrategy() {
+        when(limiter.tryAcquire(anyList(), any(int[].class), anyInt())).thenReturn(3);
+
+        assertThatThrownBy(() -> handler.handle(ctx(List.of("SIG_MOM", "COMBO_ADV"))))
+                .isInstanceOfSatisfying(RateLimitHandler.RateLimitException.class, e -> {
+                    assertThat(e.getLimitType()).isEqualTo("STRATEGY_TYPE");
+                    assertThat(e.getStrategyId()).isEqualTo("COMBO_ADV");
+                });
+        verify(metrics).recordRateLimitReject("STRATEGY_TYPE", "1", "COMBO_ADV");
+    }
+
+    @Test
+    void localFallbackAppliesStrategyLocalQps() throws Exception {
+        ReflectionTestUtils.setField(handler, "distributedEnabled", false);
+
+        // COMBO_ADV 单机QPS为3, 新建令牌桶只有一个可立即获取的许可
+        handler.handle(ctx(List.of("COMBO_ADV")));
+        assertThatThrownBy(() -> handler.handle(ctx(List.of("COMBO_ADV"))))
+                .isInstanceOfSatisfying(RateLimitHandler.RateLimitException.class,
+                        e -> assertThat(e.getStrategyId()).isEqualTo("COMBO_ADV"));
+    }
+
+    private static StrategyContext ctx(List<String> strategyIds) {
+        return StrategyContext.builder().userId(1).strategyIds(strategyIds).build();
+    }
+}
@@ -0,0 +1,174 @@
+package com.hao.strategyengine.chain;
+
+import com.hao.strategyengine.common.model.core.StrategyContext;
+import com.hao.strategyengine.core.StrategyHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.annotation.Order;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * StrategyChain 单元测试
+ *
+ * <p>覆盖按 @Order 分阶段、并发阶段耗时取最大值、拒绝短路并取消同阶段处理器、时间预算超时、风控拒绝不消耗限流配额，以及耗时指标。</p>
+ */
+class StrategyChainTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StrategyContext ctx = StrategyContext.builder().userId(1).build();
+    private final List<String> calls = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentStageTakesMaxInsteadOfSum() throws Exception {
+        StrategyChain chain = chain(new Sequential(), new Sleeping("A", 200), new Sleeping("B", 200));
+
+        long start = System.nanoTime();
+        chain.apply(ctx);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(elapsedMs).isLessThan(380);
+        assertThat(calls.get(0)).isEqualTo("seq");
+        assertThat(calls).containsExactlyInAnyOrder("seq", "A", "B");
+        assertThat(meterRegistry.get("strategy.chain.handler.latency").tag("handler", "Sleeping")
+                .tag("outcome", "pass").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectionShortCircuitsAndCancelsSiblings() {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Sleeping slow = new Sleeping("SLOW", 5_000) {
+            @Override
+            public void handle(StrategyContext ctx) {
+                try {
+                    Thread.sleep(5_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }
+        };
+        StrategyHandler reject = new Sleeping("REJECT", 0) {
+            @Override
+            public void handle(StrategyContext ctx) throws Exception {
+                throw new RateLimitHandler.RateLimitException("USER", "too many");
+            }
+        };
+        StrategyChain chain = chain(slow, reject);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> chain.apply(ctx)).isInstanceOf(RateLimitHandler.RateLimitException.class);
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1_000);
+        assertThat(awaitQuietly(interrupted)).isTrue();
+    }
+
+    @Test
+    void sequentialRejectionSkipsLaterStages() {
+        StrategyHandler deny = new Sequential() {
+            @Override
+            public void handle(StrategyContext ctx) {
+                throw new IllegalStateException("denied");
+            }
+        };
+        StrategyChain chain = chain(deny, new Sleeping("A", 0));
+
+        assertThatThrownBy(() -> chain.apply(ctx)).hasMessage("denied");
+        assertThat(calls).isEmpty();
+    }
+
+    @Test
+    void handlerExceedingBudgetIsRejected() {
+        Sleeping slow = new Sleeping("SLOW", 2_000) {
+            @Override
+            public long timeBudgetMs() {
+                return 50;
+            }
+        };
+        StrategyChain chain = chain(slow, new Sleeping("A", 0));
+
+        assertThatThrownBy(() -> chain.apply(ctx))
+                .isInstanceOf(TimeoutException.class)
+                .hasMessageContaining("50ms");
+        assertThat(meterRegistry.find("strategy.chain.handler.latency").tag("outcome", "timeout").timer())
+                .isNotNull();
+    }
+
+    @Test
+    void riskRejectionDoesNotConsumeRateLimitQuota() {
+        MultiDimensionRateLimiter limiter = mock(MultiDimensionRateLimiter.class);
+        RateLimitHandler rateLimit = new RateLimitHandler();
+        ReflectionTestUtils.setField(rateLimit, "multiDimensionLimiter", limiter);
+        ReflectionTestUtils.setField(rateLimit, "rateLimitEnabled", true);
+        ReflectionTestUtils.setField(rateLimit, "distributedEnabled", true);
+        StrategyChain chain = chain(rateLimit, new RiskCheckHandler(), new Sleeping("A", 0));
+        StrategyContext blocked = StrategyContext.builder().userId(1).extra(Map.of("riskBlocked", true)).build();
+
+        // 限流扣减配额有副作用，不与风控同阶段并发，风控拒绝时不会发起 Redis 扣减
+        assertThat(rateLimit.concurrent()).isFalse();
+        assertThatThrownBy(() -> chain.apply(blocked)).hasMessageContaining("风险拦截");
+        verifyNoInteractions(limiter);
+    }
+
+    private StrategyChain chain(StrategyHandler... handlers) {
+        return new StrategyChain(List.of(handlers), executor, meterRegistry, 1_000);
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            return latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Order(1)
+    private class Sequential implements StrategyHandler {
+        @Override
+        public void handle(StrategyContext ctx) {
+            calls.add("seq");
+        }
+    }
+
+    @Order(2)
+    private class Sleeping implements StrategyHandler {
+        private final String name;
+        private final long millis;
+
+        Sleeping(String name, long millis) {
+            this.name = name;
+            this.millis = millis;
+        }
+
+        @Override
+        public void handle(StrategyContext ctx) throws Exception {
+            Thread.sleep(millis);
+            calls.add(name);
+        }
+
+        @Override
+        public boolean concurrent() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.hao.strategyengine.common.cache;
+
+import com.hao.strategyengine.common.market.BarStore;
+import com.hao.strategyengine.common.market.MarketDataVersionRegistry;
+import com.hao.strategyengine.common.model.response.StrategyResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * L1CacheService 近端缓存单元测试
+ *
+ * <p>覆盖并发未命中只回源一次、回源在缓存锁外执行且失败不缓存、版本广播节流与远端版本合并。</p>
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class L1CacheServiceTest {
+
+    @Mock
+    private RedissonClient redissonClient;
+    @Mock
+    private RTopic topic;
+
+    private MarketDataVersionRegistry versionRegistry;
+
+    @BeforeEach
+    void setUp() {
+        versionRegistry = new MarketDataVersionRegistry(new BarStore(16));
+        when(redissonClient.getTopic(anyString(), any())).thenReturn(topic);
+    }
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        L1CacheService l1 = new L1CacheService(redissonClient, versionRegistry, 100, 1000);
+        AtomicInteger loads = new AtomicInteger();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i < threads; i++) {
+                pool.submit(() -> {
+                    start.await();
+                    return l1.get("S1:000001.SZ:v0", () -> {
+                        loads.incrementAndGet();
+                        sleep(50);
+                        return result("S1");
+                    });
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+            assertThat(pool.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void loaderRunsOutsideTheCacheLockAndFailuresAreNotCached() {
+        L1CacheService l1 = new L1CacheService(redissonClient, versionRegistry, 100, 1000);
+        AtomicInteger loads = new AtomicInteger();
+
+        // 回源内部再访问近端缓存（其他 key）不会触发 Caffeine 的递归 compute 异常
+        StrategyResult outer = l1.get("outer", () -> {
+            loads.incrementAndGet();
+            return l1.get("inner", () -> result("inner"));
+        });
+        assertThat(outer.getStrategyId()).isEqualTo("inner");
+
+        assertThatThrownBy(() -> l1.get("k", () -> {
+            loads.incrementAndGet();
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+        // 失败不缓存，下次重新回源
+        assertThat(l1.get("k", () -> {
+            loads.incrementAndGet();
+            return result("v");
+        }).getStrategyId()).isEqualTo("v");
+        assertThat(loads.get()).isEqualTo(3);
+
+        // 命中不再回源
+        assertThat(l1.get("k", () -> result("other")).getStrategyId()).isEqualTo("v");
+    }
+
+    @Test
+    void marketDataBroadcastIsThrottled() {
+        L1CacheService l1 = new L1CacheService(redissonClient, versionRegistry, 100, 60_000);
+
+        l1.onMarketData();
+        l1.onMarketData();
+        l1.onMarketData();
+
+        verify(topic, times(1)).publishAsync(anyString());
+    }
+
+    @Test
+    void remoteVersionAdvancesLocalVersion() {
+        L1CacheService l1 = new L1CacheService(redissonClient, versionRegistry, 100, 1000);
+
+        l1.onRemoteVersion("other-node|42");
+        assertThat(versionRegistry.current()).isEqualTo(42);
+
+        // 版本是行情时间戳，重复或落后的广播不再推进
+        l1.onRemoteVersion("other-node|42");
+        l1.onRemoteVersion("other-node|7");
+        assertThat(versionRegistry.current()).isEqualTo(42);
+
+        l1.onRemoteVersion("garbage");
+        assertThat(versionRegistry.current()).isEqualTo(42);
+    }
+
+    private static StrategyResult result(String id) {
+        return StrategyResult.builder().strategyId(id).data(id).build();
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.hao.strategyengine.common.codec;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.hao.strategyengine.common.model.response.SignalRows;
+import com.hao.strategyengine.common.model.response.StrategyResult;
+import com.hao.strategyengine.common.model.response.StrategyResultBundle;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * StrategyResultCodec 单元测试
+ *
+ * <p>覆盖信号行、嵌套结果与 JSON 兜底数据的往返一致性，以及旧 JSON 缓存按未命中处理。</p>
+ */
+class StrategyResultCodecTest {
+
+    @Test
+    void signalRowsRoundTrip() {
+        SignalRows rows = new SignalRows(new String[]{"current_price", "volume_ratio"}, 4);
+        rows.set(rows.add(3, "600000.SH", 0.5), 0, 10.25).set(0, 1, 1.5);
+        rows.set(rows.add(1, "000001.SZ", 0.9), 0, 12.5).set(1, 1, 2.0);
+        rows.sortByScoreDescending();
+
+        StrategyResult decoded = StrategyResultCodec.decodeResult(
+                StrategyResultCodec.encodeToString(result("SIG_MOMENTUM", rows)));
+
+        assertThat(decoded.getStrategyId()).isEqualTo("SIG_MOMENTUM");
+        assertThat(decoded.getDurationMs()).isEqualTo(12L);
+        assertThat(decoded.isSuccess()).isTrue();
+        SignalRows back = (SignalRows) decoded.getData();
+        assertThat(back.size()).isEqualTo(2);
+        assertThat(back.windCode(0)).isEqualTo("000001.SZ");
+        assertThat(back.symbolId(0)).isEqualTo(1);
+        assertThat(back.score(0)).isEqualTo(0.9);
+        assertThat(back.feature(0, 0)).isEqualTo(12.5f);
+        assertThat(back.featureName(1)).isEqualTo("volume_ratio");
+        assertThat(back.toJSONString()).isEqualTo(rows.toJSONString());
+    }
+
+    @Test
+    void bundleWithNestedAndJsonDataRoundTrip() {
+        StrategyResult child = result("SIG_RSI", Map.of("error", "boom"));
+        StrategyResult composite = result("COMPOSITE", List.of(child));
+        StrategyResultBundle bundle = new StrategyResultBundle("SIG_RSI,COMPOSITE", List.of(child, composite));
+
+        StrategyResultBundle decoded = StrategyResultCodec.decodeBundle(StrategyResultCodec.encode(bundle));
+
+        assertThat(decoded.getComboKey()).isEqualTo("SIG_RSI,COMPOSITE");
+        assertThat(decoded.getResults()).hasSize(2);
+        assertThat(((JSONObject) decoded.getResults().get(0).getData()).getString("error")).isEqualTo("boom");
+        List<?> nested = (List<?>) decoded.getResults().get(1).getData();
+        assertThat(((StrategyResult) nested.get(0)).getStrategyId()).isEqualTo("SIG_RSI");
+    }
+
+    @Test
+    void legacyJsonEntryDecodesToNull() {
+        String legacy = JSON.toJSONString(new StrategyResultBundle("SIG_RSI", List.of()));
+
+        assertThat(StrategyResultCodec.decodeBundle(legacy)).isNull();
+        assertThat(StrategyResultCodec.decodeResult(legacy)).isNull();
+    }
+
+    private static StrategyResult result(String id, Object data) {
+        return StrategyResult.builder()
+                .strategyId(id)
+                .durationMs(12L)
+                .isSuccess(true)
+                .data(data)
+                .build();
+    }
+}
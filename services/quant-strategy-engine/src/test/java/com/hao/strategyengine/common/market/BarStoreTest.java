@@ -0,0 +1,80 @@
+package com.hao.strategyengine.common.market;
+
+import dto.HistoryTrendDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * BarStore 单元测试
+ *
+ * <p>覆盖环形缓冲区的追加、覆盖、乱序丢弃，以及当日视图切分等核心行为。</p>
+ */
+class BarStoreTest {
+
+    @Test
+    void viewShouldReturnLatestBarsInChronologicalOrder() {
+        BarStore store = new BarStore(4);
+        for (int i = 0; i < 6; i++) {
+            store.append("600519.SH", 1_000L + i * 60, 10 + i, 100 + i, 10 + i);
+        }
+
+        BarSeriesView view = store.view("600519.SH", 3);
+
+        assertThat(view.size()).isEqualTo(3);
+        assertThat(view.price(0)).isEqualTo(13D);
+        assertThat(view.lastPrice()).isEqualTo(15D);
+        assertThat(view.volume(2)).isEqualTo(105D);
+        // 容量为 4，回看长度超过容量时只返回可用数据
+        assertThat(store.view("600519.SH", 10).size()).isEqualTo(4);
+        assertThat(view.isValid()).isTrue();
+    }
+
+    @Test
+    void appendShouldOverwriteSameBarAndDropOutOfOrder() {
+        BarStore store = new BarStore(8);
+        store.append("000001.SZ", 60L, 10, 1, 10);
+        store.append("000001.SZ", 120L, 11, 1, 10.5);
+
+        assertThat(store.append("000001.SZ", 120L, 12, 2, 11)).isTrue();
+        assertThat(store.append("000001.SZ", 60L, 9, 1, 9)).isFalse();
+
+        BarSeriesView view = store.view("000001.SZ", 8);
+        assertThat(view.size()).isEqualTo(2);
+        assertThat(view.lastPrice()).isEqualTo(12D);
+    }
+
+    @Test
+    void intradayViewShouldOnlyContainLatestTradingDay() {
+        BarStore store = new BarStore(512);
+        store.append(dto("600000.SH", LocalDateTime.of(2025, 1, 2, 14, 59), 9.8));
+        store.append(dto("600000.SH", LocalDateTime.of(2025, 1, 2, 15, 0), 9.9));
+        store.append(dto("600000.SH", LocalDateTime.of(2025, 1, 3, 9, 31), 10.1));
+        store.append(dto("600000.SH", LocalDateTime.of(2025, 1, 3, 9, 32), 10.2));
+
+        BarSeriesView intraday = store.intradayView("600000.SH");
+
+        assertThat(intraday.size()).isEqualTo(2);
+        assertThat(intraday.price(0)).isEqualTo(10.1D);
+    }
+
+    @Test
+    void unknownSymbolShouldReturnEmptyView() {
+        BarStore store = new BarStore(16);
+
+        assertThat(store.view("UNKNOWN", 20).isEmpty()).isTrue();
+        assertThat(store.symbols().lookup("UNKNOWN")).isEqualTo(SymbolRegistry.UNKNOWN);
+    }
+
+    private static HistoryTrendDTO dto(String windCode, LocalDateTime tradeDate, double price) {
+        HistoryTrendDTO dto = new HistoryTrendDTO();
+        dto.setWindCode(windCode);
+        dto.setTradeDate(tradeDate);
+        dto.setLatestPrice(price);
+        dto.setTotalVolume(100D);
+        dto.setAveragePrice(price);
+        return dto;
+    }
+}
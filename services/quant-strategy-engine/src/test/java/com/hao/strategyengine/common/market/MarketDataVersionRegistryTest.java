@@ -0,0 +1,65 @@
+package com.hao.strategyengine.common.market;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MarketDataVersionRegistry 单元测试
+ *
+ * <p>覆盖版本随实际写入的 bar 前进（含修订与迟到补写）、乱序丢弃不影响版本、标的版本互不影响、远端合并不额外推进。</p>
+ */
+class MarketDataVersionRegistryTest {
+
+    /** 2025-10-09 09:34:00 UTC+8，整分钟 */
+    private static final long MINUTE = 1_759_973_640L;
+
+    @Test
+    void versionFollowsAppendedBars() {
+        BarStore store = new BarStore(8);
+        MarketDataVersionRegistry registry = new MarketDataVersionRegistry(store);
+        registry.init();
+
+        store.append("000001.SZ", MINUTE, 10, 1, 10);
+        assertThat(registry.current()).isEqualTo(1);
+        assertThat(registry.current("000001.SZ")).isEqualTo("s1");
+
+        // 修订仍在形成的 bar：版本前进
+        store.append("000001.SZ", MINUTE, 11, 2, 10.5);
+        assertThat(registry.current()).isEqualTo(2);
+        assertThat(registry.current("000001.SZ")).isEqualTo("s2");
+
+        // 乱序丢弃：未写入，版本不变
+        assertThat(store.append("000001.SZ", MINUTE - 60, 9, 1, 9)).isFalse();
+        assertThat(registry.current()).isEqualTo(2);
+        assertThat(registry.current("000001.SZ")).isEqualTo("s2");
+
+        // 其他标的滞后到达的上一分钟 bar：推进全局版本，不影响 000001.SZ 的版本
+        store.append("600000.SH", MINUTE - 60, 8, 1, 8);
+        assertThat(registry.current()).isEqualTo(3);
+        assertThat(registry.current("600000.SH")).isEqualTo("s1");
+        assertThat(registry.current("000001.SZ")).isEqualTo("s2");
+    }
+
+    @Test
+    void versionIsStableWithoutNewBars() {
+        BarStore store = new BarStore(8);
+        MarketDataVersionRegistry registry = new MarketDataVersionRegistry(store);
+        registry.init();
+        store.append("000001.SZ", MINUTE, 10, 1, 10);
+
+        assertThat(registry.current("000001.SZ")).isEqualTo(registry.current("000001.SZ"));
+        // 未指定或未知标的退化为全局版本
+        assertThat(registry.current((String) null)).isEqualTo("g1");
+        assertThat(registry.current("999999.SZ")).isEqualTo("g1");
+    }
+
+    @Test
+    void mergeTakesMaxWithoutBumping() {
+        MarketDataVersionRegistry registry = new MarketDataVersionRegistry(new BarStore(8));
+
+        assertThat(registry.merge(42)).isEqualTo(42);
+        assertThat(registry.merge(42)).isEqualTo(42);
+        assertThat(registry.merge(7)).isEqualTo(42);
+    }
+}
@@ -0,0 +1,123 @@
+package com.hao.strategyengine.common.market.indicator;
+
+import com.hao.strategyengine.common.market.BarStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * IndicatorEngine 单元测试
+ *
+ * <p>以全量重算结果为基准，校验增量指标在推进、修订、懒加载回放三种路径下的一致性。</p>
+ */
+class IndicatorEngineTest {
+
+    private static final String SYMBOL = "600519.SH";
+
+    private BarStore store;
+    private IndicatorEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        store = new BarStore(512);
+        engine = new IndicatorEngine(store);
+        engine.init();
+    }
+
+    @Test
+    void smaAndStdDevShouldMatchFullRecalculation() {
+        int sma = engine.register(IndicatorType.SMA, 20);
+        int std = engine.register(IndicatorType.STDDEV, 20);
+        double[] prices = randomPrices(300);
+        for (int i = 0; i < prices.length; i++) {
+            store.append(SYMBOL, 60L * i, prices[i], 100, prices[i]);
+            int id = store.symbols().lookup(SYMBOL);
+            if (i >= 19) {
+                double mean = mean(prices, i - 19, i + 1);
+                assertThat(engine.value(id, sma)).isCloseTo(mean, within(1e-9));
+                assertThat(engine.value(id, std)).isCloseTo(stdDev(prices, i - 19, i + 1, mean), within(1e-9));
+            } else {
+                assertThat(engine.value(id, sma)).isNaN();
+            }
+        }
+    }
+
+    @Test
+    void revisedBarShouldReplaceLastContribution() {
+        int sma = engine.register(IndicatorType.SMA, 3);
+        int rsi = engine.register(IndicatorType.RSI, 3);
+        store.append(SYMBOL, 60, 10, 1, 10);
+        store.append(SYMBOL, 120, 11, 1, 10);
+        store.append(SYMBOL, 180, 12, 1, 10);
+        store.append(SYMBOL, 240, 9, 1, 10);
+        int id = store.symbols().lookup(SYMBOL);
+        double rsiBeforeRevise = engine.value(id, rsi);
+
+        // 同一分钟修订为 13，SMA 与 RSI 都应等价于直接写入 13
+        store.append(SYMBOL, 240, 13, 1, 10);
+
+        assertThat(engine.value(id, sma)).isCloseTo(12D, within(1e-9));
+        assertThat(engine.value(id, rsi)).isEqualTo(100D).isNotEqualTo(rsiBeforeRevise);
+    }
+
+    @Test
+    void lateRegisteredIndicatorShouldReplayHistory() {
+        double[] prices = randomPrices(50);
+        for (int i = 0; i < prices.length; i++) {
+            store.append(SYMBOL, 60L * i, prices[i], 100 + i, prices[i]);
+        }
+        int ema = engine.register(IndicatorType.EMA, 10);
+        int id = store.symbols().lookup(SYMBOL);
+
+        double alpha = 2D / 11;
+        double expected = prices[0];
+        for (int i = 1; i < prices.length; i++) {
+            expected += alpha * (prices[i] - expected);
+        }
+        assertThat(engine.value(id, ema)).isCloseTo(expected, within(1e-9));
+    }
+
+    @Test
+    void vwapShouldResetOnNewTradingDay() {
+        int vwap = engine.register(IndicatorType.VWAP, 0);
+        long dayOne = 1_735_781_460L; // 2025-01-02 09:31 +08:00
+        store.append(SYMBOL, dayOne, 10, 100, 10);
+        store.append(SYMBOL, dayOne + 60, 20, 300, 17.5);
+        int id = store.symbols().lookup(SYMBOL);
+        assertThat(engine.value(id, vwap)).isCloseTo(17.5D, within(1e-9));
+
+        store.append(SYMBOL, dayOne + 86_400, 30, 10, 30);
+        assertThat(engine.value(id, vwap)).isCloseTo(30D, within(1e-9));
+    }
+
+    private static double[] randomPrices(int n) {
+        Random random = new Random(42);
+        double[] prices = new double[n];
+        double p = 50;
+        for (int i = 0; i < n; i++) {
+            p *= 1 + (random.nextDouble() - 0.5) * 0.02;
+            prices[i] = p;
+        }
+        return prices;
+    }
+
+    private static double mean(double[] values, int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
+        }
+        return sum / (to - from);
+    }
+
+    private static double stdDev(double[] values, int from, int to, double mean) {
+        double sq = 0;
+        for (int i = from; i < to; i++) {
+            sq += (values[i] - mean) * (values[i] - mean);
+        }
+        return Math.sqrt(sq / (to - from));
+    }
+}
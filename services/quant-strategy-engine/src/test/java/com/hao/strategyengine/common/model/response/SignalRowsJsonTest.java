@@ -0,0 +1,46 @@
+package com.hao.strategyengine.common.model.response;
+
+import com.alibaba.fastjson.JSON;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SignalRows JSON 输出单元测试
+ *
+ * <p>fastjson（{@link SignalRows#toJSONString()}）与 Jackson 序列化器须逐字节一致：
+ * float 特征按 float 最短表示输出，缺失特征（NaN）输出为 null。</p>
+ */
+class SignalRowsJsonTest {
+
+    private static SignalRows sample() {
+        SignalRows rows = new SignalRows(new String[]{"current_price", "return_5bar", "rsi"}, 2);
+        rows.set(rows.add(1, "600000.SH", 0.875), 0, 10.1).set(0, 1, 0.1).set(0, 2, Double.NaN);
+        rows.set(rows.add(2, "000001.SZ", Double.NaN), 0, 1e-7).set(1, 1, Double.POSITIVE_INFINITY).set(1, 2, 55);
+        return rows;
+    }
+
+    @Test
+    void fastjsonAndJacksonWriteIdenticalJson() throws Exception {
+        SignalRows rows = sample();
+
+        String fastjson = JSON.toJSONString(rows);
+        String jackson = new ObjectMapper().writeValueAsString(rows);
+
+        assertThat(fastjson).isEqualTo(jackson);
+        assertThat(jackson).isEqualTo("["
+                + "{\"wind_code\":\"600000.SH\",\"signal_score\":0.875,\"current_price\":10.1,\"return_5bar\":0.1,\"rsi\":null},"
+                + "{\"wind_code\":\"000001.SZ\",\"signal_score\":null,\"current_price\":1.0E-7,\"return_5bar\":null,\"rsi\":55.0}"
+                + "]");
+    }
+
+    @Test
+    void nestedInResultListStaysIdentical() throws Exception {
+        List<Object> payload = List.of(sample());
+
+        assertThat(JSON.toJSONString(payload)).isEqualTo(new ObjectMapper().writeValueAsString(payload));
+    }
+}
@@ -0,0 +1,61 @@
+package com.hao.strategyengine.common.util;
+
+import com.hao.strategyengine.common.model.response.SignalRows;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * TopKSelector 单元测试
+ *
+ * <p>以全量排序为基准校验有界选择结果，并覆盖 SignalRows 的 Top-K 模式。</p>
+ */
+class TopKSelectorTest {
+
+    @Test
+    void selectsSameRowsAsFullSort() {
+        Random random = new Random(11);
+        double[] scores = new double[10_000];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = random.nextGaussian();
+        }
+        scores[5] = Double.NaN;
+
+        int k = 40;
+        TopKSelector selector = new TopKSelector(k);
+        double[] kept = new double[k];
+        for (double score : scores) {
+            int slot = selector.offer(score);
+            if (slot != TopKSelector.REJECTED) {
+                kept[slot] = score;
+            }
+        }
+
+        double[] expected = Arrays.stream(scores).filter(s -> !Double.isNaN(s)).sorted().skip(scores.length - 1 - k).toArray();
+        Arrays.sort(kept);
+        assertThat(selector.size()).isEqualTo(k);
+        assertThat(kept).containsExactly(expected);
+        assertThat(selector.threshold()).isEqualTo(expected[0]);
+    }
+
+    @Test
+    void topKRowsKeepFeaturesWithScore() {
+        SignalRows rows = SignalRows.topK(new String[]{"current_price"}, 3);
+        for (int i = 0; i < 10; i++) {
+            int row = rows.add(i, "S" + i, i % 5);
+            if (row != SignalRows.REJECTED) {
+                rows.set(row, 0, i * 10);
+            }
+        }
+        rows.sortByScoreDescending();
+
+        assertThat(rows.size()).isEqualTo(3);
+        assertThat(rows.windCode(0)).isEqualTo("S4");
+        assertThat(rows.feature(0, 0)).isEqualTo(40f);
+        assertThat(rows.score(1)).isEqualTo(4.0);
+        assertThat(rows.score(2)).isEqualTo(3.0);
+    }
+}
@@ -0,0 +1,210 @@
+package com.hao.strategyengine.core.facade;
+
+import com.hao.strategyengine.chain.StrategyChain;
+import com.hao.strategyengine.common.cache.StrategyCacheService;
+import com.hao.strategyengine.common.model.core.StrategyContext;
+import com.hao.strategyengine.common.model.response.StrategyResult;
+import com.hao.strategyengine.common.model.response.StrategyResultBundle;
+import com.hao.strategyengine.core.dispatcher.StrategyDispatcher;
+import com.hao.strategyengine.integration.kafka.KafkaResultPublisher;
+import com.hao.strategyengine.strategy.lock.DistributedLockService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * StrategyEngineFacade 异步执行单元测试
+ *
+ * <p>覆盖请求截止时间的部分结果语义（慢策略被中断、部分结果不入缓存）、调用方取消传播、单策略完成回调与前置责任链拒绝短路，
+ * 以及同一组合并发请求共享执行时各自的截止时间与取消互不影响。</p>
+ */
+@ExtendWith(MockitoExtension.class)
+class StrategyEngineFacadeTest {
+
+    @Mock
+    private StrategyDispatcher dispatcher;
+    @Mock
+    private StrategyChain chain;
+    @Mock
+    private DistributedLockService lockService;
+    @Mock
+    private StrategyCacheService cacheService;
+    @Mock
+    private KafkaResultPublisher kafkaPublisher;
+
+    private StrategyEngineFacade facade;
+    private final StrategyContext ctx = StrategyContext.builder().build();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        facade = new StrategyEngineFacade(dispatcher, chain, lockService, cacheService);
+        ReflectionTestUtils.setField(facade, "kafkaPublisher", kafkaPublisher);
+        ReflectionTestUtils.setField(facade, "virtualThreadExecutor", Executors.newVirtualThreadPerTaskExecutor());
+        ReflectionTestUtils.setField(facade, "requestTimeoutMs", 300L);
+        lenient().when(lockService.acquireOrWait(anyString(), any()))
+                .thenAnswer(inv -> ((Supplier<StrategyResultBundle>) inv.getArgument(1)).get());
+    }
+
+    @Test
+    void deadlineReturnsPartialResultAndInterruptsSlowStrategy() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(dispatcher.dispatch(eq("FAST"), any())).thenReturn(ok("FAST"));
+        when(dispatcher.dispatch(eq("SLOW"), any())).thenAnswer(inv -> sleep(5_000, interrupted, "SLOW"));
+
+        long start = System.currentTimeMillis();
+        StrategyResultBundle bundle = facade.executeAllAsync(1, List.of("FAST", "SLOW"), ctx).get(2, TimeUnit.SECONDS);
+
+        assertThat(System.currentTimeMillis() - start).isLessThan(1_500);
+        assertThat(bundle.getResults()).extracting(StrategyResult::isSuccess).containsExactly(true, false);
+        assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+        verify(kafkaPublisher, timeout(1_000)).publish(anyString(), any());
+        verify(cacheService, never()).save(any());
+    }
+
+    @Test
+    void completeResultIsCached() throws Exception {
+        when(dispatcher.dispatch(anyString(), any())).thenAnswer(inv -> ok(inv.getArgument(0)));
+
+        StrategyResultBundle bundle = facade.executeAllAsync(1, List.of("A", "B"), ctx).get(2, TimeUnit.SECONDS);
+
+        assertThat(bundle.getResults()).extracting(StrategyResult::getStrategyId).containsExactly("A", "B");
+        verify(cacheService, timeout(1_000)).save(bundle);
+    }
+
+    @Test
+    void callerCancellationInterruptsInFlightStrategies() throws Exception {
+        ReflectionTestUtils.setField(facade, "requestTimeoutMs", 10_000L);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(dispatcher.dispatch(anyString(), any())).thenAnswer(inv -> {
+            started.countDown();
+            return sleep(10_000, interrupted, "SLOW");
+        });
+
+        CompletableFuture<StrategyResultBundle> future = facade.executeAllAsync(1, List.of("SLOW"), ctx);
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+        future.cancel(true);
+
+        assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void listenerReceivesEachResultBeforeBundle() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(dispatcher.dispatch(eq("FAST"), any())).thenReturn(ok("FAST"));
+        when(dispatcher.dispatch(eq("SLOW"), any())).thenAnswer(inv -> {
+            release.await(2, TimeUnit.SECONDS);
+            return ok("SLOW");
+        });
+        List<String> streamed = new CopyOnWriteArrayList<>();
+        CountDownLatch fastSeen = new CountDownLatch(1);
+
+        CompletableFuture<StrategyResultBundle> future = facade.executeAllAsync(1, List.of("FAST", "SLOW"), ctx, r -> {
+            streamed.add(r.getStrategyId());
+            fastSeen.countDown();
+        });
+
+        assertThat(fastSeen.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(future).isNotDone();
+        release.countDown();
+        future.get(2, TimeUnit.SECONDS);
+        assertThat(streamed).containsExactly("FAST", "SLOW");
+    }
+
+    @Test
+    void preCheckRejectionStopsExecution() throws Exception {
+        doThrow(new IllegalStateException("risk blocked")).when(chain).apply(any());
+
+        CompletableFuture<StrategyResultBundle> future = facade.executeAllAsync(1, List.of("A"), ctx);
+
+        assertThatThrownBy(() -> future.get(2, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        verify(lockService, never()).acquireOrWait(anyString(), any());
+        verify(dispatcher, never()).dispatch(anyString(), any());
+    }
+
+    @Test
+    void representativeCancelDoesNotAffectJoiner() throws Exception {
+        ReflectionTestUtils.setField(facade, "requestTimeoutMs", 5_000L);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger dispatched = new AtomicInteger();
+        when(dispatcher.dispatch(anyString(), any())).thenAnswer(inv -> {
+            dispatched.incrementAndGet();
+            started.countDown();
+            release.await(2, TimeUnit.SECONDS);
+            return ok("SLOW");
+        });
+
+        CompletableFuture<StrategyResultBundle> first = facade.executeAllAsync(1, List.of("SLOW"), ctx);
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<StrategyResultBundle> second = facade.executeAllAsync(2, List.of("SLOW"), ctx);
+        Thread.sleep(100);
+        first.cancel(true);
+        release.countDown();
+
+        StrategyResultBundle bundle = second.get(2, TimeUnit.SECONDS);
+        assertThat(bundle.getResults()).extracting(StrategyResult::isSuccess).containsExactly(true);
+        assertThat(dispatched).hasValue(1);
+        verify(cacheService, timeout(1_000)).save(any());
+    }
+
+    @Test
+    void eachCallerAppliesItsOwnDeadline() throws Exception {
+        ReflectionTestUtils.setField(facade, "requestTimeoutMs", 400L);
+        when(dispatcher.dispatch(anyString(), any())).thenAnswer(inv -> {
+            Thread.sleep(600);
+            return ok("SLOW");
+        });
+
+        CompletableFuture<StrategyResultBundle> first = facade.executeAllAsync(1, List.of("SLOW"), ctx);
+        Thread.sleep(300);
+        CompletableFuture<StrategyResultBundle> second = facade.executeAllAsync(2, List.of("SLOW"), ctx);
+
+        // 先到的请求在自己的截止时间得到部分结果，后到的请求截止时间更晚，仍拿到同一次计算的完整结果
+        assertThat(first.get(2, TimeUnit.SECONDS).getResults()).extracting(StrategyResult::isSuccess).containsExactly(false);
+        assertThat(second.get(2, TimeUnit.SECONDS).getResults()).extracting(StrategyResult::isSuccess).containsExactly(true);
+        verify(dispatcher, times(1)).dispatch(anyString(), any());
+    }
+
+    private static StrategyResult sleep(long millis, CountDownLatch interrupted, String id) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+        }
+        return ok(id);
+    }
+
+    private static StrategyResult ok(String id) {
+        return StrategyResult.builder().strategyId(id).build();
+    }
+}
@@ -0,0 +1,153 @@
+package com.hao.strategyengine.core.stream;
+
+import com.hao.strategyengine.common.market.BarStore;
+import com.hao.strategyengine.common.model.response.SignalRows;
+import com.hao.strategyengine.common.model.response.StrategyResultBundle;
+import com.hao.strategyengine.integration.kafka.KafkaResultPublisher;
+import com.hao.strategyengine.integration.nacos.properties.StreamEvaluationProperties;
+import com.hao.strategyengine.strategy.IncrementalStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * SignalStreamEvaluator 单元测试
+ *
+ * <p>覆盖边沿触发发布、按标的订阅过滤，以及不同消费线程之间触发状态互不共享。</p>
+ */
+class SignalStreamEvaluatorTest {
+
+    private static final String SYMBOL = "600519.SH";
+
+    private final BarStore barStore = new BarStore(16);
+    private final KafkaResultPublisher publisher = mock(KafkaResultPublisher.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private StreamEvaluationProperties properties;
+    private long time = 60L;
+
+    @BeforeEach
+    void setUp() {
+        properties = new StreamEvaluationProperties();
+    }
+
+    @Test
+    void publishesOnlyWhenSignalStartsFiring() {
+        SignalStreamEvaluator evaluator = evaluator(new PriceAbove("SIG_TEST", 10D));
+
+        assertThat(tick(evaluator, SYMBOL, 9D)).isZero();
+        assertThat(tick(evaluator, SYMBOL, 11D)).isEqualTo(1);
+        // 条件持续满足不重复发布
+        assertThat(tick(evaluator, SYMBOL, 12D)).isZero();
+        // 条件消失后再次满足重新发布
+        assertThat(tick(evaluator, SYMBOL, 9D)).isZero();
+        assertThat(tick(evaluator, SYMBOL, 13D)).isEqualTo(1);
+
+        ArgumentCaptor<StrategyResultBundle> captor = ArgumentCaptor.forClass(StrategyResultBundle.class);
+        verify(publisher, times(2)).publish(eq("quant-strategy-result"), captor.capture());
+        StrategyResultBundle last = captor.getValue();
+        assertThat(last.getComboKey()).isEqualTo(SignalStreamEvaluator.COMBO_KEY_PREFIX + SYMBOL);
+        assertThat(last.getResults()).hasSize(1);
+        assertThat(last.getResults().get(0).getStrategyId()).isEqualTo("SIG_TEST");
+        assertThat(meterRegistry.counter("strategy.stream.signals", "strategy_id", "SIG_TEST").count()).isEqualTo(2D);
+    }
+
+    @Test
+    void onlySubscribedStrategiesAreEvaluated() {
+        properties.setSubscriptions(Map.of(
+                "SIG_A", List.of("000001.SZ"),
+                "SIG_B", List.of(StreamEvaluationProperties.ALL_SYMBOLS)));
+        PriceAbove a = new PriceAbove("SIG_A", 0D);
+        PriceAbove b = new PriceAbove("SIG_B", 0D);
+        PriceAbove c = new PriceAbove("SIG_C", 0D);
+        SignalStreamEvaluator evaluator = evaluator(a, b, c);
+
+        tick(evaluator, SYMBOL, 10D);
+        tick(evaluator, "000001.SZ", 10D);
+
+        assertThat(a.calls).isEqualTo(1);
+        assertThat(b.calls).isEqualTo(2);
+        assertThat(c.calls).isZero();
+    }
+
+    @Test
+    void fireStateIsKeptPerConsumerThread() throws Exception {
+        SignalStreamEvaluator evaluator = evaluator(new PriceAbove("SIG_TEST", 10D));
+
+        assertThat(tick(evaluator, SYMBOL, 11D)).isEqualTo(1);
+        assertThat(tick(evaluator, SYMBOL, 12D)).isZero();
+        // 分区迁移到新线程后从空状态开始，仍满足条件的标的会重新发布一次
+        int published = CompletableFuture.supplyAsync(() -> tick(evaluator, SYMBOL, 13D)).get();
+
+        assertThat(published).isEqualTo(1);
+    }
+
+    @Test
+    void disabledEvaluatorPublishesNothing() {
+        properties.setEnabled(false);
+        SignalStreamEvaluator evaluator = evaluator(new PriceAbove("SIG_TEST", 0D));
+
+        assertThat(tick(evaluator, SYMBOL, 11D)).isZero();
+        verify(publisher, never()).publish(any(), any());
+    }
+
+    private SignalStreamEvaluator evaluator(IncrementalStrategy... strategies) {
+        SignalStreamEvaluator evaluator = new SignalStreamEvaluator(barStore, publisher, properties, meterRegistry,
+                List.of(strategies));
+        evaluator.init();
+        return evaluator;
+    }
+
+    private int tick(SignalStreamEvaluator evaluator, String windCode, double price) {
+        barStore.append(windCode, time, price, 100D, price);
+        time += 60L;
+        return evaluator.onBar(windCode);
+    }
+
+    /**
+     * 最新价高于阈值即触发的测试策略
+     */
+    private final class PriceAbove implements IncrementalStrategy {
+        private final String id;
+        private final double threshold;
+        private int calls;
+
+        private PriceAbove(String id, double threshold) {
+            this.id = id;
+            this.threshold = threshold;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String[] features() {
+            return new String[]{"current_price"};
+        }
+
+        @Override
+        public boolean evaluate(int symbolId, String windCode, SignalRows out) {
+            calls++;
+            double price = barStore.series(symbolId).view(1).lastPrice();
+            if (price <= threshold) {
+                return false;
+            }
+            out.set(out.add(symbolId, windCode, price), 0, price);
+            return true;
+        }
+    }
+}
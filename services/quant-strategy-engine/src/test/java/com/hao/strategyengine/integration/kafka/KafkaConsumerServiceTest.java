@@ -0,0 +1,67 @@
+package com.hao.strategyengine.integration.kafka;
+
+import com.alibaba.fastjson.JSON;
+import com.hao.strategyengine.common.cache.L1CacheService;
+import com.hao.strategyengine.common.market.BarStore;
+import com.hao.strategyengine.core.stream.SignalStreamEvaluator;
+import dto.HistoryTrendDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * KafkaConsumerService 失败路径单元测试
+ *
+ * <p>处理失败必须把异常抛给容器错误处理器且不确认，否则下一批的确认会越过失败批次提交 offset。</p>
+ */
+class KafkaConsumerServiceTest {
+
+    private final L1CacheService l1CacheService = mock(L1CacheService.class);
+    private final Acknowledgment ack = mock(Acknowledgment.class);
+    private final KafkaConsumerService consumer = new KafkaConsumerService(null, new BarStore(16), l1CacheService,
+            mock(SignalStreamEvaluator.class), new QuotationPartitionOwnership(), 16);
+
+    @Test
+    void batchFailureIsRethrownWithoutAck() {
+        doThrow(new IllegalStateException("redis down")).when(l1CacheService).onMarketData();
+
+        assertThatThrownBy(() -> consumer.consumeBatch(List.of(message()), List.of(0), ack))
+                .isInstanceOf(IllegalStateException.class);
+        verify(ack, never()).acknowledge();
+    }
+
+    @Test
+    void recordFailureIsRethrownWithoutAck() {
+        doThrow(new IllegalStateException("redis down")).when(l1CacheService).onMarketData();
+
+        assertThatThrownBy(() -> consumer.consume(message(), 0, ack))
+                .isInstanceOf(IllegalStateException.class);
+        verify(ack, never()).acknowledge();
+    }
+
+    @Test
+    void successfulBatchIsAcknowledged() {
+        consumer.consumeBatch(List.of(message()), List.of(0), ack);
+
+        verify(ack).acknowledge();
+    }
+
+    private static byte[] message() {
+        HistoryTrendDTO dto = new HistoryTrendDTO();
+        dto.setWindCode("000001.SZ");
+        dto.setTradeDate(LocalDateTime.of(2025, 7, 11, 10, 0));
+        dto.setLatestPrice(10.5);
+        dto.setTotalVolume(1000D);
+        dto.setAveragePrice(10.4);
+        return JSON.toJSONString(dto).getBytes(StandardCharsets.UTF_8);
+    }
+}
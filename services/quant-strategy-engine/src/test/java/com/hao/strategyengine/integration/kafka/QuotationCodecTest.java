@@ -0,0 +1,97 @@
+package com.hao.strategyengine.integration.kafka;
+
+import com.alibaba.fastjson.JSON;
+import com.hao.strategyengine.common.market.BarStore;
+import com.hao.strategyengine.common.market.SymbolRegistry;
+import dto.HistoryTrendDTO;
+import integration.kafka.QuotationCodec;
+import integration.kafka.QuotationDeserializer;
+import integration.kafka.QuotationSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * QuotationCodec 单元测试
+ *
+ * <p>覆盖编解码往返（含前导零代码与非标准代码）、可选字段缺失、旧版 JSON 兼容以及异常输入。</p>
+ */
+class QuotationCodecTest {
+
+    private static final LocalDateTime MINUTE = LocalDateTime.of(2025, 7, 11, 13, 1);
+
+    @Test
+    void roundTripKeepsLeadingZerosAndScale() {
+        HistoryTrendDTO dto = dto("000001.SZ", 12.345678, 1423160.25, 12.3);
+
+        byte[] bytes = QuotationCodec.encode(dto);
+
+        assertThat(bytes).hasSize(QuotationCodec.PACKED_RECORD_SIZE);
+        assertThat(QuotationCodec.decode(bytes)).isEqualTo(dto);
+        assertThat(bytes.length).isLessThan(JSON.toJSONString(dto).getBytes(StandardCharsets.UTF_8).length / 3);
+    }
+
+    @Test
+    void unpackableSymbolIsWrittenVerbatim() {
+        HistoryTrendDTO dto = dto("AAPL.O", 190.5, 100D, 190.1);
+
+        byte[] bytes = QuotationCodec.encode(dto);
+
+        assertThat(bytes.length).isGreaterThan(QuotationCodec.PACKED_RECORD_SIZE);
+        assertThat(QuotationCodec.decode(bytes).getWindCode()).isEqualTo("AAPL.O");
+    }
+
+    @Test
+    void missingOptionalFieldsDecodeAsNullOrFallBackInBatch() {
+        HistoryTrendDTO dto = dto("600519.SH", 1500D, null, null);
+
+        byte[] bytes = QuotationCodec.encode(dto);
+        HistoryTrendDTO decoded = QuotationCodec.decode(bytes);
+        assertThat(decoded.getTotalVolume()).isNull();
+        assertThat(decoded.getAveragePrice()).isNull();
+
+        QuotationBatch batch = new QuotationBatch(new SymbolRegistry(), 4);
+        QuotationCodec.decode(bytes, batch);
+        assertThat(batch.epochSecond(0)).isEqualTo(MINUTE.toEpochSecond(BarStore.MARKET_ZONE));
+        assertThat(batch.volume(0)).isZero();
+        assertThat(batch.averagePrice(0)).isEqualTo(1500D);
+    }
+
+    @Test
+    void deserializerAcceptsBothWireFormats() {
+        HistoryTrendDTO dto = dto("600519.SH", 142.316, 1423160D, 142.5);
+        try (QuotationSerializer serializer = new QuotationSerializer();
+             QuotationDeserializer deserializer = new QuotationDeserializer()) {
+            assertThat(deserializer.deserialize("quotation", serializer.serialize("quotation", dto))).isEqualTo(dto);
+            assertThat(deserializer.deserialize("quotation", JSON.toJSONString(dto).getBytes(StandardCharsets.UTF_8)))
+                    .isEqualTo(dto);
+        }
+    }
+
+    @Test
+    void rejectsUnknownVersionAndTruncatedRecords() {
+        byte[] bytes = QuotationCodec.encode(dto("600519.SH", 1D, 1D, 1D));
+
+        byte[] unknownVersion = bytes.clone();
+        unknownVersion[0] = 9;
+        assertThatThrownBy(() -> QuotationCodec.decode(unknownVersion)).isInstanceOf(IllegalArgumentException.class);
+
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+        assertThatThrownBy(() -> QuotationCodec.decode(truncated)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static HistoryTrendDTO dto(String windCode, double price, Double volume, Double avg) {
+        HistoryTrendDTO dto = new HistoryTrendDTO();
+        dto.setWindCode(windCode);
+        dto.setTradeDate(MINUTE);
+        dto.setLatestPrice(price);
+        dto.setTotalVolume(volume);
+        dto.setAveragePrice(avg);
+        return dto;
+    }
+}
@@ -0,0 +1,127 @@
+package com.hao.strategyengine.integration.kafka;
+
+import com.alibaba.fastjson.JSON;
+import com.hao.strategyengine.common.cache.L1CacheService;
+import com.hao.strategyengine.common.market.BarStore;
+import com.hao.strategyengine.common.market.MarketDataVersionRegistry;
+import com.hao.strategyengine.core.stream.SignalStreamEvaluator;
+import com.hao.strategyengine.integration.nacos.properties.StreamEvaluationProperties;
+import dto.HistoryTrendDTO;
+import integration.kafka.QuotationCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.redisson.api.RedissonClient;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * 行情消费吞吐基准：逐条监听 vs 批量监听，JSON vs 二进制（单位：条/秒）
+ *
+ * <p>不连接 Kafka，直接以一个 poll 批次（max-poll-records 条消息）驱动两个监听方法，
+ * 度量解析、写入行情存储、增量求值入口与确认的完整消费路径。
+ * 批次内 50 只标的各 10 个 tick，同一分钟内的 tick 走 bar 修订路径，与盘中实时行情一致。</p>
+ *
+ * <p>不参与 mvn test，手动运行 {@link #main(String[])}：</p>
+ * <pre>{@code
+ * mvn -pl services/quant-strategy-engine test-compile exec:java \
+ *     -Dexec.classpathScope=test -Dexec.mainClass=com.hao.strategyengine.integration.kafka.QuotationConsumeBenchmark
+ * }</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Threads(1)
+@Fork(1)
+public class QuotationConsumeBenchmark {
+
+    private static final int BATCH_SIZE = 500;
+    private static final int SYMBOLS = 50;
+
+    private static final Acknowledgment NO_OP_ACK = () -> {
+    };
+
+    private KafkaConsumerService consumer;
+    private List<byte[]> messages;
+    private List<byte[]> binaryMessages;
+    private List<Integer> partitions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BarStore barStore = new BarStore(512);
+        // 失效广播间隔设为极大值，onMarketData 只做时间判断，不触达 Redis
+        L1CacheService l1CacheService = new L1CacheService(mock(RedissonClient.class),
+                new MarketDataVersionRegistry(barStore), 1_000, Long.MAX_VALUE);
+        SignalStreamEvaluator evaluator = new SignalStreamEvaluator(barStore, mock(KafkaResultPublisher.class),
+                new StreamEvaluationProperties(), new SimpleMeterRegistry(), List.of());
+        evaluator.init();
+        QuotationPartitionOwnership ownership = new QuotationPartitionOwnership();
+        ownership.assign(List.of(0));
+        consumer = new KafkaConsumerService(null, barStore, l1CacheService, evaluator, ownership, BATCH_SIZE);
+        partitions = Collections.nCopies(BATCH_SIZE, 0);
+
+        messages = new ArrayList<>(BATCH_SIZE);
+        binaryMessages = new ArrayList<>(BATCH_SIZE);
+        LocalDateTime minute = LocalDateTime.of(2025, 7, 11, 10, 0);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            int symbol = i % SYMBOLS;
+            HistoryTrendDTO dto = new HistoryTrendDTO();
+            dto.setWindCode(String.format("%06d.SZ", symbol));
+            dto.setTradeDate(minute);
+            dto.setLatestPrice(10 + symbol + i * 0.001);
+            dto.setTotalVolume(1000D + i);
+            dto.setAveragePrice(10 + symbol + 0.005);
+            messages.add(JSON.toJSONString(dto).getBytes(StandardCharsets.UTF_8));
+            binaryMessages.add(QuotationCodec.encode(dto));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void recordListener() {
+        for (byte[] message : messages) {
+            consumer.consume(message, 0, NO_OP_ACK);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void batchListener() {
+        consumer.consumeBatch(messages, partitions, NO_OP_ACK);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void batchListenerBinary() {
+        consumer.consumeBatch(binaryMessages, partitions, NO_OP_ACK);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(QuotationConsumeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
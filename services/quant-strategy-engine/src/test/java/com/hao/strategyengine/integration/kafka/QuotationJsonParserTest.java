@@ -0,0 +1,88 @@
+package com.hao.strategyengine.integration.kafka;
+
+import com.alibaba.fastjson.JSON;
+import com.hao.strategyengine.common.market.BarStore;
+import com.hao.strategyengine.common.market.SymbolRegistry;
+import dto.HistoryTrendDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * QuotationJsonParser / QuotationBatch 单元测试
+ *
+ * <p>覆盖与 fastjson 解析结果一致、缺字段与不支持格式的区分，以及按标的分组时保持组内到达顺序。</p>
+ */
+class QuotationJsonParserTest {
+
+    private final QuotationBatch batch = new QuotationBatch(new SymbolRegistry(), 4);
+
+    @Test
+    void parsesProducerPayloadLikeFastjson() {
+        HistoryTrendDTO dto = dto("600519.SH", LocalDateTime.of(2025, 7, 11, 13, 1), 142.316, 1423160D, 142.5);
+        String json = JSON.toJSONString(dto);
+
+        assertThat(QuotationJsonParser.parse(json, batch)).isEqualTo(QuotationJsonParser.PARSED);
+
+        HistoryTrendDTO expected = JSON.parseObject(json, HistoryTrendDTO.class);
+        assertThat(batch.windCode(0)).isEqualTo(expected.getWindCode());
+        assertThat(batch.epochSecond(0)).isEqualTo(expected.getTradeDate().toEpochSecond(BarStore.MARKET_ZONE));
+        assertThat(batch.price(0)).isEqualTo(expected.getLatestPrice());
+        assertThat(batch.volume(0)).isEqualTo(expected.getTotalVolume());
+        assertThat(batch.averagePrice(0)).isEqualTo(expected.getAveragePrice());
+    }
+
+    @Test
+    void missingOptionalFieldsFallBackLikeBarStore() {
+        String json = "{\"tradeDate\":1752210060000,\"windCode\":\"000001.SZ\",\"latestPrice\":12.5,\"totalVolume\":null}";
+        assertThat(QuotationJsonParser.parse(json, batch)).isEqualTo(QuotationJsonParser.PARSED);
+        assertThat(batch.epochSecond(0)).isEqualTo(1752210060L);
+        assertThat(batch.volume(0)).isZero();
+        assertThat(batch.averagePrice(0)).isEqualTo(12.5D);
+    }
+
+    @Test
+    void distinguishesIncompleteFromUnsupported() {
+        assertThat(QuotationJsonParser.parse("{\"windCode\":\"000001.SZ\",\"latestPrice\":1.0}", batch))
+                .isEqualTo(QuotationJsonParser.INCOMPLETE);
+        assertThat(QuotationJsonParser.parse("{\"windCode\":\"000001.SZ\",\"tradeDate\":\"20250711130100\"}", batch))
+                .isEqualTo(QuotationJsonParser.UNSUPPORTED);
+        assertThat(QuotationJsonParser.parse("{\"windCode\":\"0\\u00301.SZ\"}", batch))
+                .isEqualTo(QuotationJsonParser.UNSUPPORTED);
+        assertThat(QuotationJsonParser.parse("{ \"tradeDate\" : \"2025-07-11 13:01:00\", \"latestPrice\":1, \"extra\":[1] }", batch))
+                .isEqualTo(QuotationJsonParser.UNSUPPORTED);
+        assertThat(batch.size()).isZero();
+    }
+
+    @Test
+    void groupBySymbolKeepsArrivalOrderWithinSymbol() {
+        batch.add("B", 60L, 1, 1, 1);
+        batch.add("A", 60L, 2, 1, 2);
+        batch.add("B", 120L, 3, 1, 3);
+        batch.add("A", 120L, 4, 1, 4);
+        batch.add("C", 60L, 5, 1, 5);
+
+        int[] rows = batch.groupBySymbol();
+
+        double[] prices = new double[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            prices[i] = batch.price(rows[i]);
+        }
+        assertThat(prices).containsExactly(1D, 3D, 2D, 4D, 5D);
+
+        batch.clear();
+        assertThat(batch.size()).isZero();
+    }
+
+    private static HistoryTrendDTO dto(String windCode, LocalDateTime tradeDate, double price, double volume, double avg) {
+        HistoryTrendDTO dto = new HistoryTrendDTO();
+        dto.setWindCode(windCode);
+        dto.setTradeDate(tradeDate);
+        dto.setLatestPrice(price);
+        dto.setTotalVolume(volume);
+        dto.setAveragePrice(avg);
+        return dto;
+    }
+}
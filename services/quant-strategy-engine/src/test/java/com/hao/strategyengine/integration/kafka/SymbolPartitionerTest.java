@@ -0,0 +1,77 @@
+package com.hao.strategyengine.integration.kafka;
+
+import integration.kafka.SymbolPartitioner;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SymbolPartitioner 单元测试
+ *
+ * <p>覆盖映射在多个实例间一致、热门标的分散到不同分区，以及扩容时只迁移少量标的。</p>
+ */
+class SymbolPartitionerTest {
+
+    private static final String TOPIC = "quotation";
+    private static final int SYMBOLS = 5_000;
+
+    @Test
+    void mappingIsDeterministicAcrossInstances() {
+        SymbolPartitioner a = partitioner("600519.SH=5,300750.SZ=3");
+        SymbolPartitioner b = partitioner("300750.SZ=3,600519.SH=5");
+        for (int i = 0; i < SYMBOLS; i++) {
+            String symbol = symbol(i);
+            int partition = a.partition(TOPIC, symbol, 12);
+            assertThat(partition).isBetween(0, 11);
+            assertThat(b.partition(TOPIC, symbol, 12)).isEqualTo(partition);
+        }
+    }
+
+    @Test
+    void hotSymbolsArePinnedToDistinctPartitions() {
+        SymbolPartitioner partitioner = partitioner("600519.SH=5,300750.SZ=4,601318.SH=3,000858.SZ=2");
+        Set<Integer> partitions = new HashSet<>();
+        for (String symbol : new String[]{"600519.SH", "300750.SZ", "601318.SH", "000858.SZ"}) {
+            partitions.add(partitioner.partition(TOPIC, symbol, 8));
+        }
+        assertThat(partitions).hasSize(4);
+    }
+
+    @Test
+    void addingPartitionMovesOnlyAFractionOfSymbols() {
+        SymbolPartitioner partitioner = partitioner("");
+        int[] counts = new int[12];
+        int moved = 0;
+        for (int i = 0; i < SYMBOLS; i++) {
+            String symbol = symbol(i);
+            int before = partitioner.partition("before", symbol, 12);
+            int after = partitioner.partition("after", symbol, 13);
+            counts[before]++;
+            if (before != after) {
+                moved++;
+                // 迁移的标的只会进入新分区
+                assertThat(after).isEqualTo(12);
+            }
+        }
+        // 理想值 1/13 ≈ 7.7%，取模哈希约为 92%
+        assertThat(moved).isLessThan(SYMBOLS * 15 / 100);
+        for (int count : counts) {
+            assertThat(count).isBetween(SYMBOLS / 12 * 7 / 10, SYMBOLS / 12 * 13 / 10);
+        }
+    }
+
+    private static SymbolPartitioner partitioner(String hotSymbols) {
+        SymbolPartitioner partitioner = new SymbolPartitioner();
+        partitioner.configure(Map.of(SymbolPartitioner.HOT_SYMBOLS_CONFIG, hotSymbols,
+                SymbolPartitioner.STATS_INTERVAL_CONFIG, "0"));
+        return partitioner;
+    }
+
+    private static String symbol(int i) {
+        return String.format("%06d.%s", 600000 + i, i % 2 == 0 ? "SH" : "SZ");
+    }
+}
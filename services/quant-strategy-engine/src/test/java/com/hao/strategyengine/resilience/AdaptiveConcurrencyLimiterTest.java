@@ -0,0 +1,99 @@
+package com.hao.strategyengine.resilience;
+
+import com.hao.strategyengine.monitoring.RateLimitMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * AdaptiveConcurrencyLimiter 单元测试
+ *
+ * <p>使用可控时钟模拟执行耗时，覆盖在途上限拒绝、健康饱和时扩容、耗时劣化时收缩。</p>
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+            mock(RateLimitMetrics.class), new SimpleMeterRegistry(), 4, 1, 100, 10, 2.0d, 1000L, clock::get);
+
+    @Test
+    void rejectsBeyondInFlightLimit() {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            permits.add(limiter.tryAcquire("X"));
+        }
+        assertThat(permits).doesNotContainNull();
+        assertThat(limiter.tryAcquire("X")).isNull();
+
+        permits.get(0).onSuccess();
+        assertThat(limiter.tryAcquire("X")).isNotNull();
+    }
+
+    @Test
+    void seedsFromStrategyMetaAndGrowsWhenSaturatedAndHealthy() {
+        // SIG_VWAP 的 localQps = 38
+        assertThat(limiter.tryAcquire("SIG_VWAP")).isNotNull();
+        assertThat(limiter.currentLimit("SIG_VWAP")).isEqualTo(38);
+
+        runWindow("X", 4, 10 * MS, true);
+        int before = limiter.currentLimit("X");
+        runWindow("X", before, 10 * MS, true);
+
+        assertThat(limiter.currentLimit("X")).isGreaterThan(before);
+    }
+
+    @Test
+    void shrinksWhenLatencyDegrades() {
+        runWindow("X", 4, 10 * MS, true);
+        int before = limiter.currentLimit("X");
+
+        // p50 翻了 10 倍，远超 tolerance
+        runWindow("X", before, 100 * MS, true);
+        runWindow("X", before, 100 * MS, true);
+
+        assertThat(limiter.currentLimit("X")).isLessThan(before);
+    }
+
+    @Test
+    void shrinksOnFailures() {
+        runWindow("X", 4, 10 * MS, true);
+        int before = limiter.currentLimit("X");
+
+        runWindow("X", 1, 10 * MS, false);
+
+        assertThat(limiter.currentLimit("X")).isLessThan(before);
+    }
+
+    /**
+     * 以 batch 个并发为一批执行，直到凑满一个窗口（10 个样本）
+     */
+    private void runWindow(String id, int batch, long latencyNanos, boolean success) {
+        int done = 0;
+        while (done < 10) {
+            List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+            for (int i = 0; i < batch && done + permits.size() < 10; i++) {
+                AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire(id);
+                if (permit != null) {
+                    permits.add(permit);
+                }
+            }
+            clock.addAndGet(latencyNanos);
+            for (AdaptiveConcurrencyLimiter.Permit permit : permits) {
+                if (success) {
+                    permit.onSuccess();
+                } else {
+                    permit.onFailure();
+                }
+            }
+            done += permits.size();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.hao.strategyengine.resilience;
+
+import com.hao.strategyengine.common.model.core.StrategyContext;
+import com.hao.strategyengine.common.model.response.StrategyResult;
+import com.hao.strategyengine.strategy.QuantStrategy;
+import com.hao.strategyengine.strategy.decorator.CircuitBreakerDecorator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * CircuitBreakerService 单元测试
+ *
+ * <p>覆盖失败率/慢调用率触发熔断、最少样本数、半开许可限流与恢复、半开超时与 Error 不泄漏试探许可，以及并发记录下窗口计数的一致性。</p>
+ */
+class CircuitBreakerServiceTest {
+
+    private static final String NAME = "strategy:SIG_MA";
+
+    private SimpleMeterRegistry meterRegistry;
+    private CircuitBreakerService service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = new CircuitBreakerService();
+        ReflectionTestUtils.setField(service, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(service, "defaultFailureRateThreshold", 50f);
+        ReflectionTestUtils.setField(service, "defaultSlowCallRateThreshold", 80f);
+        ReflectionTestUtils.setField(service, "defaultSlowCallDurationMs", 100L);
+        ReflectionTestUtils.setField(service, "defaultWindowSize", 10);
+        ReflectionTestUtils.setField(service, "defaultMinimumCalls", 4);
+        ReflectionTestUtils.setField(service, "defaultOpenStateSeconds", 30L);
+        ReflectionTestUtils.setField(service, "defaultHalfOpenPermits", 2);
+        ReflectionTestUtils.setField(service, "defaultHalfOpenMaxWaitSeconds", 60L);
+        service.init();
+    }
+
+    @Test
+    void opensWhenFailureRateExceedsThresholdAfterMinimumCalls() {
+        service.recordFailure(NAME);
+        service.recordFailure(NAME);
+        service.recordFailure(NAME);
+        assertThat(service.allowRequest(NAME)).isTrue();
+
+        service.recordSuccess(NAME);
+        assertThat(service.getSnapshot(NAME)).get().extracting(CircuitBreakerService.CircuitBreakerSnapshot::getState)
+                .isEqualTo("OPEN");
+        assertThat(service.allowRequest(NAME)).isFalse();
+        assertThat(meterRegistry.get("circuit_breaker.state").tag("name", NAME).gauge().value()).isEqualTo(1d);
+        assertThat(meterRegistry.get("circuit_breaker.calls").tag("kind", "not_permitted").counter().count()).isEqualTo(1d);
+    }
+
+    @Test
+    void opensOnSlowCallRate() {
+        long slow = TimeUnit.MILLISECONDS.toNanos(150);
+        for (int i = 0; i < 4; i++) {
+            service.recordSuccess(NAME, slow);
+        }
+
+        assertThat(service.getSnapshot(NAME)).get().extracting(CircuitBreakerService.CircuitBreakerSnapshot::getState)
+                .isEqualTo("OPEN");
+    }
+
+    @Test
+    void halfOpenGrantsLimitedPermitsAndClosesOnHealthyProbes() {
+        service.registerBreaker(NAME, new CircuitBreakerService.CircuitBreakerConfig(
+                50f, 80f, Duration.ofMillis(100), 10, 4, Duration.ofMillis(1), 2));
+        for (int i = 0; i < 4; i++) {
+            service.recordFailure(NAME);
+        }
+        sleep(5);
+
+        assertThat(service.allowRequest(NAME)).isTrue();
+        assertThat(service.allowRequest(NAME)).isTrue();
+        assertThat(service.allowRequest(NAME)).isFalse();
+
+        // 被下游拒绝的试探归还许可
+        service.releasePermission(NAME);
+        assertThat(service.allowRequest(NAME)).isTrue();
+
+        service.recordSuccess(NAME);
+        service.recordSuccess(NAME);
+        assertThat(service.getSnapshot(NAME)).get().satisfies(s -> {
+            assertThat(s.getState()).isEqualTo("CLOSED");
+            assertThat(s.getBufferedCalls()).isZero();
+        });
+    }
+
+    @Test
+    void halfOpenReopensOnFailedProbes() {
+        service.registerBreaker(NAME, new CircuitBreakerService.CircuitBreakerConfig(
+                50f, 80f, Duration.ofMillis(100), 10, 4, Duration.ofMillis(1), 2));
+        for (int i = 0; i < 4; i++) {
+            service.recordFailure(NAME);
+        }
+        sleep(5);
+        service.allowRequest(NAME);
+        service.allowRequest(NAME);
+
+        service.recordFailure(NAME);
+        service.recordSuccess(NAME);
+
+        assertThat(service.getSnapshot(NAME)).get().extracting(CircuitBreakerService.CircuitBreakerSnapshot::getState)
+                .isEqualTo("OPEN");
+    }
+
+    @Test
+    void halfOpenReopensWhenProbesNeverReturn() {
+        service.registerBreaker(NAME, new CircuitBreakerService.CircuitBreakerConfig(
+                50f, 80f, Duration.ofMillis(100), 10, 4, Duration.ofMillis(50), 2, Duration.ofMillis(50)));
+        for (int i = 0; i < 4; i++) {
+            service.recordFailure(NAME);
+        }
+        sleep(60);
+        // 两个试探许可都被占用且始终没有结果
+        assertThat(service.allowRequest(NAME)).isTrue();
+        assertThat(service.allowRequest(NAME)).isTrue();
+        assertThat(service.allowRequest(NAME)).isFalse();
+
+        // 超过半开最长停留时间：重新打开，打开期满后重新发放试探许可
+        sleep(60);
+        assertThat(service.allowRequest(NAME)).isFalse();
+        assertThat(service.getSnapshot(NAME)).get().extracting(CircuitBreakerService.CircuitBreakerSnapshot::getState)
+                .isEqualTo("OPEN");
+        sleep(60);
+        assertThat(service.allowRequest(NAME)).isTrue();
+    }
+
+    @Test
+    void errorThrownByStrategyIsRecordedAsFailedProbe() {
+        service.registerBreaker(CircuitBreakerDecorator.BREAKER_PREFIX + "SIG_ERR", new CircuitBreakerService.CircuitBreakerConfig(
+                50f, 80f, Duration.ofMillis(100), 10, 4, Duration.ofMillis(1), 1));
+        QuantStrategy failing = new QuantStrategy() {
+            @Override
+            public String getId() {
+                return "SIG_ERR";
+            }
+
+            @Override
+            public StrategyResult execute(StrategyContext context) {
+                throw new StackOverflowError("boom");
+            }
+        };
+        CircuitBreakerDecorator decorator = new CircuitBreakerDecorator(failing, service);
+        StrategyContext ctx = StrategyContext.builder().build();
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> decorator.execute(ctx)).isInstanceOf(StackOverflowError.class);
+        }
+        sleep(5);
+
+        // 半开唯一的试探许可以 Error 结束：计为失败并重新打开，而不是泄漏许可停留在半开
+        assertThatThrownBy(() -> decorator.execute(ctx)).isInstanceOf(StackOverflowError.class);
+        assertThat(service.getSnapshot(CircuitBreakerDecorator.BREAKER_PREFIX + "SIG_ERR")).get()
+                .extracting(CircuitBreakerService.CircuitBreakerSnapshot::getState).isEqualTo("OPEN");
+    }
+
+    @Test
+    void windowCountsStayConsistentUnderConcurrency() throws Exception {
+        service.registerBreaker(NAME, new CircuitBreakerService.CircuitBreakerConfig(
+                100f, 100f, Duration.ofSeconds(10), 64, 64, Duration.ofSeconds(30), 1));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    service.recordSuccess(NAME);
+                }
+                done.countDown();
+            });
+        }
+        done.await(10, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertThat(service.getSnapshot(NAME)).get().satisfies(s -> {
+            assertThat(s.getState()).isEqualTo("CLOSED");
+            assertThat(s.getBufferedCalls()).isEqualTo(64);
+            assertThat(s.getFailureCount()).isZero();
+        });
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
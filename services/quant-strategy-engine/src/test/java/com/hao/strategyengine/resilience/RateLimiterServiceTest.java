@@ -0,0 +1,72 @@
+package com.hao.strategyengine.resilience;
+
+import com.hao.strategyengine.resilience.ratelimit.RateLimitAlgorithm;
+import com.hao.strategyengine.resilience.ratelimit.RateLimitDecision;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * RateLimiterService 单元测试
+ *
+ * <p>覆盖分布式算法委派（突发容量、retry-after 透传）、超出突发容量的直接拒绝，以及 Redis 异常时的本地降级。</p>
+ */
+class RateLimiterServiceTest {
+
+    private final RateLimitAlgorithm algorithm = mock(RateLimitAlgorithm.class);
+    private RateLimiterService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new RateLimiterService();
+        ReflectionTestUtils.setField(service, "stringRedisTemplate", mock(StringRedisTemplate.class));
+        ReflectionTestUtils.setField(service, "distributedEnabled", true);
+        ReflectionTestUtils.setField(service, "redisKeyPrefix", "rl:");
+        ReflectionTestUtils.setField(service, "defaultWindowSeconds", 1L);
+        ReflectionTestUtils.setField(service, "algorithm", "gcra");
+        service.init();
+        ReflectionTestUtils.setField(service, "distributedAlgorithm", algorithm);
+    }
+
+    @Test
+    void delegatesToAlgorithmWithBurst() {
+        when(algorithm.tryAcquire(anyString(), anyInt(), anyInt(), any(), anyInt()))
+                .thenReturn(RateLimitDecision.reject(120L));
+
+        RateLimitDecision decision = service.acquire("user:1", 2, 10, Duration.ofSeconds(1), 20);
+
+        assertThat(decision.allowed()).isFalse();
+        assertThat(decision.retryAfterMillis()).isEqualTo(120L);
+        verify(algorithm).tryAcquire(eq("rl:user:1"), eq(2), eq(10), eq(Duration.ofSeconds(1)), eq(20));
+    }
+
+    @Test
+    void permitsAboveBurstAreRejectedWithoutRedis() {
+        RateLimitDecision decision = service.acquire("global", 5, 10, Duration.ofSeconds(1), 3);
+
+        assertThat(decision.allowed()).isFalse();
+        verifyNoInteractions(algorithm);
+    }
+
+    @Test
+    void redisFailureFallsBackToLocalLimiter() {
+        when(algorithm.tryAcquire(anyString(), anyInt(), anyInt(), any(), anyInt()))
+                .thenThrow(new IllegalStateException("redis down"));
+
+        assertThat(service.tryAcquireGlobal(5)).isTrue();
+        assertThat(service.getLocalLimiterRate("global")).contains(5.0d);
+    }
+}
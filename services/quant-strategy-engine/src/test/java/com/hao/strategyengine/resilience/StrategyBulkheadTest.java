@@ -0,0 +1,114 @@
+package com.hao.strategyengine.resilience;
+
+import com.hao.strategyengine.integration.nacos.properties.BulkheadProperties;
+import com.hao.strategyengine.monitoring.RateLimitMetrics;
+import enums.strategy.StrategyMetaEnum;
+import enums.strategy.StrategyType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * StrategyBulkhead 单元测试
+ *
+ * <p>覆盖按元信息推导的分区大小、分区之间的隔离、排队上限与等待超时拒绝。</p>
+ */
+class StrategyBulkheadTest {
+
+    private static final String INFO_ID = StrategyMetaEnum.INFO_HOT_TOPIC.getId();
+    private static final String SIGNAL_ID = StrategyMetaEnum.SIG_MOVING_AVERAGE.getId();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RateLimitMetrics rateLimitMetrics = mock(RateLimitMetrics.class);
+    private BulkheadProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new BulkheadProperties();
+        BulkheadProperties.Partition info = new BulkheadProperties.Partition();
+        info.setMaxConcurrent(1);
+        info.setMaxQueue(1);
+        info.setMaxWaitMs(50L);
+        properties.getPartitions().put(StrategyType.INFORMATION, info);
+    }
+
+    @Test
+    void derivesPartitionSizeFromStrategyMeta() {
+        StrategyBulkhead bulkhead = newBulkhead();
+
+        int signalQps = 0;
+        for (StrategyMetaEnum meta : StrategyMetaEnum.values()) {
+            if (meta.getType() == StrategyType.SIGNAL) {
+                signalQps += meta.getLocalQps();
+            }
+        }
+        assertThat(bulkhead.available(StrategyType.SIGNAL)).isEqualTo(Math.min(256, signalQps));
+        assertThat(bulkhead.available(StrategyType.INFORMATION)).isEqualTo(1);
+    }
+
+    @Test
+    void saturatedPartitionDoesNotBlockOtherTypes() {
+        StrategyBulkhead bulkhead = newBulkhead();
+        StrategyBulkhead.Partition held = bulkhead.acquire(INFO_ID);
+
+        long start = System.nanoTime();
+        StrategyBulkhead.Partition signal = bulkhead.acquire(SIGNAL_ID);
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(20));
+        signal.release();
+
+        assertThatThrownBy(() -> bulkhead.acquire(INFO_ID))
+                .isInstanceOf(RejectedExecutionException.class)
+                .hasMessageContaining("wait timeout");
+        assertThat(meterRegistry.get("bulkhead.rejected").tag("strategy_type", "INFORMATION")
+                .tag("reason", "timeout").counter().count()).isEqualTo(1d);
+        verify(rateLimitMetrics).recordRateLimitReject(eq("BULKHEAD"), eq("n/a"), eq("INFORMATION"));
+        held.release();
+    }
+
+    @Test
+    void rejectsImmediatelyWhenQueueIsFull() throws Exception {
+        properties.getPartitions().get(StrategyType.INFORMATION).setMaxWaitMs(1_000L);
+        StrategyBulkhead bulkhead = newBulkhead();
+        StrategyBulkhead.Partition held = bulkhead.acquire(INFO_ID);
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> {
+            bulkhead.acquire(INFO_ID).release();
+        });
+        while (meterRegistry.get("bulkhead.queued").tag("strategy_type", "INFORMATION").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        assertThatThrownBy(() -> bulkhead.acquire(INFO_ID))
+                .isInstanceOf(RejectedExecutionException.class)
+                .hasMessageContaining("queue full");
+
+        held.release();
+        waiter.get(1, TimeUnit.SECONDS);
+        assertThat(bulkhead.available(StrategyType.INFORMATION)).isEqualTo(1);
+    }
+
+    @Test
+    void unknownStrategiesUseCompositePartition() {
+        StrategyBulkhead bulkhead = newBulkhead();
+        int before = bulkhead.available(StrategyType.COMPOSITE);
+
+        StrategyBulkhead.Partition partition = bulkhead.acquire("COMBO_USER_42");
+        assertThat(bulkhead.available(StrategyType.COMPOSITE)).isEqualTo(before - 1);
+        partition.release();
+    }
+
+    private StrategyBulkhead newBulkhead() {
+        StrategyBulkhead bulkhead = new StrategyBulkhead(properties, meterRegistry, rateLimitMetrics);
+        bulkhead.init();
+        return bulkhead;
+    }
+}
@@ -0,0 +1,150 @@
+package com.hao.strategyengine.resilience.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * QuotaLeaseManager 单元测试
+ *
+ * <p>使用内存版令牌桶替代 Redis，覆盖按块租用、拒绝后本地冷却、租约到期退回剩余许可（续租成功、被拒绝、退化为按需申请以及定期清扫）。</p>
+ */
+class QuotaLeaseManagerTest {
+
+    private static final Duration WINDOW = Duration.ofSeconds(1);
+
+    @Test
+    void servesRequestsFromLeasedBlocks() {
+        InMemoryBucket bucket = new InMemoryBucket(100);
+        QuotaLeaseManager manager = new QuotaLeaseManager(bucket, Runnable::run, 0.1d, Duration.ofSeconds(10));
+
+        int allowed = 0;
+        for (int i = 0; i < 150; i++) {
+            if (manager.tryAcquire("k", 1, 100, WINDOW, 100).allowed()) {
+                allowed++;
+            }
+        }
+
+        // 总放行量不超过桶容量，Redis 调用按块计数（10 个块 + 耗尽后的若干次拒绝）
+        assertThat(allowed).isEqualTo(100);
+        assertThat(bucket.calls.get()).isLessThanOrEqualTo(15);
+    }
+
+    @Test
+    void rejectionIsCachedUntilRetryAfter() {
+        InMemoryBucket bucket = new InMemoryBucket(0);
+        QuotaLeaseManager manager = new QuotaLeaseManager(bucket, Runnable::run, 0.1d, Duration.ofSeconds(10));
+
+        RateLimitDecision first = manager.tryAcquire("k", 1, 100, WINDOW, 100);
+        int callsAfterFirst = bucket.calls.get();
+        for (int i = 0; i < 50; i++) {
+            assertThat(manager.tryAcquire("k", 1, 100, WINDOW, 100).allowed()).isFalse();
+        }
+
+        assertThat(first.allowed()).isFalse();
+        assertThat(first.retryAfterMillis()).isPositive();
+        assertThat(bucket.calls.get()).isEqualTo(callsAfterFirst);
+    }
+
+    @Test
+    void expiredLeaseReturnsUnusedPermits() throws InterruptedException {
+        InMemoryBucket bucket = new InMemoryBucket(100);
+        QuotaLeaseManager manager = new QuotaLeaseManager(bucket, Runnable::run, 0.1d, Duration.ofMillis(20));
+
+        assertThat(manager.tryAcquire("k", 1, 100, WINDOW, 100).allowed()).isTrue();
+        assertThat(bucket.available.get()).isEqualTo(90);
+
+        Thread.sleep(40);
+        assertThat(manager.tryAcquire("k", 1, 100, WINDOW, 100).allowed()).isTrue();
+
+        // 旧租约剩余 9 个退回，新租约再取 10 个
+        assertThat(bucket.released.get()).isEqualTo(9);
+        assertThat(bucket.available.get()).isEqualTo(89);
+
+        manager.releaseAll();
+        assertThat(bucket.available.get()).isEqualTo(98);
+    }
+
+    @Test
+    void expiredLeaseIsReturnedEvenWhenTheNextRequestIsRejected() throws InterruptedException {
+        InMemoryBucket bucket = new InMemoryBucket(100);
+        QuotaLeaseManager manager = new QuotaLeaseManager(bucket, Runnable::run, 0.1d, Duration.ofMillis(20));
+        assertThat(manager.tryAcquire("k", 1, 100, WINDOW, 100).allowed()).isTrue();
+
+        // 全局预算被其他节点耗尽：续租与按需申请都被拒绝
+        bucket.rejectAll = true;
+        Thread.sleep(40);
+
+        assertThat(manager.tryAcquire("k", 1, 100, WINDOW, 100).allowed()).isFalse();
+        assertThat(bucket.released.get()).isEqualTo(9);
+
+        // 冷却期内再次访问不会重复退回
+        assertThat(manager.tryAcquire("k", 1, 100, WINDOW, 100).allowed()).isFalse();
+        assertThat(bucket.released.get()).isEqualTo(9);
+    }
+
+    @Test
+    void expiredLeaseIsReturnedWhenFallingBackToPerRequestAcquire() throws InterruptedException {
+        InMemoryBucket bucket = new InMemoryBucket(100);
+        QuotaLeaseManager manager = new QuotaLeaseManager(bucket, Runnable::run, 0.1d, Duration.ofMillis(20));
+        assertThat(manager.tryAcquire("k", 1, 100, WINDOW, 100).allowed()).isTrue();
+
+        // 其他节点取走剩余预算，退回后不足一整块，只能按需申请
+        bucket.available.set(0);
+        Thread.sleep(40);
+
+        assertThat(manager.tryAcquire("k", 1, 100, WINDOW, 100).allowed()).isTrue();
+        assertThat(bucket.released.get()).isEqualTo(9);
+        assertThat(bucket.available.get()).isEqualTo(8);
+    }
+
+    @Test
+    void sweepReturnsLeasesOfIdleKeys() throws InterruptedException {
+        InMemoryBucket bucket = new InMemoryBucket(100);
+        QuotaLeaseManager manager = new QuotaLeaseManager(bucket, Runnable::run, 0.1d, Duration.ofMillis(20));
+        assertThat(manager.tryAcquire("idle", 1, 100, WINDOW, 100).allowed()).isTrue();
+
+        // 未到期不退回
+        manager.releaseExpired();
+        assertThat(bucket.released.get()).isZero();
+
+        Thread.sleep(40);
+        manager.releaseExpired();
+        manager.releaseExpired();
+        assertThat(bucket.released.get()).isEqualTo(9);
+        assertThat(bucket.available.get()).isEqualTo(99);
+    }
+
+    /**
+     * 不补充的内存令牌桶，模拟 Redis 侧的全局预算
+     */
+    private static final class InMemoryBucket implements RateLimitAlgorithm {
+        private final AtomicLong available;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicLong released = new AtomicLong();
+        private volatile boolean rejectAll;
+
+        private InMemoryBucket(long capacity) {
+            this.available = new AtomicLong(capacity);
+        }
+
+        @Override
+        public synchronized RateLimitDecision tryAcquire(String redisKey, int permits, int limitPerWindow, Duration window, int burst) {
+            calls.incrementAndGet();
+            if (rejectAll || available.get() < permits) {
+                return RateLimitDecision.reject(500L);
+            }
+            return RateLimitDecision.allow(available.addAndGet(-permits));
+        }
+
+        @Override
+        public void release(String redisKey, int permits, int limitPerWindow, Duration window) {
+            released.addAndGet(permits);
+            available.addAndGet(permits);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.hao.strategyengine.strategy.impl.composite;
+
+import com.hao.strategyengine.common.model.core.StrategyContext;
+import com.hao.strategyengine.common.model.response.SignalRows;
+import com.hao.strategyengine.common.model.response.StrategyResult;
+import com.hao.strategyengine.strategy.QuantStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CompositeStrategy 并行模式单元测试
+ *
+ * <p>覆盖并行耗时取最大值、共振交集为空时提前结束并中断其余子策略、子策略超时、执行器拒绝与加权融合排序。</p>
+ */
+class CompositeStrategyTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void parallelLatencyIsMaxNotSum() {
+        CompositeStrategy combo = new CompositeStrategy("COMBO_BASIC", CompositeStrategy.Mode.ALL_PASS, executor, 2_000, 10);
+        combo.add(fixed("A", 300, 1, 2));
+        combo.add(fixed("B", 300, 2, 1));
+        combo.add(fixed("C", 300, 1, 2));
+
+        long start = System.currentTimeMillis();
+        StrategyResult result = combo.execute(StrategyContext.builder().build());
+
+        assertThat(System.currentTimeMillis() - start).isLessThan(800);
+        assertThat(result.isSuccess()).isTrue();
+        SignalRows rows = (SignalRows) result.getData();
+        assertThat(rows.size()).isEqualTo(2);
+    }
+
+    @Test
+    void emptyResonanceShortCircuitsAndInterruptsSlowChild() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CompositeStrategy combo = new CompositeStrategy("COMBO_BASIC", CompositeStrategy.Mode.ALL_PASS, executor, 5_000, 10);
+        combo.add(fixed("A", 0, 1));
+        combo.add(fixed("B", 50, 2));
+        combo.add(new Stub("SLOW") {
+            @Override
+            public StrategyResult execute(StrategyContext context) {
+                try {
+                    Thread.sleep(5_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return rows(getId());
+            }
+        });
+
+        long start = System.currentTimeMillis();
+        StrategyResult result = combo.execute(StrategyContext.builder().build());
+
+        assertThat(System.currentTimeMillis() - start).isLessThan(1_000);
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(((SignalRows) result.getData()).isEmpty()).isTrue();
+        assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void childDeadlineFailsAllPass() {
+        CompositeStrategy combo = new CompositeStrategy("COMBO_BASIC", CompositeStrategy.Mode.ALL_PASS, executor, 100, 10);
+        combo.add(fixed("A", 0, 1));
+        combo.add(fixed("B", 2_000, 1));
+
+        StrategyResult result = combo.execute(StrategyContext.builder().build());
+
+        assertThat(result.isSuccess()).isFalse();
+    }
+
+    @Test
+    void weightedFusionRanksByWeightedRankScore() {
+        CompositeStrategy combo = new CompositeStrategy("COMBO_ADV", CompositeStrategy.Mode.WEIGHTED_FUSION, executor, 1_000, 10);
+        combo.add(fixed("A", 0, 1, 2), 3.0);
+        combo.add(fixed("B", 0, 2, 1), 1.0);
+        combo.add(fixed("C", 2_000, 3), 1.0);
+
+        StrategyResult result = combo.execute(StrategyContext.builder().build());
+
+        assertThat(result.isSuccess()).isTrue();
+        SignalRows rows = (SignalRows) result.getData();
+        assertThat(rows.size()).isEqualTo(2);
+        assertThat(rows.symbolId(0)).isEqualTo(1);
+        assertThat(rows.score(0)).isGreaterThan(rows.score(1));
+    }
+
+    @Test
+    void rejectedChildBecomesFailedChildResult() {
+        // 第三个子策略被拒绝：加权融合仍满足法定权重，共振模式则返回失败结果，二者均不抛异常
+        AtomicInteger submitted = new AtomicInteger();
+        Executor rejectThird = task -> {
+            if (submitted.incrementAndGet() % 3 == 0) {
+                throw new RejectedExecutionException("queue full");
+            }
+            executor.execute(task);
+        };
+        CompositeStrategy fusion = new CompositeStrategy("COMBO_ADV", CompositeStrategy.Mode.WEIGHTED_FUSION, rejectThird, 1_000, 10);
+        fusion.add(fixed("A", 0, 1, 2), 3.0);
+        fusion.add(fixed("B", 0, 2, 1), 1.0);
+        fusion.add(fixed("C", 0, 3), 1.0);
+        CompositeStrategy resonance = new CompositeStrategy("COMBO_BASIC", CompositeStrategy.Mode.ALL_PASS, rejectThird, 1_000, 10);
+        resonance.add(fixed("A", 0, 1));
+        resonance.add(fixed("B", 0, 1));
+        resonance.add(fixed("C", 0, 1));
+
+        StrategyResult fused = fusion.execute(StrategyContext.builder().build());
+        StrategyResult resonated = resonance.execute(StrategyContext.builder().build());
+
+        assertThat(fused.isSuccess()).isTrue();
+        assertThat(((SignalRows) fused.getData()).size()).isEqualTo(2);
+        assertThat(resonated.isSuccess()).isFalse();
+    }
+
+    private static QuantStrategy fixed(String id, long delayMs, int... symbolIds) {
+        return new Stub(id) {
+            @Override
+            public StrategyResult execute(StrategyContext context) {
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rows(id, symbolIds);
+            }
+        };
+    }
+
+    private static StrategyResult rows(String id, int... symbolIds) {
+        SignalRows rows = new SignalRows(new String[]{"current_price"}, symbolIds.length);
+        for (int i = 0; i < symbolIds.length; i++) {
+            rows.set(rows.add(symbolIds[i], "S" + symbolIds[i], symbolIds.length - i), 0, 10);
+        }
+        return StrategyResult.builder().strategyId(id).data(rows).build();
+    }
+
+    private abstract static class Stub implements QuantStrategy {
+        private final String id;
+
+        Stub(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.hao.strategyengine.strategy.kernel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CrossSectionKernels 单元测试
+ *
+ * <p>以标量实现为基准，校验向量实现在整块与尾部、NaN 传播、阈值掩码下逐位一致。
+ * 样本长度取非 lane 整数倍，确保尾部标量循环被覆盖。</p>
+ */
+class CrossSectionKernelsTest {
+
+    private static final int N = 5_003;
+
+    private final CrossSectionKernels scalar = CrossSectionKernels.scalar();
+    private final CrossSectionKernels vector = new VectorCrossSectionKernels();
+
+    private double[] a;
+    private double[] b;
+    private double[] c;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(7);
+        a = new double[N];
+        b = new double[N];
+        c = new double[N];
+        for (int i = 0; i < N; i++) {
+            a[i] = 10 + random.nextDouble() * 90;
+            b[i] = 10 + random.nextDouble() * 90;
+            c[i] = random.nextDouble() * 2;
+        }
+        // 覆盖缺失数据与阈值分支
+        a[3] = Double.NaN;
+        b[17] = Double.NaN;
+        c[5] = 0D;
+        c[N - 1] = 1e-9;
+    }
+
+    @Test
+    void bestShouldResolveToVectorWhenModulePresent() {
+        assertThat(CrossSectionKernels.best().name()).startsWith("vector");
+    }
+
+    @Test
+    void vectorKernelsShouldMatchScalarBitForBit() {
+        assertSame((k, out) -> k.returns(a, b, out, N));
+        assertSame((k, out) -> k.zScores(a, b, c, out, N));
+        assertSame((k, out) -> k.ratios(a, c, out, N));
+        assertSame((k, out) -> k.bandBreach(a, b, c, 2.0, out, N));
+        assertSame((k, out) -> {
+            k.axpy(0.5, a, out, N);
+            k.axpy(-0.25, b, out, N);
+        });
+    }
+
+    @Test
+    void zScoresShouldYieldNaNForFlatSeries() {
+        double[] out = new double[N];
+        vector.zScores(a, b, c, out, N);
+
+        assertThat(out[5]).isNaN();
+        assertThat(out[N - 1]).isNaN();
+    }
+
+    private void assertSame(KernelCall call) {
+        double[] expected = new double[N];
+        double[] actual = new double[N];
+        call.apply(scalar, expected);
+        call.apply(vector, actual);
+        for (int i = 0; i < N; i++) {
+            assertThat(Double.doubleToLongBits(actual[i]))
+                    .as("index %d", i)
+                    .isEqualTo(Double.doubleToLongBits(expected[i]));
+        }
+    }
+
+    @FunctionalInterface
+    private interface KernelCall {
+        void apply(CrossSectionKernels kernels, double[] out);
+    }
+}
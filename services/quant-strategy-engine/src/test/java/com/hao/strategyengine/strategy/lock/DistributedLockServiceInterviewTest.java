@@ -76,7 +76,7 @@ public class DistributedLockServiceInterviewTest {
     @Test
     void shouldComputeOnceWhenLockIsAcquired() throws InterruptedException {
         // Step 1⃣ 模拟分布式锁成功获取
-        when(rLock.tryLock(eq(0L), eq(1L), eq(TimeUnit.SECONDS))).thenReturn(true);
+        when(rLock.tryLock(eq(0L), eq(-1L), eq(TimeUnit.SECONDS))).thenReturn(true);
 
         AtomicInteger computeTimes = new AtomicInteger();
         StrategyResultBundle expected = new StrategyResultBundle("combo-A", Collections.emptyList());
@@ -111,7 +111,7 @@ public class DistributedLockServiceInterviewTest {
     @Test
     void shouldWaitForExistingResultWhenLockIsHeldByOtherInstance() throws Exception {
         // Step 1⃣ 锁竞争失败，模拟其它实例已经持有锁
-        when(rLock.tryLock(eq(0L), eq(1L), eq(TimeUnit.SECONDS))).thenReturn(false);
+        when(rLock.tryLock(eq(0L), eq(-1L), eq(TimeUnit.SECONDS))).thenReturn(false);
 
         AtomicReference<StrategyResultBundle> resultRef = new AtomicReference<>();
         StrategyResultBundle expected = new StrategyResultBundle("combo-B", Collections.emptyList());
@@ -0,0 +1,111 @@
+package com.hao.strategyengine.strategy.lock;
+
+import com.hao.strategyengine.common.codec.StrategyResultCodec;
+import com.hao.strategyengine.common.model.response.StrategyResultBundle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.redisson.api.RBucket;
+import org.redisson.api.RLock;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * DistributedLockService 两级 single-flight 单元测试
+ *
+ * <p>覆盖本地并发请求只产生一次 Redis 抢锁、持锁节点广播结果、远端广播唤醒本地等待者。</p>
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DistributedLockServiceTest {
+
+    @Mock
+    private RedissonClient redissonClient;
+    @Mock
+    private RLock rLock;
+    @Mock
+    private RTopic topic;
+    @Mock
+    private RBucket<Object> bucket;
+
+    private DistributedLockService lockService;
+
+    @BeforeEach
+    void setUp() {
+        when(redissonClient.getLock(anyString())).thenReturn(rLock);
+        when(redissonClient.getTopic(anyString(), any())).thenReturn(topic);
+        when(redissonClient.getBucket(anyString(), any())).thenReturn(bucket);
+        lockService = new DistributedLockService(redissonClient);
+    }
+
+    @Test
+    void concurrentLocalCallersShareOneLockAttempt() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(rLock.tryLock(0L, -1L, TimeUnit.SECONDS)).thenReturn(true);
+        AtomicInteger computeTimes = new AtomicInteger();
+        StrategyResultBundle expected = new StrategyResultBundle("combo-A", Collections.emptyList());
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<StrategyResultBundle>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> lockService.acquireOrWait("combo-A", () -> {
+                computeTimes.incrementAndGet();
+                try {
+                    release.await(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return expected;
+            }), pool));
+        }
+        Thread.sleep(200);
+        release.countDown();
+
+        for (CompletableFuture<StrategyResultBundle> result : results) {
+            assertThat(result.get(2, TimeUnit.SECONDS)).isSameAs(expected);
+        }
+        pool.shutdown();
+        assertThat(computeTimes.get()).isEqualTo(1);
+        verify(rLock, times(1)).tryLock(0L, -1L, TimeUnit.SECONDS);
+        verify(topic).publish(eq("combo-A\n" + StrategyResultCodec.encodeToString(expected)));
+    }
+
+    @Test
+    void remoteBroadcastCompletesLocalWaiter() throws Exception {
+        when(rLock.tryLock(anyLong(), anyLong(), any())).thenReturn(false);
+        StrategyResultBundle remote = new StrategyResultBundle("combo-B", Collections.emptyList());
+
+        CompletableFuture<StrategyResultBundle> waiting = CompletableFuture.supplyAsync(() ->
+                lockService.acquireOrWait("combo-B", () -> {
+                    throw new AssertionError("锁被远端持有时不应本地计算");
+                }));
+        Thread.sleep(200);
+        lockService.onRemoteResult("combo-B\n" + StrategyResultCodec.encodeToString(remote));
+
+        assertThat(waiting.get(2, TimeUnit.SECONDS).getComboKey()).isEqualTo("combo-B");
+        verify(topic).addListener(eq(String.class), any());
+    }
+}